@@ -0,0 +1,34 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.File;
+import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Lookup;
+
+/**
+ * Defines a project without any services, which can be used where only the
+ * identity of a project matters (or the code tolerates missing services).
+ */
+final class DetachedProject implements Project {
+    private final File projectDir;
+
+    public DetachedProject(File projectDir) {
+        this.projectDir = projectDir;
+    }
+
+    @Override
+    public FileObject getProjectDirectory() {
+        // Would require the file system of NetBeans.
+        return null;
+    }
+
+    @Override
+    public Lookup getLookup() {
+        return Lookup.EMPTY;
+    }
+
+    @Override
+    public String toString() {
+        return "DetachedProject{" + projectDir + '}';
+    }
+}
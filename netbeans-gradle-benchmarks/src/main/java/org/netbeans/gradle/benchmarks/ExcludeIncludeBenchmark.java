@@ -0,0 +1,80 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.util.ExcludeInclude;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures matching the source files of every subproject against Ant style
+ * include and exclude patterns (i.e., {@code ExcludeInclude.matchesAntPattern}
+ * through its public entry point).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExcludeIncludeBenchmark {
+    private static final String[] RELATIVE_FILES = {
+        "org/example/Service.java",
+        "org/example/impl/ServiceImpl.java",
+        "org/example/impl/generated/Parser.java",
+        "org/example/internal/package-info.java",
+        "META-INF/services/org.example.Service",
+    };
+
+    @Param({"10", "100", "1000"})
+    public int projectCount;
+
+    private List<Path> sourceRoots;
+    private List<Path> files;
+    private Collection<String> excludePatterns;
+    private Collection<String> includePatterns;
+
+    @Setup
+    public void setup() {
+        SyntheticModels models = SyntheticModels.create(projectCount);
+
+        sourceRoots = new ArrayList<>();
+        files = new ArrayList<>();
+        for (int i = 0; i < projectCount; i++) {
+            File sourceRoot = SyntheticModels.getSourceRoot(models.getProjectDir(i), JavaSourceSet.NAME_MAIN);
+            for (String relativeFile: RELATIVE_FILES) {
+                sourceRoots.add(sourceRoot.toPath());
+                files.add(new File(sourceRoot, relativeFile).toPath());
+            }
+        }
+
+        excludePatterns = Arrays.asList("**/generated/**", "**/package-info.java");
+        includePatterns = Arrays.asList("**/*.java", "META-INF/**");
+    }
+
+    @Benchmark
+    public int includeFiles() {
+        int includedCount = 0;
+        for (int i = 0; i < files.size(); i++) {
+            if (ExcludeInclude.includeFile(files.get(i), sourceRoots.get(i), excludePatterns, includePatterns)) {
+                includedCount++;
+            }
+        }
+        return includedCount;
+    }
+}
@@ -0,0 +1,59 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.query.GradleClassPathProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures finding the source set of a test source file (the last source set
+ * checked) in the model of every subproject, which is done for each class path
+ * query of the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindAssociatedSourceSetBenchmark {
+    @Param({"10", "100", "1000"})
+    public int projectCount;
+
+    private List<NbJavaModel> projectModels;
+    private List<File> testFiles;
+
+    @Setup
+    public void setup() {
+        SyntheticModels models = SyntheticModels.create(projectCount);
+        projectModels = models.createJavaModels();
+
+        testFiles = new ArrayList<>(projectCount);
+        for (int i = 0; i < projectCount; i++) {
+            File sourceRoot = SyntheticModels.getSourceRoot(models.getProjectDir(i), JavaSourceSet.NAME_TEST);
+            testFiles.add(new File(sourceRoot, "org/example/ServiceTest.java"));
+        }
+    }
+
+    @Benchmark
+    public void findTestSourceSets(Blackhole blackhole) {
+        for (int i = 0; i < testFiles.size(); i++) {
+            blackhole.consume(GradleClassPathProvider.findAssociatedSourceSet(projectModels.get(i), testFiles.get(i)));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.project.model.GradleModelCache;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the model cache when the models of the subprojects are read by
+ * several threads while another thread keeps replacing them (like when
+ * projects are being reloaded while the IDE is querying them).
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradleModelCacheBenchmark {
+    @Param({"10", "100", "1000"})
+    public int projectCount;
+
+    private List<NbGradleModel> models;
+    private File[] projectDirs;
+    private GradleModelCache cache;
+
+    @Setup
+    public void setup() {
+        models = SyntheticModels.create(projectCount).createGradleModels();
+
+        projectDirs = new File[models.size()];
+        cache = new GradleModelCache(models.size());
+        for (int i = 0; i < projectDirs.length; i++) {
+            NbGradleModel model = models.get(i);
+            projectDirs[i] = model.getProjectDir();
+            cache.replaceEntry(model);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index = 0;
+
+        public int next(int count) {
+            int result = index;
+            index = result + 1 < count ? result + 1 : 0;
+            return result;
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public NbGradleModel tryGet(Cursor cursor) {
+        return cache.tryGet(projectDirs[cursor.next(projectDirs.length)], null);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void replaceEntry(Cursor cursor) {
+        cache.replaceEntry(models.get(cursor.next(projectDirs.length)));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public NbGradleModel updateEntry(Cursor cursor) {
+        return cache.updateEntry(models.get(cursor.next(projectDirs.length)));
+    }
+}
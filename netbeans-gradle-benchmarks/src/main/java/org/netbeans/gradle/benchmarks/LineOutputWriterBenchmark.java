@@ -0,0 +1,66 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.project.output.LineOutputWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures splitting the output of a build into lines, where the output is
+ * written in buffer sized chunks (as it is forwarded from the daemon).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineOutputWriterBenchmark {
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    @Param({"10", "100", "1000"})
+    public int projectCount;
+
+    private char[] buildOutput;
+
+    @Setup
+    public void setup() {
+        List<String> lines = SyntheticModels.create(projectCount).createBuildLog();
+        buildOutput = String.join("\n", lines).toCharArray();
+    }
+
+    @Benchmark
+    public int writeBuildOutput() throws IOException {
+        LineCounter lineCounter = new LineCounter();
+        try (LineOutputWriter writer = new LineOutputWriter(lineCounter)) {
+            for (int offset = 0; offset < buildOutput.length; offset += CHUNK_SIZE) {
+                writer.write(buildOutput, offset, Math.min(CHUNK_SIZE, buildOutput.length - offset));
+            }
+        }
+        return lineCounter.charCount;
+    }
+
+    private static final class LineCounter implements LineOutputWriter.Handler {
+        private int charCount = 0;
+
+        @Override
+        public void writeLine(String line) {
+            charCount += line.length();
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
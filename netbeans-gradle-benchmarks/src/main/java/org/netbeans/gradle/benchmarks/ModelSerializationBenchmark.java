@@ -0,0 +1,53 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.model.util.SerializationCache;
+import org.netbeans.gradle.model.util.SerializationUtils;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures serializing and deserializing the Java models of all the subprojects
+ * (as done when the models are transferred from the daemon and when they are
+ * persisted).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelSerializationBenchmark {
+    @Param({"10", "100", "1000"})
+    public int projectCount;
+
+    private ArrayList<NbJavaModel> javaModels;
+    private byte[] serializedModels;
+
+    @Setup
+    public void setup() {
+        javaModels = new ArrayList<>(SyntheticModels.create(projectCount).createJavaModels());
+        serializedModels = SerializationUtils.serializeObject(javaModels);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return SerializationUtils.serializeObject(javaModels);
+    }
+
+    @Benchmark
+    public Object deserialize() throws ClassNotFoundException {
+        return SerializationUtils.deserializeObject(serializedModels, SerializationCache.NO_CACHE);
+    }
+}
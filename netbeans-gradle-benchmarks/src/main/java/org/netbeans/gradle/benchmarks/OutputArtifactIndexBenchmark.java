@@ -0,0 +1,110 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.project.event.GenericChangeListenerManager;
+import org.netbeans.gradle.project.java.model.JavaOutputArtifactIndex;
+import org.netbeans.gradle.project.java.model.JavaProjectDependencies;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.ProjectDependencyCandidate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures translating the class path entries of every subproject to project
+ * dependencies, with the owners found in the index. The baseline translates
+ * them with an index not knowing any project, so that the owner of every entry
+ * within the build is looked up by the fallback query. The fallback query looks
+ * up each parent directory of an entry in the map of project directories, which
+ * is how {@code FileOwnerQuery} finds the owner (not counting its additional
+ * overhead).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputArtifactIndexBenchmark {
+    @Param({"10", "100", "1000"})
+    public int projectCount;
+
+    @Param({"true", "false"})
+    public boolean modelsLoaded;
+
+    private List<NbJavaModule> modules;
+    private File buildRootDir;
+    private JavaOutputArtifactIndex index;
+    private JavaOutputArtifactIndex emptyIndex;
+    private Map<File, Project> projectDirs;
+
+    @Setup
+    public void setup() {
+        SyntheticModels models = SyntheticModels.create(projectCount);
+
+        modules = models.getModules();
+        buildRootDir = models.getRootDir();
+        index = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+        emptyIndex = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+        projectDirs = new HashMap<>();
+
+        for (int i = 0; i < projectCount; i++) {
+            File projectDir = models.getProjectDir(i);
+            Project project = new DetachedProject(projectDir);
+
+            index.addProject(project, projectDir);
+            if (modelsLoaded) {
+                index.updateOutputs(project, modules.get(i));
+            }
+            projectDirs.put(projectDir, project);
+        }
+    }
+
+    @Benchmark
+    public int translateWithIndex() {
+        return translateAll(index);
+    }
+
+    @Benchmark
+    public int translateWithFallbackOnly() {
+        return translateAll(emptyIndex);
+    }
+
+    private int translateAll(JavaOutputArtifactIndex outputIndex) {
+        int dependencyCount = 0;
+        for (NbJavaModule module: modules) {
+            Map<File, ProjectDependencyCandidate> dependencies = JavaProjectDependencies.translateDependencies(
+                    module,
+                    outputIndex,
+                    buildRootDir,
+                    this::findOwnerByParentDirs,
+                    Collections.<File, ProjectDependencyCandidate>emptyMap());
+            dependencyCount += dependencies.size();
+        }
+        return dependencyCount;
+    }
+
+    private Project findOwnerByParentDirs(File file) {
+        for (File dir = file; dir != null; dir = dir.getParentFile()) {
+            Project owner = projectDirs.get(dir);
+            if (owner != null) {
+                return owner;
+            }
+        }
+        return null;
+    }
+}
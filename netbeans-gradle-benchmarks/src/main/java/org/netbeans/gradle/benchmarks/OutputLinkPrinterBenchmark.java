@@ -0,0 +1,82 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.project.output.FileLineConsumer;
+import org.netbeans.gradle.project.output.OutputLinkPrinter;
+import org.netbeans.gradle.project.output.OutputUrlConsumer;
+import org.netbeans.gradle.project.output.RegexpFileLineConsumer;
+import org.netbeans.gradle.project.output.StackTraceConsumer;
+import org.netbeans.gradle.project.output.SubPathConsumer;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures looking for links in the lines of a build log with the same link
+ * finders as used for the error output of a task (the project has no class
+ * path, so stack trace lines are parsed but never turned into links).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputLinkPrinterBenchmark {
+    @Param({"10", "100", "1000"})
+    public int projectCount;
+
+    private List<String> buildLog;
+    private OutputLinkPrinter linkPrinter;
+    private InputOutput io;
+    private OutputWriter output;
+
+    @Setup
+    @SuppressWarnings("deprecation")
+    public void setup() {
+        SyntheticModels models = SyntheticModels.create(projectCount);
+        buildLog = models.createBuildLog();
+
+        List<Path> projectRoots = new ArrayList<>(projectCount + 1);
+        projectRoots.add(models.getRootDir().toPath());
+        for (int i = 0; i < projectCount; i++) {
+            projectRoots.add(models.getProjectDir(i).toPath());
+        }
+
+        linkPrinter = new OutputLinkPrinter(
+                new StackTraceConsumer(new DetachedProject(models.getRootDir())),
+                new OutputUrlConsumer(),
+                SubPathConsumer.pathLinks(projectRoots),
+                new FileLineConsumer(),
+                new RegexpFileLineConsumer());
+
+        // Discards everything written to it.
+        io = InputOutput.NULL;
+        output = io.getOut();
+    }
+
+    @Benchmark
+    public int consumeBuildLog() throws IOException {
+        int linkLineCount = 0;
+        for (String line: buildLog) {
+            if (linkPrinter.tryConsumeLine(line, io, output)) {
+                linkLineCount++;
+            }
+        }
+        return linkLineCount;
+    }
+}
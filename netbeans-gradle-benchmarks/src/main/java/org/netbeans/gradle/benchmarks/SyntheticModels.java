@@ -0,0 +1,261 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.GradleTaskID;
+import org.netbeans.gradle.model.ProjectId;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.model.java.JavaTestTask;
+import org.netbeans.gradle.project.java.model.JavaModelSource;
+import org.netbeans.gradle.project.java.model.NbCodeCoverage;
+import org.netbeans.gradle.project.java.model.NbJarOutput;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.model.NbGradleMultiProjectDef;
+import org.netbeans.gradle.project.model.NbGradleProjectTree;
+import org.netbeans.gradle.project.util.GradleVersions;
+
+/**
+ * Generates models of a multi-project build without evaluating any build
+ * script. The generated files do not exist, so the models can only be used
+ * by code not accessing the file system.
+ * <P>
+ * Every subproject has a {@code main} and a {@code test} source set, depends on
+ * a fixed set of external libraries and on a few of the previously generated
+ * subprojects (like a typical layered build).
+ */
+public final class SyntheticModels {
+    private static final int EXTERNAL_LIBRARY_COUNT = 200;
+    private static final int LIBRARIES_PER_PROJECT = 20;
+    private static final int PROJECT_DEPENDENCIES_PER_PROJECT = 10;
+    private static final String[] TASK_NAMES = {"assemble", "build", "check", "classes", "clean", "compileJava", "jar", "test"};
+
+    private final File rootDir;
+    private final List<File> externalLibraries;
+    private final List<NbJavaModule> modules;
+
+    public SyntheticModels(File rootDir, int projectCount) {
+        this.rootDir = rootDir;
+        this.externalLibraries = createExternalLibraries(rootDir, EXTERNAL_LIBRARY_COUNT);
+        this.modules = new ArrayList<>(projectCount);
+        for (int i = 0; i < projectCount; i++) {
+            modules.add(createModule(i));
+        }
+    }
+
+    public static SyntheticModels create(int projectCount) {
+        return new SyntheticModels(new File(System.getProperty("java.io.tmpdir"), "synthetic-build"), projectCount);
+    }
+
+    private static List<File> createExternalLibraries(File rootDir, int count) {
+        File cacheDir = new File(new File(rootDir, ".gradle-cache"), "files-2.1");
+        List<File> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String group = "org.example.group" + (i % 17);
+            String name = "library" + i;
+            File versionDir = new File(new File(new File(cacheDir, group), name), "1." + i);
+            result.add(new File(new File(versionDir, Integer.toHexString(group.hashCode() ^ i)), name + "-1." + i + ".jar"));
+        }
+        return result;
+    }
+
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    public int getProjectCount() {
+        return modules.size();
+    }
+
+    public List<NbJavaModule> getModules() {
+        return Collections.unmodifiableList(modules);
+    }
+
+    public File getProjectDir(int projectIndex) {
+        return new File(rootDir, getProjectName(projectIndex));
+    }
+
+    private static String getProjectName(int projectIndex) {
+        return "subproject" + projectIndex;
+    }
+
+    public static File getSourceRoot(File projectDir, String sourceSetName) {
+        return new File(new File(new File(projectDir, "src"), sourceSetName), "java");
+    }
+
+    public static File getClassesDir(File projectDir, String sourceSetName) {
+        return new File(new File(new File(new File(projectDir, "build"), "classes"), "java"), sourceSetName);
+    }
+
+    public static File getJar(File projectDir) {
+        return new File(new File(new File(projectDir, "build"), "libs"), projectDir.getName() + ".jar");
+    }
+
+    private GenericProjectProperties createProperties(int projectIndex) {
+        String name = getProjectName(projectIndex);
+        File projectDir = getProjectDir(projectIndex);
+        return new GenericProjectProperties(
+                new ProjectId("org.example", name, "1.0"),
+                ":" + name,
+                projectDir,
+                new File(projectDir, "build.gradle"),
+                new File(projectDir, "build"));
+    }
+
+    private NbJavaModule createModule(int projectIndex) {
+        File projectDir = getProjectDir(projectIndex);
+
+        Set<File> mainClassPath = new LinkedHashSet<>();
+        for (int i = 0; i < LIBRARIES_PER_PROJECT; i++) {
+            mainClassPath.add(externalLibraries.get((projectIndex * 7 + i) % externalLibraries.size()));
+        }
+        for (int i = Math.max(0, projectIndex - PROJECT_DEPENDENCIES_PER_PROJECT); i < projectIndex; i++) {
+            mainClassPath.add(getJar(getProjectDir(i)));
+        }
+
+        File mainClassesDir = getClassesDir(projectDir, JavaSourceSet.NAME_MAIN);
+        Set<File> testClassPath = new LinkedHashSet<>(mainClassPath);
+        testClassPath.add(mainClassesDir);
+        testClassPath.add(externalLibraries.get(0));
+
+        Collection<JavaSourceSet> sources = Arrays.asList(
+                createSourceSet(projectDir, JavaSourceSet.NAME_MAIN, mainClassPath),
+                createSourceSet(projectDir, JavaSourceSet.NAME_TEST, testClassPath));
+
+        List<NbJarOutput> jarOutputs = Collections.singletonList(new NbJarOutput(
+                "jar",
+                getJar(projectDir),
+                Collections.singleton(mainClassesDir)));
+
+        return new NbJavaModule(
+                createProperties(projectIndex),
+                new JavaCompatibilityModel("1.8", "1.8"),
+                sources,
+                Collections.<NbListedDir>emptyList(),
+                jarOutputs,
+                new JavaTestModel(Collections.<JavaTestTask>emptyList()),
+                NbCodeCoverage.NO_CODE_COVERAGE);
+    }
+
+    private static JavaSourceSet createSourceSet(File projectDir, String name, Set<File> classPath) {
+        File resourcesDir = new File(new File(new File(projectDir, "build"), "resources"), name);
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(name, new JavaOutputDirs(
+                Collections.singleton(getClassesDir(projectDir, name)),
+                resourcesDir,
+                Collections.<File>emptyList()));
+
+        File sourceRoot = getSourceRoot(projectDir, name);
+        File resourceRoot = new File(sourceRoot.getParentFile(), "resources");
+        result.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.JAVA, Collections.singletonList(sourceRoot)));
+        result.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.RESOURCES, Collections.singletonList(resourceRoot)));
+        result.setClasspaths(new JavaClassPaths(classPath));
+        return result.create();
+    }
+
+    public List<NbJavaModel> createJavaModels() {
+        List<NbJavaModel> result = new ArrayList<>(modules.size());
+        for (NbJavaModule module: modules) {
+            result.add(NbJavaModel.createModel(GradleVersions.DEFAULT_TARGET, JavaModelSource.GRADLE_1_8_API, module));
+        }
+        return result;
+    }
+
+    private NbGradleProjectTree createProjectTree(int projectIndex, Collection<NbGradleProjectTree> children) {
+        GenericProjectProperties properties = createProperties(projectIndex);
+
+        List<GradleTaskID> tasks = new ArrayList<>(TASK_NAMES.length);
+        for (String taskName: TASK_NAMES) {
+            tasks.add(new GradleTaskID(taskName, properties.getProjectFullName() + ":" + taskName));
+        }
+        return new NbGradleProjectTree(properties, tasks, children);
+    }
+
+    /**
+     * Creates the generic models of all the subprojects of the build. The
+     * returned models have no settings file, so they can be put into the
+     * model cache without resolving the settings file.
+     */
+    public List<NbGradleModel> createGradleModels() {
+        List<NbGradleProjectTree> children = new ArrayList<>(modules.size());
+        for (int i = 0; i < modules.size(); i++) {
+            children.add(createProjectTree(i, Collections.<NbGradleProjectTree>emptyList()));
+        }
+
+        GenericProjectProperties rootProperties = new GenericProjectProperties(
+                new ProjectId("org.example", rootDir.getName(), "1.0"),
+                ":",
+                rootDir,
+                new File(rootDir, "build.gradle"),
+                new File(rootDir, "build"));
+        NbGradleProjectTree rootTree = new NbGradleProjectTree(
+                rootProperties,
+                Collections.<GradleTaskID>emptyList(),
+                children);
+
+        List<NbGradleModel> result = new ArrayList<>(children.size());
+        for (NbGradleProjectTree child: children) {
+            result.add(new NbGradleModel(new NbGradleMultiProjectDef(rootTree, child), null));
+        }
+        return result;
+    }
+
+    /**
+     * Creates the output of a build of all the subprojects with compiler warnings,
+     * a failing test and a few download progress messages: Most of the lines are
+     * not links but some of them are.
+     */
+    public List<String> createBuildLog() {
+        List<String> result = new ArrayList<>();
+        result.add("Starting a Gradle Daemon (subsequent builds will be faster)");
+        result.add("Download https://repo.maven.apache.org/maven2/org/example/library0/1.0/library0-1.0.pom");
+
+        for (int i = 0; i < modules.size(); i++) {
+            String name = getProjectName(i);
+            File sourceRoot = getSourceRoot(getProjectDir(i), JavaSourceSet.NAME_MAIN);
+
+            result.add("> Task :" + name + ":compileJava");
+            if (i % 5 == 0) {
+                File sourceFile = new File(sourceRoot, "org/example/" + name + "/Service.java");
+                result.add(sourceFile.getPath() + ":" + (10 + i % 90) + ": warning: [unchecked] unchecked conversion");
+                result.add("        List<String> values = new ArrayList();");
+                result.add("                              ^");
+            }
+            result.add("> Task :" + name + ":processResources NO-SOURCE");
+            result.add("> Task :" + name + ":classes");
+            result.add("> Task :" + name + ":jar");
+            result.add("> Task :" + name + ":test");
+
+            if (i % 10 == 0) {
+                result.add("");
+                result.add("org.example." + name + ".ServiceTest > testService FAILED");
+                result.add("    java.lang.AssertionError: expected:<1> but was:<2>");
+                result.add("        at org.junit.Assert.fail(Assert.java:88)");
+                result.add("        at org.junit.Assert.failNotEquals(Assert.java:834)");
+                result.add("        at org.example." + name + ".ServiceTest.testService(ServiceTest.java:42)");
+                result.add("");
+                result.add("There were failing tests. See the report at: file://"
+                        + new File(getProjectDir(i), "build/reports/tests/test/index.html").getPath());
+            }
+        }
+
+        result.add("");
+        result.add("BUILD FAILED in 1m 23s");
+        result.add(modules.size() * 5 + " actionable tasks: " + modules.size() * 5 + " executed");
+        return result;
+    }
+}
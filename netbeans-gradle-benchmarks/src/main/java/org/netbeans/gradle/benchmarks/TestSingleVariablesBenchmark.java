@@ -0,0 +1,202 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.cancel.Cancellation;
+import org.netbeans.gradle.project.api.task.TaskVariable;
+import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.tasks.vars.CachingVariableMap;
+import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableDef;
+import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableValue;
+import org.netbeans.gradle.project.tasks.vars.VariableResolver;
+import org.netbeans.gradle.project.tasks.vars.VariableResolvers;
+import org.netbeans.gradle.project.tasks.vars.VariableValueCache;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.spi.project.SingleMethod;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures replacing the variables in the arguments of the "test single"
+ * command, as done each time the user reruns the same test.
+ * <P>
+ * The {@code selected-class} variable finds the source root of the selected
+ * file by probing the file system, like the real variable does through the
+ * source groups of the project. The previous behaviour is measured by
+ * resolving the templates with a new resolver (parsing every template again)
+ * without a {@link VariableValueCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestSingleVariablesBenchmark {
+    private static final TaskVariable PROJECT = new TaskVariable("project");
+    private static final TaskVariable TEST_TASK_NAME = new TaskVariable("test-task-name");
+    private static final TaskVariable TEST_TASK_NAME_CAPITAL = new TaskVariable("test-task-name-capital");
+    private static final TaskVariable SELECTED_CLASS = new TaskVariable("selected-class");
+    private static final TaskVariable TEST_CLASSES_STARED_ARGS = new TaskVariable("test-classes-stared-args");
+
+    private static final List<String> TEST_SINGLE_ARGUMENTS = Arrays.asList(
+            "${project}:clean${test-task-name-capital}",
+            "${project}:${test-task-name}",
+            "${test-classes-stared-args}",
+            "-Pdescription=${selected-class[string]: Selected class}");
+
+    private static final String TEST_FILE = "org/example/service/ServiceTest.java";
+
+    @Param({"4", "16"})
+    public int sourceRootCount;
+
+    private Path projectDir;
+    private SourceRoots project;
+    private Map<TaskVariable, VariableDef<SourceRoots>> variableDefs;
+    private Lookup actionContext;
+    private VariableValueCache valueCache;
+    private Object modelVersion;
+
+    @Setup
+    public void setup() throws IOException {
+        projectDir = Files.createTempDirectory("test-single-benchmark");
+
+        List<File> roots = new ArrayList<>(sourceRootCount);
+        for (int i = 0; i < sourceRootCount; i++) {
+            // The test root is the last one to be checked.
+            String rootName = i == sourceRootCount - 1 ? "test" : "main" + i;
+            Path root = projectDir.resolve("src").resolve(rootName).resolve("java");
+            Files.createDirectories(root);
+            roots.add(root.toFile());
+        }
+
+        Path testFile = projectDir.resolve("src/test/java").resolve(TEST_FILE);
+        Files.createDirectories(testFile.getParent());
+        Files.createFile(testFile);
+
+        project = new SourceRoots(projectDir.toFile(), roots);
+        variableDefs = createVariableDefs();
+
+        FileObject testFileObj = FileUtil.createData(FileUtil.createMemoryFileSystem().getRoot(), "src/test/java/" + TEST_FILE);
+        actionContext = Lookups.fixed(new SingleMethod(testFileObj, "testService"));
+
+        valueCache = new VariableValueCache();
+        modelVersion = new Object();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, projectDir);
+    }
+
+    private static Map<TaskVariable, VariableDef<SourceRoots>> createVariableDefs() {
+        Map<TaskVariable, VariableDef<SourceRoots>> result = new HashMap<>();
+        addVariable(result, PROJECT, false, (variables, project, actionContext) -> {
+            return new VariableValue(":service");
+        });
+        addVariable(result, TEST_TASK_NAME, false, (variables, project, actionContext) -> {
+            return new VariableValue("test");
+        });
+        addVariable(result, TEST_TASK_NAME_CAPITAL, false, (variables, project, actionContext) -> {
+            return new VariableValue("Test");
+        });
+        addVariable(result, SELECTED_CLASS, true, (variables, project, actionContext) -> {
+            return new VariableValue(project.tryGetClassName(actionContext));
+        });
+        addVariable(result, TEST_CLASSES_STARED_ARGS, true, (variables, project, actionContext) -> {
+            String selectedClass = variables.tryGetValueForVariable(SELECTED_CLASS);
+            return new VariableValue(selectedClass != null ? "--tests " + selectedClass + "*" : null);
+        });
+        return result;
+    }
+
+    private static void addVariable(
+            Map<TaskVariable, VariableDef<SourceRoots>> defs,
+            TaskVariable variable,
+            boolean reusable,
+            CachingVariableMap.ValueGetter<SourceRoots> valueGetter) {
+        defs.put(variable, new VariableDef<>(variable, valueGetter, reusable));
+    }
+
+    private static void resolveArguments(VariableResolver resolver, TaskVariableMap variables, Blackhole blackhole) {
+        for (String argument: TEST_SINGLE_ARGUMENTS) {
+            blackhole.consume(resolver.replaceVars(argument, variables));
+        }
+    }
+
+    @Benchmark
+    public void previousResolution(Blackhole blackhole) {
+        TaskVariableMap variables = new CachingVariableMap<>(variableDefs::get, project, actionContext);
+        resolveArguments(VariableResolvers.createLenientVariableResolver(), variables, blackhole);
+    }
+
+    @Benchmark
+    public void compiledTemplates(Blackhole blackhole) {
+        TaskVariableMap variables = new CachingVariableMap<>(variableDefs::get, project, actionContext);
+        resolveArguments(VariableResolvers.getLenientVariableResolver(), variables, blackhole);
+    }
+
+    @Benchmark
+    public void compiledTemplatesWithValueCache(Blackhole blackhole) {
+        TaskVariableMap variables = new CachingVariableMap<>(variableDefs::get, project, actionContext, valueCache, modelVersion);
+        resolveArguments(VariableResolvers.getLenientVariableResolver(), variables, blackhole);
+    }
+
+    private static final class SourceRoots {
+        private final File projectDir;
+        private final List<File> roots;
+
+        public SourceRoots(File projectDir, List<File> roots) {
+            this.projectDir = projectDir;
+            this.roots = roots;
+        }
+
+        public String tryGetClassName(Lookup actionContext) {
+            SingleMethod method = actionContext.lookup(SingleMethod.class);
+            if (method == null) {
+                return null;
+            }
+
+            File file = new File(projectDir, method.getFile().getPath());
+            if (!file.isFile()) {
+                return null;
+            }
+
+            for (File root: roots) {
+                if (!root.isDirectory()) {
+                    continue;
+                }
+
+                Path relPath = root.toPath().relativize(file.toPath());
+                if (!relPath.startsWith("..")) {
+                    String relName = relPath.toString().replace(File.separatorChar, '.');
+                    return relName.substring(0, relName.lastIndexOf('.'));
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.netbeans.gradle.model;
 
 import java.io.Serializable;
 import java.util.Map;
+import org.netbeans.gradle.model.internal.ArtifactTable;
 import org.netbeans.gradle.model.internal.CustomSerializedMap;
 import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.model.util.TransferableExceptionWrapper;
@@ -11,19 +12,23 @@ final class ActionFetchedProjectModels implements Serializable {
 
     private final GradleMultiProjectDef projectDef;
     private final CustomSerializedMap projectInfoResults;
+    private final ArtifactTable.Segment artifacts;
     private final Map<Class<?>, Object> toolingModels;
     private final Throwable issue;
 
     public ActionFetchedProjectModels(
             GradleMultiProjectDef projectDef,
             CustomSerializedMap projectInfoResults,
+            ArtifactTable.Segment artifacts,
             Map<Class<?>, Object> toolingModels,
             Throwable issue) {
         if (projectDef == null) throw new NullPointerException("projectDef");
         if (projectInfoResults == null) throw new NullPointerException("projectInfoResults");
+        if (artifacts == null) throw new NullPointerException("artifacts");
 
         this.projectDef = projectDef;
         this.projectInfoResults = projectInfoResults;
+        this.artifacts = artifacts;
         this.toolingModels = CollectionUtils.copyNullSafeHashMap(toolingModels);
         this.issue = TransferableExceptionWrapper.wrap(issue);
     }
@@ -40,6 +45,10 @@ final class ActionFetchedProjectModels implements Serializable {
         return projectInfoResults;
     }
 
+    public ArtifactTable.Segment getArtifacts() {
+        return artifacts;
+    }
+
     public Map<Class<?>, Object> getToolingModels() {
         return toolingModels;
     }
@@ -24,6 +24,7 @@ import org.gradle.tooling.model.DomainObjectSet;
 import org.gradle.tooling.model.gradle.BasicGradleProject;
 import org.gradle.tooling.model.gradle.GradleBuild;
 import org.netbeans.gradle.model.api.GradleProjectInfoQuery2;
+import org.netbeans.gradle.model.internal.ArtifactTable;
 import org.netbeans.gradle.model.internal.CustomSerializedMap;
 import org.netbeans.gradle.model.internal.ModelQueryInput;
 import org.netbeans.gradle.model.internal.ModelQueryOutput;
@@ -59,14 +60,26 @@ public final class GenericModelFetcher {
     // TODO: These classes must be key based as well.
     private final Set<Class<?>> modelClasses;
 
+    private final TaskListingMode taskListingMode;
+
     public GenericModelFetcher(
             Map<Object, List<GradleBuildInfoQuery<?>>> buildInfoRequests,
             Map<Object, List<GradleProjectInfoQuery2<?>>> projectInfoRequests,
             Collection<Class<?>> modelClasses) {
+        this(buildInfoRequests, projectInfoRequests, modelClasses, TaskListingMode.REGISTERED_NAMES);
+    }
+
+    public GenericModelFetcher(
+            Map<Object, List<GradleBuildInfoQuery<?>>> buildInfoRequests,
+            Map<Object, List<GradleProjectInfoQuery2<?>>> projectInfoRequests,
+            Collection<Class<?>> modelClasses,
+            TaskListingMode taskListingMode) {
+        if (taskListingMode == null) throw new NullPointerException("taskListingMode");
 
         this.buildInfoBuilders = GradleInfoQueryMap.fromBuildInfos(buildInfoRequests);
         this.projectInfoBuilders = GradleInfoQueryMap.fromProjectInfos(projectInfoRequests);
         this.modelClasses = Collections.unmodifiableSet(new HashSet<Class<?>>(modelClasses));
+        this.taskListingMode = taskListingMode;
 
         CollectionUtils.checkNoNullElements(this.modelClasses, "modelClasses");
     }
@@ -120,12 +133,31 @@ public final class GenericModelFetcher {
         Map<Object, List<?>> buildModels = buildInfoBuilders.deserializeResults(
                 actionModels.getBuildModels(),
                 GradleInfoQueryMap.builderIssueTransformer());
-        FetchedProjectModels defaultProjectModels
-                = transformActionModels(actionModels.getDefaultProjectModels());
-        Collection<FetchedProjectModels> otherProjectModels
-                = transformActionModels(actionModels.getOtherProjectModels());
 
-        return new FetchedModels(new FetchedBuildModels(buildModels), defaultProjectModels, otherProjectModels);
+        // The models of a project might reference files first seen in any
+        // other project of the build.
+        ArtifactTable.Decoder artifactDecoder = ArtifactTable.startDecoding(getArtifacts(actionModels));
+        try {
+            FetchedProjectModels defaultProjectModels
+                    = transformActionModels(actionModels.getDefaultProjectModels());
+            Collection<FetchedProjectModels> otherProjectModels
+                    = transformActionModels(actionModels.getOtherProjectModels());
+
+            return new FetchedModels(new FetchedBuildModels(buildModels), defaultProjectModels, otherProjectModels);
+        } finally {
+            artifactDecoder.close();
+        }
+    }
+
+    private static List<ArtifactTable.Segment> getArtifacts(ActionFetchedModels actionModels) {
+        Collection<ActionFetchedProjectModels> otherProjectModels = actionModels.getOtherProjectModels();
+
+        List<ArtifactTable.Segment> result = new ArrayList<ArtifactTable.Segment>(otherProjectModels.size() + 1);
+        result.add(actionModels.getDefaultProjectModels().getArtifacts());
+        for (ActionFetchedProjectModels projectModels: otherProjectModels) {
+            result.add(projectModels.getArtifacts());
+        }
+        return result;
     }
 
     public FetchedModelsOrError getModels(ProjectConnection connection, OperationInitializer init) throws IOException {
@@ -149,13 +181,13 @@ public final class GenericModelFetcher {
 
         TemporaryFileManager fileManager = TemporaryFileManager.getDefault();
 
-        ModelQueryInput modelInput = new ModelQueryInput(projectInfoBuilders.getSerializableBuilderMap());
-        TemporaryFileRef modelInputFile = fileManager.createFileFromSerialized(modelInputPrefix, modelInput);
+        ModelQueryInput modelInput = new ModelQueryInput(projectInfoBuilders.getSerializableBuilderMap(), taskListingMode);
+        TemporaryFileRef modelInputFile = fileManager.createRetainedFileFromSerialized(modelInputPrefix, modelInput);
         try {
             initScript = initScript.replace("$INPUT_FILE", toPastableString(modelInputFile.getFile()));
 
             TemporaryFileRef initScriptRef = fileManager
-                    .createFile(initScriptPrefix, initScript, INIT_SCRIPT_ENCODING);
+                    .createRetainedFile(initScriptPrefix, initScript, INIT_SCRIPT_ENCODING);
             try {
                 String[] executerArgs = new String[userArgs.length + 2];
                 System.arraycopy(userArgs, 0, executerArgs, 0, userArgs.length);
@@ -491,6 +523,7 @@ public final class GenericModelFetcher {
             return new ActionFetchedProjectModels(
                     new GradleMultiProjectDef(rootTree, projectTree),
                     modelOutput.getProjectInfoResults(),
+                    modelOutput.getArtifacts(),
                     toolingModels,
                     modelOutput.getIssue());
         }
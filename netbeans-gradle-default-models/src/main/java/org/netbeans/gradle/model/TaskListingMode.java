@@ -0,0 +1,19 @@
+package org.netbeans.gradle.model;
+
+/**
+ * Defines how the tasks of a project are listed when loading the models of the project.
+ */
+public enum TaskListingMode {
+    /**
+     * Tasks are listed by their names in the task container, without creating or
+     * configuring tasks registered lazily (i.e., without realizing them).
+     */
+    REGISTERED_NAMES,
+
+    /**
+     * Every task is realized and the listed tasks are read from the task objects. This
+     * is how tasks were listed in earlier versions and might be necessary if some plugin
+     * adds tasks only when other tasks are configured.
+     */
+    REALIZED_TASKS
+}
@@ -0,0 +1,229 @@
+package org.netbeans.gradle.model.internal;
+
+import java.io.File;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Assigns a build-wide integer id to each distinct file so that classpaths
+ * can be transferred as id arrays instead of writing the same files again for
+ * every source set of every project.
+ * <P>
+ * The ids are assigned while serializing the models of the projects (on the
+ * thread on which {@link #startEncoding() encoding was started}). The files
+ * first seen while serializing a project are collected into a {@link Segment}
+ * which is transferred along with the models of that project. The receiving
+ * side has to {@link #startDecoding(Collection) combine} the segments of all
+ * the projects of the build before deserializing any of the models.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+public final class ArtifactTable {
+    private static final ThreadLocal<Encoder> CURRENT_ENCODER = new ThreadLocal<Encoder>();
+    private static final ThreadLocal<Decoder> CURRENT_DECODER = new ThreadLocal<Decoder>();
+
+    private final Lock mainLock;
+    private final Map<File, Integer> ids;
+
+    public ArtifactTable() {
+        this.mainLock = new ReentrantLock();
+        this.ids = new HashMap<File, Integer>();
+    }
+
+    /**
+     * Returns the encoder bound to the calling thread or {@code null} if files
+     * are not to be encoded on this thread.
+     */
+    public static Encoder tryGetCurrentEncoder() {
+        return CURRENT_ENCODER.get();
+    }
+
+    /**
+     * Returns the decoder bound to the calling thread or {@code null} if there
+     * is no artifact table available on this thread.
+     */
+    public static Decoder tryGetCurrentDecoder() {
+        return CURRENT_DECODER.get();
+    }
+
+    /**
+     * Starts encoding the files serialized on the calling thread until the
+     * returned encoder is {@link Encoder#finish() finished}.
+     */
+    public Encoder startEncoding() {
+        Encoder result = new Encoder(this, CURRENT_ENCODER.get());
+        CURRENT_ENCODER.set(result);
+        return result;
+    }
+
+    /**
+     * Starts decoding the files deserialized on the calling thread until the
+     * returned decoder is {@link Decoder#close() closed}.
+     *
+     * @param segments the segments of all the projects of the build. This
+     *   argument cannot be {@code null} but may contain {@code null} elements
+     *   which are ignored.
+     */
+    public static Decoder startDecoding(Collection<? extends Segment> segments) {
+        Decoder result = new Decoder(segments, CURRENT_DECODER.get());
+        CURRENT_DECODER.set(result);
+        return result;
+    }
+
+    private int getId(File file, Encoder encoder) {
+        mainLock.lock();
+        try {
+            Integer id = ids.get(file);
+            if (id != null) {
+                return id;
+            }
+
+            int newId = ids.size();
+            ids.put(file, newId);
+            encoder.addNewFile(newId, file);
+            return newId;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public static final class Encoder {
+        private final ArtifactTable table;
+        private final Encoder prevEncoder;
+        private final List<Integer> newIds;
+        private final List<File> newFiles;
+
+        private Encoder(ArtifactTable table, Encoder prevEncoder) {
+            this.table = table;
+            this.prevEncoder = prevEncoder;
+            this.newIds = new ArrayList<Integer>();
+            this.newFiles = new ArrayList<File>();
+        }
+
+        private void addNewFile(int id, File file) {
+            newIds.add(id);
+            newFiles.add(file);
+        }
+
+        public int[] encode(Collection<? extends File> files) {
+            int[] result = new int[files.size()];
+            int index = 0;
+            for (File file: files) {
+                result[index] = table.getId(file, this);
+                index++;
+            }
+            return result;
+        }
+
+        /**
+         * Stops encoding on the calling thread and returns the files assigned
+         * an id by this encoder.
+         */
+        public Segment finish() {
+            if (CURRENT_ENCODER.get() == this) {
+                if (prevEncoder != null) {
+                    CURRENT_ENCODER.set(prevEncoder);
+                }
+                else {
+                    CURRENT_ENCODER.remove();
+                }
+            }
+            return new Segment(newIds, newFiles);
+        }
+    }
+
+    public static final class Decoder {
+        private final File[] files;
+        private final Decoder prevDecoder;
+
+        private Decoder(Collection<? extends Segment> segments, Decoder prevDecoder) {
+            this.prevDecoder = prevDecoder;
+
+            int maxId = -1;
+            for (Segment segment: segments) {
+                if (segment != null) {
+                    maxId = Math.max(maxId, segment.getMaxId());
+                }
+            }
+
+            this.files = new File[maxId + 1];
+            for (Segment segment: segments) {
+                if (segment != null) {
+                    segment.copyTo(files);
+                }
+            }
+        }
+
+        public List<File> decode(int[] ids) throws InvalidObjectException {
+            List<File> result = new ArrayList<File>(ids.length);
+            for (int id: ids) {
+                File file = id >= 0 && id < files.length ? files[id] : null;
+                if (file == null) {
+                    throw new InvalidObjectException("Missing artifact with id " + id);
+                }
+                result.add(file);
+            }
+            return result;
+        }
+
+        public void close() {
+            if (CURRENT_DECODER.get() == this) {
+                if (prevDecoder != null) {
+                    CURRENT_DECODER.set(prevDecoder);
+                }
+                else {
+                    CURRENT_DECODER.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Defines the files which were first assigned an id while serializing
+     * the models of a particular project.
+     */
+    public static final class Segment implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public static final Segment EMPTY = new Segment(
+                Collections.<Integer>emptyList(),
+                Collections.<File>emptyList());
+
+        private final int[] ids;
+        private final File[] files;
+
+        private Segment(List<Integer> ids, List<File> files) {
+            this.ids = new int[ids.size()];
+            for (int i = 0; i < this.ids.length; i++) {
+                this.ids[i] = ids.get(i);
+            }
+            this.files = files.toArray(new File[files.size()]);
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        private int getMaxId() {
+            int result = -1;
+            for (int id: ids) {
+                result = Math.max(result, id);
+            }
+            return result;
+        }
+
+        private void copyTo(File[] dest) {
+            for (int i = 0; i < ids.length; i++) {
+                dest[ids[i]] = files[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.netbeans.gradle.model.internal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.netbeans.gradle.model.TaskListingMode;
+import org.netbeans.gradle.model.util.SerializationCache;
+import org.netbeans.gradle.model.util.SerializationCaches;
+
+/**
+ * Holds the {@link ModelQueryInput} of a single build and decodes its project
+ * info requests only once, so that the decoded builders can be shared by every
+ * project of the build. This object also holds the {@link ArtifactTable} shared
+ * by the projects of the build.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+public final class BuildScopedModelQueryInput {
+    private final ModelQueryInput input;
+    private final ClassLoader classLoader;
+    private final ArtifactTable artifactTable;
+
+    private final Lock decodeLock;
+    private volatile Map<Object, List<?>> projectInfoRequests;
+
+    public BuildScopedModelQueryInput(ModelQueryInput input, ClassLoader classLoader) {
+        if (input == null) throw new NullPointerException("input");
+
+        this.input = input;
+        this.classLoader = classLoader;
+        this.artifactTable = new ArtifactTable();
+        this.decodeLock = new ReentrantLock();
+        this.projectInfoRequests = null;
+    }
+
+    public TaskListingMode getTaskListingMode() {
+        return input.getTaskListingMode();
+    }
+
+    public ArtifactTable getArtifactTable() {
+        return artifactTable;
+    }
+
+    /**
+     * Returns the decoded project info requests. The requests are decoded
+     * on the first call of this method, subsequent calls return the same map.
+     * The builders in the returned map must not retain project specific state.
+     */
+    public Map<Object, List<?>> getProjectInfoRequests() {
+        Map<Object, List<?>> result = projectInfoRequests;
+        if (result != null) {
+            return result;
+        }
+
+        decodeLock.lock();
+        try {
+            result = projectInfoRequests;
+            if (result == null) {
+                SerializationCache serializationCache = SerializationCaches.getDefault();
+                result = input.getProjectInfoRequests(serializationCache, classLoader);
+                projectInfoRequests = result;
+            }
+            return result;
+        } finally {
+            decodeLock.unlock();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.netbeans.gradle.model.internal;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import org.netbeans.gradle.model.TaskListingMode;
 import org.netbeans.gradle.model.api.ProjectInfoBuilder2;
 import org.netbeans.gradle.model.util.SerializationCache;
 import org.netbeans.gradle.model.util.TransferableExceptionWrapper;
@@ -12,10 +13,23 @@ public final class ModelQueryInput implements Serializable {
 
     // Object -> List of ProjectInfoBuilder<?>
     private final CustomSerializedMap.Deserializer projectInfoRequests;
+    private final TaskListingMode taskListingMode;
 
     public ModelQueryInput(CustomSerializedMap.Deserializer projectInfoRequests) {
+        this(projectInfoRequests, TaskListingMode.REGISTERED_NAMES);
+    }
+
+    public ModelQueryInput(CustomSerializedMap.Deserializer projectInfoRequests, TaskListingMode taskListingMode) {
         if (projectInfoRequests == null) throw new NullPointerException("projectInfoRequests");
+        if (taskListingMode == null) throw new NullPointerException("taskListingMode");
+
         this.projectInfoRequests = projectInfoRequests;
+        this.taskListingMode = taskListingMode;
+    }
+
+    public TaskListingMode getTaskListingMode() {
+        // Might be null if deserialized from an input written before this field was added.
+        return taskListingMode != null ? taskListingMode : TaskListingMode.REGISTERED_NAMES;
     }
 
     public Map<Object, List<?>> getProjectInfoRequests(SerializationCache cache, ClassLoader parent) {
@@ -15,17 +15,29 @@ public final class ModelQueryOutput implements Serializable {
 
     // Keys -> List of results of ProjectInfoBuilder
     private final CustomSerializedMap projectInfoResults;
+    // The files referenced by id from projectInfoResults first seen in this project.
+    private final ArtifactTable.Segment artifacts;
     private final Throwable issue;
 
     public ModelQueryOutput(
             BasicInfo basicInfo,
             CustomSerializedMap projectInfoResults,
             Throwable issue) {
+        this(basicInfo, projectInfoResults, ArtifactTable.Segment.EMPTY, issue);
+    }
+
+    public ModelQueryOutput(
+            BasicInfo basicInfo,
+            CustomSerializedMap projectInfoResults,
+            ArtifactTable.Segment artifacts,
+            Throwable issue) {
         if (basicInfo == null) throw new NullPointerException("basicInfo");
         if (projectInfoResults == null) throw new NullPointerException("projectInfoResults");
+        if (artifacts == null) throw new NullPointerException("artifacts");
 
         this.basicInfo = basicInfo;
         this.projectInfoResults = projectInfoResults;
+        this.artifacts = artifacts;
         this.issue = TransferableExceptionWrapper.wrap(issue);
     }
 
@@ -41,6 +53,10 @@ public final class ModelQueryOutput implements Serializable {
         return projectInfoResults;
     }
 
+    public ArtifactTable.Segment getArtifacts() {
+        return artifacts;
+    }
+
     public static final class BasicInfo implements Serializable {
         private static final long serialVersionUID = 1L;
 
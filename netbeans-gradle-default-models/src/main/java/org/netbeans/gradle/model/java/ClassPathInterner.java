@@ -0,0 +1,88 @@
+package org.netbeans.gradle.model.java;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.netbeans.gradle.model.util.WeakInternPool;
+
+/**
+ * Defines process-wide pools of class path entries and class paths, so that
+ * equal class paths of different source sets (and projects) share the same
+ * set and {@code File} instances.
+ * <P>
+ * The pools only reference the interned objects weakly, so they do not keep
+ * the class paths of unloaded projects in memory.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+public final class ClassPathInterner {
+    private static final WeakInternPool<File> FILES = new WeakInternPool<File>();
+    private static final WeakInternPool<Set<File>> CLASS_PATHS
+            = new WeakInternPool<Set<File>>(new OrderedSetEquivalence());
+
+    /**
+     * Returns the pooled instance of the given file.
+     *
+     * @param file the file to be interned. This argument cannot be {@code null}.
+     * @return the pooled file equal to the given file. This method never
+     *   returns {@code null}.
+     */
+    public static File internFile(File file) {
+        return FILES.intern(file);
+    }
+
+    /**
+     * Returns an unmodifiable set containing the given files in the same
+     * order. Equal class paths (including their order) are always the same
+     * instance until they are garbage collected.
+     *
+     * @param classPath the entries of the class path. This argument cannot be
+     *   {@code null} and cannot contain {@code null} elements.
+     * @return the pooled class path. This method never returns {@code null}.
+     */
+    public static Set<File> internClassPath(Collection<? extends File> classPath) {
+        if (classPath.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<File> files = new LinkedHashSet<File>(classPath.size() * 4 / 3 + 1);
+        for (File file: classPath) {
+            files.add(internFile(file));
+        }
+        return CLASS_PATHS.intern(Collections.unmodifiableSet(files));
+    }
+
+    private static final class OrderedSetEquivalence extends WeakInternPool.Equivalence<Set<File>> {
+        @Override
+        public int hash(Set<File> obj) {
+            int result = 1;
+            for (File file: obj) {
+                result = 31 * result + file.hashCode();
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equivalent(Set<File> obj1, Set<File> obj2) {
+            if (obj1.size() != obj2.size()) {
+                return false;
+            }
+
+            Iterator<File> itr1 = obj1.iterator();
+            Iterator<File> itr2 = obj2.iterator();
+            while (itr1.hasNext()) {
+                if (!itr1.next().equals(itr2.next())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private ClassPathInterner() {
+        throw new AssertionError();
+    }
+}
@@ -1,11 +1,14 @@
 package org.netbeans.gradle.model.java;
 
 import java.io.File;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import org.netbeans.gradle.model.internal.ArtifactTable;
 import org.netbeans.gradle.model.util.CollectionUtils;
 
 /**
@@ -14,10 +17,12 @@ import org.netbeans.gradle.model.util.CollectionUtils;
  * at runtime.
  * <P>
  * Instances of this class are immutable and therefore are safe to be shared
- * across multiple threads.
+ * across multiple threads. The class paths are {@link ClassPathInterner interned},
+ * so equal class paths share the same sets.
  * <P>
  * The serialized format of this class is not subject to any kind of backward
- * or forward compatibility.
+ * or forward compatibility. If an {@link ArtifactTable} is in use on the
+ * serializing thread, the class paths are serialized as ids of that table.
  */
 public final class JavaClassPaths implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -51,13 +56,13 @@ public final class JavaClassPaths implements Serializable {
         if (compileClasspaths == null) throw new NullPointerException("compileClasspaths");
         if (runtimeClasspaths == null) throw new NullPointerException("runtimeClasspaths");
 
-        this.compileClasspaths = Collections.unmodifiableSet(new LinkedHashSet<File>(compileClasspaths));
+        CollectionUtils.checkNoNullElements(compileClasspaths, "compileClasspaths");
+        CollectionUtils.checkNoNullElements(runtimeClasspaths, "runtimeClasspaths");
+
+        this.compileClasspaths = ClassPathInterner.internClassPath(compileClasspaths);
         this.runtimeClasspaths = compileClasspaths != runtimeClasspaths
-                ? Collections.unmodifiableSet(new LinkedHashSet<File>(runtimeClasspaths))
+                ? ClassPathInterner.internClassPath(runtimeClasspaths)
                 : this.compileClasspaths;
-
-        CollectionUtils.checkNoNullElements(this.compileClasspaths, "compileClasspaths");
-        CollectionUtils.checkNoNullElements(this.runtimeClasspaths, "runtimeClasspaths");
     }
 
     /**
@@ -74,10 +79,10 @@ public final class JavaClassPaths implements Serializable {
     public JavaClassPaths(Collection<? extends File> classpaths) {
         if (classpaths == null) throw new NullPointerException("classpaths");
 
-        this.compileClasspaths = Collections.unmodifiableSet(new LinkedHashSet<File>(classpaths));
-        this.runtimeClasspaths = compileClasspaths;
+        CollectionUtils.checkNoNullElements(classpaths, "classpaths");
 
-        CollectionUtils.checkNoNullElements(this.compileClasspaths, "compileClasspaths");
+        this.compileClasspaths = ClassPathInterner.internClassPath(classpaths);
+        this.runtimeClasspaths = compileClasspaths;
     }
 
     private JavaClassPaths() {
@@ -110,4 +115,48 @@ public final class JavaClassPaths implements Serializable {
     public Set<File> getRuntimeClasspaths() {
         return runtimeClasspaths;
     }
+
+    private Object readResolve() throws ObjectStreamException {
+        if (compileClasspaths == null || runtimeClasspaths == null) {
+            throw new InvalidObjectException("Missing class path.");
+        }
+        return compileClasspaths == runtimeClasspaths
+                ? new JavaClassPaths(compileClasspaths)
+                : new JavaClassPaths(compileClasspaths, runtimeClasspaths);
+    }
+
+    private Object writeReplace() {
+        ArtifactTable.Encoder encoder = ArtifactTable.tryGetCurrentEncoder();
+        return encoder != null
+                ? new EncodedFormat(this, encoder)
+                : this;
+    }
+
+    private static final class EncodedFormat implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] compileIds;
+        // null if the same as the compile time class path
+        private final int[] runtimeIds;
+
+        public EncodedFormat(JavaClassPaths source, ArtifactTable.Encoder encoder) {
+            this.compileIds = encoder.encode(source.compileClasspaths);
+            this.runtimeIds = source.compileClasspaths != source.runtimeClasspaths
+                    ? encoder.encode(source.runtimeClasspaths)
+                    : null;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            ArtifactTable.Decoder decoder = ArtifactTable.tryGetCurrentDecoder();
+            if (decoder == null) {
+                throw new InvalidObjectException("Class paths were encoded but there is no artifact table to decode them.");
+            }
+
+            List<File> compile = decoder.decode(compileIds);
+            if (runtimeIds == null) {
+                return new JavaClassPaths(compile);
+            }
+            return new JavaClassPaths(compile, decoder.decode(runtimeIds));
+        }
+    }
 }
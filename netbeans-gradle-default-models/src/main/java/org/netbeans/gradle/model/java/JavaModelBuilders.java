@@ -19,6 +19,9 @@ public class JavaModelBuilders {
     public static final ProjectInfoBuilder2<JavaSourcesModel> JAVA_SOURCES_BUILDER_ONLY_COMPILE
             = ModelBuilders.wrapEnumBuilder(JavaSourcesModel.class, "JavaSourcesModelBuilder", "ONLY_COMPILE");
 
+    public static final ProjectInfoBuilder2<JavaSourcesModel> JAVA_SOURCES_BUILDER_WITHOUT_CLASSPATHS
+            = ModelBuilders.wrapEnumBuilder(JavaSourcesModel.class, "JavaSourcesModelBuilder", "WITHOUT_CLASSPATHS");
+
     public static final ProjectInfoBuilder2<JavaTestModel> JAVA_TEST_BUILDER
             = ModelBuilders.wrapEnumBuilder(JavaTestModel.class, "JavaTestModelBuilder");
 
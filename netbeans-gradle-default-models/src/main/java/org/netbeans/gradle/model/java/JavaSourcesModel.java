@@ -22,6 +22,7 @@ public final class JavaSourcesModel implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private final Collection<JavaSourceSet> sourceSets;
+    private final boolean classPathsResolved;
 
     /**
      * Creates a new {@code JavaSourcesModel} with the given source sets.
@@ -33,7 +34,24 @@ public final class JavaSourcesModel implements Serializable {
      *   is {@code null}
      */
     public JavaSourcesModel(Collection<? extends JavaSourceSet> sourceSets) {
+        this(sourceSets, true);
+    }
+
+    /**
+     * Creates a new {@code JavaSourcesModel} with the given source sets.
+     *
+     * @param sourceSets the source sets of the Java project. This argument
+     *   cannot be {@code null} and none of its elements can be {@code null}.
+     * @param classPathsResolved {@code true} if the classpaths of the source
+     *   sets were resolved, {@code false} if the classpaths were not even
+     *   attempted to be resolved (and so they are empty)
+     *
+     * @throws NullPointerException thrown if the argument or one of its element
+     *   is {@code null}
+     */
+    public JavaSourcesModel(Collection<? extends JavaSourceSet> sourceSets, boolean classPathsResolved) {
         this.sourceSets = Collections.unmodifiableList(new ArrayList<JavaSourceSet>(sourceSets));
+        this.classPathsResolved = classPathsResolved;
         CollectionUtils.checkNoNullElements(this.sourceSets, "sourceSets");
     }
 
@@ -47,4 +65,16 @@ public final class JavaSourcesModel implements Serializable {
     public Collection<JavaSourceSet> getSourceSets() {
         return sourceSets;
     }
+
+    /**
+     * Returns {@code true} if the classpaths of the source sets were resolved.
+     * If this method returns {@code false}, the source sets have empty
+     * classpaths regardless of their actual dependencies.
+     *
+     * @return {@code true} if the classpaths of the source sets were resolved,
+     *   {@code false} otherwise
+     */
+    public boolean isClassPathsResolved() {
+        return classPathsResolved;
+    }
 }
@@ -6,7 +6,11 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -16,14 +20,30 @@ import java.util.logging.Logger;
 public final class TemporaryFileManager {
     private static final Logger LOGGER = Logger.getLogger(TemporaryFileManager.class.getName());
 
+    private static final int DEFAULT_MAX_RETAINED_FILE_COUNT = 8;
+
     private static final TemporaryFileManager DEFAULT = new TemporaryFileManager();
 
     private final Lock mainLock;
     private final Map<BinaryContent, FileReference> files;
 
+    private final int maxRetainedFileCount;
+    // Access ordered, so the first entry is the least recently used one.
+    private final LinkedHashMap<BinaryContent, TemporaryFileRef> retainedFiles;
+
     public TemporaryFileManager() {
+        this(DEFAULT_MAX_RETAINED_FILE_COUNT);
+    }
+
+    public TemporaryFileManager(int maxRetainedFileCount) {
+        if (maxRetainedFileCount < 0) {
+            throw new IllegalArgumentException("Illegal maxRetainedFileCount: " + maxRetainedFileCount);
+        }
+
         this.mainLock = new ReentrantLock();
         this.files = new HashMap<BinaryContent, FileReference>();
+        this.maxRetainedFileCount = maxRetainedFileCount;
+        this.retainedFiles = new LinkedHashMap<BinaryContent, TemporaryFileRef>(16, 0.75f, true);
     }
 
     public static TemporaryFileManager getDefault() {
@@ -113,6 +133,105 @@ public final class TemporaryFileManager {
         return createFileGuessUncached(preferredPrefix, content);
     }
 
+    /**
+     * Creates a file just like {@link #createFile(String, String, Charset) createFile}
+     * but the file is not deleted when the returned reference is closed. Instead,
+     * the file is kept until the manager retains more recently requested files than
+     * its limit, so that requesting the same content again (e.g., loading the same
+     * kind of models repeatedly) reuses the already written file.
+     * <P>
+     * The retained files are released by {@link #releaseRetainedFiles() releaseRetainedFiles}
+     * and are deleted when the JVM exits.
+     */
+    public TemporaryFileRef createRetainedFile(
+            String preferredPrefix,
+            String strContent,
+            Charset charset) throws IOException {
+        BinaryContent content = new BinaryContent(strContent.getBytes(charset.name()), false);
+        return createRetainedFile(preferredPrefix, content);
+    }
+
+    /**
+     * Creates a file just like {@link #createFileFromSerialized(String, Object) createFileFromSerialized}
+     * but retains the created file after the returned reference is closed. See
+     * {@link #createRetainedFile(String, String, Charset) createRetainedFile}.
+     */
+    public TemporaryFileRef createRetainedFileFromSerialized(
+            String preferredPrefix,
+            Object contentObj) throws IOException {
+        BinaryContent content = new BinaryContent(SerializationUtils.serializeObject(contentObj), false);
+        return createRetainedFile(preferredPrefix, content);
+    }
+
+    private TemporaryFileRef createRetainedFile(String preferredPrefix, BinaryContent content) throws IOException {
+        TemporaryFileRef result = createFile(preferredPrefix, content);
+        if (maxRetainedFileCount <= 0) {
+            return result;
+        }
+
+        List<TemporaryFileRef> evictedRefs = new ArrayList<TemporaryFileRef>();
+
+        mainLock.lock();
+        try {
+            // get updates the access order as well.
+            if (retainedFiles.get(content) == null) {
+                FileReference fileRef = files.get(content);
+                if (fileRef != null) {
+                    fileRef.useOne();
+                    retainedFiles.put(content, new SingleFileReference(fileRef.key, fileRef));
+                    // In case releaseRetainedFiles is never called.
+                    fileRef.getFile().deleteOnExit();
+                }
+            }
+
+            Iterator<TemporaryFileRef> retainedItr = retainedFiles.values().iterator();
+            while (retainedFiles.size() > maxRetainedFileCount && retainedItr.hasNext()) {
+                evictedRefs.add(retainedItr.next());
+                retainedItr.remove();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        for (TemporaryFileRef evictedRef: evictedRefs) {
+            evictedRef.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * Releases all the files retained by {@link #createRetainedFile(String, String, Charset) createRetainedFile}.
+     * The files are deleted unless they are still referenced by unclosed references.
+     * Files requested after this method returns are retained again.
+     */
+    public void releaseRetainedFiles() throws IOException {
+        List<TemporaryFileRef> releasedRefs;
+
+        mainLock.lock();
+        try {
+            releasedRefs = new ArrayList<TemporaryFileRef>(retainedFiles.values());
+            retainedFiles.clear();
+        } finally {
+            mainLock.unlock();
+        }
+
+        IOException toThrow = null;
+        for (TemporaryFileRef releasedRef: releasedRefs) {
+            try {
+                releasedRef.close();
+            } catch (IOException ex) {
+                if (toThrow == null) {
+                    toThrow = ex;
+                }
+            }
+        }
+
+        if (toThrow != null) {
+            throw toThrow;
+        }
+    }
+
     public TemporaryFileRef createFile(String preferredPrefix, byte[] content) throws IOException {
         TemporaryFileRef result = tryGetExisting(content);
         if (result != null) {
@@ -0,0 +1,158 @@
+package org.netbeans.gradle.model.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Defines a pool of immutable objects which returns the same instance for
+ * equivalent objects. The pool only references the pooled objects weakly,
+ * so pooled objects not used elsewhere can be garbage collected.
+ * <P>
+ * Unlike {@code WeakHashMap}, this pool might use a custom equivalence
+ * (for example, one respecting the iteration order of sets).
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ *
+ * @param <T> the type of the pooled objects
+ */
+public final class WeakInternPool<T> {
+    private final Equivalence<? super T> equivalence;
+    private final Lock mainLock;
+    private final ReferenceQueue<T> releasedQueue;
+    private final Map<Integer, List<HashedRef<T>>> buckets;
+    private int size;
+
+    public WeakInternPool() {
+        this(Equivalence.EQUALS);
+    }
+
+    public WeakInternPool(Equivalence<? super T> equivalence) {
+        if (equivalence == null) throw new NullPointerException("equivalence");
+
+        this.equivalence = equivalence;
+        this.mainLock = new ReentrantLock();
+        this.releasedQueue = new ReferenceQueue<T>();
+        this.buckets = new HashMap<Integer, List<HashedRef<T>>>();
+        this.size = 0;
+    }
+
+    /**
+     * Returns the pooled object equivalent to the given object. If there is
+     * no such object in the pool, the given object is added to the pool and
+     * is returned.
+     *
+     * @param value the object to be interned. This argument cannot be
+     *   {@code null}.
+     * @return the pooled object equivalent to the given object. This method
+     *   never returns {@code null}.
+     */
+    public T intern(T value) {
+        if (value == null) throw new NullPointerException("value");
+
+        int hash = equivalence.hash(value);
+
+        mainLock.lock();
+        try {
+            removeReleased();
+
+            List<HashedRef<T>> bucket = buckets.get(hash);
+            if (bucket == null) {
+                bucket = new ArrayList<HashedRef<T>>(1);
+                buckets.put(hash, bucket);
+            }
+
+            for (HashedRef<T> ref: bucket) {
+                T pooled = ref.get();
+                if (pooled != null && equivalence.equivalent(pooled, value)) {
+                    return pooled;
+                }
+            }
+
+            bucket.add(new HashedRef<T>(value, hash, releasedQueue));
+            size++;
+            return value;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of objects in the pool which were not yet found to be
+     * garbage collected.
+     */
+    public int size() {
+        mainLock.lock();
+        try {
+            removeReleased();
+            return size;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void removeReleased() {
+        Reference<? extends T> released = releasedQueue.poll();
+        while (released != null) {
+            HashedRef<?> hashedRef = (HashedRef<?>)released;
+            List<HashedRef<T>> bucket = buckets.get(hashedRef.hash);
+            if (bucket != null) {
+                Iterator<HashedRef<T>> refItr = bucket.iterator();
+                while (refItr.hasNext()) {
+                    if (refItr.next() == hashedRef) {
+                        refItr.remove();
+                        size--;
+                        break;
+                    }
+                }
+                if (bucket.isEmpty()) {
+                    buckets.remove(hashedRef.hash);
+                }
+            }
+            released = releasedQueue.poll();
+        }
+    }
+
+    /**
+     * Defines when two objects are to be considered the same by the pool.
+     *
+     * @param <T> the type of the compared objects
+     */
+    public static abstract class Equivalence<T> {
+        /**
+         * Defines the equivalence by the {@code equals} and {@code hashCode}
+         * methods of the objects.
+         */
+        public static final Equivalence<Object> EQUALS = new Equivalence<Object>() {
+            @Override
+            public int hash(Object obj) {
+                return obj.hashCode();
+            }
+
+            @Override
+            public boolean equivalent(Object obj1, Object obj2) {
+                return obj1.equals(obj2);
+            }
+        };
+
+        public abstract int hash(T obj);
+
+        public abstract boolean equivalent(T obj1, T obj2);
+    }
+
+    private static final class HashedRef<T> extends WeakReference<T> {
+        private final int hash;
+
+        public HashedRef(T referent, int hash, ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            this.hash = hash;
+        }
+    }
+}
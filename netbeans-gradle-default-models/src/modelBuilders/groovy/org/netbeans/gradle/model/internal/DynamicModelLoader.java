@@ -7,6 +7,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.tasks.TaskContainer;
@@ -18,19 +19,19 @@ import org.netbeans.gradle.model.api.ProjectInfoBuilder2;
 import org.netbeans.gradle.model.util.BasicFileUtils;
 import org.netbeans.gradle.model.util.BuilderUtils;
 import org.netbeans.gradle.model.util.Exceptions;
-import org.netbeans.gradle.model.util.SerializationCache;
-import org.netbeans.gradle.model.util.SerializationCaches;
 import org.netbeans.gradle.model.util.SerializationUtils;
 
 public final class DynamicModelLoader implements ToolingModelBuilder {
-    private final ModelQueryInput input;
-    private final ClassLoader classLoader;
+    private final BuildScopedModelQueryInput input;
 
     public DynamicModelLoader(ModelQueryInput input, ClassLoader classLoader) {
+        this(new BuildScopedModelQueryInput(input, classLoader));
+    }
+
+    public DynamicModelLoader(BuildScopedModelQueryInput input) {
         if (input == null) throw new NullPointerException("input");
 
         this.input = input;
-        this.classLoader = classLoader;
     }
 
     @Override
@@ -39,8 +40,7 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
     }
 
     private CustomSerializedMap fetchProjectInfos(Project project) {
-        SerializationCache serializationCache = SerializationCaches.getDefault();
-        Map<Object, List<?>> projectInfoRequests = input.getProjectInfoRequests(serializationCache, classLoader);
+        Map<Object, List<?>> projectInfoRequests = input.getProjectInfoRequests();
         int requestCount = projectInfoRequests.size();
         CustomSerializedMap.Builder projectInfosBuilder = new CustomSerializedMap.Builder(requestCount);
 
@@ -71,6 +71,38 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
     }
 
     private Collection<GradleTaskID> findTasks(Project project) {
+        switch (input.getTaskListingMode()) {
+            case REALIZED_TASKS:
+                return findRealizedTasks(project);
+            case REGISTERED_NAMES:
+                return findRegisteredTasks(project);
+            default:
+                throw new AssertionError(input.getTaskListingMode().name());
+        }
+    }
+
+    private static Collection<GradleTaskID> findRegisteredTasks(Project project) {
+        TaskContainer tasks = project.getTasks();
+
+        // The names include the lazily registered tasks as well, and we only need
+        // the name and the path of a task, so there is no need to create the tasks.
+        Set<String> taskNames = tasks.getNames();
+        String pathPrefix = getTaskPathPrefix(project);
+
+        List<GradleTaskID> result = new ArrayList<GradleTaskID>(taskNames.size());
+        for (String taskName: taskNames) {
+            result.add(new GradleTaskID(taskName, pathPrefix + taskName));
+        }
+
+        return result;
+    }
+
+    private static String getTaskPathPrefix(Project project) {
+        String projectPath = project.getPath();
+        return projectPath.endsWith(":") ? projectPath : projectPath + ":";
+    }
+
+    private static Collection<GradleTaskID> findRealizedTasks(Project project) {
         TaskContainer tasks = project.getTasks();
 
         // Note: This might cause failures in Gradle 2.4-rc-1
@@ -129,17 +161,25 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
 
         BasicInfoWithError basicInfo = getBasicInfo(project);
 
-        ModelQueryOutput output;
+        CustomSerializedMap projectInfos;
+        Throwable issue;
+        ArtifactTable.Segment artifacts;
+
+        ArtifactTable.Encoder artifactEncoder = input.getArtifactTable().startEncoding();
         try {
-            CustomSerializedMap projectInfos = fetchProjectInfos(project);
-            output = new ModelQueryOutput(basicInfo.info, projectInfos, basicInfo.error);
+            projectInfos = fetchProjectInfos(project);
+            issue = basicInfo.error;
         } catch (Throwable ex) {
             if (basicInfo.error != null) {
                 Exceptions.tryAddSuppressedException(ex, basicInfo.error);
             }
-            output = new ModelQueryOutput(basicInfo.info, CustomSerializedMap.EMPTY, ex);
+            projectInfos = CustomSerializedMap.EMPTY;
+            issue = ex;
+        } finally {
+            artifacts = artifactEncoder.finish();
         }
 
+        ModelQueryOutput output = new ModelQueryOutput(basicInfo.info, projectInfos, artifacts, issue);
         return new DefaultModelQueryOutputRef(output);
     }
 
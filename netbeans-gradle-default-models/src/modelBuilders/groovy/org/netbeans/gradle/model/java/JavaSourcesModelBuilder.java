@@ -25,27 +25,36 @@ import org.netbeans.gradle.model.util.Exceptions;
  * Defines a {@code ProjectInfoBuilder2} which is able to extract
  * {@link JavaSourcesModel} from a Gradle project.
  * <P>
- * This builder has only two instances {@link #ONLY_COMPILE} and
- * {@link #COMPLETE}.
+ * This builder has only three instances {@link #WITHOUT_CLASSPATHS},
+ * {@link #ONLY_COMPILE} and {@link #COMPLETE}.
  */
 enum JavaSourcesModelBuilder
 implements
         ProjectInfoBuilder2<JavaSourcesModel> {
 
+    /**
+     * The builder instance which will not resolve any dependency. This builder
+     * does not need to resolve configurations, so it is considerably faster
+     * than the others.
+     */
+    WITHOUT_CLASSPATHS(false, false),
+
     /**
      * The builder instance which will not attempt to query runtime dependencies.
      */
-    ONLY_COMPILE(false),
+    ONLY_COMPILE(true, false),
 
     /**
      * The builder instance which will request both runtime and compile time
      * dependencies.
      */
-    COMPLETE(true);
+    COMPLETE(true, true);
 
+    private final boolean needClassPaths;
     private final boolean needRuntime;
 
-    private JavaSourcesModelBuilder(boolean needRuntime) {
+    private JavaSourcesModelBuilder(boolean needClassPaths, boolean needRuntime) {
+        this.needClassPaths = needClassPaths;
         this.needRuntime = needRuntime;
     }
 
@@ -73,7 +82,7 @@ implements
         }
 
         try {
-            return new Builder(project, javaPlugin, needRuntime).getProjectInfo();
+            return new Builder(project, javaPlugin, needClassPaths, needRuntime).getProjectInfo();
         } catch (Exception ex) {
             throw Exceptions.throwUnchecked(ex);
         }
@@ -88,11 +97,17 @@ implements
     private static final class Builder {
         private final Project project;
         private final JavaPluginConvention javaPlugin;
+        private final boolean needClassPaths;
         private final boolean needRuntime;
 
-        public Builder(Project project, JavaPluginConvention javaPlugin, boolean needRuntime) throws Exception {
+        public Builder(
+                Project project,
+                JavaPluginConvention javaPlugin,
+                boolean needClassPaths,
+                boolean needRuntime) throws Exception {
             this.project = project;
             this.javaPlugin = javaPlugin;
+            this.needClassPaths = needClassPaths;
             this.needRuntime = needRuntime;
         }
 
@@ -103,7 +118,7 @@ implements
                 result.add(parseSourceSet(sourceSet));
             }
 
-            return new JavaSourcesModel(result);
+            return new JavaSourcesModel(result, needClassPaths);
         }
 
         private Collection<File> addSourceGroup(
@@ -139,7 +154,9 @@ implements
 
             result.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.OTHER, others));
 
-            parseClassPaths(sourceSet, result);
+            if (needClassPaths) {
+                parseClassPaths(sourceSet, result);
+            }
 
             return result.create();
         }
@@ -0,0 +1,220 @@
+package org.netbeans.gradle.model.internal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.Test;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaSourcesModel;
+import org.netbeans.gradle.model.util.SerializationCache;
+import org.netbeans.gradle.model.util.SerializationUtils;
+
+import static org.junit.Assert.*;
+
+public class ArtifactTableTest {
+    private static final Logger LOGGER = Logger.getLogger(ArtifactTableTest.class.getName());
+
+    private static final int PROJECT_COUNT = 400;
+    private static final int ARTIFACT_COUNT = 300;
+    private static final int ARTIFACTS_PER_PROJECT = 200;
+
+    private static List<File> createArtifacts() {
+        File cacheDir = new File("gradle-user-home/caches/modules-2/files-2.1");
+        List<File> result = new ArrayList<File>(ARTIFACT_COUNT);
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            String name = "library" + i;
+            File versionDir = new File(new File(new File(cacheDir, "org.example.group" + (i % 17)), name), "1." + i);
+            result.add(new File(new File(versionDir, Integer.toHexString(name.hashCode())), name + "-1." + i + ".jar"));
+        }
+        return result;
+    }
+
+    private static JavaSourceSet createSourceSet(File projectDir, String name, List<File> compile, List<File> runtime) {
+        File buildDir = new File(projectDir, "build");
+        JavaOutputDirs outputDirs = new JavaOutputDirs(
+                Collections.singleton(new File(buildDir, "classes/java/" + name)),
+                new File(buildDir, "resources/" + name),
+                Collections.<File>emptyList());
+
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(name, outputDirs);
+        result.setClasspaths(new JavaClassPaths(compile, runtime));
+        return result.create();
+    }
+
+    private static JavaSourcesModel createSourcesModel(int projectIndex, List<File> artifacts) {
+        File projectDir = new File("project" + projectIndex);
+
+        List<File> compile = new ArrayList<File>(ARTIFACTS_PER_PROJECT);
+        for (int i = 0; i < ARTIFACTS_PER_PROJECT; i++) {
+            compile.add(artifacts.get((projectIndex * 7 + i) % artifacts.size()));
+        }
+        List<File> runtime = new ArrayList<File>(compile);
+        runtime.add(artifacts.get(projectIndex % artifacts.size()));
+
+        List<File> testCompile = new ArrayList<File>(compile);
+        testCompile.add(new File(projectDir, "build/classes/java/main"));
+
+        return new JavaSourcesModel(Arrays.asList(
+                createSourceSet(projectDir, JavaSourceSet.NAME_MAIN, compile, runtime),
+                createSourceSet(projectDir, JavaSourceSet.NAME_TEST, testCompile, testCompile)));
+    }
+
+    private static List<JavaSourcesModel> createBuild() {
+        List<File> artifacts = createArtifacts();
+        List<JavaSourcesModel> result = new ArrayList<JavaSourcesModel>(PROJECT_COUNT);
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            result.add(createSourcesModel(i, artifacts));
+        }
+        return result;
+    }
+
+    private static SerializedEntries serialize(JavaSourcesModel model) {
+        return new SerializedEntries(Collections.singletonList(model));
+    }
+
+    private static JavaSourcesModel deserialize(SerializedEntries entries) {
+        return (JavaSourcesModel)entries.getUnserialized(SerializationCache.NO_CACHE, null).get(0);
+    }
+
+    private static int getSize(Object obj) {
+        return SerializationUtils.serializeObject(obj).length;
+    }
+
+    private static void assertSameClassPaths(JavaSourcesModel expected, JavaSourcesModel actual) {
+        List<JavaSourceSet> expectedSourceSets = new ArrayList<JavaSourceSet>(expected.getSourceSets());
+        List<JavaSourceSet> actualSourceSets = new ArrayList<JavaSourceSet>(actual.getSourceSets());
+        assertEquals(expectedSourceSets.size(), actualSourceSets.size());
+
+        for (int i = 0; i < expectedSourceSets.size(); i++) {
+            JavaClassPaths expectedClassPaths = expectedSourceSets.get(i).getClasspaths();
+            JavaClassPaths actualClassPaths = actualSourceSets.get(i).getClasspaths();
+
+            assertEquals(
+                    new ArrayList<File>(expectedClassPaths.getCompileClasspaths()),
+                    new ArrayList<File>(actualClassPaths.getCompileClasspaths()));
+            assertEquals(
+                    new ArrayList<File>(expectedClassPaths.getRuntimeClasspaths()),
+                    new ArrayList<File>(actualClassPaths.getRuntimeClasspaths()));
+        }
+    }
+
+    @Test
+    public void testEncodedPayloadIsSmaller() {
+        List<JavaSourcesModel> build = createBuild();
+
+        long plainSize = 0;
+        List<SerializedEntries> plainEntries = new ArrayList<SerializedEntries>(build.size());
+        for (JavaSourcesModel model: build) {
+            SerializedEntries entries = serialize(model);
+            plainEntries.add(entries);
+            plainSize += getSize(entries);
+        }
+
+        ArtifactTable table = new ArtifactTable();
+        long encodedSize = 0;
+        List<SerializedEntries> encodedEntries = new ArrayList<SerializedEntries>(build.size());
+        List<ArtifactTable.Segment> segments = new ArrayList<ArtifactTable.Segment>(build.size());
+        for (JavaSourcesModel model: build) {
+            ArtifactTable.Encoder encoder = table.startEncoding();
+            SerializedEntries entries;
+            try {
+                entries = serialize(model);
+            } finally {
+                segments.add(encoder.finish());
+            }
+            encodedEntries.add(entries);
+            encodedSize += getSize(entries);
+        }
+        for (ArtifactTable.Segment segment: segments) {
+            encodedSize += getSize(segment);
+        }
+
+        long plainStartTime = System.nanoTime();
+        for (SerializedEntries entries: plainEntries) {
+            deserialize(entries);
+        }
+        long plainDecodeNanos = System.nanoTime() - plainStartTime;
+
+        // Decode in reverse order, so that most of the projects reference
+        // artifacts first seen in another project.
+        Collections.reverse(segments);
+
+        List<JavaSourcesModel> decoded = new ArrayList<JavaSourcesModel>(build.size());
+        long encodedStartTime = System.nanoTime();
+        ArtifactTable.Decoder decoder = ArtifactTable.startDecoding(segments);
+        try {
+            for (SerializedEntries entries: encodedEntries) {
+                decoded.add(deserialize(entries));
+            }
+        } finally {
+            decoder.close();
+        }
+        long encodedDecodeNanos = System.nanoTime() - encodedStartTime;
+
+        LOGGER.log(Level.INFO,
+                "Payload of {0} projects: {1} bytes plain, {2} bytes encoded."
+                        + " Decode time: {3} ms plain, {4} ms encoded.",
+                new Object[]{
+                    PROJECT_COUNT,
+                    plainSize,
+                    encodedSize,
+                    plainDecodeNanos / 1000000,
+                    encodedDecodeNanos / 1000000});
+
+        assertTrue("Encoded size (" + encodedSize + ") must be much smaller than " + plainSize,
+                encodedSize * 4 < plainSize);
+
+        for (int i = 0; i < build.size(); i++) {
+            assertSameClassPaths(build.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    public void testNotEncodedWithoutEncoder() {
+        JavaSourcesModel model = createSourcesModel(0, createArtifacts());
+        assertSameClassPaths(model, deserialize(serialize(model)));
+    }
+
+    @Test
+    public void testSegmentsContainOnlyNewArtifacts() {
+        List<File> artifacts = createArtifacts();
+        ArtifactTable table = new ArtifactTable();
+
+        ArtifactTable.Encoder encoder1 = table.startEncoding();
+        serialize(createSourcesModel(0, artifacts));
+        ArtifactTable.Segment segment1 = encoder1.finish();
+
+        ArtifactTable.Encoder encoder2 = table.startEncoding();
+        serialize(createSourcesModel(0, artifacts));
+        ArtifactTable.Segment segment2 = encoder2.finish();
+
+        assertEquals(ARTIFACTS_PER_PROJECT + 1, segment1.size());
+        assertEquals(0, segment2.size());
+        assertNull(ArtifactTable.tryGetCurrentEncoder());
+    }
+
+    @Test
+    public void testDecodeWithoutTableFails() {
+        ArtifactTable table = new ArtifactTable();
+        ArtifactTable.Encoder encoder = table.startEncoding();
+        SerializedEntries entries;
+        try {
+            entries = serialize(createSourcesModel(0, createArtifacts()));
+        } finally {
+            encoder.finish();
+        }
+
+        try {
+            deserialize(entries);
+            fail("Expected failure without an artifact table.");
+        } catch (RuntimeException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.netbeans.gradle.model.java;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.Test;
+import org.netbeans.gradle.model.util.SerializationCache;
+import org.netbeans.gradle.model.util.SerializationUtils;
+
+import static org.junit.Assert.*;
+
+public class ClassPathInternerTest {
+    private static final Logger LOGGER = Logger.getLogger(ClassPathInternerTest.class.getName());
+
+    private static final int MODULE_COUNT = 600;
+    private static final int LIBRARY_COUNT = 300;
+    private static final int LIBRARIES_PER_MODULE = 150;
+    private static final int LIBRARY_SET_COUNT = 20;
+
+    private interface WorkspaceFactory {
+        public Object createWorkspace();
+    }
+
+    /**
+     * Returns a new {@code File} instance for each call even for the same
+     * library, just like deserializing the models of different projects would.
+     */
+    private static File getLibrary(int index) {
+        String name = "library" + index;
+        return new File("gradle-user-home/caches/modules-2/files-2.1/org.example/"
+                + name + "/1." + index + "/" + Integer.toHexString(name.hashCode())
+                + "/" + name + "-1." + index + ".jar");
+    }
+
+    private static List<File> getMainClassPath(int moduleIndex) {
+        int librarySet = moduleIndex % LIBRARY_SET_COUNT;
+
+        List<File> result = new ArrayList<File>(LIBRARIES_PER_MODULE);
+        for (int i = 0; i < LIBRARIES_PER_MODULE; i++) {
+            result.add(getLibrary((librarySet * 7 + i) % LIBRARY_COUNT));
+        }
+        return result;
+    }
+
+    private static List<File> getTestClassPath(int moduleIndex) {
+        List<File> result = getMainClassPath(moduleIndex);
+        result.add(new File("workspace/module" + moduleIndex + "/build/classes/java/main"));
+        return result;
+    }
+
+    private static List<JavaClassPaths> createInternedWorkspace() {
+        List<JavaClassPaths> result = new ArrayList<JavaClassPaths>(2 * MODULE_COUNT);
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            result.add(new JavaClassPaths(getMainClassPath(i)));
+            result.add(new JavaClassPaths(getTestClassPath(i), getMainClassPath(i)));
+        }
+        return result;
+    }
+
+    private static Set<File> copyClassPath(Collection<File> classPath) {
+        return Collections.unmodifiableSet(new LinkedHashSet<File>(classPath));
+    }
+
+    private static List<Set<File>> createPlainWorkspace() {
+        List<Set<File>> result = new ArrayList<Set<File>>(3 * MODULE_COUNT);
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            result.add(copyClassPath(getMainClassPath(i)));
+            result.add(copyClassPath(getTestClassPath(i)));
+            result.add(copyClassPath(getMainClassPath(i)));
+        }
+        return result;
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long getRetainedHeap(WorkspaceFactory factory) {
+        long heapBefore = getUsedHeap();
+        Object workspace = factory.createWorkspace();
+        long heapAfter = getUsedHeap();
+
+        assertNotNull(workspace);
+        return heapAfter - heapBefore;
+    }
+
+    private static double toMB(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    private static <T> Set<T> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+    }
+
+    private static void gcUntilCleared(WeakReference<?> ref) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            if (ref.get() == null) {
+                return;
+            }
+
+            // Allocate some garbage to make sure that references are cleared.
+            byte[][] garbage = new byte[64][];
+            for (int j = 0; j < garbage.length; j++) {
+                garbage[j] = new byte[64 * 1024];
+            }
+            System.gc();
+            Thread.sleep(10);
+        }
+        fail("The class path was not released by the pool.");
+    }
+
+    @Test
+    public void testInternedWorkspaceSharesInstances() {
+        long plainHeap = getRetainedHeap(new WorkspaceFactory() {
+            @Override
+            public Object createWorkspace() {
+                return createPlainWorkspace();
+            }
+        });
+        long internedHeap = getRetainedHeap(new WorkspaceFactory() {
+            @Override
+            public Object createWorkspace() {
+                return createInternedWorkspace();
+            }
+        });
+
+        // The heap figures depend on the GC, so they are only informational.
+        LOGGER.log(Level.INFO,
+                "Retained heap of the class paths of {0} modules: {1} MB plain, {2} MB interned.",
+                new Object[]{MODULE_COUNT, toMB(plainHeap), toMB(internedHeap)});
+
+        ClassPathInstances instances = new ClassPathInstances();
+        for (JavaClassPaths classPaths: createInternedWorkspace()) {
+            instances.add(classPaths.getCompileClasspaths());
+            instances.add(classPaths.getRuntimeClasspaths());
+        }
+
+        assertEquals(LIBRARY_SET_COUNT + MODULE_COUNT, instances.distinctClassPaths.size());
+        assertEquals("Class path instances", instances.distinctClassPaths.size(), instances.classPathInstances.size());
+        assertEquals("File instances", instances.distinctFiles.size(), instances.fileInstances.size());
+    }
+
+    @Test
+    public void testEqualClassPathsAreShared() {
+        List<JavaClassPaths> workspace = createInternedWorkspace();
+
+        JavaClassPaths main0 = workspace.get(0);
+        JavaClassPaths main20 = workspace.get(2 * LIBRARY_SET_COUNT);
+        JavaClassPaths test0 = workspace.get(1);
+
+        assertSame(main0.getCompileClasspaths(), main20.getCompileClasspaths());
+        assertSame(main0.getCompileClasspaths(), test0.getRuntimeClasspaths());
+        assertNotSame(main0.getCompileClasspaths(), test0.getCompileClasspaths());
+
+        File library0 = main0.getCompileClasspaths().iterator().next();
+        File testLibrary0 = test0.getCompileClasspaths().iterator().next();
+        assertSame(library0, testLibrary0);
+    }
+
+    @Test
+    public void testClassPathOrderIsKept() {
+        File file1 = new File("order-test/lib1.jar");
+        File file2 = new File("order-test/lib2.jar");
+
+        Set<File> classPath12 = new JavaClassPaths(Arrays.asList(file1, file2)).getCompileClasspaths();
+        Set<File> classPath21 = new JavaClassPaths(Arrays.asList(file2, file1)).getCompileClasspaths();
+
+        assertNotSame(classPath12, classPath21);
+        assertEquals(Arrays.asList(file1, file2), new ArrayList<File>(classPath12));
+        assertEquals(Arrays.asList(file2, file1), new ArrayList<File>(classPath21));
+    }
+
+    @Test
+    public void testDeserializedClassPathsAreShared() throws ClassNotFoundException {
+        JavaClassPaths classPaths = new JavaClassPaths(getTestClassPath(0), getMainClassPath(0));
+
+        byte[] serialized = SerializationUtils.serializeObject(classPaths);
+        JavaClassPaths deserialized = (JavaClassPaths)SerializationUtils.deserializeObject(
+                serialized,
+                SerializationCache.NO_CACHE);
+
+        assertSame(classPaths.getCompileClasspaths(), deserialized.getCompileClasspaths());
+        assertSame(classPaths.getRuntimeClasspaths(), deserialized.getRuntimeClasspaths());
+    }
+
+    @Test
+    public void testUnusedClassPathsAreReleased() throws InterruptedException {
+        List<File> files = Arrays.asList(
+                new File("release-test/lib1.jar"),
+                new File("release-test/lib2.jar"));
+
+        JavaClassPaths classPaths = new JavaClassPaths(files);
+        assertSame(classPaths.getCompileClasspaths(), ClassPathInterner.internClassPath(files));
+
+        WeakReference<Set<File>> classPathRef = new WeakReference<Set<File>>(classPaths.getCompileClasspaths());
+        classPaths = null;
+        gcUntilCleared(classPathRef);
+    }
+
+    private static final class ClassPathInstances {
+        private final Set<List<File>> distinctClassPaths = new HashSet<List<File>>();
+        private final Set<File> distinctFiles = new HashSet<File>();
+        private final Set<Set<File>> classPathInstances = newIdentitySet();
+        private final Set<File> fileInstances = newIdentitySet();
+
+        public void add(Set<File> classPath) {
+            distinctClassPaths.add(new ArrayList<File>(classPath));
+            distinctFiles.addAll(classPath);
+            classPathInstances.add(classPath);
+            fileInstances.addAll(classPath);
+        }
+    }
+}
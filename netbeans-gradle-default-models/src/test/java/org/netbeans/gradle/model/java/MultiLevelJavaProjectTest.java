@@ -350,6 +350,25 @@ public class MultiLevelJavaProjectTest {
         testJavaSourcesModelForJavaProject("libs:lib3:lib2", sourcesOfLib3Lib2());
     }
 
+    @Test
+    public void testJavaSourcesModelWithoutClassPaths() throws IOException {
+        runTestForSubProject("apps:app1", new ProjectConnectionTask() {
+            @Override
+            public void doTask(ProjectConnection connection) throws Exception {
+                JavaSourcesModel sourcesModel
+                        = fetchSingleProjectInfo(connection, JavaModelBuilders.JAVA_SOURCES_BUILDER_WITHOUT_CLASSPATHS);
+                assertNotNull("Must have a JavaSourcesModel.", sourcesModel);
+                assertFalse("classPathsResolved", sourcesModel.isClassPathsResolved());
+                SourceSetVerification.verifySourcesModelWithoutDependencies(sourcesOfApp1(), sourcesModel);
+
+                for (JavaSourceSet sourceSet: sourcesModel.getSourceSets()) {
+                    assertTrue(sourceSet.getClasspaths().getCompileClasspaths().isEmpty());
+                    assertTrue(sourceSet.getClasspaths().getRuntimeClasspaths().isEmpty());
+                }
+            }
+        });
+    }
+
     private static JavaSourceGroup findSourceGroup(JavaSourceSet sourceSet, JavaSourceGroupName name) {
         for (JavaSourceGroup group: sourceSet.getSourceGroups()) {
             if (name.equals(group.getGroupName())) {
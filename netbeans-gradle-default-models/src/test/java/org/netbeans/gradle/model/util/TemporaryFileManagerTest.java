@@ -140,4 +140,76 @@ public class TemporaryFileManagerTest {
     public void testModifiedContentWithNonEmpty() throws Exception {
         testModifiedContent("testModifiedContentWithNonEmpty", new byte[]{1, 2, 3});
     }
+
+    @Test
+    public void testRetainedFileIsReused() throws Exception {
+        TemporaryFileManager fileManager = new TemporaryFileManager(2);
+        String content = "EXPECTED FILE content: testRetainedFileIsReused";
+
+        TemporaryFileRef fileRef1 = fileManager.createRetainedFile("testRetainedFileIsReused", content, UTF8);
+        fileRef1.close();
+
+        File file = fileRef1.getFile();
+        try {
+            assertTrue("Retained file must be kept after close.", file.exists());
+
+            TemporaryFileRef fileRef2 = fileManager.createRetainedFile("testRetainedFileIsReused", content, UTF8);
+            try {
+                assertEquals(file, fileRef2.getFile());
+                assertContent(fileRef2, content);
+            } finally {
+                fileRef2.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRetainedFilesAreEvicted() throws Exception {
+        TemporaryFileManager fileManager = new TemporaryFileManager(2);
+        String name = "testRetainedFilesAreEvicted";
+
+        TemporaryFileRef fileRef1 = fileManager.createRetainedFile(name, "content1", UTF8);
+        fileRef1.close();
+        TemporaryFileRef fileRef2 = fileManager.createRetainedFile(name, "content2", UTF8);
+        fileRef2.close();
+
+        // Makes the first file the most recently used one.
+        fileManager.createRetainedFile(name, "content1", UTF8).close();
+
+        TemporaryFileRef fileRef3 = fileManager.createRetainedFile(name, "content3", UTF8);
+        fileRef3.close();
+
+        try {
+            assertTrue("Recently used file must be kept.", fileRef1.getFile().exists());
+            assertFalse("Least recently used file must be deleted.", fileRef2.getFile().exists());
+            assertTrue("Recently used file must be kept.", fileRef3.getFile().exists());
+        } finally {
+            fileRef1.getFile().delete();
+            fileRef3.getFile().delete();
+        }
+    }
+
+    @Test
+    public void testReleaseRetainedFiles() throws Exception {
+        TemporaryFileManager fileManager = new TemporaryFileManager(2);
+        String name = "testReleaseRetainedFiles";
+
+        TemporaryFileRef fileRef1 = fileManager.createRetainedFile(name, "content1", UTF8);
+        fileRef1.close();
+
+        TemporaryFileRef fileRef2 = fileManager.createRetainedFile(name, "content2", UTF8);
+        try {
+            fileManager.releaseRetainedFiles();
+
+            assertFalse("Released file must be deleted.", fileRef1.getFile().exists());
+            assertTrue("Referenced file must be kept.", fileRef2.getFile().exists());
+            assertContent(fileRef2, "content2");
+        } finally {
+            fileRef2.close();
+        }
+
+        assertFalse("File must be deleted after close.", fileRef2.getFile().exists());
+    }
 }
@@ -0,0 +1,357 @@
+package org.netbeans.gradle.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim2.event.ListenerRef;
+import org.jtrim2.executor.TaskExecutor;
+import org.jtrim2.executor.TaskExecutors;
+import org.jtrim2.property.PropertyFactory;
+import org.jtrim2.property.PropertySource;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.model.NbGradleProjectTree;
+import org.netbeans.gradle.project.properties.global.CommonGlobalSettings;
+import org.netbeans.gradle.project.script.CommonScripts;
+import org.netbeans.gradle.project.script.ScriptFileProvider;
+import org.netbeans.gradle.project.util.CloseableAction;
+import org.netbeans.gradle.project.util.CoalescingKeyDispatcher;
+import org.netbeans.gradle.project.util.FileSystemWatcher;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
+
+/**
+ * Watches the build configuration files (build scripts, settings scripts,
+ * {@code gradle.properties}, {@code buildSrc} scripts and version catalogs) of the
+ * builds of the opened projects and reloads the affected builds when any of these
+ * files change.
+ * <P>
+ * Changes reported in quick succession (e.g.: during a {@code git checkout}) are
+ * collected and only a single reload is started for each affected build. Reloads
+ * triggered by this watcher are started one after another and in the background,
+ * so that they do not delay explicitly requested loads.
+ */
+public final class BuildScriptChangeWatcher {
+    private static final Logger LOGGER = Logger.getLogger(BuildScriptChangeWatcher.class.getName());
+
+    private static final String VERSION_CATALOG_DIR = "gradle";
+    private static final String VERSION_CATALOG_SUFFIX = ".versions.toml";
+    private static final String DEFAULT_VERSION_CATALOG = "libs" + VERSION_CATALOG_SUFFIX;
+
+    private final FileSystemWatcher fileSystemWatcher;
+    private final ScriptFileProvider scriptProvider;
+    private final LoadedProjectManager loadedProjectManager;
+    private final PropertySource<Boolean> enabled;
+
+    private final TaskExecutor watchExecutor;
+    private final CoalescingKeyDispatcher<Path> changeDispatcher;
+
+    // The fields below are only accessed from watchExecutor.
+    private final Map<Path, WatchedBuild> watchedBuilds;
+    private final Deque<Path> pendingReloads;
+    private boolean reloadInProgress;
+
+    public BuildScriptChangeWatcher(
+            FileSystemWatcher fileSystemWatcher,
+            ScriptFileProvider scriptProvider,
+            LoadedProjectManager loadedProjectManager,
+            TaskExecutor watchExecutor,
+            PropertySource<Boolean> enabled,
+            PropertySource<Integer> changeDelayMs) {
+        Objects.requireNonNull(changeDelayMs, "changeDelayMs");
+
+        this.fileSystemWatcher = Objects.requireNonNull(fileSystemWatcher, "fileSystemWatcher");
+        this.scriptProvider = Objects.requireNonNull(scriptProvider, "scriptProvider");
+        this.loadedProjectManager = Objects.requireNonNull(loadedProjectManager, "loadedProjectManager");
+        this.enabled = Objects.requireNonNull(enabled, "enabled");
+
+        this.watchExecutor = TaskExecutors.inOrderSimpleExecutor(watchExecutor);
+        this.changeDispatcher = new CoalescingKeyDispatcher<>(
+                this.watchExecutor,
+                () -> getDelayMs(changeDelayMs),
+                this::buildsChanged);
+
+        this.watchedBuilds = new HashMap<>();
+        this.pendingReloads = new ArrayDeque<>();
+        this.reloadInProgress = false;
+    }
+
+    public static BuildScriptChangeWatcher getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    private static long getDelayMs(PropertySource<Integer> changeDelayMs) {
+        Integer result = changeDelayMs.getValue();
+        return result != null ? Math.max(0, result) : 0;
+    }
+
+    public PropertySource<CloseableAction> forProject(PropertySource<? extends NbGradleModel> currentModel) {
+        return PropertyFactory.combine(currentModel, enabled, (model, watch) -> {
+            return Boolean.TRUE.equals(watch)
+                    ? registerAsCloseableAction(model)
+                    : () -> CloseableAction.CLOSED_REF;
+        });
+    }
+
+    private CloseableAction registerAsCloseableAction(NbGradleModel model) {
+        return () -> registerModel(model);
+    }
+
+    private CloseableAction.Ref registerModel(NbGradleModel model) {
+        // Probing files and registering watches might be slow, and we are likely
+        // on the EDT. So everything is done in the background.
+        Registration registration = new Registration(model);
+        watchExecutor.execute(registration::register);
+        return () -> watchExecutor.execute(registration::unregister);
+    }
+
+    private void buildsChanged(Set<Path> rootDirs) {
+        watchExecutor.execute(() -> {
+            for (Path rootDir: rootDirs) {
+                WatchedBuild build = watchedBuilds.get(rootDir);
+                if (build == null) {
+                    continue;
+                }
+
+                build.filesNeedUpdate = true;
+                if (!pendingReloads.contains(rootDir)) {
+                    pendingReloads.add(rootDir);
+                }
+            }
+            reloadNext();
+        });
+    }
+
+    private void reloadNext() {
+        while (!reloadInProgress) {
+            Path rootDir = pendingReloads.poll();
+            if (rootDir == null) {
+                return;
+            }
+
+            NbGradleProject project = tryGetProjectToReload(rootDir);
+            if (project != null) {
+                LOGGER.log(Level.INFO, "Reloading {0} because of build script changes.", rootDir);
+
+                reloadInProgress = true;
+                project.reloadProjectInBackground(() -> watchExecutor.execute(() -> {
+                    reloadInProgress = false;
+                    reloadNext();
+                }));
+            }
+        }
+    }
+
+    private NbGradleProject tryGetProjectToReload(Path rootDir) {
+        WatchedBuild build = watchedBuilds.get(rootDir);
+        if (build == null) {
+            return null;
+        }
+
+        NbGradleProject rootProject = build.projectDirs.containsKey(rootDir)
+                ? loadedProjectManager.tryGetLoadedProject(rootDir)
+                : null;
+        if (rootProject != null) {
+            return rootProject;
+        }
+
+        for (Path projectDir: build.projectDirs.keySet()) {
+            NbGradleProject project = loadedProjectManager.tryGetLoadedProject(projectDir);
+            if (project != null) {
+                return project;
+            }
+        }
+        return null;
+    }
+
+    private Set<Path> collectWatchedFiles(Path rootDir, NbGradleModel model) {
+        Set<Path> result = new HashSet<>();
+
+        Path settingsFile = model.getSettingsFile();
+        if (settingsFile != null) {
+            result.add(settingsFile);
+        }
+
+        addProjectFiles(model.getProjectDef().getRootProject(), result);
+
+        Path buildSrcDir = rootDir.resolve(CommonScripts.BUILD_SRC_NAME);
+        addScriptFiles(buildSrcDir, CommonScripts.BUILD_BASE_NAME, result);
+        addScriptFiles(buildSrcDir, CommonScripts.SETTINGS_BASE_NAME, result);
+        result.add(buildSrcDir.resolve(CommonScripts.GRADLE_PROPERTIES_NAME));
+
+        addVersionCatalogs(rootDir.resolve(VERSION_CATALOG_DIR), result);
+        return result;
+    }
+
+    private void addProjectFiles(NbGradleProjectTree project, Set<Path> result) {
+        Path projectDir = project.getProjectDir().toPath();
+
+        File buildScript = project.getGenericProperties().getBuildScript();
+        if (buildScript != null) {
+            result.add(buildScript.toPath());
+        }
+        else {
+            addScriptFiles(projectDir, CommonScripts.BUILD_BASE_NAME, result);
+        }
+        result.add(projectDir.resolve(CommonScripts.GRADLE_PROPERTIES_NAME));
+
+        for (NbGradleProjectTree child: project.getChildren()) {
+            addProjectFiles(child, result);
+        }
+    }
+
+    private void addScriptFiles(Path dir, String baseName, Set<Path> result) {
+        boolean foundAny = false;
+        for (Path scriptFile: scriptProvider.findScriptFiles(dir, baseName)) {
+            result.add(scriptFile);
+            foundAny = true;
+        }
+
+        if (!foundAny) {
+            // Watch for the script to be created.
+            result.add(new CommonScripts(scriptProvider).getScriptFilePath(dir, baseName));
+        }
+    }
+
+    private static void addVersionCatalogs(Path catalogDir, Set<Path> result) {
+        result.add(catalogDir.resolve(DEFAULT_VERSION_CATALOG));
+
+        if (!Files.isDirectory(catalogDir)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> catalogs = Files.newDirectoryStream(catalogDir, "*" + VERSION_CATALOG_SUFFIX)) {
+            for (Path catalog: catalogs) {
+                result.add(catalog);
+            }
+        } catch (NotDirectoryException ex) {
+            // Ignore, there are no version catalogs.
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to list version catalogs in " + catalogDir, ex);
+        }
+    }
+
+    private final class Registration {
+        private final NbGradleModel model;
+        private final Path rootDir;
+        private final Path projectDir;
+
+        public Registration(NbGradleModel model) {
+            this.model = Objects.requireNonNull(model, "model");
+            this.rootDir = model.getProjectDef().getRootProject().getProjectDir().toPath();
+            this.projectDir = model.getProjectDir().toPath();
+        }
+
+        public void register() {
+            WatchedBuild build = watchedBuilds.get(rootDir);
+            if (build == null) {
+                build = new WatchedBuild(rootDir);
+                watchedBuilds.put(rootDir, build);
+            }
+
+            build.addProject(projectDir);
+
+            // The root project knows the most about its build, so we always
+            // trust its project tree. Otherwise, we only update when we have
+            // reason to believe that the project tree has changed.
+            if (build.filesNeedUpdate || model.isRootProject()) {
+                build.updateWatchedFiles(collectWatchedFiles(rootDir, model));
+            }
+        }
+
+        public void unregister() {
+            WatchedBuild build = watchedBuilds.get(rootDir);
+            if (build == null) {
+                return;
+            }
+
+            if (build.removeProject(projectDir)) {
+                watchedBuilds.remove(rootDir);
+                build.unwatchAll();
+            }
+        }
+    }
+
+    private final class WatchedBuild {
+        private final Path rootDir;
+        private final Map<Path, Integer> projectDirs;
+        private final Map<Path, ListenerRef> watchedFiles;
+        private boolean filesNeedUpdate;
+
+        public WatchedBuild(Path rootDir) {
+            this.rootDir = rootDir;
+            this.projectDirs = new HashMap<>();
+            this.watchedFiles = new HashMap<>();
+            this.filesNeedUpdate = true;
+        }
+
+        public void addProject(Path projectDir) {
+            projectDirs.merge(projectDir, 1, Integer::sum);
+        }
+
+        /**
+         * Returns {@code true} if there are no more registered projects.
+         */
+        public boolean removeProject(Path projectDir) {
+            Integer count = projectDirs.get(projectDir);
+            if (count != null) {
+                if (count <= 1) {
+                    projectDirs.remove(projectDir);
+                }
+                else {
+                    projectDirs.put(projectDir, count - 1);
+                }
+            }
+            return projectDirs.isEmpty();
+        }
+
+        public void updateWatchedFiles(Collection<Path> newFiles) {
+            filesNeedUpdate = false;
+
+            Iterator<Map.Entry<Path, ListenerRef>> watchedItr = watchedFiles.entrySet().iterator();
+            while (watchedItr.hasNext()) {
+                Map.Entry<Path, ListenerRef> entry = watchedItr.next();
+                if (!newFiles.contains(entry.getKey())) {
+                    entry.getValue().unregister();
+                    watchedItr.remove();
+                }
+            }
+
+            Runnable changeListener = () -> changeDispatcher.reportKey(rootDir);
+            for (Path file: newFiles) {
+                if (!watchedFiles.containsKey(file)) {
+                    watchedFiles.put(file, fileSystemWatcher.watchPathContent(file, changeListener));
+                }
+            }
+        }
+
+        public void unwatchAll() {
+            for (ListenerRef ref: watchedFiles.values()) {
+                ref.unregister();
+            }
+            watchedFiles.clear();
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final BuildScriptChangeWatcher DEFAULT = new BuildScriptChangeWatcher(
+                FileSystemWatcher.getDefault(),
+                NbGradleProjectFactory.DEFAULT_SCRIPT_FILE_PROVIDER,
+                LoadedProjectManager.getDefault(),
+                NbTaskExecutors.DEFAULT_EXECUTOR,
+                CommonGlobalSettings.getDefault().reloadOnBuildScriptChange().getActiveSource(),
+                CommonGlobalSettings.getDefault().buildScriptChangeDelayMs().getActiveSource());
+    }
+}
@@ -1,18 +1,22 @@
 package org.netbeans.gradle.project;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -20,7 +24,6 @@ import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jtrim2.cancel.Cancellation;
@@ -34,6 +37,7 @@ import org.netbeans.gradle.project.model.NbGradleProjectTree;
 import org.netbeans.gradle.project.model.SettingsGradleDef;
 import org.netbeans.gradle.project.properties.global.GlobalSettingsUtils;
 import org.netbeans.gradle.project.util.LazyPaths;
+import org.netbeans.gradle.project.util.NbFileUtils;
 import org.netbeans.gradle.project.util.NbTaskExecutors;
 import org.netbeans.gradle.project.util.StringUtils;
 
@@ -44,14 +48,25 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
     private static final SecureRandom RANDOM = new SecureRandom();
     private static final int STAMP_SIZE = 16 ; // bytes
 
+    private static final String SETTINGS_DIR_NAME = "settings-gradle";
+    private static final String STORE_FILE_NAME = "settings-index.bin";
+    private static final int STORE_MAGIC = 0x4E424753; // "NBGS"
+    private static final int STORE_VERSION = 1;
+
     private final LazyPaths cacheDir;
     private final RootProjectRegistry rootProjectRegistry;
     private final UpdateTaskExecutor settingsDefPersistor;
 
-    private final Lock outstandingDefsLock;
-    private final Map<File, SettingsDef> outstandingDefs;
+    private final Lock loadLock;
+    private volatile boolean storeLoaded;
+    private volatile boolean legacyStoreMigrated;
+
+    private final Lock defsLock;
+    private final Map<File, SettingsDef> settingsDefs;
+    private long modCount;
+    private long persistedModCount;
 
-    private final Locker locker;
+    private final Lock ioLock;
 
     public DefaultGlobalSettingsFileManager(RootProjectRegistry rootProjectRegistry) {
         this(rootProjectRegistry, GlobalSettingsUtils.cacheRoot());
@@ -61,9 +76,16 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
         this.rootProjectRegistry = Objects.requireNonNull(rootProjectRegistry, "rootProjectRegistry");
         this.cacheDir = Objects.requireNonNull(cacheDir, "cacheDir");
         this.settingsDefPersistor = new GenericUpdateTaskExecutor(SETTINGS_FILE_UPDATER);
-        this.outstandingDefsLock = new ReentrantLock();
-        this.outstandingDefs = new HashMap<>();
-        this.locker = new Locker();
+        this.loadLock = new ReentrantLock();
+        this.storeLoaded = false;
+        this.legacyStoreMigrated = false;
+        this.defsLock = new ReentrantLock();
+        this.settingsDefs = new HashMap<>();
+        this.modCount = 0;
+        this.persistedModCount = 0;
+        // TODO: We should also use file lock (though it is not a big issue since
+        //       NB cannot run concurrently with itself anyway).
+        this.ioLock = new ReentrantLock();
     }
 
     @Override
@@ -106,11 +128,12 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
         SettingsGradleDef settingsDef = model.getSettingsGradleDef();
         File rootProjectDir = root.getProjectDir();
 
-        outstandingDefsLock.lock();
+        defsLock.lock();
         try {
-            putAllSettingsDef(rootProjectDir, root, settingsDef, stamp, outstandingDefs);
+            putAllSettingsDef(rootProjectDir, root, settingsDef, stamp, settingsDefs);
+            modCount++;
         } finally {
-            outstandingDefsLock.unlock();
+            defsLock.unlock();
         }
     }
 
@@ -126,6 +149,8 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
         Objects.requireNonNull(model, "model");
         setAllSettingsDef(model, getStamp());
 
+        // The update executor merges the requests arriving while a previous
+        // write is still pending, so a burst of updates is written only once.
         settingsDefPersistor.execute(this::persistSettingsDefsNow);
     }
 
@@ -148,116 +173,263 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
     }
 
     private void persistSettingsDefsNow0() throws IOException {
-        final List<SettingsDef> toSave;
-        outstandingDefsLock.lock();
-        try {
-            if (outstandingDefs.isEmpty()) {
-                return;
-            }
+        ensureStoreLoaded();
 
-            toSave = new ArrayList<>(outstandingDefs.values());
-        } finally {
-            outstandingDefsLock.unlock();
+        Path storeFile = tryGetStoreFile();
+        if (storeFile == null) {
+            LOGGER.log(Level.WARNING, "Cannot save settings.gradle location for projects.");
+            return;
         }
 
-        getLocker().doWrite(() -> {
-            MessageDigest hashCalculator = getNameHasher();
-            for (SettingsDef def: toSave) {
-                Path savePath = tryGetProjectSaveFile(def.projectDir, hashCalculator);
-                if (savePath == null) {
-                    LOGGER.log(Level.WARNING, "Cannot save settings.gradle location for projects.");
-                    break;
-                }
-
-                Path settingsGradle = def.settingsGradleDef.getSettingsGradle();
-
-                Properties output = new Properties();
-                output.put("projectDir", def.projectDir.toString());
-                output.put("rootProjectDir", def.rootProjectDir.toString());
-                output.put("maySearchUpwards", Boolean.toString(def.settingsGradleDef.isMaySearchUpwards()));
-                output.put("settingsGradle", settingsGradle != null ? settingsGradle.toString() : "");
-                output.put("stamp", def.stamp);
+        ioLock.lock();
+        try {
+            List<SettingsDef> toSave;
+            long savedModCount;
 
-                Files.createDirectories(savePath.getParent());
-                try (OutputStream outputStream = Files.newOutputStream(savePath)) {
-                    output.store(outputStream, null);
+            defsLock.lock();
+            try {
+                if (modCount == persistedModCount) {
+                    return;
                 }
+
+                savedModCount = modCount;
+                pruneStaleDefs(settingsDefs);
+                toSave = new ArrayList<>(settingsDefs.values());
+            } finally {
+                defsLock.unlock();
             }
-            return null;
-        });
 
-        outstandingDefsLock.lock();
-        try {
-            for (SettingsDef def: toSave) {
-                if (outstandingDefs.get(def.projectDir) == def) {
-                    outstandingDefs.remove(def.projectDir);
-                }
+            Files.createDirectories(storeFile.getParent());
+            NbFileUtils.writeBytesAtomically(storeFile, serializeDefs(toSave));
+
+            defsLock.lock();
+            try {
+                persistedModCount = Math.max(persistedModCount, savedModCount);
+            } finally {
+                defsLock.unlock();
             }
         } finally {
-            outstandingDefsLock.unlock();
+            ioLock.unlock();
+        }
+
+        if (legacyStoreMigrated) {
+            legacyStoreMigrated = false;
+            deleteLegacyStore(storeFile.getParent());
         }
     }
 
     private SettingsDef tryGetSettingsDef(File projectDir) {
-        outstandingDefsLock.lock();
+        ensureStoreLoaded();
+
+        defsLock.lock();
         try {
-            SettingsDef outstanding = outstandingDefs.get(projectDir);
-            if (outstanding != null) {
-                return outstanding;
+            SettingsDef result = settingsDefs.get(projectDir);
+            if (result == null) {
+                return null;
             }
+
+            return isUpToDate(result, settingsDefs) ? result : null;
         } finally {
-            outstandingDefsLock.unlock();
+            defsLock.unlock();
         }
+    }
+
+    private static boolean isUpToDate(SettingsDef def, Map<File, SettingsDef> allDefs) {
+        if (Objects.equals(def.projectDir, def.rootProjectDir)) {
+            return true;
+        }
+
+        // The entries of subprojects are only valid if their root was not
+        // updated since (i.e., the subproject might have been removed from the build).
+        SettingsDef rootDef = allDefs.get(def.rootProjectDir);
+        if (rootDef == null) {
+            return false;
+        }
+
+        return Objects.equals(def.stamp, rootDef.stamp)
+                && Objects.equals(rootDef.projectDir, rootDef.rootProjectDir);
+    }
 
-        SettingsDef result = tryGetStoredSettingsDef(projectDir);
+    private static void pruneStaleDefs(Map<File, SettingsDef> defs) {
+        defs.values().removeIf(def -> !isUpToDate(def, defs));
+    }
 
-        outstandingDefsLock.lock();
+    private void ensureStoreLoaded() {
+        if (storeLoaded) {
+            return;
+        }
+
+        loadLock.lock();
         try {
-            SettingsDef outstanding = outstandingDefs.get(projectDir);
-            if (outstanding != null) {
-                result = outstanding;
+            if (storeLoaded) {
+                return;
+            }
+
+            boolean migrated = false;
+            Map<File, SettingsDef> loadedDefs = Collections.emptyMap();
+
+            Path storeFile = tryGetStoreFile();
+            if (storeFile != null) {
+                if (Files.isRegularFile(storeFile)) {
+                    loadedDefs = readStore(storeFile);
+                }
+                else {
+                    loadedDefs = readLegacyStore(storeFile.getParent());
+                    migrated = !loadedDefs.isEmpty();
+                }
+            }
+
+            defsLock.lock();
+            try {
+                // Updates done before the store was loaded take precedence.
+                for (SettingsDef def: loadedDefs.values()) {
+                    settingsDefs.putIfAbsent(def.projectDir, def);
+                }
+                if (migrated) {
+                    modCount++;
+                    legacyStoreMigrated = true;
+                }
+            } finally {
+                defsLock.unlock();
+            }
+
+            storeLoaded = true;
+
+            if (migrated) {
+                settingsDefPersistor.execute(this::persistSettingsDefsNow);
             }
         } finally {
-            outstandingDefsLock.unlock();
+            loadLock.unlock();
         }
+    }
 
-        return result;
+    private Path tryGetStoreFile() {
+        return cacheDir.tryGetSubPath(SETTINGS_DIR_NAME, STORE_FILE_NAME);
     }
 
-    private SettingsDef tryGetStoredSettingsDef(File projectDir) {
-        try {
-            return tryGetStoredSettingsDef0(projectDir);
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+    private static byte[] serializeDefs(List<SettingsDef> defs) throws IOException {
+        // Entries are grouped by their root project, so the settings file and
+        // the stamp are only stored once per build.
+        Map<File, List<SettingsDef>> groups = new LinkedHashMap<>();
+        for (SettingsDef def: defs) {
+            groups.computeIfAbsent(def.rootProjectDir, key -> new ArrayList<>()).add(def);
         }
-    }
 
-    private SettingsDef tryGetStoredSettingsDef0(final File projectDir) throws IOException {
-        return getLocker().doRead(() -> {
-            SettingsDef result = tryGetStoredSettingsDefUnsafe(projectDir);
-            if (result == null) {
-                return null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * defs.size() + 16);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(STORE_MAGIC);
+            output.writeInt(STORE_VERSION);
+            output.writeInt(groups.size());
+
+            for (Map.Entry<File, List<SettingsDef>> entry: groups.entrySet()) {
+                List<SettingsDef> groupDefs = entry.getValue();
+                SettingsDef first = groupDefs.get(0);
+                Path settingsGradle = first.settingsGradleDef.getSettingsGradle();
+
+                output.writeUTF(entry.getKey().toString());
+                output.writeUTF(settingsGradle != null ? settingsGradle.toString() : "");
+                output.writeBoolean(first.settingsGradleDef.isMaySearchUpwards());
+                output.writeUTF(first.stamp);
+
+                output.writeInt(groupDefs.size());
+                for (SettingsDef def: groupDefs) {
+                    output.writeUTF(def.projectDir.toString());
+                }
             }
+        }
+        return bytes.toByteArray();
+    }
 
-            if (Objects.equals(projectDir, result.projectDir)) {
+    private static Map<File, SettingsDef> readStore(Path storeFile) {
+        Map<File, SettingsDef> result = new HashMap<>();
+        try (InputStream fileInput = Files.newInputStream(storeFile);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(fileInput))) {
+
+            if (input.readInt() != STORE_MAGIC || input.readInt() != STORE_VERSION) {
+                LOGGER.log(Level.INFO, "Ignoring settings.gradle store with unknown format: {0}", storeFile);
                 return result;
             }
 
-            SettingsDef rootDef = tryGetStoredSettingsDefUnsafe(projectDir);
-            if (rootDef == null) {
-                return null;
+            int groupCount = input.readInt();
+            for (int groupIndex = 0; groupIndex < groupCount; groupIndex++) {
+                File rootProjectDir = new File(input.readUTF());
+                String settingsGradle = input.readUTF();
+                boolean maySearchUpwards = input.readBoolean();
+                String stamp = input.readUTF();
+
+                SettingsGradleDef settingsGradleDef = new SettingsGradleDef(
+                        settingsGradle.isEmpty() ? null : Paths.get(settingsGradle),
+                        maySearchUpwards);
+
+                int projectCount = input.readInt();
+                for (int projectIndex = 0; projectIndex < projectCount; projectIndex++) {
+                    File projectDir = new File(input.readUTF());
+                    result.put(projectDir, new SettingsDef(rootProjectDir, projectDir, settingsGradleDef, stamp));
+                }
+            }
+        } catch (IOException | InvalidPathException ex) {
+            LOGGER.log(Level.INFO, "Failed to load settings.gradle locations from: " + storeFile, ex);
+            result.clear();
+        }
+        return result;
+    }
+
+    private static List<Path> getLegacySettingsFiles(Path settingsDir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        if (!Files.isDirectory(settingsDir)) {
+            return result;
+        }
+
+        try (DirectoryStream<Path> hashDirs = Files.newDirectoryStream(settingsDir, Files::isDirectory)) {
+            for (Path hashDir: hashDirs) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(hashDir, "*.properties")) {
+                    for (Path file: files) {
+                        result.add(file);
+                    }
+                }
             }
+        }
+        return result;
+    }
+
+    private static Map<File, SettingsDef> readLegacyStore(Path settingsDir) {
+        Map<File, SettingsDef> result = new HashMap<>();
+        try {
+            for (Path settingsFile: getLegacySettingsFiles(settingsDir)) {
+                SettingsDef def = tryReadLegacySettingsDef(settingsFile);
+                if (def != null) {
+                    result.put(def.projectDir, def);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to migrate settings.gradle locations from: " + settingsDir, ex);
+        }
 
-            return Objects.equals(result.stamp, rootDef.stamp) ? result : null;
-        });
+        pruneStaleDefs(result);
+        return result;
     }
 
-    private SettingsDef tryGetStoredSettingsDefUnsafe(File projectDir) {
-        Path settingsFile = tryGetProjectSaveFile(projectDir);
-        if (settingsFile == null || !Files.isRegularFile(settingsFile)) {
-            return null;
+    private static void deleteLegacyStore(Path settingsDir) {
+        try {
+            for (Path settingsFile: getLegacySettingsFiles(settingsDir)) {
+                Files.deleteIfExists(settingsFile);
+                deleteIfEmpty(settingsFile.getParent());
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to remove the old settings.gradle locations from: " + settingsDir, ex);
+        }
+    }
+
+    private static void deleteIfEmpty(Path dir) throws IOException {
+        try (DirectoryStream<Path> content = Files.newDirectoryStream(dir)) {
+            if (content.iterator().hasNext()) {
+                return;
+            }
         }
+        Files.deleteIfExists(dir);
+    }
 
+    private static SettingsDef tryReadLegacySettingsDef(Path settingsFile) {
         Properties settings = new Properties();
         try (InputStream input = Files.newInputStream(settingsFile)) {
             settings.load(input);
@@ -266,63 +438,28 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
             return null;
         }
 
-        String storedProjectDir = settings.getProperty("projectDir", "");
-        if (!storedProjectDir.isEmpty() && !projectDir.equals(new File(storedProjectDir))) {
-            return null;
-        }
-
+        String projectDir = settings.getProperty("projectDir", "");
         String rootProjectDir = settings.getProperty("rootProjectDir", "");
         String maySearchUpwards = settings.getProperty("maySearchUpwards", "");
         String settingsGradle = settings.getProperty("settingsGradle", "");
         String stamp = settings.getProperty("stamp", "");
 
+        if (projectDir.isEmpty() || rootProjectDir.isEmpty()) {
+            return null;
+        }
+
         try {
             SettingsGradleDef settingsGradleDef = new SettingsGradleDef(
                     settingsGradle.isEmpty() ? null : Paths.get(settingsGradle),
                     Boolean.parseBoolean(maySearchUpwards));
 
-            return new SettingsDef(new File(rootProjectDir), projectDir, settingsGradleDef, stamp);
+            return new SettingsDef(new File(rootProjectDir), new File(projectDir), settingsGradleDef, stamp);
         } catch (InvalidPathException ex) {
             LOGGER.log(Level.INFO, "Failed to parse settings settings in: " + settingsFile, ex);
             return null;
         }
     }
 
-    private Path tryGetProjectSaveFile(File projectDir) {
-        return tryGetProjectSaveFile(projectDir, getNameHasher());
-    }
-
-    private Path tryGetProjectSaveFile(File projectDir, MessageDigest hashCalculator) {
-        hashCalculator.reset();
-        String keyHash = StringUtils.byteArrayToHex(hashCalculator.digest(projectDir.toString().getBytes(StringUtils.UTF8)));
-
-        List<String> subPaths = new ArrayList<>();
-        subPaths.add("settings-gradle");
-
-        if (keyHash.length() > 2) {
-            subPaths.add(keyHash.substring(0, 2));
-            subPaths.add(keyHash.substring(2) + ".properties");
-        }
-        else {
-            subPaths.add("XX");
-            subPaths.add(keyHash + ".properties");
-        }
-
-        return cacheDir.tryGetSubPath(subPaths);
-    }
-
-    private Locker getLocker() {
-        return locker;
-    }
-
-    private static MessageDigest getNameHasher() {
-        try {
-            return MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException ex) {
-            throw new RuntimeException("Unable to load the MD5 calculator.", ex);
-        }
-    }
-
     private static final class SettingsDef {
         public final File rootProjectDir;
         public final File projectDir;
@@ -340,40 +477,4 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
             this.stamp = Objects.requireNonNull(stamp, "stamp");
         }
     }
-
-    private static final class Locker {
-        private final Lock readLock;
-        private final Lock writeLock;
-
-        public Locker() {
-            // TODO: We should also use file lock (though it is not a big issue since
-            //       NB cannot run concurrently with itself anyway).
-
-            ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-            this.readLock = readWriteLock.readLock();
-            this.writeLock = readWriteLock.writeLock();
-        }
-
-        public <R> R doRead(IoTask<? extends R> task) throws IOException {
-            readLock.lock();
-            try {
-                return task.run();
-            } finally {
-                readLock.unlock();
-            }
-        }
-
-        public <R> R doWrite(IoTask<? extends R> task) throws IOException {
-            writeLock.lock();
-            try {
-                return task.run();
-            } finally {
-                writeLock.unlock();
-            }
-        }
-    }
-
-    private interface IoTask<R> {
-        public R run() throws IOException;
-    }
 }
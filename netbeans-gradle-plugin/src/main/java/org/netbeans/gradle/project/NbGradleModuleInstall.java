@@ -1,12 +1,17 @@
 package org.netbeans.gradle.project;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.gradle.model.util.TemporaryFileManager;
 
 public final class NbGradleModuleInstall extends Yenta {
     private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(NbGradleModuleInstall.class.getName());
     private static final Set<String> FRIENDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
             "org.netbeans.modules.gsf.testrunner",
             "org.netbeans.modules.gsf.testrunner.ui",
@@ -20,4 +25,14 @@ public final class NbGradleModuleInstall extends Yenta {
         return FRIENDS;
     }
 
+    @Override
+    public void close() {
+        try {
+            TemporaryFileManager.getDefault().releaseRetainedFiles();
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to remove the retained temporary files.", ex);
+        }
+
+        super.close();
+    }
 }
@@ -44,6 +44,7 @@ import org.netbeans.gradle.project.query.GradleTemplateAttrProvider;
 import org.netbeans.gradle.project.script.ScriptFileProvider;
 import org.netbeans.gradle.project.tasks.DefaultGradleCommandExecutor;
 import org.netbeans.gradle.project.tasks.MergedBuiltInGradleCommandQuery;
+import org.netbeans.gradle.project.tasks.vars.VariableValueCache;
 import org.netbeans.gradle.project.util.CloseableAction;
 import org.netbeans.gradle.project.view.ContextActionProvider;
 import org.netbeans.gradle.project.view.GradleActionProvider;
@@ -139,6 +140,10 @@ public final class NbGradleProject implements Project {
         getModelUpdater().reloadProject();
     }
 
+    public void reloadProjectInBackground(Runnable loadCompleteListener) {
+        getModelUpdater().reloadProjectInBackground(loadCompleteListener);
+    }
+
     public void waitForLoadedProject(CancellationToken cancelToken) {
         getModelUpdater().waitForLoadedProject(cancelToken);
     }
@@ -206,6 +211,10 @@ public final class NbGradleProject implements Project {
         return getServiceObjects().scriptFileProvider;
     }
 
+    public VariableValueCache getTaskVariableCache() {
+        return getServiceObjects().taskVariableCache;
+    }
+
     @Nonnull
     public String getName() {
         return name;
@@ -276,6 +285,8 @@ public final class NbGradleProject implements Project {
                 = NbGradleProjectFactory.ROOT_PROJECT_REGISTRY;
         public static final GlobalSettingsFileManager SETTINGS_FILE_MANAGER
                 = NbGradleProjectFactory.SETTINGS_FILE_MANAGER;
+        public static final BuildScriptChangeWatcher BUILD_SCRIPT_WATCHER
+                = BuildScriptChangeWatcher.getDefault();
 
         public final GradleAuxiliaryConfiguration auxConfig;
         public final NbGradleSingleProjectConfigProvider configProvider;
@@ -299,6 +310,7 @@ public final class NbGradleProject implements Project {
         public final BuiltInGradleCommandQuery mergedCommandQuery;
         public final SettingsFileManager settingsFileManager;
         public final ScriptFileProvider scriptFileProvider;
+        public final VariableValueCache taskVariableCache;
 
         public final Lookup services;
         public final NbGradleProjectLookups projectLookups;
@@ -331,6 +343,7 @@ public final class NbGradleProject implements Project {
                 }
             });
             this.settingsFileManager = new SettingsFileManager(projectDirAsFile, SETTINGS_FILE_MANAGER);
+            this.taskVariableCache = new VariableValueCache();
             this.projectDisplayInfo = new ProjectDisplayInfo(
                     modelManager.currentModel(),
                     commonProperties.displayNamePattern().getActiveSource());
@@ -402,7 +415,8 @@ public final class NbGradleProject implements Project {
 
             List<PropertySource<CloseableAction>> actionProperties = Arrays.asList(
                     LICENSE_MANAGER.getRegisterListenerAction(currentModel, licenseInfo),
-                    ROOT_PROJECT_REGISTRY.forProject(currentModel)
+                    ROOT_PROJECT_REGISTRY.forProject(currentModel),
+                    BUILD_SCRIPT_WATCHER.forProject(currentModel)
             );
 
             return GenericOpenHook.create(actionProperties, modelUpdater::reloadProjectMayUseCache);
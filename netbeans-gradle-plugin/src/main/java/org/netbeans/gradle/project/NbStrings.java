@@ -339,6 +339,14 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.ParsingModel");
     }
 
+    public static String getResolvingDependencies() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.ResolvingDependencies");
+    }
+
+    public static String getClassPathPending(String projectName) {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.ClassPathPending", projectName);
+    }
+
     public static String getFetchingToolingModel(Class<?> modelType) {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.FetchingToolingModel", modelType.getSimpleName());
     }
@@ -6,6 +6,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.concurrent.Tasks;
 import org.jtrim2.concurrent.WaitableSignal;
 import org.netbeans.gradle.project.model.ModelLoader;
 import org.netbeans.gradle.project.model.ModelRetrievedListener;
@@ -44,20 +45,38 @@ public final class ProjectModelUpdater<M> {
     }
 
     public void ensureLoadRequested() {
-        loadProject(true, true);
+        loadProject(true, true, false, Tasks.noOpTask());
     }
 
     public void reloadProject() {
-        loadProject(false, false);
+        loadProject(false, false, false, Tasks.noOpTask());
+    }
+
+    /**
+     * Reloads the project without using any cache in the background (i.e.,
+     * after the other pending project loads) and notifies the given listener
+     * when the reload completes (regardless if it failed or not).
+     *
+     * @param loadCompleteListener the listener to be notified after the project
+     *   was reloaded. This argument cannot be {@code null}.
+     */
+    public void reloadProjectInBackground(Runnable loadCompleteListener) {
+        Objects.requireNonNull(loadCompleteListener, "loadCompleteListener");
+        loadProject(false, false, true, loadCompleteListener);
     }
 
     public void reloadProjectMayUseCache() {
-        loadProject(false, true);
+        loadProject(false, true, false, Tasks.noOpTask());
     }
 
-    private void loadProject(final boolean onlyIfNotLoaded, final boolean mayUseCache) {
+    private void loadProject(
+            final boolean onlyIfNotLoaded,
+            final boolean mayUseCache,
+            final boolean background,
+            final Runnable loadCompleteListener) {
         if (!hasModelBeenLoaded.compareAndSet(false, true)) {
             if (onlyIfNotLoaded) {
+                loadCompleteListener.run();
                 return;
             }
         }
@@ -71,6 +90,7 @@ public final class ProjectModelUpdater<M> {
                     // Since we are content with a cached value, we consider that the
                     // model loading currently in progress will be (or was) good enough
                     // as a cached value.
+                    loadCompleteListener.run();
                     return;
                 }
             } while (!lastInProgressRef.compareAndSet(null, progressRef));
@@ -79,8 +99,9 @@ public final class ProjectModelUpdater<M> {
             lastInProgressRef.set(progressRef);
         }
 
-        modelLoader.fetchModel(mayUseCache, modelUpdaterWrapper, () -> {
+        modelLoader.fetchModel(mayUseCache, background, modelUpdaterWrapper, () -> {
             lastInProgressRef.compareAndSet(progressRef, null);
+            loadCompleteListener.run();
         });
     }
 
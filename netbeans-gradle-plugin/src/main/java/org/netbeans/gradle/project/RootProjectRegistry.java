@@ -26,10 +26,12 @@ import org.netbeans.gradle.project.util.NbFileUtils;
 public final class RootProjectRegistry {
     private final Lock mainLock;
     private final Map<RootProjectKey, RegisteredProjects> rootProjects;
+    private final Map<File, List<RootProjectKey>> subprojectRoots;
 
     public RootProjectRegistry() {
         this.mainLock = new ReentrantLock();
         this.rootProjects = new HashMap<>();
+        this.subprojectRoots = new HashMap<>();
     }
 
     private static boolean isExplicitRootProject(NbGradleModel input) {
@@ -64,7 +66,11 @@ public final class RootProjectRegistry {
 
         mainLock.lock();
         try {
-            rootProjects.put(key, registeredProjects);
+            RegisteredProjects prevProjects = rootProjects.put(key, registeredProjects);
+            if (prevProjects != null) {
+                removeSubprojectRoots(key, prevProjects);
+            }
+            addSubprojectRoots(key, registeredProjects);
         } finally {
             mainLock.unlock();
         }
@@ -76,6 +82,7 @@ public final class RootProjectRegistry {
                 RegisteredProjects value = rootProjects.get(key);
                 if (value != null && value.id == regId) {
                     rootProjects.remove(key);
+                    removeSubprojectRoots(key, value);
                 }
 
                 Closeables.closeAll(safeRefs);
@@ -94,6 +101,24 @@ public final class RootProjectRegistry {
         return result;
     }
 
+    private void addSubprojectRoots(RootProjectKey key, RegisteredProjects projects) {
+        for (File subproject: projects.subprojects) {
+            subprojectRoots.computeIfAbsent(subproject, dir -> new ArrayList<>(1)).add(key);
+        }
+    }
+
+    private void removeSubprojectRoots(RootProjectKey key, RegisteredProjects projects) {
+        for (File subproject: projects.subprojects) {
+            List<RootProjectKey> roots = subprojectRoots.get(subproject);
+            if (roots != null) {
+                roots.remove(key);
+                if (roots.isEmpty()) {
+                    subprojectRoots.remove(subproject);
+                }
+            }
+        }
+    }
+
     private static void safeToOpenChildren(NbGradleProjectTree root, Collection<? super Closeable> safeRefs) {
         for (NbGradleProjectTree child: root.getChildren()) {
             safeRefs.add(NbGradleProjectFactory.safeToOpen(child.getProjectDir()));
@@ -104,12 +129,12 @@ public final class RootProjectRegistry {
     public Path tryGetSettingsFile(File projectDir) {
         mainLock.lock();
         try {
-            for (Map.Entry<RootProjectKey, RegisteredProjects> entry: rootProjects.entrySet()) {
-                if (entry.getValue().subprojects.contains(projectDir)) {
-                    return entry.getKey().settingsFile;
-                }
+            List<RootProjectKey> roots = subprojectRoots.get(projectDir);
+            if (roots == null) {
+                return null;
             }
-            return null;
+            // Prefer the most recently registered root project.
+            return roots.get(roots.size() - 1).settingsFile;
         } finally {
             mainLock.unlock();
         }
@@ -4,6 +4,12 @@ package org.netbeans.gradle.project.api.task;
  * Defines context objects which might be passed to the
  * {@link org.netbeans.spi.project.ActionProvider} of this plugin to
  * alter its behaviour.
+ * <P>
+ * Apart from these objects, the context might also contain an
+ * {@code org.jtrim2.cancel.CancellationToken}. The started Gradle command is
+ * canceled when that token signals cancellation. The context might also
+ * contain a {@link CommandCompleteListener}, which is notified after the
+ * started Gradle command has been executed.
  */
 public enum GradleActionProviderContext {
     /**
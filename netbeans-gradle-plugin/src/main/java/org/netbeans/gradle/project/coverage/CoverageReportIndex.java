@@ -0,0 +1,320 @@
+package org.netbeans.gradle.project.coverage;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Defines the line hit counts of a JaCoCo or Cobertura XML coverage report
+ * in a compact form. The report is read with a streaming parser, so the
+ * whole document is never loaded into memory.
+ */
+final class CoverageReportIndex {
+    private static final Map<String, String> JACOCO_DTD_BY_ID = ImmutableMap.of(
+            "-//JACOCO//DTD Report 1.0//EN", "jacoco-1.0.dtd",
+            "-//JACOCO//DTD Report 1.1//EN", "jacoco-1.1.dtd");
+    private static final String COBERTURA_DTD_SYSTEM_ID = "http://cobertura.sourceforge.net/xml/coverage-04.dtd";
+
+    private final long reportLastModified;
+    private final long reportSize;
+    private final Map<String, FileLineHits> files;
+
+    private CoverageReportIndex(long reportLastModified, long reportSize, Map<String, FileLineHits> files) {
+        this.reportLastModified = reportLastModified;
+        this.reportSize = reportSize;
+        this.files = Collections.unmodifiableMap(files);
+    }
+
+    public static CoverageReportIndex parse(Path reportFile) throws IOException {
+        long lastModified = Files.getLastModifiedTime(reportFile).toMillis();
+        long size = Files.size(reportFile);
+
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(reportFile))) {
+            return new CoverageReportIndex(lastModified, size, parse(input));
+        } catch (XMLStreamException | NumberFormatException ex) {
+            throw new IOException("Invalid coverage report: " + reportFile, ex);
+        }
+    }
+
+    public boolean isUpToDate(Path reportFile) {
+        try {
+            return reportLastModified == Files.getLastModifiedTime(reportFile).toMillis()
+                    && reportSize == Files.size(reportFile);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    public long getReportLastModified() {
+        return reportLastModified;
+    }
+
+    /**
+     * Returns the line hits keyed by the path of the source file relative to
+     * the source root (e.g., "org/example/MyClass.java").
+     */
+    public Map<String, FileLineHits> getFiles() {
+        return files;
+    }
+
+    public FileLineHits tryGetFile(String sourcePath) {
+        return files.get(sourcePath);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> {
+            String dtdResource = COBERTURA_DTD_SYSTEM_ID.equals(systemId)
+                    ? "coverage-04.dtd"
+                    : JACOCO_DTD_BY_ID.get(publicId);
+
+            InputStream result = dtdResource != null
+                    ? CoverageReportIndex.class.getResourceAsStream(dtdResource)
+                    : null;
+            // Never try to download unknown DTDs.
+            return result != null ? result : new ByteArrayInputStream(new byte[0]);
+        });
+        return factory;
+    }
+
+    private static Map<String, FileLineHits> parse(InputStream input) throws XMLStreamException {
+        XMLStreamReader reader = createInputFactory().createXMLStreamReader(input);
+        try {
+            Map<String, FileLineHits.Builder> builders = new HashMap<>();
+
+            Deque<String> elementPath = new ArrayDeque<>();
+            boolean jacoco = true;
+            String jacocoPackage = "";
+            FileLineHits.Builder currentFile = null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = elementPath.pop();
+                    if (jacoco ? name.equals("sourcefile") : name.equals("class")) {
+                        currentFile = null;
+                    }
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+
+                String name = reader.getLocalName();
+                String parentName = elementPath.peek();
+                elementPath.push(name);
+
+                if (parentName == null) {
+                    jacoco = !name.equals("coverage");
+                    continue;
+                }
+
+                if (jacoco) {
+                    switch (name) {
+                        case "package":
+                            jacocoPackage = attribute(reader, "name");
+                            break;
+                        case "sourcefile":
+                            if (parentName.equals("package")) {
+                                String fileName = attribute(reader, "name");
+                                String path = jacocoPackage.isEmpty() ? fileName : jacocoPackage + '/' + fileName;
+                                String displayName = path.replaceFirst("[.]java$", "").replace('/', '.');
+                                currentFile = builders.computeIfAbsent(path, key -> new FileLineHits.Builder(displayName));
+                            }
+                            break;
+                        case "line":
+                            if (currentFile != null && parentName.equals("sourcefile")) {
+                                currentFile.addLine(intAttribute(reader, "nr"), intAttribute(reader, "ci"));
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                else {
+                    switch (name) {
+                        case "class":
+                            String path = attribute(reader, "filename");
+                            // Nested classes share the same source file, so they are merged into their outer class.
+                            String className = attribute(reader, "name");
+                            int nestedSeparator = className.indexOf('$');
+                            String displayName = nestedSeparator >= 0
+                                    ? className.substring(0, nestedSeparator)
+                                    : className;
+                            currentFile = builders.computeIfAbsent(path, key -> new FileLineHits.Builder(displayName));
+                            break;
+                        case "line":
+                            // Lines are listed again for each method, we only need the class level list.
+                            if (currentFile != null && parentName.equals("lines") && isClassLinesPath(elementPath)) {
+                                currentFile.addLine(intAttribute(reader, "number"), intAttribute(reader, "hits"));
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+
+            Map<String, FileLineHits> result = new HashMap<>(2 * builders.size());
+            builders.forEach((path, builder) -> result.put(path, builder.build()));
+            return result;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static boolean isClassLinesPath(Deque<String> elementPath) {
+        // elementPath = [line, lines, class, ...]
+        Iterator<String> pathItr = elementPath.iterator();
+        pathItr.next();
+        pathItr.next();
+        return pathItr.hasNext() && pathItr.next().equals("class");
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        String result = reader.getAttributeValue(null, name);
+        return result != null ? result : "";
+    }
+
+    private static int intAttribute(XMLStreamReader reader, String name) {
+        return Integer.parseInt(attribute(reader, name).trim());
+    }
+
+    /**
+     * Defines the hit counts of the lines of a single source file. Lines are
+     * zero based.
+     */
+    public static final class FileLineHits {
+        private final String displayName;
+        private final int[] lines;
+        private final int[] hitCounts;
+        private final int executedLineCount;
+
+        private FileLineHits(String displayName, int[] lines, int[] hitCounts) {
+            this.displayName = displayName;
+            this.lines = lines;
+            this.hitCounts = hitCounts;
+
+            int executed = 0;
+            for (int hitCount: hitCounts) {
+                if (hitCount != 0) {
+                    executed++;
+                }
+            }
+            this.executedLineCount = executed;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Returns the number of lines recorded in the report. This is not the
+         * number of lines in the source file.
+         */
+        public int getLineCount() {
+            return lines.length;
+        }
+
+        public int getExecutedLineCount() {
+            return executedLineCount;
+        }
+
+        /**
+         * Returns the hit count of the given zero based line or -1 if the
+         * line is not recorded in the report.
+         */
+        public int getHitCount(int lineNo) {
+            int index = Arrays.binarySearch(lines, lineNo);
+            return index >= 0 ? hitCounts[index] : -1;
+        }
+
+        private static final class Builder {
+            private final String displayName;
+            private int[] lines;
+            private int[] hitCounts;
+            private int size;
+            private boolean sorted;
+
+            public Builder(String displayName) {
+                this.displayName = Objects.requireNonNull(displayName, "displayName");
+                this.lines = new int[16];
+                this.hitCounts = new int[16];
+                this.size = 0;
+                this.sorted = true;
+            }
+
+            public void addLine(int lineNumber, int hitCount) {
+                // Line numbers are one based, lines outside the file cannot be shown anyway.
+                // Ignoring them also keeps the packed entries of sortByLines in line order.
+                if (lineNumber < 1 || hitCount < 0) {
+                    return;
+                }
+
+                if (size == lines.length) {
+                    lines = Arrays.copyOf(lines, 2 * size);
+                    hitCounts = Arrays.copyOf(hitCounts, 2 * size);
+                }
+
+                int lineNo = lineNumber - 1;
+                if (size > 0 && lines[size - 1] >= lineNo) {
+                    sorted = false;
+                }
+
+                lines[size] = lineNo;
+                hitCounts[size] = hitCount;
+                size++;
+            }
+
+            public FileLineHits build() {
+                if (!sorted) {
+                    sortByLines();
+                }
+
+                return new FileLineHits(displayName, Arrays.copyOf(lines, size), Arrays.copyOf(hitCounts, size));
+            }
+
+            private void sortByLines() {
+                long[] entries = new long[size];
+                for (int i = 0; i < size; i++) {
+                    entries[i] = ((long)lines[i] << 32) | (hitCounts[i] & 0xFFFFFFFFL);
+                }
+                Arrays.sort(entries);
+
+                // Duplicate lines (e.g., from multiple classes of the same file) keep their largest hit count.
+                int newSize = 0;
+                for (long entry: entries) {
+                    int lineNo = (int)(entry >>> 32);
+                    int hitCount = (int)entry;
+                    if (newSize > 0 && lines[newSize - 1] == lineNo) {
+                        hitCounts[newSize - 1] = Math.max(hitCounts[newSize - 1], hitCount);
+                    }
+                    else {
+                        lines[newSize] = lineNo;
+                        hitCounts[newSize] = hitCount;
+                        newSize++;
+                    }
+                }
+                size = newSize;
+            }
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package org.netbeans.gradle.project.coverage;
 
-import com.google.common.collect.ImmutableMap;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -31,12 +31,6 @@ import org.openide.filesystems.FileChangeListener;
 import org.openide.filesystems.FileEvent;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
-import org.openide.util.Pair;
-import org.openide.xml.XMLUtil;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 /**
  * Implementation of CoverageProvider for Gradle project infrastructure.
@@ -45,18 +39,17 @@ import org.xml.sax.SAXException;
  */
 public class GradleCoverageProvider implements CoverageProvider {
     private static final Logger LOG = Logger.getLogger(GradleCoverageProvider.class.getName());
-    private static final Map<String, String> JACOCO_DTD_BY_ID = ImmutableMap.of(
-            "-//JACOCO//DTD Report 1.0//EN", "jacoco-1.0.dtd",
-            "-//JACOCO//DTD Report 1.1//EN", "jacoco-1.1.dtd");
 
     private final JavaExtension javaExt;
     private final Project p;
+    private CoverageReportIndex reportIndex;
     private Map<String, GradleSummary> summaryCache;
     private FileChangeListener listener;
 
     public GradleCoverageProvider(JavaExtension javaExt) {
         this.javaExt = Objects.requireNonNull(javaExt, "javaExt");
         this.p = javaExt.getProject();
+        this.reportIndex = null;
         this.summaryCache = null;
         this.listener = null;
     }
@@ -117,6 +110,7 @@ public class GradleCoverageProvider implements CoverageProvider {
     public @Override synchronized void clear() {
         File r = report();
         if (r != null && r.isFile() && r.delete()) {
+            reportIndex = null;
             summaryCache = null;
             CoverageManager.INSTANCE.resultsUpdated(p, GradleCoverageProvider.this);
         }
@@ -128,19 +122,32 @@ public class GradleCoverageProvider implements CoverageProvider {
         if (path == null) {
             return null;
         }
-        GradleDetails det = null;
+
+        CoverageReportIndex index;
+        GradleSummary summ;
         synchronized (this) {
-            GradleSummary summ = summaryCache != null ? summaryCache.get(path) : null;
-            if (summ != null) {
-                det = summ.getDetails();
-                //we have to set the linecount here, as the entire line span is not apparent from the parsed xml, giving strange results then.
-                det.lineCount = doc.getDefaultRootElement().getElementCount();
-            }
+            index = reportIndex;
+            summ = summaryCache != null ? summaryCache.get(path) : null;
+        }
+
+        if (index == null) {
+            return null;
         }
+
+        // Only the details of the viewed file are materialized.
+        CoverageReportIndex.FileLineHits lineHits = index.tryGetFile(path);
+        if (lineHits == null) {
+            return null;
+        }
+
+        GradleDetails det = new GradleDetails(fo, index.getReportLastModified(), lineHits);
+        det.setSummary(summ != null ? summ : new GradleSummary(fo, lineHits, det));
+        //we have to set the linecount here, as the entire line span is not apparent from the parsed xml, giving strange results then.
+        det.lineCount = doc.getDefaultRootElement().getElementCount();
         return det;
     }
 
-    private @CheckForNull Pair<File, org.w3c.dom.Document> parse() {
+    private @CheckForNull CoverageReportIndex parse() {
         File r = report();
         if (r == null) {
             LOG.fine("undefined report location");
@@ -159,9 +166,6 @@ public class GradleCoverageProvider implements CoverageProvider {
                     fire();
                 }
                 private void fire() {
-                    synchronized (GradleCoverageProvider.this) {
-                        summaryCache = null;
-                    }
                     CoverageManager.INSTANCE.resultsUpdated(p, GradleCoverageProvider.this);
                 }
             };
@@ -176,25 +180,23 @@ public class GradleCoverageProvider implements CoverageProvider {
             LOG.log(Level.FINE, "empty {0}", r);
             return null;
         }
-        try {
-            org.w3c.dom.Document report;
-            InputSource inputSource = new InputSource(r.toURI().toString());
-            report = XMLUtil.parse(inputSource, true, false, XMLUtil.defaultErrorHandler(), (publicId, systemId) -> {
-                String dtdResource;
-                if (systemId.equals("http://cobertura.sourceforge.net/xml/coverage-04.dtd")) {
-                    dtdResource = "coverage-04.dtd";
-                }
-                else {
-                    dtdResource = JACOCO_DTD_BY_ID.get(publicId);
-                }
 
-                return dtdResource != null
-                        ? new InputSource(GradleCoverageProvider.class.getResourceAsStream(dtdResource))
-                        : null;
-            });
+        Path reportPath = r.toPath();
+        synchronized (this) {
+            if (reportIndex != null && reportIndex.isUpToDate(reportPath)) {
+                return reportIndex;
+            }
+        }
+
+        try {
+            CoverageReportIndex index = CoverageReportIndex.parse(reportPath);
             LOG.log(Level.FINE, "parsed {0}", r);
-            return Pair.of(r, report);
-        } catch (IOException | SAXException ex) {
+            synchronized (this) {
+                reportIndex = index;
+                summaryCache = null;
+            }
+            return index;
+        } catch (IOException ex) {
             LOG.log(Level.INFO, "Could not parse " + r, ex);
             return null;
         }
@@ -211,68 +213,36 @@ public class GradleCoverageProvider implements CoverageProvider {
 
     @Override
     public List<FileCoverageSummary> getResults() {
-        Pair<File, org.w3c.dom.Document> r = parse();
-        if (r == null) {
+        CoverageReportIndex index = parse();
+        if (index == null) {
             return null;
         }
+
+        synchronized (this) {
+            if (summaryCache != null && reportIndex == index) {
+                return new ArrayList<>(summaryCache.values());
+            }
+        }
+
         ClassPath src = srcPath();
-        List<FileCoverageSummary> summs = new ArrayList<>();
         Map<String, GradleSummary> summaries = new HashMap<>();
-        boolean jacoco = hasPlugin();
-        NodeList nl = r.second().getElementsByTagName(jacoco ? "sourcefile" : "class"); // NOI18N
-        for (int i = 0; i < nl.getLength(); i++) {
-            Element clazz = (Element)nl.item(i);
-            String filename;
-            List<Element> lines;
-            String name;
-            if (jacoco) {
-                filename = ((Element)clazz.getParentNode()).getAttribute("name") + '/' + clazz.getAttribute("name");
-                lines = new ArrayList<>();
-                for (Element line: XMLUtil.findSubElements(clazz)) {
-                    if (line.getTagName().equals("line")) {
-                        lines.add(line);
-                    }
-                }
-                name = filename.replaceFirst("[.]java$", "").replace('/', '.');
-            }
-            else {
-                filename = clazz.getAttribute("filename");
-                Element linesE = XMLUtil.findElement(clazz, "lines", null); // NOI18N
-                lines = linesE != null ? XMLUtil.findSubElements(linesE) : Collections.<Element>emptyList();
-                // XXX nicer to collect together nested classes in same compilation unit
-                name = clazz.getAttribute("name").replace('$', '.');
-            }
+        for (Map.Entry<String, CoverageReportIndex.FileLineHits> entry: index.getFiles().entrySet()) {
+            String filename = entry.getKey();
             FileObject java = src.findResource(filename); // NOI18N
             if (java == null) {
                 continue;
             }
-            final GradleSummary summar = summaryOf(java, name, lines, jacoco, r.first().lastModified());
-            summaries.put(filename, summar);
-            summs.add(summar);
+
+            CoverageReportIndex.FileLineHits lineHits = entry.getValue();
+            GradleDetails det = new GradleDetails(java, index.getReportLastModified(), lineHits);
+            summaries.put(filename, new GradleSummary(java, lineHits, det));
         }
         synchronized (this) {
-            summaryCache = summaries;
-        }
-        return summs;
-    }
-
-    private GradleSummary summaryOf(FileObject java, String name, List<Element> lines, boolean jacoco, long lastUpdated) {
-        // Not really the total number of lines in the file at all, but close enough - the ones Cobertura recorded.
-        int lineCount = 0;
-        int executedLineCount = 0;
-        Map<Integer, Integer> detLines = new HashMap<>();
-        for (Element line : lines) {
-            lineCount++;
-            String attr = line.getAttribute(jacoco ? "ci" : "hits");
-            String num = line.getAttribute(jacoco ? "nr" : "number");
-            detLines.put(Integer.valueOf(num) - 1,Integer.valueOf(attr));
-            if (!attr.equals("0")) {
-                executedLineCount++;
+            if (reportIndex == index) {
+                summaryCache = summaries;
             }
         }
-        GradleDetails det = new GradleDetails(java, lastUpdated, lineCount, detLines);
-        GradleSummary s = new GradleSummary(java, name, det, executedLineCount);
-        return s;
+        return new ArrayList<>(summaries.values());
     }
 
     @Override
@@ -281,32 +251,24 @@ public class GradleCoverageProvider implements CoverageProvider {
     }
 
     private static class GradleSummary extends FileCoverageSummary {
-        private final GradleDetails details;
-
-        public GradleSummary(FileObject file, String displayName, GradleDetails details, int executedLineCount) {
-            super(file, displayName, details.getLineCount(), executedLineCount, 0, 0);
-            this.details = details;
+        public GradleSummary(FileObject file, CoverageReportIndex.FileLineHits lineHits, GradleDetails details) {
+            super(file, lineHits.getDisplayName(), lineHits.getLineCount(), lineHits.getExecutedLineCount(), 0, 0);
             details.setSummary(this);
         }
-
-        GradleDetails getDetails() {
-            return details;
-        }
-
     }
 
     private static class GradleDetails implements FileCoverageDetails {
         private final FileObject fileObject;
         private final long lastUpdated;
         private FileCoverageSummary summary;
-        private final Map<Integer, Integer> lineHitCounts;
+        private final CoverageReportIndex.FileLineHits lineHits;
         int lineCount;
 
-        public GradleDetails(FileObject fileObject, long lastUpdated, int lineCount, Map<Integer, Integer> lineHitCounts) {
+        public GradleDetails(FileObject fileObject, long lastUpdated, CoverageReportIndex.FileLineHits lineHits) {
             this.fileObject = fileObject;
             this.lastUpdated = lastUpdated;
-            this.lineHitCounts = lineHitCounts;
-            this.lineCount = lineCount;
+            this.lineHits = lineHits;
+            this.lineCount = lineHits.getLineCount();
         }
 
 
@@ -340,17 +302,13 @@ public class GradleCoverageProvider implements CoverageProvider {
 
         @Override
         public CoverageType getType(int lineNo) {
-            Integer count = lineHitCounts.get(lineNo);
-            return count == null ? CoverageType.INFERRED : count == 0 ? CoverageType.NOT_COVERED : CoverageType.COVERED;
+            int count = lineHits.getHitCount(lineNo);
+            return count < 0 ? CoverageType.INFERRED : count == 0 ? CoverageType.NOT_COVERED : CoverageType.COVERED;
         }
 
         @Override
         public int getHitCount(int lineNo) {
-            Integer ret = lineHitCounts.get(lineNo);
-            if (ret == null) {
-                return 0;
-            }
-            return ret;
+            return Math.max(0, lineHits.getHitCount(lineNo));
         }
 
     }
@@ -20,11 +20,13 @@ public final class ModelNeeds {
 
     private final GradleModelDefQuery1 query1;
     private final GradleModelDefQuery2 query2;
+    private final StructureModelDefQuery structureQuery;
 
     public ModelNeeds(GradleProjectExtensionDef<?> extensionDef) {
         Objects.requireNonNull(extensionDef, "extensionDef");
         this.query1 = createQuery1(extensionDef);
         this.query2 = createQuery2(extensionDef);
+        this.structureQuery = extensionDef.getLookup().lookup(StructureModelDefQuery.class);
     }
 
     public GradleModelDefQuery1 getQuery1() {
@@ -35,6 +37,14 @@ public final class ModelNeeds {
         return query2;
     }
 
+    /**
+     * Returns the query for the models which can be loaded without resolving
+     * dependencies or {@code null} if the extension cannot be loaded in stages.
+     */
+    public StructureModelDefQuery tryGetStructureQuery() {
+        return structureQuery;
+    }
+
     private static GradleModelDefQuery1 createQuery1(
             Collection<? extends GradleModelDefQuery1> extensionQueries) {
 
@@ -0,0 +1,32 @@
+package org.netbeans.gradle.project.extensions;
+
+import org.netbeans.gradle.project.api.modelquery.GradleModelDef;
+import org.netbeans.gradle.project.api.modelquery.GradleTarget;
+
+/**
+ * Defines a query for the information which can be retrieved from the build
+ * scripts without resolving dependencies. Extensions providing this query on
+ * their lookup are loaded in two stages when a project is loaded for the first
+ * time: First with the models defined by this query, so that the project
+ * structure can be displayed immediately, then with the models defined by
+ * their {@link org.netbeans.gradle.project.api.modelquery.GradleModelDefQuery2}.
+ * <P>
+ * The models retrieved by this query are passed to the {@code parseModel}
+ * method of the extension the same way as the complete models.
+ */
+public interface StructureModelDefQuery {
+    public GradleModelDef getStructureModelDef(GradleTarget gradleTarget);
+
+    /**
+     * Returns the model to keep for the project if loading the complete models
+     * failed after the given model (parsed from the structure models) has
+     * already been applied. The returned model must not report its dependencies
+     * as being resolved anymore.
+     *
+     * @param structureModel the model parsed from the structure models. This
+     *   argument cannot be {@code null}.
+     * @return the model to keep for the project. This method never returns
+     *   {@code null}.
+     */
+    public Object getAbandonedStructureModel(Object structureModel);
+}
@@ -29,6 +29,7 @@ import org.netbeans.gradle.model.java.JavaOutputDirs;
 import org.netbeans.gradle.model.java.JavaSourceGroup;
 import org.netbeans.gradle.model.java.JavaSourceSet;
 import org.netbeans.gradle.project.NbGradleProjectFactory;
+import org.netbeans.gradle.project.NbStrings;
 import org.netbeans.gradle.project.ProjectInitListener;
 import org.netbeans.gradle.project.ProjectIssue;
 import org.netbeans.gradle.project.ProjectIssueManager;
@@ -39,6 +40,7 @@ import org.netbeans.gradle.project.coverage.GradleCoverageProvider;
 import org.netbeans.gradle.project.event.ChangeListenerManager;
 import org.netbeans.gradle.project.event.GenericChangeListenerManager;
 import org.netbeans.gradle.project.java.model.JavaParsingUtils;
+import org.netbeans.gradle.project.java.model.JavaOutputArtifactIndex;
 import org.netbeans.gradle.project.java.model.JavaProjectDependencies;
 import org.netbeans.gradle.project.java.model.JavaSourceDirHandler;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
@@ -87,6 +89,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
     private final GradleClassPathProvider cpProvider;
     private final Supplier<JavaSourceDirHandler> sourceDirsHandlerRef;
     private final ProjectIssueRef dependencyResolutionFailureRef;
+    private final ProjectIssueRef classPathPendingRef;
     private final JavaProjectDependencies projectDependencies;
 
     private final Supplier<Lookup> projectLookupRef;
@@ -116,6 +119,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         this.hasEverBeenLoaded = false;
 
         this.dependencyResolutionFailureRef = getProjectInfoManager(project).createIssueRef();
+        this.classPathPendingRef = getProjectInfoManager(project).createIssueRef();
         this.modelChangeListeners = new GenericChangeListenerManager();
 
         this.projectLookupRef = LazyValues.lazyValue(() -> {
@@ -359,6 +363,17 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         }
     }
 
+    private void setClassPathPending(NbJavaModule module, boolean pending) {
+        if (pending) {
+            String message = NbStrings.getClassPathPending(module.getProperties().getProjectName());
+            ProjectIssue.Entry entry = new ProjectIssue.Entry(ProjectIssue.Kind.INFO, message);
+            classPathPendingRef.setInfo(new ProjectIssue(Collections.singleton(entry)));
+        }
+        else {
+            classPathPendingRef.setInfo(null);
+        }
+    }
+
     private static String getIssueDescription(DependencyResolutionIssue issue) {
         StringBuilder result = new StringBuilder(1024);
         result.append(issue.getMessage());
@@ -444,8 +459,17 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
 
         NbJavaModule mainModule = parsedModel.getMainModule();
 
-        checkDependencyResolveProblems(mainModule);
+        if (parsedModel.isClassPathPending()) {
+            // The dependencies were not even attempted to be resolved, so
+            // keep the problems of the previous resolution until we know more.
+            setClassPathPending(mainModule, true);
+        }
+        else {
+            setClassPathPending(mainModule, false);
+            checkDependencyResolveProblems(mainModule);
+        }
         markOwnedDirs(mainModule);
+        projectDependencies.getOutputIndex().updateOutputs(project, mainModule);
 
         fireModelChange();
     }
@@ -454,6 +478,21 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
     public void deactivateExtension() {
     }
 
+    private CloseableAction.Ref registerInOutputIndex() {
+        JavaOutputArtifactIndex outputIndex = projectDependencies.getOutputIndex();
+
+        outputIndex.addProject(project, projectDirectoryAsFile);
+        if (hasEverBeenLoaded) {
+            outputIndex.updateOutputs(project, getCurrentModel().getMainModule());
+        }
+
+        ListenerRef indexListenerRef = projectDependencies.trackOutputIndex();
+        return () -> {
+            indexListenerRef.unregister();
+            outputIndex.removeProject(project);
+        };
+    }
+
     private static PropertySource<CloseableAction> classPathProviderProperty(
             JavaExtension javaExt,
             String... classPathTypes) {
@@ -512,6 +551,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
                     ClassPath.BOOT,
                     ClassPath.COMPILE,
                     ClassPath.EXECUTE));
+            closeableActions.defineAction(javaExt::registerInOutputIndex);
         }
 
         @Override
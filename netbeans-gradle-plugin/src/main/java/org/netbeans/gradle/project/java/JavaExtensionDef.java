@@ -18,6 +18,7 @@ import org.netbeans.gradle.project.api.modelquery.GradleModelDef;
 import org.netbeans.gradle.project.api.modelquery.GradleModelDefQuery1;
 import org.netbeans.gradle.project.api.modelquery.GradleModelDefQuery2;
 import org.netbeans.gradle.project.api.modelquery.GradleTarget;
+import org.netbeans.gradle.project.extensions.StructureModelDefQuery;
 import org.netbeans.gradle.project.java.model.JavaModelSource;
 import org.netbeans.gradle.project.java.model.JavaParsingUtils;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
@@ -35,7 +36,7 @@ public final class JavaExtensionDef implements GradleProjectExtensionDef<NbJavaM
     private final Lookup lookup;
 
     public JavaExtensionDef() {
-        this.lookup = Lookups.fixed(new Query1(), new Query2());
+        this.lookup = Lookups.fixed(new Query1(), new Query2(), new StructureQuery());
     }
 
     @Override
@@ -58,20 +59,25 @@ public final class JavaExtensionDef implements GradleProjectExtensionDef<NbJavaM
         return NbJavaModel.class;
     }
 
-    private static NbJavaModel createReliableModel(GradleTarget evaluationEnvironment, NbJavaModule mainModule) {
-        return NbJavaModel.createModel(
-                evaluationEnvironment,
-                JavaModelSource.GRADLE_1_8_API,
-                mainModule);
+    private static NbJavaModel createReliableModel(
+            GradleTarget evaluationEnvironment,
+            NbJavaModule mainModule,
+            boolean classPathPending) {
+
+        return classPathPending
+                ? NbJavaModel.createClassPathPendingModel(evaluationEnvironment, JavaModelSource.GRADLE_1_8_API, mainModule)
+                : NbJavaModel.createModel(evaluationEnvironment, JavaModelSource.GRADLE_1_8_API, mainModule);
     }
 
     private Map<File, NbJavaModel> parseFromNewModels(ModelLoadResult retrievedModels) {
         GradleTarget evaluationEnvironment = retrievedModels.getEvaluationEnvironment();
         Collection<NbJavaModule> modules = JavaParsingUtils.parseModules(retrievedModels);
+        Map<File, Lookup> projectInfos = retrievedModels.getEvaluatedProjectsModel();
 
         Map<File, NbJavaModel> result = CollectionUtils.newHashMap(modules.size());
         for (NbJavaModule module: modules) {
-            NbJavaModel model = createReliableModel(evaluationEnvironment, module);
+            boolean classPathPending = JavaParsingUtils.isClassPathPending(projectInfos.get(module.getModuleDir()));
+            NbJavaModel model = createReliableModel(evaluationEnvironment, module, classPathPending);
             result.put(module.getModuleDir(), model);
         }
 
@@ -142,4 +148,45 @@ public final class JavaExtensionDef implements GradleProjectExtensionDef<NbJavaM
                     : RESULT;
         }
     }
+
+    private static final class StructureQuery implements StructureModelDefQuery {
+        private static final GradleModelDef RESULT = GradleModelDef.fromProjectInfoBuilders2(
+                JavaModelBuilders.JAR_OUTPUTS_BUILDER,
+                JavaModelBuilders.JAVA_SOURCES_BUILDER_WITHOUT_CLASSPATHS,
+                JavaModelBuilders.JAVA_COMPATIBILITY_BUILDER,
+                JavaModelBuilders.JAVA_TEST_BUILDER,
+                JavaModelBuilders.JACOCO_BUILDER,
+                JavaModelBuilders.WAR_FOLDERS_BUILDER);
+
+        private static final GradleModelDef RESULT_WITHOUT_WAR = GradleModelDef.fromProjectInfoBuilders2(
+                JavaModelBuilders.JAR_OUTPUTS_BUILDER,
+                JavaModelBuilders.JAVA_SOURCES_BUILDER_WITHOUT_CLASSPATHS,
+                JavaModelBuilders.JAVA_COMPATIBILITY_BUILDER,
+                JavaModelBuilders.JAVA_TEST_BUILDER,
+                JavaModelBuilders.JACOCO_BUILDER);
+
+        @Override
+        public GradleModelDef getStructureModelDef(GradleTarget gradleTarget) {
+            return OtherPlugins.hasJavaEEExtension()
+                    ? RESULT_WITHOUT_WAR
+                    : RESULT;
+        }
+
+        @Override
+        public Object getAbandonedStructureModel(Object structureModel) {
+            if (!(structureModel instanceof NbJavaModel)) {
+                return structureModel;
+            }
+
+            NbJavaModel javaModel = (NbJavaModel)structureModel;
+            if (!javaModel.isClassPathPending()) {
+                return javaModel;
+            }
+
+            return NbJavaModel.createModel(
+                    javaModel.getEvaluationEnvironment(),
+                    javaModel.getModelSource(),
+                    javaModel.getMainModule());
+        }
+    }
 }
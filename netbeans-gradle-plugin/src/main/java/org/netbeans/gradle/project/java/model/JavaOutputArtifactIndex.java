@@ -0,0 +1,233 @@
+package org.netbeans.gradle.project.java.model;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim2.event.ListenerRef;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.event.ChangeListenerManager;
+import org.netbeans.gradle.project.event.GenericChangeListenerManager;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
+import org.netbeans.gradle.project.util.PathPrefixIndex;
+
+/**
+ * Defines a workspace wide index of the build outputs (jars and classes directories)
+ * of the opened projects, so that a classpath entry can be mapped to the
+ * project producing it without querying the owner of each entry.
+ * <P>
+ * Opened projects whose model has not been loaded yet cannot tell their outputs,
+ * so until then every file under their project directory is assumed to be
+ * owned by them (which is what {@code FileOwnerQuery} would report).
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+public final class JavaOutputArtifactIndex {
+    private static final JavaOutputArtifactIndex DEFAULT = new JavaOutputArtifactIndex(
+            new GenericChangeListenerManager(NbTaskExecutors.DEFAULT_EXECUTOR));
+
+    private final Lock mainLock;
+    private final Map<Project, ProjectEntry> projects;
+    private final Map<File, Project> outputOwners;
+    private volatile PathPrefixIndex<Project> unloadedProjectDirs;
+
+    private final ChangeListenerManager changeListeners;
+
+    public JavaOutputArtifactIndex(ChangeListenerManager changeListeners) {
+        this.changeListeners = Objects.requireNonNull(changeListeners, "changeListeners");
+        this.mainLock = new ReentrantLock();
+        this.projects = new HashMap<>();
+        this.outputOwners = new ConcurrentHashMap<>();
+        this.unloadedProjectDirs = PathPrefixIndex.create(Collections.<Map.Entry<Path, Project>>emptyList());
+    }
+
+    public static JavaOutputArtifactIndex getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers a listener to be notified when the owner of some outputs
+     * might have changed.
+     */
+    public ListenerRef addChangeListener(Runnable listener) {
+        return changeListeners.registerListener(listener);
+    }
+
+    /**
+     * Returns the opened project owning the given classpath entry or
+     * {@code null} if it is not an output of any of the opened projects.
+     */
+    public Project tryGetOwner(File output) {
+        Project owner = outputOwners.get(output);
+        if (owner != null) {
+            return owner;
+        }
+
+        PathPrefixIndex<Project> unloadedDirs = unloadedProjectDirs;
+        return unloadedDirs.size() > 0
+                ? unloadedDirs.tryGetValueOf(output.toPath())
+                : null;
+    }
+
+    /**
+     * Adds an opened project to the index. Until {@link #updateOutputs(Project, NbJavaModule) updateOutputs}
+     * is called, the project is considered to own every file in its project directory.
+     * Adding an already added project has no effect.
+     */
+    public void addProject(Project project, File projectDir) {
+        Objects.requireNonNull(project, "project");
+        Objects.requireNonNull(projectDir, "projectDir");
+
+        mainLock.lock();
+        try {
+            if (projects.containsKey(project)) {
+                return;
+            }
+            projects.put(project, new ProjectEntry(projectDir));
+            updateUnloadedProjectDirs();
+        } finally {
+            mainLock.unlock();
+        }
+
+        changeListeners.fireEventually();
+    }
+
+    /**
+     * Replaces the outputs of the given project with the outputs of the given
+     * module. This method does nothing if the project was not added (or has
+     * already been removed).
+     */
+    public void updateOutputs(Project project, NbJavaModule module) {
+        Objects.requireNonNull(project, "project");
+
+        Set<File> newOutputs = getOutputs(module);
+
+        mainLock.lock();
+        try {
+            ProjectEntry entry = projects.get(project);
+            if (entry == null) {
+                return;
+            }
+
+            Set<File> prevOutputs = entry.outputs;
+            if (prevOutputs != null && prevOutputs.equals(newOutputs)) {
+                return;
+            }
+
+            entry.outputs = newOutputs;
+
+            if (prevOutputs != null) {
+                removeOwnedOutputs(project, prevOutputs, newOutputs);
+            }
+            addOwnedOutputs(project, newOutputs);
+
+            if (prevOutputs == null) {
+                updateUnloadedProjectDirs();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        changeListeners.fireEventually();
+    }
+
+    public void removeProject(Project project) {
+        Objects.requireNonNull(project, "project");
+
+        mainLock.lock();
+        try {
+            ProjectEntry entry = projects.remove(project);
+            if (entry == null) {
+                return;
+            }
+
+            if (entry.outputs != null) {
+                removeOwnedOutputs(project, entry.outputs, Collections.<File>emptySet());
+            }
+            else {
+                updateUnloadedProjectDirs();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        changeListeners.fireEventually();
+    }
+
+    private void addOwnedOutputs(Project project, Set<File> outputs) {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        for (File output: outputs) {
+            outputOwners.putIfAbsent(output, project);
+        }
+    }
+
+    private void removeOwnedOutputs(Project project, Set<File> prevOutputs, Set<File> keptOutputs) {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        for (File output: prevOutputs) {
+            if (!keptOutputs.contains(output) && outputOwners.remove(output, project)) {
+                // Another project might also declare this output (which is unusual but possible).
+                reassignOwner(output);
+            }
+        }
+    }
+
+    private void reassignOwner(File output) {
+        for (Map.Entry<Project, ProjectEntry> entry: projects.entrySet()) {
+            Set<File> outputs = entry.getValue().outputs;
+            if (outputs != null && outputs.contains(output)) {
+                outputOwners.putIfAbsent(output, entry.getKey());
+                return;
+            }
+        }
+    }
+
+    private void updateUnloadedProjectDirs() {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        List<Map.Entry<Path, Project>> dirs = new ArrayList<>();
+        for (Map.Entry<Project, ProjectEntry> entry: projects.entrySet()) {
+            ProjectEntry projectEntry = entry.getValue();
+            if (projectEntry.outputs == null) {
+                dirs.add(new AbstractMap.SimpleImmutableEntry<>(projectEntry.projectDir.toPath(), entry.getKey()));
+            }
+        }
+        unloadedProjectDirs = PathPrefixIndex.create(dirs);
+    }
+
+    private static Set<File> getOutputs(NbJavaModule module) {
+        Set<File> result = new HashSet<>();
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
+            result.addAll(outputDirs.getClassesDirs());
+        }
+        for (NbJarOutput jarOutput: module.getJarOutputs()) {
+            result.add(jarOutput.getJar());
+        }
+        return result;
+    }
+
+    private static final class ProjectEntry {
+        public final File projectDir;
+        // null if the model of the project has not yet been loaded.
+        public Set<File> outputs;
+
+        public ProjectEntry(File projectDir) {
+            this.projectDir = projectDir;
+            this.outputs = null;
+        }
+    }
+}
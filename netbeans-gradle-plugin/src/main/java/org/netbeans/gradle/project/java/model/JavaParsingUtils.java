@@ -256,6 +256,19 @@ public final class JavaParsingUtils {
         return result;
     }
 
+    /**
+     * Returns {@code true} if the classpaths of the given project were not
+     * resolved because only the structure of the project was loaded.
+     */
+    public static boolean isClassPathPending(Lookup projectInfo) {
+        if (projectInfo == null) {
+            return false;
+        }
+
+        JavaSourcesModel sourcesModel = projectInfo.lookup(JavaSourcesModel.class);
+        return sourcesModel != null && !sourcesModel.isClassPathsResolved();
+    }
+
     private static List<NbJarOutput> getJarOutputs(Lookup projectInfo, Map<File, Set<File>> jarsToBuildDirs) {
         JarOutputsModel model = projectInfo.lookup(JarOutputsModel.class);
         if (model == null) {
@@ -2,15 +2,17 @@ package org.netbeans.gradle.project.java.model;
 
 import com.google.common.collect.Maps;
 import java.io.File;
-import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import org.jtrim2.event.ListenerRef;
 import org.jtrim2.event.ListenerRefs;
 import org.jtrim2.executor.GenericUpdateTaskExecutor;
@@ -25,6 +27,8 @@ import org.netbeans.api.project.FileOwnerQuery;
 import org.netbeans.api.project.Project;
 import org.netbeans.gradle.model.java.JavaClassPaths;
 import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.NbGradleProjectFactory;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.util.NbTaskExecutors;
 import org.openide.util.Utilities;
@@ -34,6 +38,7 @@ public final class JavaProjectDependencies {
             = PropertyFactory.constSource(Collections.<File, JavaProjectDependencyDef>emptyMap());
 
     private final JavaExtension javaExt;
+    private final JavaOutputArtifactIndex outputIndex;
     private final UpdateTaskExecutor updateExecutor;
 
     private final MutableProperty<TranslatedDependencies> translatedDependencies;
@@ -41,11 +46,12 @@ public final class JavaProjectDependencies {
     private final PropertySource<Map<File, JavaProjectDependencyDef>> filteredTranslatedJavaDependenciesMap;
 
     public JavaProjectDependencies(JavaExtension javaExt) {
-        this(javaExt, NbTaskExecutors.DEFAULT_EXECUTOR);
+        this(javaExt, JavaOutputArtifactIndex.getDefault(), NbTaskExecutors.DEFAULT_EXECUTOR);
     }
 
-    public JavaProjectDependencies(JavaExtension javaExt, TaskExecutor executor) {
+    public JavaProjectDependencies(JavaExtension javaExt, JavaOutputArtifactIndex outputIndex, TaskExecutor executor) {
         this.javaExt = Objects.requireNonNull(javaExt, "javaExt");
+        this.outputIndex = Objects.requireNonNull(outputIndex, "outputIndex");
         this.updateExecutor = new GenericUpdateTaskExecutor(TaskExecutors.inOrderSimpleExecutor(executor));
         this.translatedDependencies = PropertyFactory
                 .memPropertyConcurrent(null, true, SwingExecutors.getStrictExecutor(true));
@@ -86,7 +92,22 @@ public final class JavaProjectDependencies {
     }
 
     public void updateDependencies() {
-        updateExecutor.execute(this::updateDependenciesNow);
+        updateExecutor.execute(() -> updateDependenciesNow(false));
+    }
+
+    public JavaOutputArtifactIndex getOutputIndex() {
+        return outputIndex;
+    }
+
+    /**
+     * Starts retranslating the dependencies whenever the outputs of the opened
+     * projects change. The returned reference must be unregistered when the
+     * project is closed.
+     */
+    public ListenerRef trackOutputIndex() {
+        return outputIndex.addChangeListener(() -> {
+            updateExecutor.execute(() -> updateDependenciesNow(true));
+        });
     }
 
     public PropertySource<Map<File, JavaProjectDependencyDef>> translatedDependencies() {
@@ -106,55 +127,155 @@ public final class JavaProjectDependencies {
         }
     }
 
-    private void updateDependenciesNow() {
+    private void updateDependenciesNow(boolean outputsChanged) {
         // This method is never called concurrently due to the update executor.
 
         NbJavaModule currentModule = javaExt.getCurrentModel().getMainModule();
 
         TranslatedDependencies currentTranslatedDependencies = translatedDependencies.getValue();
-        if (currentTranslatedDependencies != null && currentTranslatedDependencies.source == currentModule) {
+        boolean sameModule = currentTranslatedDependencies != null
+                && currentTranslatedDependencies.source == currentModule;
+        if (sameModule && !outputsChanged) {
+            return;
+        }
+
+        Map<File, ProjectDependencyCandidate> prevDependencies = currentTranslatedDependencies != null
+                ? currentTranslatedDependencies.translatedDependencies
+                : Collections.<File, ProjectDependencyCandidate>emptyMap();
+        Map<File, ProjectDependencyCandidate> newDependencies
+                = translateDependencies(currentModule, outputIndex, tryGetBuildRootDir(), prevDependencies);
+
+        if (sameModule && newDependencies == prevDependencies) {
+            // Changes in the outputs of other projects are irrelevant for us.
             return;
         }
 
-        this.translatedDependencies.setValue(new TranslatedDependencies(currentModule, translateDependencies(currentModule)));
+        this.translatedDependencies.setValue(new TranslatedDependencies(currentModule, newDependencies));
+    }
+
+    private File tryGetBuildRootDir() {
+        NbGradleProject gradleProject = NbGradleProjectFactory.tryGetGradleProject(javaExt.getProject());
+        if (gradleProject == null) {
+            return null;
+        }
+        return gradleProject.currentModel().getValue().getSettingsDir().toFile();
+    }
+
+    /**
+     * Translates the dependencies of the given module with a single index lookup per
+     * classpath entry. Candidates with an unchanged owner are reused from {@code prevResult},
+     * and if nothing has changed, {@code prevResult} itself is returned.
+     * <P>
+     * The index only knows the opened projects, so the owner of the entries not found in
+     * the index but within the directory of the build (i.e., outputs of projects of the
+     * same build which were not opened) are queried from {@code FileOwnerQuery}. Other
+     * entries (e.g., external jars) are never queried.
+     */
+    static Map<File, ProjectDependencyCandidate> translateDependencies(
+            NbJavaModule module,
+            JavaOutputArtifactIndex outputIndex,
+            File buildRootDir,
+            Map<File, ProjectDependencyCandidate> prevResult) {
+        return translateDependencies(module, outputIndex, buildRootDir, JavaProjectDependencies::queryOwner, prevResult);
     }
 
-    private static Map<File, ProjectDependencyCandidate> translateDependencies(NbJavaModule module) {
-        Map<File, ProjectDependencyCandidate> result = new HashMap<>();
+    /**
+     * Same as {@link #translateDependencies(NbJavaModule, JavaOutputArtifactIndex, File, Map)} but
+     * the owner of the dependencies not known to the index is looked up with the given
+     * {@code fallbackOwnerQuery}.
+     */
+    public static Map<File, ProjectDependencyCandidate> translateDependencies(
+            NbJavaModule module,
+            JavaOutputArtifactIndex outputIndex,
+            File buildRootDir,
+            Function<? super File, ? extends Project> fallbackOwnerQuery,
+            Map<File, ProjectDependencyCandidate> prevResult) {
+        DependencyTranslator translator
+                = new DependencyTranslator(outputIndex, buildRootDir, fallbackOwnerQuery, prevResult);
 
         for (JavaSourceSet sourceSet: module.getSources()) {
             JavaClassPaths classpaths = sourceSet.getClasspaths();
 
             Set<File> compileClasspaths = classpaths.getCompileClasspaths();
             for (File dependency: compileClasspaths) {
-                tryTranslateDependency(dependency, result);
+                translator.tryTranslateDependency(dependency);
             }
 
             for (File dependency: classpaths.getRuntimeClasspaths()) {
                 if (!compileClasspaths.contains(dependency)) {
-                    tryTranslateDependency(dependency, result);
+                    translator.tryTranslateDependency(dependency);
                 }
             }
         }
 
-        return Collections.unmodifiableMap(result);
+        return translator.getResult();
     }
 
-    private static void tryTranslateDependency(File dependency, Map<File, ProjectDependencyCandidate> result) {
-        ProjectDependencyCandidate translated = tryTranslateDependency(dependency);
-        if (translated != null) {
-            result.put(dependency, translated);
-        }
+    private static Project queryOwner(File file) {
+        return FileOwnerQuery.getOwner(Utilities.toURI(file));
     }
 
-    private static ProjectDependencyCandidate tryTranslateDependency(File dependency) {
-        URI dependencyUri = Utilities.toURI(dependency);
-        Project owner = FileOwnerQuery.getOwner(dependencyUri);
-        if (owner == null) {
-            return null;
+    private static final class DependencyTranslator {
+        private final JavaOutputArtifactIndex outputIndex;
+        private final Path buildRootDir;
+        private final Function<? super File, ? extends Project> fallbackOwnerQuery;
+        private final Map<File, ProjectDependencyCandidate> prevResult;
+        private final Map<File, ProjectDependencyCandidate> result;
+        private final Set<File> visited;
+        private boolean changed;
+
+        public DependencyTranslator(
+                JavaOutputArtifactIndex outputIndex,
+                File buildRootDir,
+                Function<? super File, ? extends Project> fallbackOwnerQuery,
+                Map<File, ProjectDependencyCandidate> prevResult) {
+            this.outputIndex = outputIndex;
+            this.buildRootDir = buildRootDir != null ? buildRootDir.toPath() : null;
+            this.fallbackOwnerQuery = fallbackOwnerQuery;
+            this.prevResult = prevResult;
+            this.result = new HashMap<>();
+            this.visited = new HashSet<>();
+            this.changed = false;
+        }
+
+        public void tryTranslateDependency(File dependency) {
+            // Source sets usually share most of their dependencies.
+            if (!visited.add(dependency)) {
+                return;
+            }
+
+            Project owner = outputIndex.tryGetOwner(dependency);
+            if (owner == null) {
+                // The index only knows the opened projects.
+                if (!isInBuild(dependency)) {
+                    return;
+                }
+                owner = fallbackOwnerQuery.apply(dependency);
+                if (owner == null) {
+                    return;
+                }
+            }
+
+            ProjectDependencyCandidate prevCandidate = prevResult.get(dependency);
+            if (prevCandidate != null && prevCandidate.getProject() == owner) {
+                result.put(dependency, prevCandidate);
+            }
+            else {
+                result.put(dependency, new ProjectDependencyCandidate(owner, dependency));
+                changed = true;
+            }
         }
 
-        return new ProjectDependencyCandidate(owner, dependency);
+        private boolean isInBuild(File dependency) {
+            return buildRootDir != null && dependency.toPath().startsWith(buildRootDir);
+        }
+
+        public Map<File, ProjectDependencyCandidate> getResult() {
+            if (!changed && result.size() == prevResult.size()) {
+                return prevResult;
+            }
+            return Collections.unmodifiableMap(result);
+        }
     }
 
     private static final class TranslatedDependencies {
@@ -14,15 +14,18 @@ public final class NbJavaModel implements Serializable {
     private final GradleTarget evaluationEnvironment;
     private final JavaModelSource modelSource;
     private final NbJavaModule mainModule;
+    private final boolean classPathPending;
 
     private NbJavaModel(
             GradleTarget evaluationEnvironment,
             JavaModelSource modelSource,
-            NbJavaModule mainModule) {
+            NbJavaModule mainModule,
+            boolean classPathPending) {
 
         this.evaluationEnvironment = Objects.requireNonNull(evaluationEnvironment, "evaluationEnvironment");
         this.modelSource = Objects.requireNonNull(modelSource, "modelSource");
         this.mainModule = Objects.requireNonNull(mainModule, "mainModule");
+        this.classPathPending = classPathPending;
     }
 
     public static NbJavaModel createModel(
@@ -30,7 +33,22 @@ public final class NbJavaModel implements Serializable {
             JavaModelSource modelSource,
             NbJavaModule mainModule) {
 
-        return new NbJavaModel(evaluationEnvironment, modelSource, mainModule);
+        return new NbJavaModel(evaluationEnvironment, modelSource, mainModule, false);
+    }
+
+    /**
+     * Creates a model whose source sets have no classpaths because the
+     * dependencies of the project have not yet been resolved. Such models
+     * are to be replaced by a model created by
+     * {@link #createModel(GradleTarget, JavaModelSource, NbJavaModule) createModel}
+     * once the dependencies are resolved.
+     */
+    public static NbJavaModel createClassPathPendingModel(
+            GradleTarget evaluationEnvironment,
+            JavaModelSource modelSource,
+            NbJavaModule mainModule) {
+
+        return new NbJavaModel(evaluationEnvironment, modelSource, mainModule, true);
     }
 
     public GradleTarget getEvaluationEnvironment() {
@@ -45,6 +63,10 @@ public final class NbJavaModel implements Serializable {
         return mainModule;
     }
 
+    public boolean isClassPathPending() {
+        return classPathPending;
+    }
+
     private Object writeReplace() {
         return new SerializedFormat(this);
     }
@@ -59,11 +81,13 @@ public final class NbJavaModel implements Serializable {
         private final GradleTarget evaluationEnvironment;
         private final JavaModelSource modelSource;
         private final NbJavaModule mainModule;
+        private final boolean classPathPending;
 
         public SerializedFormat(NbJavaModel source) {
             this.evaluationEnvironment = source.evaluationEnvironment;
             this.modelSource = source.modelSource;
             this.mainModule = source.mainModule;
+            this.classPathPending = source.classPathPending;
         }
 
         public GradleTarget getEvaluationEnvironment() {
@@ -71,7 +95,7 @@ public final class NbJavaModel implements Serializable {
         }
 
         private Object readResolve() throws ObjectStreamException {
-            return new NbJavaModel(getEvaluationEnvironment(), modelSource, mainModule);
+            return new NbJavaModel(getEvaluationEnvironment(), modelSource, mainModule, classPathPending);
         }
     }
 }
@@ -14,6 +14,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
@@ -36,6 +38,7 @@ import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.tasks.DaemonTaskDef;
 import org.netbeans.gradle.project.tasks.DownloadSourcesTask;
 import org.netbeans.gradle.project.tasks.GradleDaemonManager;
+import org.netbeans.gradle.project.util.KeyedDiff;
 import org.netbeans.gradle.project.util.ListenerRegistrations;
 import org.netbeans.gradle.project.util.NbTaskExecutors;
 import org.netbeans.gradle.project.util.StringUtils;
@@ -104,10 +107,15 @@ public final class JavaDependenciesNode extends AbstractNode {
         private final AtomicReference<NbJavaModule> lastModule;
         private final ListenerRegistrations listenerRefs;
 
+        private final Lock keysLock;
+        private List<DependencyGroupNodeFactory> lastKeys;
+
         public DependenciesChildFactory(JavaExtension javaExt) {
             this.javaExt = Objects.requireNonNull(javaExt, "javaExt");
             this.lastModule = new AtomicReference<>(null);
             this.listenerRefs = new ListenerRegistrations();
+            this.keysLock = new ReentrantLock();
+            this.lastKeys = Collections.emptyList();
         }
 
         private static boolean hasRelevantDifferences(NbJavaModule module1, NbJavaModule module2) {
@@ -184,7 +192,7 @@ public final class JavaDependenciesNode extends AbstractNode {
         private void addDependencyGroup(
                 String groupName,
                 Collection<? extends SingleNodeFactory> dependencies,
-                List<SingleNodeFactory> toPopulate) {
+                List<DependencyGroupNodeFactory> toPopulate) {
 
             if (dependencies.isEmpty()) {
                 return;
@@ -326,7 +334,7 @@ public final class JavaDependenciesNode extends AbstractNode {
                 String nodeGroupName,
                 Collection<String> sourceSetDependencies,
                 Set<File> classpaths, // IN/OUT
-                List<SingleNodeFactory> toPopulate) {
+                List<DependencyGroupNodeFactory> toPopulate) {
 
             NbJavaModule mainModule = currentModel.getMainModule();
             classpaths.removeAll(mainModule.getAllBuildOutputs());
@@ -372,7 +380,7 @@ public final class JavaDependenciesNode extends AbstractNode {
             return intersect;
         }
 
-        private void readKeys(List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
+        private void readKeys(List<DependencyGroupNodeFactory> toPopulate) throws DataObjectNotFoundException {
             NbJavaModel currentModel = javaExt.getCurrentModel();
             NbJavaModule mainModule = currentModel.getMainModule();
 
@@ -417,11 +425,36 @@ public final class JavaDependenciesNode extends AbstractNode {
 
         @Override
         protected boolean createKeys(List<SingleNodeFactory> toPopulate) {
+            List<DependencyGroupNodeFactory> newKeys = new ArrayList<>();
             try {
-                readKeys(toPopulate);
+                readKeys(newKeys);
             } catch (DataObjectNotFoundException ex) {
                 throw new RuntimeException(ex);
             }
+
+            // Only the groups which were actually changed are updated and
+            // the nodes of the unchanged groups are kept.
+            List<DependencyGroupNodeFactory> resultKeys;
+            keysLock.lock();
+            try {
+                KeyedDiff<DependencyGroupNodeFactory> diff = KeyedDiff.compute(
+                        lastKeys,
+                        newKeys,
+                        DependencyGroupNodeFactory::getGroupName,
+                        DependencyGroupNodeFactory::hasSameDependencies);
+                for (KeyedDiff.Change<DependencyGroupNodeFactory> change: diff.getChanged()) {
+                    change.getOldKey().updateFrom(change.getNewKey());
+                }
+
+                LOGGER.log(Level.FINE, "Dependency nodes updated: {0}", diff);
+
+                resultKeys = diff.getResultKeys();
+                lastKeys = resultKeys;
+            } finally {
+                keysLock.unlock();
+            }
+
+            toPopulate.addAll(resultKeys);
             return true;
         }
 
@@ -433,16 +466,38 @@ public final class JavaDependenciesNode extends AbstractNode {
 
     private static class DependencyGroupNodeFactory implements SingleNodeFactory {
         private final String groupName;
-        private final List<SingleNodeFactory> dependencies;
+        private volatile List<SingleNodeFactory> dependencies;
+        private volatile DependencyGroupChildFactory childFactory;
 
         public DependencyGroupNodeFactory(String groupName, Collection<? extends SingleNodeFactory> dependencies) {
             this.dependencies = new ArrayList<>(dependencies);
             this.groupName = groupName;
+            this.childFactory = null;
+        }
+
+        public String getGroupName() {
+            return groupName;
+        }
+
+        public boolean hasSameDependencies(DependencyGroupNodeFactory other) {
+            return dependencies.equals(other.dependencies);
+        }
+
+        public void updateFrom(DependencyGroupNodeFactory newKey) {
+            dependencies = newKey.dependencies;
+
+            DependencyGroupChildFactory currentChildFactory = childFactory;
+            if (currentChildFactory != null) {
+                currentChildFactory.updateDependencies(newKey.dependencies);
+            }
         }
 
         @Override
         public Node createNode() {
-            AbstractNode result = new AbstractNode(Children.create(new DependencyGroupChildFactory(dependencies), true)) {
+            DependencyGroupChildFactory newChildFactory = new DependencyGroupChildFactory(dependencies);
+            childFactory = newChildFactory;
+
+            AbstractNode result = new AbstractNode(Children.create(newChildFactory, true)) {
                 @Override
                 public Image getIcon(int type) {
                     return NbIcons.getLibrariesIcon();
@@ -463,11 +518,12 @@ public final class JavaDependenciesNode extends AbstractNode {
             return result;
         }
 
+        // The dependencies are not part of the identity because they are updated
+        // in place, so that the node of the group does not need to be recreated.
         @Override
         public int hashCode() {
             int hash = 7;
             hash = 83 * hash + Objects.hashCode(this.groupName);
-            hash = 83 * hash + Objects.hashCode(this.dependencies);
             return hash;
         }
 
@@ -477,18 +533,24 @@ public final class JavaDependenciesNode extends AbstractNode {
             if (getClass() != obj.getClass()) return false;
 
             final DependencyGroupNodeFactory other = (DependencyGroupNodeFactory)obj;
-            return Objects.equals(this.groupName, other.groupName)
-                    && Objects.equals(this.dependencies, other.dependencies);
+            return Objects.equals(this.groupName, other.groupName);
         }
     }
 
     private static class DependencyGroupChildFactory extends ChildFactory<SingleNodeFactory> {
-        private final List<SingleNodeFactory> dependencies;
+        private volatile List<SingleNodeFactory> dependencies;
 
         public DependencyGroupChildFactory(Collection<? extends SingleNodeFactory> dependencies) {
             this.dependencies = new ArrayList<>(dependencies);
         }
 
+        public void updateDependencies(Collection<? extends SingleNodeFactory> newDependencies) {
+            // Dependency keys are compared by value, so nodes of unchanged
+            // dependencies are kept by the refresh.
+            dependencies = new ArrayList<>(newDependencies);
+            refresh(false);
+        }
+
         protected void readKeys(List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
             toPopulate.addAll(dependencies);
         }
@@ -632,10 +694,14 @@ public final class JavaDependenciesNode extends AbstractNode {
             };
         }
 
+        // JavaProjectDependencyDef is recreated on every model reload, so it is
+        // compared by the referenced project and source sets.
         @Override
         public int hashCode() {
             int hash = 3;
-            hash = 29 * hash + Objects.hashCode(this.projectDep);
+            hash = 29 * hash + System.identityHashCode(this.projectDep.getJavaExt());
+            hash = 29 * hash + Objects.hashCode(this.projectDep.getDisplaySourceSetNames());
+            hash = 29 * hash + (this.showSourceSet ? 1 : 0);
             return hash;
         }
 
@@ -645,7 +711,9 @@ public final class JavaDependenciesNode extends AbstractNode {
             if (getClass() != obj.getClass()) return false;
 
             final ProjectDependencyFactory other = (ProjectDependencyFactory)obj;
-            return Objects.equals(this.projectDep, other.projectDep);
+            return this.projectDep.getJavaExt() == other.projectDep.getJavaExt()
+                    && this.showSourceSet == other.showSourceSet
+                    && Objects.equals(this.projectDep.getDisplaySourceSetNames(), other.projectDep.getDisplaySourceSetNames());
         }
     }
 
@@ -0,0 +1,51 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks whether the models seen so far are enough to consider the classpaths
+ * of a project complete. The classpaths are incomplete until a model with
+ * resolved classpaths was loaded, and also while the current model only
+ * describes the structure of the project (i.e., its classpath is pending).
+ */
+final class ClassPathModelState {
+    private final Lock mainLock;
+    private boolean modelLoadedOnce;
+    private volatile boolean complete;
+
+    public ClassPathModelState() {
+        this.mainLock = new ReentrantLock();
+        this.modelLoadedOnce = false;
+        this.complete = false;
+    }
+
+    /**
+     * Updates the state after the model of the project has changed.
+     *
+     * @param modelLoaded {@code true} if the current model was actually loaded
+     *   and is not just a placeholder
+     * @param classPathPending {@code true} if the classpath of the current
+     *   model is not yet resolved
+     * @return {@code true} if the {@link #isComplete() completeness} of the
+     *   classpaths has changed due to this call, {@code false} otherwise
+     */
+    public boolean onModelChange(boolean modelLoaded, boolean classPathPending) {
+        mainLock.lock();
+        try {
+            if (modelLoaded && !classPathPending) {
+                modelLoadedOnce = true;
+            }
+
+            boolean prevComplete = complete;
+            complete = modelLoadedOnce && !classPathPending;
+            return prevComplete != complete;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
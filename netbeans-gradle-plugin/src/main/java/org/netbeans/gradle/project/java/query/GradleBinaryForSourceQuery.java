@@ -4,7 +4,10 @@ import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
 import javax.swing.event.ChangeListener;
@@ -18,7 +21,6 @@ import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.query.AbstractBinaryForSourceQuery;
 import org.netbeans.gradle.project.util.DefaultUrlFactory;
 import org.netbeans.gradle.project.util.LazyChangeSupport;
-import org.netbeans.gradle.project.util.NbFileUtils;
 import org.netbeans.gradle.project.util.UrlFactory;
 
 public final class GradleBinaryForSourceQuery
@@ -30,6 +32,7 @@ implements
 
     private final Supplier<? extends NbJavaModule> moduleProvider;
     private final LazyChangeSupport changes;
+    private volatile SourceRootTable sourceRootTable;
 
     public GradleBinaryForSourceQuery(JavaExtension javaExt) {
         this(() -> javaExt.getCurrentModel().getMainModule());
@@ -42,81 +45,116 @@ implements
         this.changes = LazyChangeSupport.createSwing(new EventSource());
     }
 
-    private static URL[] getRootsAsURLs(NbJavaModule module, File root) {
-        for (JavaSourceSet sourceSet: module.getSources()) {
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                for (File sourceRoot: sourceGroup.getSourceRoots()) {
-                    if (Objects.equals(sourceRoot, root)) {
-                        JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
-
-                        UrlFactory dirFactory = DefaultUrlFactory.getDefaultDirFactory();
-
-                        List<URL> result = new ArrayList<>();
-                        outputDirs.getClassesDirs().stream()
-                                .map(dirFactory::toUrl)
-                                .filter(url -> url != null)
-                                .forEach(result::add);
-
-                        File jar = module.tryGetJarForOutput(outputDirs);
-                        if (jar != null) {
-                            UrlFactory urlFactory = DefaultUrlFactory.getDefaultArchiveOrDirFactory();
-                            result.add(urlFactory.toUrl(jar));
-                        }
+    private SourceRootTable getSourceRootTable() {
+        NbJavaModule module = moduleProvider.get();
 
-                        return result.toArray(new URL[result.size()]);
-                    }
-                }
-            }
+        SourceRootTable result = sourceRootTable;
+        if (result == null || result.module != module) {
+            result = new SourceRootTable(module);
+            sourceRootTable = result;
         }
-        return NO_ROOTS;
+        return result;
     }
 
     @Override
     public void onModelChange() {
+        sourceRootTable = null;
         changes.fireChange();
     }
 
     @Override
     protected File normalizeSourcePath(File sourcePath) {
-        NbJavaModule module = moduleProvider.get();
-        for (JavaSourceSet sourceSet: module.getSources()) {
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                for (File sourceRoot: sourceGroup.getSourceRoots()) {
-                    if (NbFileUtils.isParentOrSame(sourceRoot, sourcePath)) {
-                        return sourceRoot;
-                    }
-                }
+        Map<File, URL[]> binaryRoots = getSourceRootTable().binaryRoots;
+        for (File current = sourcePath; current != null; current = current.getParentFile()) {
+            if (binaryRoots.containsKey(current)) {
+                return current;
             }
         }
         return null;
     }
 
     @Override
-    protected BinaryForSourceQuery.Result tryFindBinaryRoots(final File sourceRoot) {
+    protected BinaryForSourceQuery.Result tryFindBinaryRoots(File sourceRoot) {
         // If source path normalization succeeds, it is a source root we own.
+        return new BinaryRootsResult(sourceRoot);
+    }
 
-        return new BinaryForSourceQuery.Result() {
-            @Override
-            public URL[] getRoots() {
-                NbJavaModule mainModule = moduleProvider.get();
-                return getRootsAsURLs(mainModule, sourceRoot);
-            }
+    private final class BinaryRootsResult implements BinaryForSourceQuery.Result {
+        private final File sourceRoot;
 
-            @Override
-            public void addChangeListener(ChangeListener listener) {
-                changes.addChangeListener(listener);
-            }
+        public BinaryRootsResult(File sourceRoot) {
+            this.sourceRoot = sourceRoot;
+        }
 
-            @Override
-            public void removeChangeListener(ChangeListener listener) {
-                changes.removeChangeListener(listener);
+        @Override
+        public URL[] getRoots() {
+            URL[] roots = getSourceRootTable().binaryRoots.get(sourceRoot);
+            return roots != null ? roots.clone() : NO_ROOTS;
+        }
+
+        @Override
+        public void addChangeListener(ChangeListener listener) {
+            changes.addChangeListener(listener);
+        }
+
+        @Override
+        public void removeChangeListener(ChangeListener listener) {
+            changes.removeChangeListener(listener);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(getRoots());
+        }
+    }
+
+    /**
+     * Maps the source roots of a module to the binary roots of their source
+     * set. Instances are immutable and are recreated when the model changes.
+     */
+    private static final class SourceRootTable {
+        private final NbJavaModule module;
+        private final Map<File, URL[]> binaryRoots;
+
+        public SourceRootTable(NbJavaModule module) {
+            this.module = module;
+
+            Map<File, URL[]> roots = new HashMap<>();
+            for (JavaSourceSet sourceSet: module.getSources()) {
+                URL[] sourceSetRoots = null;
+                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                    for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                        if (!roots.containsKey(sourceRoot)) {
+                            if (sourceSetRoots == null) {
+                                sourceSetRoots = getBinaryRoots(module, sourceSet);
+                            }
+                            roots.put(sourceRoot, sourceSetRoots);
+                        }
+                    }
+                }
             }
+            this.binaryRoots = Collections.unmodifiableMap(roots);
+        }
+
+        private static URL[] getBinaryRoots(NbJavaModule module, JavaSourceSet sourceSet) {
+            JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
 
-            @Override
-            public String toString() {
-                return Arrays.toString(getRoots());
+            UrlFactory dirFactory = DefaultUrlFactory.getDefaultDirFactory();
+
+            List<URL> result = new ArrayList<>();
+            outputDirs.getClassesDirs().stream()
+                    .map(dirFactory::toUrl)
+                    .filter(url -> url != null)
+                    .forEach(result::add);
+
+            File jar = module.tryGetJarForOutput(outputDirs);
+            if (jar != null) {
+                UrlFactory urlFactory = DefaultUrlFactory.getDefaultArchiveOrDirFactory();
+                result.add(urlFactory.toUrl(jar));
             }
-        };
+
+            return result.toArray(new URL[result.size()]);
+        }
     }
 
     private static final class EventSource
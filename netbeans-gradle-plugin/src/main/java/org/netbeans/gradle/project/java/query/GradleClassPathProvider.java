@@ -3,6 +3,7 @@ package org.netbeans.gradle.project.java.query;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -65,6 +66,7 @@ import org.netbeans.modules.java.api.common.classpath.ClassPathSupportFactory;
 import org.netbeans.spi.java.classpath.ClassPathFactory;
 import org.netbeans.spi.java.classpath.ClassPathImplementation;
 import org.netbeans.spi.java.classpath.ClassPathProvider;
+import org.netbeans.spi.java.classpath.FilteringPathResourceImplementation;
 import org.netbeans.spi.java.classpath.FlaggedClassPathImplementation;
 import org.netbeans.spi.java.classpath.PathResourceImplementation;
 import org.netbeans.spi.java.classpath.support.ClassPathSupport;
@@ -82,14 +84,17 @@ implements
     private final JavaExtension javaExt;
     private final AtomicReference<Map<ClassPathKey, List<PathResourceImplementation>>> classpathResourcesRef;
     private final ConcurrentMap<ClassPathKey, ClassPath> classpaths;
+    private final ConcurrentMap<ClassPathKey, GradleClassPaths> classpathImpls;
+    private final AtomicReference<ProjectClassPathResourceBuilder.BuildState> buildStateRef;
 
     private final PropertyChangeSupport changes;
-    private final AtomicBoolean modelLoadedOnce;
+    private final ClassPathModelState modelState;
     private final AtomicReference<ProjectPlatform> currentPlatformRef;
 
     private final Supplier<ProjectIssueRef> infoRefRef;
 
     private final Supplier<ClassPath> allSourcesClassPathRef;
+    private final PropertyChangeSupport allSourcesChanges;
     private volatile List<PathResourceImplementation> allSources;
 
     private final AtomicBoolean loadedOnce;
@@ -108,12 +113,14 @@ implements
             ProjectIssueManager infoManager = javaExt.getOwnerProjectLookup().lookup(ProjectIssueManager.class);
             return infoManager.createIssueRef();
         });
-        this.modelLoadedOnce = new AtomicBoolean(false);
+        this.modelState = new ClassPathModelState();
         this.loadedOnce = new AtomicBoolean(false);
         this.scriptFileProviderRef = LazyValues.lazyValue(() -> javaExt.getProject().getLookup().lookup(ScriptFileProvider.class));
 
         this.classpathResourcesRef = new AtomicReference<>(Collections.<ClassPathKey, List<PathResourceImplementation>>emptyMap());
         this.classpaths = new ConcurrentHashMap<>();
+        this.classpathImpls = new ConcurrentHashMap<>();
+        this.buildStateRef = new AtomicReference<>(ProjectClassPathResourceBuilder.BuildState.EMPTY);
         this.allSources = Collections.emptyList();
         this.allSourcesClassPathRef = LazyValues.lazyValue(() -> {
             return ClassPathFactory.createClassPath(new AllSourcesClassPaths());
@@ -126,6 +133,7 @@ implements
 
         EventSource eventSource = new EventSource();
         this.changes = new PropertyChangeSupport(eventSource);
+        this.allSourcesChanges = new PropertyChangeSupport(eventSource);
         eventSource.init(this.changes);
     }
 
@@ -179,10 +187,11 @@ implements
     public void onModelChange() {
         scheduleReloadPathResources();
 
-        if (javaExt.hasEverBeenLoaded()) {
-            if (modelLoadedOnce.compareAndSet(false, true)) {
-                tryNotifyFlagsChange();
-            }
+        // The structure-only model is also considered loaded by the extension
+        // but its classpaths are empty until the full model arrives.
+        boolean classPathPending = javaExt.getCurrentModel().isClassPathPending();
+        if (modelState.onModelChange(javaExt.hasEverBeenLoaded(), classPathPending)) {
+            notifyFlagsChange();
         }
     }
 
@@ -258,6 +267,10 @@ implements
             return null;
         }
 
+        return findAssociatedSourceSet(projectModel, file);
+    }
+
+    public static JavaSourceSet findAssociatedSourceSet(NbJavaModel projectModel, File file) {
         for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
             if (isInOneOf(file, sourceSet.getClasspaths().getCompileClasspaths())) {
                 return sourceSet;
@@ -358,7 +371,51 @@ implements
         }
 
         sources.trimToSize();
-        allSources = Collections.unmodifiableList(sources);
+
+        List<PathResourceImplementation> prevSources = allSources;
+        if (!isSamePathResources(prevSources, sources)) {
+            allSources = Collections.unmodifiableList(sources);
+            changesNotifier.execute(() -> {
+                allSourcesChanges.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+            });
+        }
+    }
+
+    private static boolean isSamePathResources(
+            List<PathResourceImplementation> resources1,
+            List<PathResourceImplementation> resources2) {
+        int size = resources1.size();
+        if (size != resources2.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!isSamePathResource(resources1.get(i), resources2.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSamePathResource(PathResourceImplementation resource1, PathResourceImplementation resource2) {
+        if (resource1.equals(resource2)) {
+            return true;
+        }
+        if (resource1.getClass() != resource2.getClass() || resource1 instanceof FilteringPathResourceImplementation) {
+            return false;
+        }
+
+        URL[] roots1 = resource1.getRoots();
+        URL[] roots2 = resource2.getRoots();
+        if (roots1.length != roots2.length) {
+            return false;
+        }
+        for (int i = 0; i < roots1.length; i++) {
+            if (!roots1[i].toExternalForm().equals(roots2[i].toExternalForm())) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private static List<PathResourceImplementation> getDirPathResources(
@@ -382,8 +439,9 @@ implements
                 .getValue();
 
         ProjectClassPathResourceBuilder builder = new ProjectClassPathResourceBuilder(
-                projectModel, translatedDependencies, getCurrentPlatform());
+                projectModel, translatedDependencies, getCurrentPlatform(), buildStateRef.get());
         builder.build();
+        buildStateRef.set(builder.getBuildState());
 
         Map<ClassPathKey, List<PathResourceImplementation>> newClasspathResources = builder.getClasspathResources();
         Map<ClassPathKey, List<PathResourceImplementation>> prevClasspathResources = classpathResourcesRef.getAndSet(newClasspathResources);
@@ -407,9 +465,25 @@ implements
 
         updateAllSources(translatedDependencies);
 
-        boolean changed = !prevClasspathResources.equals(newClasspathResources);
-        if (changed) {
+        // Unchanged classpaths are the same list instances, so only the changed
+        // classpaths are notified (and only their roots are rescanned by NetBeans).
+        List<GradleClassPaths> changedClassPaths = new ArrayList<>();
+        Set<ClassPathKey> allKeys = new HashSet<>(prevClasspathResources.keySet());
+        allKeys.addAll(newClasspathResources.keySet());
+        for (ClassPathKey key: allKeys) {
+            if (prevClasspathResources.get(key) != newClasspathResources.get(key)) {
+                GradleClassPaths classPathImpl = classpathImpls.get(key);
+                if (classPathImpl != null) {
+                    changedClassPaths.add(classPathImpl);
+                }
+            }
+        }
+
+        if (!changedClassPaths.isEmpty()) {
             changesNotifier.execute(() -> {
+                for (GradleClassPaths classPathImpl: changedClassPaths) {
+                    classPathImpl.fireResourcesChange();
+                }
                 changes.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
             });
         }
@@ -420,13 +494,21 @@ implements
     }
 
     private boolean isCompleteClasspath() {
-        return loadedOnce.get() && modelLoadedOnce.get();
+        return loadedOnce.get() && modelState.isComplete();
     }
 
     private void tryNotifyFlagsChange() {
         if (isCompleteClasspath()) {
-            changes.firePropertyChange(FlaggedClassPathImplementation.PROP_FLAGS, null, null);
+            notifyFlagsChange();
+        }
+    }
+
+    private void notifyFlagsChange() {
+        for (GradleClassPaths classPathImpl: classpathImpls.values()) {
+            classPathImpl.fireFlagsChange();
         }
+        allSourcesChanges.firePropertyChange(FlaggedClassPathImplementation.PROP_FLAGS, null, null);
+        changes.firePropertyChange(FlaggedClassPathImplementation.PROP_FLAGS, null, null);
     }
 
     private <T> ClassPathSupport.Selector getClassPathSelector(
@@ -459,9 +541,10 @@ implements
     private void loadClassPath(ClassPathKey classPathKey) {
         ModuleBaseKeys moduleBaseKeys = classPathKey.getModuleBaseKeys();
         if (moduleBaseKeys == null) {
+            GradleClassPaths classPathImpl = classpathImpls.computeIfAbsent(classPathKey, GradleClassPaths::new);
             classpaths.putIfAbsent(
                     classPathKey,
-                    ClassPathFactory.createClassPath(new GradleClassPaths(classPathKey)));
+                    ClassPathFactory.createClassPath(classPathImpl));
         }
         else {
             ClassPath base = getClassPath(moduleBaseKeys.getBaseKey());
@@ -543,12 +626,12 @@ implements
 
         @Override
         public void addPropertyChangeListener(PropertyChangeListener listener) {
-            changes.addPropertyChangeListener(listener);
+            allSourcesChanges.addPropertyChangeListener(listener);
         }
 
         @Override
         public final void removePropertyChangeListener(PropertyChangeListener listener) {
-            changes.removePropertyChangeListener(listener);
+            allSourcesChanges.removePropertyChangeListener(listener);
         }
 
         @Override
@@ -561,10 +644,20 @@ implements
 
     private class GradleClassPaths implements FlaggedClassPathImplementation {
         private final ClassPathKey classPathKey;
+        private final PropertyChangeSupport classPathChanges;
 
         public GradleClassPaths(ClassPathKey classPathKey) {
             assert classPathKey != null;
             this.classPathKey = classPathKey;
+            this.classPathChanges = new PropertyChangeSupport(this);
+        }
+
+        public void fireResourcesChange() {
+            classPathChanges.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+        }
+
+        public void fireFlagsChange() {
+            classPathChanges.firePropertyChange(FlaggedClassPathImplementation.PROP_FLAGS, null, null);
         }
 
         @Override
@@ -577,17 +670,17 @@ implements
 
         @Override
         public void addPropertyChangeListener(PropertyChangeListener listener) {
-            changes.addPropertyChangeListener(listener);
+            classPathChanges.addPropertyChangeListener(listener);
         }
 
         @Override
         public void removePropertyChangeListener(PropertyChangeListener listener) {
-            changes.removePropertyChangeListener(listener);
+            classPathChanges.removePropertyChangeListener(listener);
         }
 
         @Override
         public Set<ClassPath.Flag> getFlags() {
-            return modelLoadedOnce.get()
+            return modelState.isComplete()
                     ? Collections.emptySet()
                     : FLAGS_INCOMPLETE;
         }
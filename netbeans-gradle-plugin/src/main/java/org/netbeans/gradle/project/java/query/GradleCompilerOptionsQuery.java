@@ -5,7 +5,6 @@ import com.sun.source.tree.ModuleTree;
 import com.sun.source.tree.Tree;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
@@ -45,6 +44,8 @@ public final class GradleCompilerOptionsQuery implements CompilerOptionsQueryImp
 
     private static final FileSystemWatcher WATCHER = FileSystemWatcher.getDefault();
     private static final String MODULE_INFO_JAVA = "module-info.java";
+    private static final ModuleInfoNameCache MODULE_NAMES
+            = new ModuleInfoNameCache(GradleCompilerOptionsQuery::tryParseModuleNameWithJavac);
 
     private final GradleProperty.SourceLevel sourceLevelRef;
     private final JavaExtension javaExt;
@@ -107,7 +108,6 @@ public final class GradleCompilerOptionsQuery implements CompilerOptionsQueryImp
     private ModuleInfo tryGetModuleInfo(JavaSourceSet sourceSet) {
         return sourceRoots(sourceSet)
                 .map(root -> root.toPath().resolve(MODULE_INFO_JAVA))
-                .filter(moduleInfoPath -> Files.isRegularFile(moduleInfoPath))
                 .map(GradleCompilerOptionsQuery::tryGetModuleInfo)
                 .filter(moduleInfo -> moduleInfo != null)
                 .findFirst()
@@ -182,7 +182,7 @@ public final class GradleCompilerOptionsQuery implements CompilerOptionsQueryImp
     }
 
     private static ModuleInfo tryGetModuleInfo(Path moduleInfoPath) {
-        String moduleName = tryGetModuleName(moduleInfoPath.toFile());
+        String moduleName = MODULE_NAMES.tryGetModuleName(moduleInfoPath);
         if (moduleName == null) {
             return null;
         }
@@ -190,7 +190,8 @@ public final class GradleCompilerOptionsQuery implements CompilerOptionsQueryImp
         return new ModuleInfo(moduleInfoPath, moduleName);
     }
 
-    private static String tryGetModuleName(File moduleInfoFile) {
+    private static String tryParseModuleNameWithJavac(Path moduleInfoPath) {
+        File moduleInfoFile = moduleInfoPath.toFile();
         ModuleUtilities moduleUtilities = tryGetModuleUtilties(moduleInfoFile);
         if (moduleUtilities == null) {
             return null;
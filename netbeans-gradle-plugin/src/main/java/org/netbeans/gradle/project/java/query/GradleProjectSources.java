@@ -4,21 +4,29 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.Icon;
 import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeListener;
+import org.jtrim2.event.ListenerRef;
+import org.jtrim2.event.ListenerRefs;
 import org.jtrim2.executor.UpdateTaskExecutor;
 import org.jtrim2.utils.LazyValues;
 import org.netbeans.api.java.project.JavaProjectConstants;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
 import org.netbeans.api.project.SourceGroup;
 import org.netbeans.api.project.Sources;
 import org.netbeans.gradle.model.java.JavaSourceGroupName;
@@ -34,8 +42,10 @@ import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.java.model.NbListedDir;
 import org.netbeans.gradle.project.util.ExcludeIncludeRules;
+import org.netbeans.gradle.project.util.FileSystemWatcher;
 import org.netbeans.gradle.project.util.GradleFileUtils;
 import org.netbeans.gradle.project.util.NbTaskExecutors;
+import org.netbeans.gradle.project.util.PathPrefixIndex;
 import org.netbeans.spi.java.project.support.ui.PackageView;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -49,20 +59,33 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
 
     private final JavaExtension javaExt;
     private final ChangeSupport changeSupport;
+    private final SourceGroup[] genericGroup;
 
-    private volatile Map<String, SourceGroup[]> currentGroups;
+    private volatile SourceGroupIndex currentIndex;
 
     private final AtomicBoolean hasScanned;
     private final UpdateTaskExecutor scanSourcesExecutor;
+    private final UpdateTaskExecutor rootWatchExecutor;
+
+    private final Lock rootWatchLock;
+    private ListenerRef rootWatchRef;
+    private SourceGroupIndex watchedIndex;
 
     public GradleProjectSources(JavaExtension javaExt) {
         this.javaExt = Objects.requireNonNull(javaExt, "javaExt");
         this.changeSupport = new ChangeSupport(this);
-        this.currentGroups = Collections.emptyMap();
+        this.genericGroup = new SourceGroup[]{
+            new GradleSourceGroup(javaExt.getProjectDirectory())
+        };
+        this.currentIndex = SourceGroupIndex.EMPTY;
         this.hasScanned = new AtomicBoolean(false);
         this.scanSourcesExecutor = NbTaskExecutors.newDefaultUpdateExecutor();
+        this.rootWatchExecutor = NbTaskExecutors.newDefaultUpdateExecutor();
+        this.rootWatchLock = new ReentrantLock();
+        this.rootWatchRef = null;
+        this.watchedIndex = null;
 
-        javaExt.getSourceDirsHandler().addDirsCreatedListener(this::scanForSources);
+        javaExt.getSourceDirsHandler().addDirsCreatedListener(this::rescanForSources);
     }
 
     public static SingleNodeFactory tryCreateSourceGroupNodeFactory(NamedSourceRoot root) {
@@ -98,12 +121,41 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         return null;
     }
 
+    private static SourceGroup tryReuseSourceGroup(
+            SourceGroupIndex prevIndex,
+            File sourceDir,
+            String displayName,
+            ExcludeIncludeRules includeRules) {
+
+        if (!sourceDir.isDirectory()) {
+            return null;
+        }
+
+        GradleSourceGroup prevGroup = prevIndex.tryGetGroupOfRoot(sourceDir);
+        if (prevGroup != null
+                && prevGroup.getRootFolder().isValid()
+                && Objects.equals(prevGroup.getDisplayName(), displayName)
+                && Objects.equals(prevGroup.getIncludeRules(), includeRules)) {
+            return prevGroup;
+        }
+
+        FileObject groupRoot = FileUtil.toFileObject(sourceDir);
+        return groupRoot != null
+                ? new GradleSourceGroup(groupRoot, displayName, includeRules)
+                : null;
+    }
+
     private static Map<String, List<SourceGroup>> findSourceGroupsOfModule(
-            NbJavaModule module) {
+            NbJavaModule module,
+            SourceGroupIndex prevIndex) {
         Map<String, List<SourceGroup>> result = new HashMap<>(8);
 
         for (NamedSourceRoot root: module.getNamedSourceRoots()) {
-            SourceGroup newGroup = tryCreateSourceGroup(root);
+            SourceGroup newGroup = tryReuseSourceGroup(
+                    prevIndex,
+                    root.getRoot(),
+                    root.getDisplayName(),
+                    root.getIncludeRules());
             if (newGroup == null) {
                 continue;
             }
@@ -124,7 +176,11 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         }
 
         for (NbListedDir listedDir: module.getListedDirs()) {
-            SourceGroup newGroup = tryCreateSourceGroup(listedDir);
+            SourceGroup newGroup = tryReuseSourceGroup(
+                    prevIndex,
+                    listedDir.getDirectory(),
+                    listedDir.getName(),
+                    ExcludeIncludeRules.ALLOW_ALL);
             if (newGroup != null) {
                 MultiMapUtils.addToMultiMap(JavaProjectConstants.SOURCES_TYPE_RESOURCES, newGroup, result);
             }
@@ -133,11 +189,8 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         return result;
     }
 
-    private Map<String, SourceGroup[]> findSourceGroups(JavaExtension javaExt) {
-        NbJavaModel projectModel = javaExt.getCurrentModel();
-        NbJavaModule mainModule = projectModel.getMainModule();
-
-        Map<String, List<SourceGroup>> moduleSources = findSourceGroupsOfModule(mainModule);
+    private SourceGroupIndex createIndex(NbJavaModule mainModule, SourceGroupIndex prevIndex) {
+        Map<String, List<SourceGroup>> moduleSources = findSourceGroupsOfModule(mainModule, prevIndex);
 
         Map<String, SourceGroup[]> result = CollectionUtils.newHashMap(moduleSources.size());
         for (Map.Entry<String, List<SourceGroup>> entry: moduleSources.entrySet()) {
@@ -150,9 +203,9 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
             result.put(JavaProjectConstants.SOURCES_HINT_MAIN, new SourceGroup[]{sources[0]});
         }
 
-        result.put(Sources.TYPE_GENERIC, getGenericGroup());
+        result.put(Sources.TYPE_GENERIC, genericGroup);
 
-        return result;
+        return new SourceGroupIndex(mainModule, result);
     }
 
     @Override
@@ -161,14 +214,18 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
     }
 
     public void scanForSources() {
-        scanForSources(false);
+        scanForSources(false, false);
     }
 
     public void ensureScanForSources() {
-        scanForSources(true);
+        scanForSources(true, false);
+    }
+
+    private void rescanForSources() {
+        scanForSources(false, true);
     }
 
-    private void scanForSources(boolean initialScan) {
+    private void scanForSources(boolean initialScan, boolean rootsChanged) {
         if (!hasScanned.compareAndSet(false, true)) {
             if (initialScan) {
                 return;
@@ -176,28 +233,124 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         }
 
         scanSourcesExecutor.execute(() -> {
-            Map<String, SourceGroup[]> groups = findSourceGroups(javaExt);
+            NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+            SourceGroupIndex prevIndex = currentIndex;
+
+            // The index only depends on the loaded module and the existence of
+            // its source roots, so there is nothing to do if neither has changed.
+            if (!rootsChanged && prevIndex.getModule() == mainModule) {
+                return;
+            }
+
+            SourceGroupIndex newIndex = createIndex(mainModule, prevIndex);
+            currentIndex = newIndex;
+            updateRootWatches();
 
-            currentGroups = groups;
             LOGGER.log(Level.FINE, "Location of the sources of {0} has been updated.", javaExt.getName());
 
             SwingUtilities.invokeLater(changeSupport::fireChange);
         });
     }
 
-    private SourceGroup[] getGenericGroup() {
-        return new SourceGroup[]{
-            new GradleSourceGroup(javaExt.getProjectDirectory())
-        };
+    private void updateRootWatches() {
+        rootWatchLock.lock();
+        try {
+            if (!changeSupport.hasListeners()) {
+                unregisterRootWatches();
+                return;
+            }
+
+            SourceGroupIndex index = currentIndex;
+            if (watchedIndex != null && watchedIndex.getModule() == index.getModule()) {
+                return;
+            }
+
+            unregisterRootWatches();
+
+            FileSystemWatcher watcher = FileSystemWatcher.getDefault();
+            List<ListenerRef> refs = new ArrayList<>();
+            for (File root: index.getAllRoots()) {
+                refs.add(watcher.watchPath(root.toPath(), this::rescanForSources));
+            }
+            rootWatchRef = ListenerRefs.combineListenerRefs(refs);
+            watchedIndex = index;
+        } finally {
+            rootWatchLock.unlock();
+        }
+    }
+
+    private void unregisterRootWatches() {
+        assert ((ReentrantLock)rootWatchLock).isHeldByCurrentThread();
+
+        ListenerRef currentRef = rootWatchRef;
+        rootWatchRef = null;
+        watchedIndex = null;
+
+        if (currentRef != null) {
+            currentRef.unregister();
+        }
+    }
+
+    /**
+     * Returns the source group of the given type whose root directory is the
+     * innermost one containing the given file. The include rules of the source
+     * groups are not considered.
+     *
+     * @param type the type of the source group as defined by
+     *   {@link #getSourceGroups(String) getSourceGroups}. This argument cannot
+     *   be {@code null}.
+     * @param file the file to be looked up. This argument cannot be {@code null}.
+     * @return the source group whose root directory is the innermost one
+     *   containing the given file, or {@code null} if there is no such group
+     */
+    public SourceGroup tryGetSourceGroupOf(String type, File file) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(file, "file");
+
+        ensureScanForSources();
+        return currentIndex.tryGetGroupOf(type, file);
+    }
+
+    /**
+     * Returns the source group of the given type of the project whose root
+     * directory is the innermost one containing the given file. Uses the
+     * index of {@link GradleProjectSources} if the project has one, otherwise
+     * checks the source groups of the project one by one.
+     *
+     * @param project the project whose source groups are to be searched.
+     *   This argument cannot be {@code null}.
+     * @param type the type of the source group. This argument cannot be {@code null}.
+     * @param file the file to be looked up. This argument cannot be {@code null}.
+     * @return the source group containing the given file, or {@code null}
+     *   if there is no such group
+     */
+    public static SourceGroup tryFindSourceGroupOf(Project project, String type, FileObject file) {
+        Objects.requireNonNull(project, "project");
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(file, "file");
+
+        GradleProjectSources sources = project.getLookup().lookup(GradleProjectSources.class);
+        File fileAsFile = FileUtil.toFile(file);
+        if (sources != null && fileAsFile != null) {
+            return sources.tryGetSourceGroupOf(type, fileAsFile);
+        }
+
+        for (SourceGroup group: ProjectUtils.getSources(project).getSourceGroups(type)) {
+            FileObject root = group.getRootFolder();
+            if (file.equals(root) || FileUtil.isParentOf(root, file)) {
+                return group;
+            }
+        }
+        return null;
     }
 
     @Override
     public SourceGroup[] getSourceGroups(String type) {
         ensureScanForSources();
 
-        SourceGroup[] foundGroup = currentGroups.get(type);
+        SourceGroup[] foundGroup = currentIndex.getGroups(type);
         if (foundGroup == null && Sources.TYPE_GENERIC.equals(type)) {
-            return getGenericGroup();
+            return genericGroup.clone();
         }
         else {
             return foundGroup != null ? foundGroup.clone() : NO_SOURCE_GROUPS;
@@ -207,11 +360,84 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
     @Override
     public void addChangeListener(ChangeListener listener) {
         changeSupport.addChangeListener(listener);
+        // Creating or removing source roots is only tracked while someone is interested.
+        // Registering the watches touches the file system, so don't do it on the caller's
+        // thread (usually the EDT).
+        rootWatchExecutor.execute(this::updateRootWatches);
     }
 
     @Override
     public void removeChangeListener(ChangeListener listener) {
         changeSupport.removeChangeListener(listener);
+        rootWatchExecutor.execute(this::updateRootWatches);
+    }
+
+    private static final class SourceGroupIndex {
+        public static final SourceGroupIndex EMPTY = new SourceGroupIndex(null, Collections.emptyMap());
+
+        private final NbJavaModule module;
+        private final Map<String, SourceGroup[]> groupsByType;
+        private final Map<File, GradleSourceGroup> groupsByRoot;
+        private final Map<String, PathPrefixIndex<SourceGroup>> rootIndexesByType;
+
+        public SourceGroupIndex(NbJavaModule module, Map<String, SourceGroup[]> groupsByType) {
+            this.module = module;
+            this.groupsByType = groupsByType;
+
+            Map<File, GradleSourceGroup> groupsByRootBuilder = new HashMap<>();
+            Map<String, PathPrefixIndex<SourceGroup>> rootIndexesByTypeBuilder = new HashMap<>();
+            for (Map.Entry<String, SourceGroup[]> entry: groupsByType.entrySet()) {
+                if (Sources.TYPE_GENERIC.equals(entry.getKey())) {
+                    continue;
+                }
+
+                List<Map.Entry<Path, SourceGroup>> rootEntries = new ArrayList<>();
+                for (SourceGroup group: entry.getValue()) {
+                    GradleSourceGroup gradleGroup = (GradleSourceGroup)group;
+                    File root = gradleGroup.getRootFile();
+                    if (root != null) {
+                        groupsByRootBuilder.putIfAbsent(root, gradleGroup);
+                        rootEntries.add(new AbstractMap.SimpleImmutableEntry<>(root.toPath(), gradleGroup));
+                    }
+                }
+                rootIndexesByTypeBuilder.put(entry.getKey(), PathPrefixIndex.create(rootEntries));
+            }
+
+            this.groupsByRoot = groupsByRootBuilder;
+            this.rootIndexesByType = rootIndexesByTypeBuilder;
+        }
+
+        public NbJavaModule getModule() {
+            return module;
+        }
+
+        public SourceGroup[] getGroups(String type) {
+            return groupsByType.get(type);
+        }
+
+        public GradleSourceGroup tryGetGroupOfRoot(File root) {
+            return groupsByRoot.get(root);
+        }
+
+        public SourceGroup tryGetGroupOf(String type, File file) {
+            PathPrefixIndex<SourceGroup> rootIndex = rootIndexesByType.get(type);
+            return rootIndex != null ? rootIndex.tryGetValueOf(file.toPath()) : null;
+        }
+
+        public List<File> getAllRoots() {
+            if (module == null) {
+                return Collections.emptyList();
+            }
+
+            List<File> result = new ArrayList<>();
+            for (NamedSourceRoot root: module.getNamedSourceRoots()) {
+                result.add(root.getRoot());
+            }
+            for (NbListedDir listedDir: module.getListedDirs()) {
+                result.add(listedDir.getDirectory());
+            }
+            return result;
+        }
     }
 
     private static class SourceRootNodeFactory implements SingleNodeFactory {
@@ -252,6 +478,7 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         private final String displayName;
 
         private final Supplier<Path> locationPathRef;
+        private final Supplier<File> locationFileRef;
 
         public GradleSourceGroup(FileObject location) {
             this(location, NbStrings.getSrcPackageCaption());
@@ -267,12 +494,21 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
             this.displayName = displayName;
             this.changes = new PropertyChangeSupport(this);
             this.locationPathRef = LazyValues.lazyValue(() -> GradleFileUtils.toPath(location));
+            this.locationFileRef = LazyValues.lazyValue(() -> FileUtil.toFile(location));
         }
 
         public Path getRootPath() {
             return locationPathRef.get();
         }
 
+        public File getRootFile() {
+            return locationFileRef.get();
+        }
+
+        public ExcludeIncludeRules getIncludeRules() {
+            return includeRules;
+        }
+
         @Override
         public FileObject getRootFolder() {
             return location;
@@ -0,0 +1,121 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the names of the modules declared in {@code module-info.java} files.
+ * A cached name is reused until the size or the last modification time of
+ * the file changes.
+ * <P>
+ * The names are extracted by {@link ModuleInfoNameExtractor} and the given
+ * fallback parser is only used for the files the extractor cannot handle.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+final class ModuleInfoNameCache {
+    private static final Logger LOGGER = Logger.getLogger(ModuleInfoNameCache.class.getName());
+
+    private final Function<? super Path, ? extends String> fallbackParser;
+    private final Map<Path, CachedName> cache;
+
+    /**
+     * Creates a new empty cache.
+     *
+     * @param fallbackParser the function returning the module name of the
+     *   given {@code module-info.java} file, when it cannot be parsed by
+     *   {@link ModuleInfoNameExtractor}. The function may return {@code null}
+     *   if it cannot determine the name. This argument cannot be {@code null}.
+     */
+    public ModuleInfoNameCache(Function<? super Path, ? extends String> fallbackParser) {
+        this.fallbackParser = Objects.requireNonNull(fallbackParser, "fallbackParser");
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the name of the module declared in the given file or
+     * {@code null} if the file does not exist or does not declare a module.
+     */
+    public String tryGetModuleName(Path moduleInfoPath) {
+        Objects.requireNonNull(moduleInfoPath, "moduleInfoPath");
+
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(moduleInfoPath, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            cache.remove(moduleInfoPath);
+            return null;
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to read the attributes of " + moduleInfoPath, ex);
+            cache.remove(moduleInfoPath);
+            return null;
+        }
+
+        if (!attrs.isRegularFile()) {
+            cache.remove(moduleInfoPath);
+            return null;
+        }
+
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        CachedName cached = cache.get(moduleInfoPath);
+        if (cached != null && cached.isUpToDate(size, lastModified)) {
+            return cached.moduleName;
+        }
+
+        String moduleName = tryParseModuleName(moduleInfoPath);
+        if (moduleName != null) {
+            cache.put(moduleInfoPath, new CachedName(size, lastModified, moduleName));
+        }
+        else {
+            // The fallback parser might fail only temporarily, so don't remember the failure.
+            cache.remove(moduleInfoPath);
+        }
+        return moduleName;
+    }
+
+    private String tryParseModuleName(Path moduleInfoPath) {
+        String content;
+        try {
+            content = new String(Files.readAllBytes(moduleInfoPath), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to read " + moduleInfoPath, ex);
+            return null;
+        }
+
+        String moduleName = ModuleInfoNameExtractor.tryExtractModuleName(content);
+        if (moduleName != null) {
+            return moduleName;
+        }
+
+        LOGGER.log(Level.FINE, "Falling back to the Java parser to read the module name from {0}", moduleInfoPath);
+        return fallbackParser.apply(moduleInfoPath);
+    }
+
+    private static final class CachedName {
+        private final long size;
+        private final long lastModified;
+        private final String moduleName;
+
+        public CachedName(long size, long lastModified, String moduleName) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.moduleName = moduleName;
+        }
+
+        public boolean isUpToDate(long currentSize, long currentLastModified) {
+            return size == currentSize && lastModified == currentLastModified;
+        }
+    }
+}
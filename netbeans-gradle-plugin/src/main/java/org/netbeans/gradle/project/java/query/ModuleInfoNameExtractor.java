@@ -0,0 +1,327 @@
+package org.netbeans.gradle.project.java.query;
+
+/**
+ * Extracts the module name from the source of a {@code module-info.java} file
+ * without parsing the whole file. That is, only the imports and annotations
+ * preceding the module declaration are tokenized and everything after the
+ * name of the module is ignored.
+ * <P>
+ * Sources this class cannot handle (for example, sources with unicode escapes)
+ * are reported as not parseable, so that the caller might fall back to a
+ * real Java parser.
+ */
+final class ModuleInfoNameExtractor {
+    private static final String KEYWORD_IMPORT = "import";
+    private static final String KEYWORD_OPEN = "open";
+    private static final String KEYWORD_MODULE = "module";
+
+    private final CharSequence source;
+    private final int length;
+    private int index;
+
+    private TokenType tokenType;
+    private String tokenText;
+
+    private ModuleInfoNameExtractor(CharSequence source) {
+        this.source = source;
+        this.length = source.length();
+        this.index = 0;
+    }
+
+    /**
+     * Returns the name of the module declared in the given source or
+     * {@code null} if the name could not be determined from the source.
+     *
+     * @param source the content of the {@code module-info.java} file. This
+     *   argument cannot be {@code null}.
+     * @return the name of the module declared in the given source or
+     *   {@code null} if the name could not be determined from the source
+     */
+    public static String tryExtractModuleName(CharSequence source) {
+        if (containsUnicodeEscape(source)) {
+            return null;
+        }
+        return new ModuleInfoNameExtractor(source).tryParseModuleName();
+    }
+
+    private static boolean containsUnicodeEscape(CharSequence source) {
+        int length = source.length();
+        for (int i = 0; i < length - 1; i++) {
+            if (source.charAt(i) == '\\' && source.charAt(i + 1) == 'u') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String tryParseModuleName() {
+        if (!nextToken()) {
+            return null;
+        }
+
+        while (true) {
+            switch (tokenType) {
+                case AT:
+                    if (!skipAnnotation()) {
+                        return null;
+                    }
+                    break;
+                case IDENTIFIER:
+                    if (KEYWORD_IMPORT.equals(tokenText)) {
+                        if (!skipImport()) {
+                            return null;
+                        }
+                        break;
+                    }
+                    if (KEYWORD_OPEN.equals(tokenText)) {
+                        if (!nextToken() || !isIdentifier(KEYWORD_MODULE)) {
+                            return null;
+                        }
+                    }
+                    if (KEYWORD_MODULE.equals(tokenText)) {
+                        return tryParseQualifiedName();
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private boolean isIdentifier(String expected) {
+        return tokenType == TokenType.IDENTIFIER && expected.equals(tokenText);
+    }
+
+    private String tryParseQualifiedName() {
+        StringBuilder result = new StringBuilder();
+        while (true) {
+            if (!nextToken() || tokenType != TokenType.IDENTIFIER) {
+                return null;
+            }
+            result.append(tokenText);
+
+            if (!nextToken()) {
+                return null;
+            }
+            if (tokenType == TokenType.OPEN_BRACE) {
+                return result.toString();
+            }
+            if (tokenType != TokenType.DOT) {
+                return null;
+            }
+            result.append('.');
+        }
+    }
+
+    /**
+     * Skips the current import declaration and moves to the token following it.
+     */
+    private boolean skipImport() {
+        do {
+            if (!nextToken()) {
+                return false;
+            }
+        } while (tokenType != TokenType.SEMICOLON);
+        return nextToken();
+    }
+
+    /**
+     * Skips the current annotation and moves to the token following it.
+     */
+    private boolean skipAnnotation() {
+        if (!nextToken() || tokenType != TokenType.IDENTIFIER) {
+            return false;
+        }
+
+        while (true) {
+            if (!nextToken()) {
+                return false;
+            }
+            if (tokenType != TokenType.DOT) {
+                break;
+            }
+            if (!nextToken() || tokenType != TokenType.IDENTIFIER) {
+                return false;
+            }
+        }
+
+        if (tokenType != TokenType.OPEN_PAREN) {
+            return true;
+        }
+
+        int depth = 1;
+        while (depth > 0) {
+            if (!nextToken()) {
+                return false;
+            }
+            if (tokenType == TokenType.OPEN_PAREN) {
+                depth++;
+            }
+            else if (tokenType == TokenType.CLOSE_PAREN) {
+                depth--;
+            }
+        }
+        return nextToken();
+    }
+
+    /**
+     * Reads the next token skipping whitespaces and comments.
+     *
+     * @return {@code false} if there are no more tokens or the source is
+     *   malformed, {@code true} otherwise
+     */
+    private boolean nextToken() {
+        if (!skipWhitespacesAndComments()) {
+            return false;
+        }
+        if (index >= length) {
+            return false;
+        }
+
+        tokenText = null;
+
+        char ch = source.charAt(index);
+        if (Character.isJavaIdentifierStart(ch)) {
+            int startIndex = index;
+            index++;
+            while (index < length && Character.isJavaIdentifierPart(source.charAt(index))) {
+                index++;
+            }
+            tokenType = TokenType.IDENTIFIER;
+            tokenText = source.subSequence(startIndex, index).toString();
+            return true;
+        }
+
+        index++;
+        switch (ch) {
+            case '@':
+                tokenType = TokenType.AT;
+                return true;
+            case '.':
+                tokenType = TokenType.DOT;
+                return true;
+            case ';':
+                tokenType = TokenType.SEMICOLON;
+                return true;
+            case '{':
+                tokenType = TokenType.OPEN_BRACE;
+                return true;
+            case '(':
+                tokenType = TokenType.OPEN_PAREN;
+                return true;
+            case ')':
+                tokenType = TokenType.CLOSE_PAREN;
+                return true;
+            case '"':
+                tokenType = TokenType.LITERAL;
+                return skipStringLiteral();
+            case '\'':
+                tokenType = TokenType.LITERAL;
+                return skipLiteral('\'');
+            default:
+                tokenType = TokenType.OTHER;
+                return true;
+        }
+    }
+
+    private boolean skipStringLiteral() {
+        if (startsWith("\"\"")) {
+            // Text block
+            index += 2;
+            int endIndex = indexOf("\"\"\"", index);
+            if (endIndex < 0) {
+                return false;
+            }
+            index = endIndex + 3;
+            return true;
+        }
+        return skipLiteral('"');
+    }
+
+    private boolean skipLiteral(char quote) {
+        while (index < length) {
+            char ch = source.charAt(index);
+            index++;
+
+            if (ch == '\\') {
+                index++;
+            }
+            else if (ch == quote) {
+                return true;
+            }
+            else if (ch == '\n' || ch == '\r') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean skipWhitespacesAndComments() {
+        while (index < length) {
+            char ch = source.charAt(index);
+            if (Character.isWhitespace(ch)) {
+                index++;
+            }
+            else if (startsWith("//")) {
+                while (index < length && source.charAt(index) != '\n' && source.charAt(index) != '\r') {
+                    index++;
+                }
+            }
+            else if (startsWith("/*")) {
+                int endIndex = indexOf("*/", index + 2);
+                if (endIndex < 0) {
+                    return false;
+                }
+                index = endIndex + 2;
+            }
+            else {
+                break;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(String prefix) {
+        int prefixLength = prefix.length();
+        if (index + prefixLength > length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefixLength; i++) {
+            if (source.charAt(index + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(String pattern, int fromIndex) {
+        int patternLength = pattern.length();
+        int lastIndex = length - patternLength;
+        for (int i = fromIndex; i <= lastIndex; i++) {
+            boolean match = true;
+            for (int j = 0; j < patternLength; j++) {
+                if (source.charAt(i + j) != pattern.charAt(j)) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private enum TokenType {
+        IDENTIFIER,
+        AT,
+        DOT,
+        SEMICOLON,
+        OPEN_BRACE,
+        OPEN_PAREN,
+        CLOSE_PAREN,
+        LITERAL,
+        OTHER
+    }
+}
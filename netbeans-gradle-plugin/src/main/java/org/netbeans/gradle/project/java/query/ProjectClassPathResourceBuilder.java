@@ -3,10 +3,12 @@ package org.netbeans.gradle.project.java.query;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -15,6 +17,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jtrim2.collections.CollectionsEx;
@@ -47,12 +50,15 @@ public final class ProjectClassPathResourceBuilder {
     private final NbJavaModel projectModel;
     private final Map<File, JavaProjectDependencyDef> translatedDependencies;
     private final ProjectPlatform currentPlatform;
+    private final BuildState prevState;
 
     private Set<File> missing;
     private Map<ClassPathKey, List<PathResourceImplementation>> classpathResources;
+    private Map<ClassPathKey, ClassPathInputs> classpathInputs;
+    private Map<ResourceKey, PathResourceImplementation> resourceCache;
 
     // Maps JAR name to source set output directory.
-    private Map<String, Set<File>> openedProjectsOutput;
+    private OpenedProjectsOutput openedProjectsOutput;
 
     private final UrlFactory urlForDirFactory;
     private final UrlFactory urlAutoSelectFactory;
@@ -61,10 +67,27 @@ public final class ProjectClassPathResourceBuilder {
             NbJavaModel projectModel,
             Map<File, JavaProjectDependencyDef> translatedDependencies,
             ProjectPlatform currentPlatform) {
+        this(projectModel, translatedDependencies, currentPlatform, BuildState.EMPTY);
+    }
+
+    /**
+     * Creates a builder reusing the classpaths of a previous build whose inputs
+     * have not changed. Reused classpaths are the very same list instances as
+     * in the previous build, and unchanged entries of recomputed classpaths are
+     * the same {@code PathResourceImplementation} instances as well.
+     */
+    public ProjectClassPathResourceBuilder(
+            NbJavaModel projectModel,
+            Map<File, JavaProjectDependencyDef> translatedDependencies,
+            ProjectPlatform currentPlatform,
+            BuildState prevState) {
         this.projectModel = Objects.requireNonNull(projectModel, "projectModel");
         this.translatedDependencies = Objects.requireNonNull(translatedDependencies, "translatedDependencies");
         this.currentPlatform = Objects.requireNonNull(currentPlatform, "currentPlatform");
+        this.prevState = Objects.requireNonNull(prevState, "prevState");
         this.classpathResources = null;
+        this.classpathInputs = null;
+        this.resourceCache = null;
         this.missing = null;
         this.openedProjectsOutput = null;
         this.urlForDirFactory = DefaultUrlFactory.getDefaultDirFactory();
@@ -78,8 +101,10 @@ public final class ProjectClassPathResourceBuilder {
     }
 
     public void build() {
-        openedProjectsOutput = findOpenedProjectsOutput();
+        openedProjectsOutput = findOpenedProjectsOutput(prevState.openedProjectsOutput);
         classpathResources = new HashMap<>();
+        classpathInputs = new HashMap<>();
+        resourceCache = new HashMap<>();
         missing = new HashSet<>();
 
         NbJavaModule mainModule = projectModel.getMainModule();
@@ -122,15 +147,24 @@ public final class ProjectClassPathResourceBuilder {
         return new ArrayList<>(result.values());
     }
 
-    private static Map<String, Set<File>> findOpenedProjectsOutput() {
+    private static OpenedProjectsOutput findOpenedProjectsOutput(OpenedProjectsOutput prevOutput) {
         if (!CommonGlobalSettings.getDefault().detectProjectDependenciesByJarName().getActiveValue()) {
             return null;
         }
 
         Collection<JavaExtension> javaExts = getAllOpenedGradleJavaProjects();
-        Map<String, Set<File>> result = CollectionsEx.newHashMap(javaExts.size());
+        List<NbJavaModule> modules = new ArrayList<>(javaExts.size());
         for (JavaExtension javaExt: javaExts) {
-            NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+            modules.add(javaExt.getCurrentModel().getMainModule());
+        }
+
+        // Models are immutable, so the outputs can only change if one of the models is replaced.
+        if (prevOutput != null && prevOutput.isSameModules(modules)) {
+            return prevOutput;
+        }
+
+        Map<String, Set<File>> result = CollectionsEx.newHashMap(modules.size());
+        for (NbJavaModule mainModule: modules) {
             for (NbJarOutput jarOutput: mainModule.getJarOutputs()) {
                 String key = jarOutput.getJar().getName().toLowerCase(Locale.ROOT);
                 Set<File> classDirs = jarOutput.getClassDirs();
@@ -140,7 +174,7 @@ public final class ProjectClassPathResourceBuilder {
                 }
             }
         }
-        return result;
+        return new OpenedProjectsOutput(modules, result);
     }
 
     private static <T> void addIfNotNull(T element, Collection<? super T> result) {
@@ -154,16 +188,16 @@ public final class ProjectClassPathResourceBuilder {
 
         List<PathResourceImplementation> result = new ArrayList<>();
         for (File classesDir: outputDirs.getClassesDirs()) {
-            addIfNotNull(toPathResource(classesDir, urlForDirFactory), result);
+            addIfNotNull(toCachedPathResource(classesDir, ExcludeIncludeRules.ALLOW_ALL, urlForDirFactory), result);
         }
-        addIfNotNull(toPathResource(outputDirs.getResourcesDir(), urlForDirFactory), result);
+        addIfNotNull(toCachedPathResource(outputDirs.getResourcesDir(), ExcludeIncludeRules.ALLOW_ALL, urlForDirFactory), result);
 
         return result;
     }
 
     private Set<File> tryUpdateDependency(File original) {
         return openedProjectsOutput != null
-                ? openedProjectsOutput.get(original.getName().toLowerCase(Locale.ROOT))
+                ? openedProjectsOutput.jarNameToClassDirs.get(original.getName().toLowerCase(Locale.ROOT))
                 : null;
     }
 
@@ -203,15 +237,21 @@ public final class ProjectClassPathResourceBuilder {
         Collection<File> compileCP = getFixedCompileClasspaths(sourceSet);
         setClassPathResources(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.COMPILE),
-                getPathResources(compileCP, invalid));
+                invalid,
+                new ClassPathInputs(toList(compileCP)),
+                keyInvalid -> getPathResources(compileCP, keyInvalid));
     }
 
     private void loadRuntimePathResources(JavaSourceSet sourceSet, Set<File> invalid) {
         Collection<File> runtimeCP = getFixedRuntimeClasspaths(sourceSet);
+        JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
         setClassPathResources(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.RUNTIME),
-                getPathResources(runtimeCP, invalid),
-                getBuildOutputDirsAsPathResources(sourceSet));
+                invalid,
+                new ClassPathInputs(toList(runtimeCP), toList(outputDirs.getClassesDirs()), outputDirs.getResourcesDir()),
+                keyInvalid -> concat(
+                        getPathResources(runtimeCP, keyInvalid),
+                        getBuildOutputDirsAsPathResources(sourceSet)));
     }
 
     private void loadSourcePathResources(JavaSourceSet sourceSet, Set<File> invalid) {
@@ -233,12 +273,15 @@ public final class ProjectClassPathResourceBuilder {
             }
         }
 
-        List<PathResourceImplementation> sourcePaths = new ArrayList<>(allRoots.size());
-        addPathResources(allRoots, invalid, sourcePaths);
-
         setClassPathResources(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.SOURCES),
-                sourcePaths);
+                invalid,
+                new ClassPathInputs(new ArrayList<>(allRoots.entrySet())),
+                keyInvalid -> {
+                    List<PathResourceImplementation> sourcePaths = new ArrayList<>(allRoots.size());
+                    addPathResources(allRoots, keyInvalid, sourcePaths);
+                    return sourcePaths;
+                });
     }
 
     private void addPathResources(
@@ -259,12 +302,19 @@ public final class ProjectClassPathResourceBuilder {
 
     private void loadBootClassPath() {
         Collection<URL> bootLibraries = currentPlatform.getBootLibraries();
-        List<PathResourceImplementation> platformResources = new ArrayList<>(bootLibraries.size());
+        // URL.equals might resolve host names, so compare the string forms instead.
+        List<String> bootLibraryNames = new ArrayList<>(bootLibraries.size());
         for (URL url: bootLibraries) {
-            platformResources.add(ClassPathSupport.createResource(url));
+            bootLibraryNames.add(url.toExternalForm());
         }
 
-        setClassPathResources(SpecialClassPath.BOOT, platformResources);
+        setClassPathResources(SpecialClassPath.BOOT, null, new ClassPathInputs(bootLibraryNames), keyInvalid -> {
+            List<PathResourceImplementation> platformResources = new ArrayList<>(bootLibraries.size());
+            for (URL url: bootLibraries) {
+                platformResources.add(toCachedPathResource(url));
+            }
+            return platformResources;
+        });
     }
 
     private void loadAllRuntimeClassPath(NbJavaModule mainModule) {
@@ -277,7 +327,9 @@ public final class ProjectClassPathResourceBuilder {
 
         setClassPathResources(
                 SpecialClassPath.ALL_RUNTIME,
-                getPathResources(classPaths, new HashSet<>()));
+                null,
+                new ClassPathInputs(classPaths),
+                keyInvalid -> getPathResources(classPaths, keyInvalid));
     }
 
     private void loadRuntimeForGlobalClassPath(NbJavaModel projectModel) {
@@ -292,7 +344,9 @@ public final class ProjectClassPathResourceBuilder {
 
         setClassPathResources(
                 SpecialClassPath.RUNTIME_FOR_GLOBAL,
-                getPathResources(classPaths, new HashSet<>()));
+                null,
+                new ClassPathInputs(classPaths),
+                keyInvalid -> getPathResources(classPaths, keyInvalid));
     }
 
     private void loadCompileForGlobalClassPath(NbJavaModel projectModel) {
@@ -307,7 +361,9 @@ public final class ProjectClassPathResourceBuilder {
 
         setClassPathResources(
                 SpecialClassPath.COMPILE_FOR_GLOBAL,
-                getPathResources(classPaths, new HashSet<>()));
+                null,
+                new ClassPathInputs(classPaths),
+                keyInvalid -> getPathResources(classPaths, keyInvalid));
     }
 
     private void removeOtherBuildOutputDirs(Set<File> classPaths) {
@@ -333,23 +389,115 @@ public final class ProjectClassPathResourceBuilder {
 
         setClassPathResources(
                 SpecialClassPath.ALL_BUILD_OUTPUT,
-                getPathResources(classPaths, new HashSet<>()));
+                null,
+                new ClassPathInputs(classPaths),
+                keyInvalid -> getPathResources(classPaths, keyInvalid));
     }
 
+    /**
+     * Sets the classpath of the given key, reusing the classpath of the previous build
+     * if its inputs are the same. Classpaths with invalid entries are always recomputed
+     * because the invalid entries might have been created since the previous build.
+     *
+     * @param invalid the set to collect the invalid entries into or {@code null}
+     *   if invalid entries of this classpath need not be reported
+     */
     private void setClassPathResources(
             ClassPathKey classPathKey,
-            List<PathResourceImplementation> paths) {
-        classpathResources.put(classPathKey, Collections.unmodifiableList(paths));
+            Set<File> invalid,
+            ClassPathInputs inputs,
+            Function<Set<File>, List<PathResourceImplementation>> pathsFactory) {
+
+        ClassPathInputs prevInputs = prevState.classpathInputs.get(classPathKey);
+        List<PathResourceImplementation> prevPaths = prevState.classpathResources.get(classPathKey);
+
+        if (prevPaths != null && prevInputs != null && prevInputs.invalid.isEmpty() && prevInputs.equals(inputs)) {
+            classpathResources.put(classPathKey, prevPaths);
+            classpathInputs.put(classPathKey, prevInputs);
+            for (PathResourceImplementation path: prevPaths) {
+                reuseCachedPathResource(path);
+            }
+            return;
+        }
+
+        Set<File> keyInvalid = new HashSet<>();
+        List<PathResourceImplementation> paths = pathsFactory.apply(keyInvalid);
+        if (invalid != null) {
+            invalid.addAll(keyInvalid);
+        }
+
+        inputs.invalid = keyInvalid;
+        classpathInputs.put(classPathKey, inputs);
+
+        List<PathResourceImplementation> newPaths = Collections.unmodifiableList(paths);
+        // Rebuilt from unchanged entries (e.g., only the order of the inputs changed).
+        if (prevPaths != null && prevPaths.equals(newPaths)) {
+            newPaths = prevPaths;
+        }
+        classpathResources.put(classPathKey, newPaths);
     }
 
-    private void setClassPathResources(
-            ClassPathKey classPathKey,
+    private static List<PathResourceImplementation> concat(
             List<PathResourceImplementation> paths1,
             List<PathResourceImplementation> paths2) {
         List<PathResourceImplementation> paths = new ArrayList<>(paths1.size() + paths2.size());
         paths.addAll(paths1);
         paths.addAll(paths2);
-        setClassPathResources(classPathKey, paths);
+        return paths;
+    }
+
+    private static <T> List<T> toList(Collection<? extends T> input) {
+        return new ArrayList<>(asSet(input));
+    }
+
+    private void reuseCachedPathResource(PathResourceImplementation path) {
+        ResourceKey key = prevState.resourceKeys.get(path);
+        if (key != null) {
+            resourceCache.put(key, path);
+        }
+    }
+
+    private PathResourceImplementation toCachedPathResource(URL url) {
+        ResourceKey key = new ResourceKey(url.toExternalForm(), null);
+        return getCachedPathResource(key, () -> ClassPathSupport.createResource(url));
+    }
+
+    private PathResourceImplementation toCachedPathResource(
+            File file,
+            FileGroupFilter includeRules,
+            UrlFactory urlFactory) {
+        if (file == null) {
+            return null;
+        }
+
+        URL url = urlFactory.toUrl(file);
+        if (url == null) {
+            return null;
+        }
+
+        boolean allowAll = includeRules.isAllowAll();
+        ResourceKey key = new ResourceKey(url.toExternalForm(), allowAll ? null : includeRules);
+        return getCachedPathResource(key, () -> {
+            return allowAll
+                    ? ClassPathSupport.createResource(url)
+                    : ExcludeAwarePathResource.tryCreate(file, includeRules, entry -> url);
+        });
+    }
+
+    private PathResourceImplementation getCachedPathResource(
+            ResourceKey key,
+            Supplier<? extends PathResourceImplementation> resourceFactory) {
+        PathResourceImplementation result = resourceCache.get(key);
+        if (result == null) {
+            result = prevState.resourceCache.get(key);
+            if (result == null) {
+                result = resourceFactory.get();
+            }
+            if (result != null) {
+                resourceCache.put(key, result);
+            }
+        }
+        return result;
     }
 
     private static PathResourceImplementation toPathResource(File file, UrlFactory urlForArchiveFactory) {
@@ -380,7 +528,19 @@ public final class ProjectClassPathResourceBuilder {
             Collection<File> files,
             Set<File> invalid,
             FileGroupFilter includeRules) {
-        return getPathResources(files, invalid, includeRules, urlAutoSelectFactory);
+        List<PathResourceImplementation> result = new ArrayList<>(files.size());
+        for (File file: asSet(files)) {
+            PathResourceImplementation pathResource = toCachedPathResource(file, includeRules, urlAutoSelectFactory);
+            // Ignore invalid classpath entries
+            if (pathResource != null) {
+                result.add(pathResource);
+            }
+            else {
+                invalid.add(file);
+                LOGGER.log(Level.WARNING, "Class path entry is invalid: {0}", file);
+            }
+        }
+        return result;
     }
 
     public static List<PathResourceImplementation> getPathResources(
@@ -426,6 +586,125 @@ public final class ProjectClassPathResourceBuilder {
         return Collections.unmodifiableMap(classpathResources);
     }
 
+    /**
+     * Returns the state to be passed to the builder of the next classpath update.
+     */
+    public BuildState getBuildState() {
+        if (classpathResources == null) {
+            throwUnbuilt();
+        }
+        return new BuildState(classpathResources, classpathInputs, resourceCache, openedProjectsOutput);
+    }
+
+    /**
+     * Defines the result of a previous build needed to avoid recomputing
+     * unchanged classpaths. Instances of this class are immutable.
+     */
+    public static final class BuildState {
+        public static final BuildState EMPTY = new BuildState(
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                null);
+
+        private final Map<ClassPathKey, List<PathResourceImplementation>> classpathResources;
+        private final Map<ClassPathKey, ClassPathInputs> classpathInputs;
+        private final Map<ResourceKey, PathResourceImplementation> resourceCache;
+        private final Map<PathResourceImplementation, ResourceKey> resourceKeys;
+        private final OpenedProjectsOutput openedProjectsOutput;
+
+        private BuildState(
+                Map<ClassPathKey, List<PathResourceImplementation>> classpathResources,
+                Map<ClassPathKey, ClassPathInputs> classpathInputs,
+                Map<ResourceKey, PathResourceImplementation> resourceCache,
+                OpenedProjectsOutput openedProjectsOutput) {
+            this.classpathResources = classpathResources;
+            this.classpathInputs = classpathInputs;
+            this.resourceCache = resourceCache;
+            this.openedProjectsOutput = openedProjectsOutput;
+
+            this.resourceKeys = new IdentityHashMap<>(2 * resourceCache.size());
+            resourceCache.forEach((key, resource) -> resourceKeys.put(resource, key));
+        }
+    }
+
+    private static final class ClassPathInputs {
+        private final List<?> inputs;
+        // Set after building the classpath.
+        private Set<File> invalid;
+
+        public ClassPathInputs(Object... inputs) {
+            this.inputs = Arrays.asList(inputs);
+            this.invalid = Collections.emptySet();
+        }
+
+        @Override
+        public int hashCode() {
+            return inputs.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final ClassPathInputs other = (ClassPathInputs)obj;
+            return this.inputs.equals(other.inputs);
+        }
+    }
+
+    private static final class ResourceKey {
+        private final String url;
+        private final FileGroupFilter includeRules;
+
+        public ResourceKey(String url, FileGroupFilter includeRules) {
+            this.url = url;
+            this.includeRules = includeRules;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * url.hashCode() + Objects.hashCode(includeRules);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final ResourceKey other = (ResourceKey)obj;
+            return this.url.equals(other.url)
+                    && Objects.equals(this.includeRules, other.includeRules);
+        }
+    }
+
+    private static final class OpenedProjectsOutput {
+        private final List<NbJavaModule> modules;
+        private final Map<String, Set<File>> jarNameToClassDirs;
+
+        public OpenedProjectsOutput(List<NbJavaModule> modules, Map<String, Set<File>> jarNameToClassDirs) {
+            this.modules = modules;
+            this.jarNameToClassDirs = jarNameToClassDirs;
+        }
+
+        public boolean isSameModules(List<NbJavaModule> otherModules) {
+            if (modules.size() != otherModules.size()) {
+                return false;
+            }
+
+            Set<NbJavaModule> moduleSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            moduleSet.addAll(modules);
+            for (NbJavaModule module: otherModules) {
+                if (!moduleSet.contains(module)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     public enum ClassPathType {
         SOURCES,
         COMPILE,
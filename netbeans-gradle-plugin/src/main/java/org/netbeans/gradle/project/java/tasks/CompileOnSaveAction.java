@@ -7,13 +7,12 @@ import org.netbeans.api.java.project.JavaProjectConstants;
 import org.netbeans.api.project.FileOwnerQuery;
 import org.netbeans.api.project.Project;
 import org.netbeans.gradle.project.NbGradleProjectFactory;
-import org.netbeans.gradle.project.api.task.GradleActionProviderContext;
 import org.netbeans.gradle.project.properties.global.CommonGlobalSettings;
 import org.netbeans.modules.parsing.api.Source;
 import org.netbeans.spi.editor.document.OnSaveTask;
 import org.netbeans.spi.project.ActionProvider;
 import org.openide.filesystems.FileObject;
-import org.openide.util.lookup.Lookups;
+import org.openide.util.Lookup;
 
 public final class CompileOnSaveAction implements OnSaveTask {
     private final FileObject srcFile;
@@ -33,16 +32,16 @@ public final class CompileOnSaveAction implements OnSaveTask {
             return;
         }
 
+        CompileOnSaveQueue.getDefault().fileSaved(project, srcFile);
+    }
+
+    static void startCompile(Project project, Lookup context) {
         ActionProvider actionProvider
                 = project.getLookup().lookup(ActionProvider.class);
         if (actionProvider == null) {
             return;
         }
-        actionProvider.invokeAction(
-                JavaProjectConstants.COMMAND_DEBUG_FIX,
-                Lookups.fixed(srcFile,
-                        GradleActionProviderContext.DONT_SAVE_FILES,
-                        GradleActionProviderContext.DONT_FOCUS_ON_OUTPUT));
+        actionProvider.invokeAction(JavaProjectConstants.COMMAND_DEBUG_FIX, context);
     }
 
     private static boolean isGradleProject(Project project) {
@@ -0,0 +1,163 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.executor.TaskExecutor;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.project.api.task.CommandCompleteListener;
+import org.netbeans.gradle.project.api.task.GradleActionProviderContext;
+import org.netbeans.gradle.project.util.CoalescingKeyDispatcher;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+
+/**
+ * Collects the files saved in quick succession and starts a single compile
+ * for each affected project after no file was saved for a short while.
+ * <P>
+ * Saving a file of a project cancels the compile previously started by this
+ * queue for the same project, because the new compile supersedes it anyway.
+ * The files of the canceled compile are compiled by the new compile, unless
+ * the canceled compile has already completed.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+final class CompileOnSaveQueue {
+    private static final long QUIET_PERIOD_MS = 300;
+
+    private final BiConsumer<? super Project, ? super Lookup> compileAction;
+    private final CoalescingKeyDispatcher<Project> dispatcher;
+
+    private final Lock mainLock;
+    private final Map<Project, Set<FileObject>> pendingFiles;
+    private final Map<Project, StartedCompile> startedCompiles;
+
+    /**
+     * Creates a new queue.
+     *
+     * @param dispatchExecutor the executor on which the compiles are started
+     *   after the quiet period. This argument cannot be {@code null}.
+     * @param quietPeriodMs the time in milliseconds without saves after
+     *   which the compile is started
+     * @param compileAction the action starting the compile of the given
+     *   project. The lookup passed to this action contains the saved files,
+     *   the {@code GradleActionProviderContext} values to be used, the
+     *   {@code CancellationToken} signaling that the compile was superseded
+     *   and the {@code CommandCompleteListener} to be notified when the
+     *   compile has completed. This argument cannot be {@code null}.
+     */
+    public CompileOnSaveQueue(
+            TaskExecutor dispatchExecutor,
+            long quietPeriodMs,
+            BiConsumer<? super Project, ? super Lookup> compileAction) {
+
+        this.compileAction = Objects.requireNonNull(compileAction, "compileAction");
+        this.dispatcher = new CoalescingKeyDispatcher<>(dispatchExecutor, () -> quietPeriodMs, this::compileProjects);
+
+        this.mainLock = new ReentrantLock();
+        this.pendingFiles = new HashMap<>();
+        // A compile might never complete (e.g., if it could not be started),
+        // so don't keep closed projects in memory because of them.
+        this.startedCompiles = new WeakHashMap<>();
+    }
+
+    public static CompileOnSaveQueue getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    public void fileSaved(Project project, FileObject file) {
+        Objects.requireNonNull(project, "project");
+        Objects.requireNonNull(file, "file");
+
+        StartedCompile supersededCompile;
+        mainLock.lock();
+        try {
+            Set<FileObject> files = pendingFiles.computeIfAbsent(project, key -> new LinkedHashSet<>());
+            supersededCompile = startedCompiles.remove(project);
+            if (supersededCompile != null) {
+                Set<FileObject> mergedFiles = new LinkedHashSet<>(supersededCompile.files);
+                mergedFiles.addAll(files);
+                files = mergedFiles;
+                pendingFiles.put(project, files);
+            }
+            files.add(file);
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (supersededCompile != null) {
+            supersededCompile.cancel.getController().cancel();
+        }
+
+        dispatcher.reportKey(project);
+    }
+
+    private void compileProjects(Set<Project> projects) {
+        for (Project project: projects) {
+            StartedCompile startedCompile;
+            mainLock.lock();
+            try {
+                Set<FileObject> files = pendingFiles.remove(project);
+                if (files == null) {
+                    continue;
+                }
+
+                startedCompile = new StartedCompile(Cancellation.createCancellationSource(), files);
+                startedCompiles.put(project, startedCompile);
+            } finally {
+                mainLock.unlock();
+            }
+
+            Set<FileObject> files = startedCompile.files;
+            CommandCompleteListener completeListener = error -> compileCompleted(project, startedCompile);
+
+            List<Object> context = new ArrayList<>(files.size() + 4);
+            context.addAll(files);
+            context.add(GradleActionProviderContext.DONT_SAVE_FILES);
+            context.add(GradleActionProviderContext.DONT_FOCUS_ON_OUTPUT);
+            context.add(startedCompile.cancel.getToken());
+            context.add(completeListener);
+
+            compileAction.accept(project, Lookups.fixed(context.toArray()));
+        }
+    }
+
+    private void compileCompleted(Project project, StartedCompile compile) {
+        mainLock.lock();
+        try {
+            // The entry might already belong to a newer compile.
+            startedCompiles.remove(project, compile);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static final class StartedCompile {
+        private final CancellationSource cancel;
+        private final Set<FileObject> files;
+
+        public StartedCompile(CancellationSource cancel, Set<FileObject> files) {
+            this.cancel = cancel;
+            this.files = files;
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final CompileOnSaveQueue DEFAULT = new CompileOnSaveQueue(
+                NbTaskExecutors.DEFAULT_EXECUTOR,
+                QUIET_PERIOD_MS,
+                CompileOnSaveAction::startCompile);
+    }
+}
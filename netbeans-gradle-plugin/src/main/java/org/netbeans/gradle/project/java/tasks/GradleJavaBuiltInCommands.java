@@ -511,17 +511,18 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
         };
     }
 
-    private static ContextAwareCommandFinalizer applyClassesFinalizer(final Project project, final String className) {
+    private static ContextAwareCommandFinalizer applyClassesFinalizer(final Project project, final List<String> classNames) {
         return (OutputWriter output, OutputWriter errOutput) -> {
-            DebugUtils.applyChanges(project, output, className);
+            DebugUtils.applyChanges(project, output, classNames);
         };
     }
 
     private static CustomCommandAdjuster applyClassesActions() {
         return (JavaExtension javaExt, CustomCommandActions.Builder customActions) -> {
             customActions.setContextAwareAction((Project project, Lookup commandContext) -> {
-                String className = DebugUtils.getActiveClassName(project, commandContext);
-                return applyClassesFinalizer(project, className);
+                // Compile on save might pass multiple files saved in quick succession.
+                List<String> classNames = DebugUtils.getActiveClassNames(project, commandContext);
+                return applyClassesFinalizer(project, classNames);
             });
         };
     }
@@ -21,6 +21,7 @@ import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableDef;
 import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableDefMap;
 import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableValue;
 import org.netbeans.gradle.project.tasks.vars.StandardTaskVariable;
+import org.netbeans.gradle.project.tasks.vars.VariableValueCache;
 import org.netbeans.gradle.project.util.NbFileUtils;
 import org.netbeans.gradle.project.util.StringUtils;
 import org.netbeans.spi.project.SingleMethod;
@@ -42,9 +43,11 @@ public final class JavaGradleTaskVariableQuery implements GradleTaskVariableQuer
             = LazyValues.lazyValue(JavaGradleTaskVariableQuery::createVariableDefMap);
 
     private final JavaExtension javaExt;
+    private final VariableValueCache valueCache;
 
     public JavaGradleTaskVariableQuery(JavaExtension javaExt) {
         this.javaExt = Objects.requireNonNull(javaExt, "javaExt");
+        this.valueCache = new VariableValueCache();
     }
 
     private static String getSourceSetName(JavaExtension project, Lookup actionContext) {
@@ -95,7 +98,7 @@ public final class JavaGradleTaskVariableQuery implements GradleTaskVariableQuer
     }
 
     private static void defineVariables(Map<TaskVariable, VariableDef<JavaExtension>> varMap) {
-        addVariable(varMap, SOURCE_SET_NAME, (TaskVariableMap variables, JavaExtension project, Lookup actionContext) -> {
+        addReusableVariable(varMap, SOURCE_SET_NAME, (TaskVariableMap variables, JavaExtension project, Lookup actionContext) -> {
             return new VariableValue(getSourceSetName(project, actionContext));
         });
 
@@ -135,9 +138,21 @@ public final class JavaGradleTaskVariableQuery implements GradleTaskVariableQuer
         varMap.put(taskVariable, new VariableDef<>(taskVariable, valueGetter));
     }
 
+    private static void addReusableVariable(
+            Map<TaskVariable, VariableDef<JavaExtension>> varMap,
+            TaskVariable taskVariable,
+            ValueGetter<JavaExtension> valueGetter) {
+        varMap.put(taskVariable, new VariableDef<>(taskVariable, valueGetter, true));
+    }
+
     @Override
     public TaskVariableMap getVariableMap(final Lookup actionContext) {
-        return new CachingVariableMap<>(getVariableDefMap(), javaExt, actionContext);
+        return new CachingVariableMap<>(
+                getVariableDefMap(),
+                javaExt,
+                actionContext,
+                valueCache,
+                javaExt.getCurrentModel());
     }
 
     private static List<FileObject> getFilesOfContext(Lookup context) {
@@ -0,0 +1,135 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.netbeans.gradle.project.others.test.NbGradleTestSession;
+import org.netbeans.gradle.project.others.test.NbGradleTestSuite;
+import org.netbeans.modules.gsf.testrunner.api.Status;
+import org.netbeans.modules.gsf.testrunner.api.Testcase;
+import org.netbeans.modules.gsf.testrunner.api.Trouble;
+
+/**
+ * Defines the content of a single test report file independently of the test
+ * runner UI, so that it can be parsed in the background and displayed any
+ * number of times.
+ */
+final class ParsedTestSuite {
+    private final String name;
+    private final long timeMillis;
+    private final String stdOut;
+    private final String stdErr;
+    private final List<ParsedTestcase> testcases;
+    private final long retainedCharCount;
+
+    public ParsedTestSuite(
+            String name,
+            long timeMillis,
+            String stdOut,
+            String stdErr,
+            List<ParsedTestcase> testcases) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.timeMillis = timeMillis;
+        this.stdOut = stdOut;
+        this.stdErr = stdErr;
+        this.testcases = Collections.unmodifiableList(new ArrayList<>(testcases));
+        this.retainedCharCount = countRetainedChars(stdOut, stdErr, this.testcases);
+    }
+
+    private static long countRetainedChars(String stdOut, String stdErr, List<ParsedTestcase> testcases) {
+        long result = length(stdOut) + length(stdErr);
+        for (ParsedTestcase testcase: testcases) {
+            result += testcase.getRetainedCharCount();
+        }
+        return result;
+    }
+
+    private static int length(String str) {
+        return str != null ? str.length() : 0;
+    }
+
+    /**
+     * Returns the approximate number of characters held by this suite, dominated
+     * by the output of the tests and the stack traces of the failures.
+     */
+    public long getRetainedCharCount() {
+        return retainedCharCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<ParsedTestcase> getTestcases() {
+        return testcases;
+    }
+
+    public void displayTo(NbGradleTestSession testSession) {
+        NbGradleTestSuite testSuite = testSession.startTestSuite(name);
+        for (ParsedTestcase testcase: testcases) {
+            testcase.addTo(testSuite);
+        }
+
+        testSuite.setStdErr(stdErr);
+        testSuite.setStdOut(stdOut);
+        testSuite.endSuite(timeMillis);
+    }
+
+    public static final class ParsedTestcase {
+        private final String name;
+        private final String className;
+        private final long timeMillis;
+        private final Status status;
+        private final boolean error;
+        private final String[] stackTrace;
+
+        public ParsedTestcase(
+                String name,
+                String className,
+                long timeMillis,
+                Status status,
+                boolean error,
+                String[] stackTrace) {
+            this.name = Objects.requireNonNull(name, "name");
+            this.className = className;
+            this.timeMillis = timeMillis;
+            this.status = Objects.requireNonNull(status, "status");
+            this.error = error;
+            this.stackTrace = stackTrace != null ? stackTrace.clone() : null;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        private long getRetainedCharCount() {
+            long result = name.length() + length(className);
+            if (stackTrace != null) {
+                for (String line: stackTrace) {
+                    result += length(line);
+                }
+            }
+            return result;
+        }
+
+        private void addTo(NbGradleTestSuite testSuite) {
+            Testcase result = testSuite.addTestcase(name);
+            if (className != null) {
+                result.setClassName(className);
+            }
+            result.setTimeMillis(timeMillis);
+            result.setStatus(status);
+
+            if (stackTrace != null) {
+                Trouble trouble = new Trouble(error);
+                trouble.setStackTrace(stackTrace.clone());
+                result.setTrouble(trouble);
+            }
+        }
+    }
+}
@@ -2,18 +2,18 @@ package org.netbeans.gradle.project.java.test;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.swing.event.ChangeListener;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
+import org.jtrim2.executor.TaskExecutor;
 import org.netbeans.api.project.Project;
 import org.netbeans.api.project.ProjectInformation;
 import org.netbeans.api.project.ProjectUtils;
@@ -22,26 +22,24 @@ import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.others.test.NbGradleTestManager;
 import org.netbeans.gradle.project.others.test.NbGradleTestManagers;
 import org.netbeans.gradle.project.others.test.NbGradleTestSession;
-import org.netbeans.gradle.project.others.test.NbGradleTestSuite;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
 import org.netbeans.gradle.project.view.GradleActionProvider;
 import org.netbeans.modules.gsf.testrunner.api.RerunHandler;
 import org.netbeans.modules.gsf.testrunner.api.RerunType;
-import org.netbeans.modules.gsf.testrunner.api.Status;
 import org.netbeans.modules.gsf.testrunner.api.Testcase;
-import org.netbeans.modules.gsf.testrunner.api.Trouble;
 import org.netbeans.spi.project.ActionProvider;
 import org.netbeans.spi.project.SingleMethod;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.Lookups;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
 
 public final class TestXmlDisplayer {
     private static final Logger LOGGER = Logger.getLogger(TestXmlDisplayer.class.getName());
     private static final File[] NO_FILES = new File[0];
-    private static final String NEW_LINE_PATTERN = Pattern.quote("\n");
-    private static final String[] STACKTRACE_PREFIXES = {"at "};
+
+    private static final int REPORT_PARSER_THREAD_COUNT
+            = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final TaskExecutor REPORT_PARSER
+            = NbTaskExecutors.newExecutor("Test-Report-Parser", REPORT_PARSER_THREAD_COUNT);
 
     private final Project project;
     private final JavaExtension javaExt;
@@ -87,87 +85,81 @@ public final class TestXmlDisplayer {
         return result != null ? result : NO_FILES;
     }
 
-    private static long tryReadTimeMillis(String timeStr, long defaultValue) {
-        if (timeStr == null) {
-            return defaultValue;
+    private static void displayTestSuite(NbGradleTestSession testSession, File reportFile, ParsedTestSuite testSuite) {
+        if (testSuite != null) {
+            testSuite.displayTo(testSession);
         }
-
-        try {
-            return Math.round(Double.parseDouble(timeStr) * 1000.0);
-        } catch (NumberFormatException ex) {
-            return defaultValue;
+        else {
+            LOGGER.log(Level.INFO, "No test suite in {0}", reportFile);
         }
     }
 
-    private static String[] toLines(String text) {
-        return text
-                .replace("\r\n", "\n")
-                .replace("\r", "\n")
-                .trim()
-                .split(NEW_LINE_PATTERN);
+    private static List<File> sortBySuiteName(File[] reportFiles) {
+        // Reports are named after their suites (e.g., "TEST-mypackage.MyTest.xml").
+        List<File> result = new ArrayList<>(Arrays.asList(reportFiles));
+        result.sort(Comparator.comparing(File::getName));
+        return result;
     }
 
-    private static String[] extractStackTrace(String text) {
-        String[] lines = toLines(text);
-
-        // The first line is the exception message.
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i].trim();
-            for (String prefix: STACKTRACE_PREFIXES) {
-                if (line.startsWith(prefix)) {
-                    line = line.substring(prefix.length());
-                    break;
-                }
+    private boolean displayTestSession(NbGradleTestSession testSession, File[] reportFiles) {
+        TestXmlReportParser reportParser = TestXmlReportParser.getDefault();
+
+        // The suites are displayed in the order of their names, regardless of the order
+        // of the files in the directory. Reports not in the cache are parsed concurrently
+        // and each suite is displayed as soon as the suites before it have been displayed.
+        List<File> sortedReportFiles = sortBySuiteName(reportFiles);
+
+        List<ParsedTestSuite> cachedSuites = new ArrayList<>(sortedReportFiles.size());
+        int toParseCount = 0;
+        for (File reportFile: sortedReportFiles) {
+            ParsedTestSuite cached = reportParser.tryGetCached(reportFile);
+            cachedSuites.add(cached);
+            if (cached == null) {
+                toParseCount++;
             }
-            lines[i] = line;
         }
-        return lines;
-    }
-
-    private void displayTestSuite(final File reportFile, SAXParser parser, final NbGradleTestSession testSession) throws Exception {
-        parser.reset();
 
-        TestXmlContentHandler testXmlContentHandler = new TestXmlContentHandler(testSession, reportFile);
-        parser.parse(reportFile, testXmlContentHandler);
+        // A single report is simply parsed in this thread when its turn comes.
+        boolean parseConcurrently = toParseCount > 1;
 
-        NbGradleTestSuite testSuite = testXmlContentHandler.testSuite;
-        if (testSuite != null) {
-            testSuite.setStdErr(testXmlContentHandler.stderr);
-            testSuite.setStdOut(testXmlContentHandler.stdout);
-            testSuite.endSuite(testXmlContentHandler.suiteTime);
+        List<CompletableFuture<ParseResult>> results = new ArrayList<>(sortedReportFiles.size());
+        for (int i = 0; i < sortedReportFiles.size(); i++) {
+            File reportFile = sortedReportFiles.get(i);
+            ParsedTestSuite cached = cachedSuites.get(i);
+            if (cached != null) {
+                results.add(CompletableFuture.completedFuture(new ParseResult(reportFile, true, cached)));
+            }
+            else if (parseConcurrently) {
+                results.add(CompletableFuture.supplyAsync(() -> tryParse(reportParser, reportFile), REPORT_PARSER));
+            }
+            else {
+                results.add(null);
+            }
         }
-    }
 
-    private SAXParser tryGetSaxParser() {
-        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
-        try {
-            return parserFactory.newSAXParser();
-        } catch (ParserConfigurationException ex) {
-            LOGGER.log(Level.WARNING, "Unexpected parser configuration error.", ex);
-            return null;
-        } catch (SAXException ex) {
-            LOGGER.log(Level.WARNING, "Unexpected SAXException.", ex);
-            return null;
-        }
-    }
+        for (int i = 0; i < sortedReportFiles.size(); i++) {
+            CompletableFuture<ParseResult> resultFuture = results.get(i);
+            ParseResult result = resultFuture != null
+                    ? resultFuture.join()
+                    : tryParse(reportParser, sortedReportFiles.get(i));
 
-    private boolean displayTestSession(NbGradleTestSession testSession, File[] reportFiles) {
-        SAXParser parser = tryGetSaxParser();
-        if (parser == null) {
-            return false;
-        }
-
-        for (File reportFile: reportFiles) {
-            try {
-                displayTestSuite(reportFile, parser, testSession);
-            } catch (Exception ex) {
-                LOGGER.log(Level.INFO, "Error while parsing " + reportFile, ex);
+            if (result.parsed) {
+                displayTestSuite(testSession, result.reportFile, result.testSuite);
             }
         }
 
         return true;
     }
 
+    private static ParseResult tryParse(TestXmlReportParser reportParser, File reportFile) {
+        try {
+            return new ParseResult(reportFile, true, reportParser.parse(reportFile));
+        } catch (Throwable ex) {
+            LOGGER.log(Level.INFO, "Error while parsing " + reportFile, ex);
+            return new ParseResult(reportFile, false, null);
+        }
+    }
+
     private boolean displayReport(Lookup runContext, File[] reportFiles) {
         NbGradleTestSession testSession = testManager.startSession(
                 getProjectName(),
@@ -246,192 +238,15 @@ public final class TestXmlDisplayer {
         }
     }
 
-    private static final class TestXmlContentHandler extends DefaultHandler {
-        private final NbGradleTestSession session;
-        private final File reportFile;
-
-        private int level;
-        private NbGradleTestSuite testSuite;
-        private final List<Testcase> allTestcases;
-
-        private String stdout;
-        private String stderr;
-        private long suiteTime;
-        private boolean error;
-        private Testcase testcase;
-        private StringBuilder failureContent;
-        private boolean outputBuilderIsStdOut;
-        private StringBuilder outputBuilder;
-
-        public TestXmlContentHandler(NbGradleTestSession session, File reportFile) {
-            this.session = session;
-            this.reportFile = reportFile;
-            this.allTestcases = new ArrayList<>(64);
-
-            this.level = 0;
-            this.testSuite = null;
-            this.suiteTime = 0;
-            this.error = false;
-            this.testcase = null;
-            this.failureContent = null;
-            this.outputBuilderIsStdOut = false;
-        }
-
-        private void startSuite(Attributes attributes) {
-            String name = attributes.getValue("", "name");
-            suiteTime = tryReadTimeMillis(attributes.getValue("", "time"), 0);
+    private static final class ParseResult {
+        public final File reportFile;
+        public final boolean parsed;
+        public final ParsedTestSuite testSuite;
 
-            String suiteName = name != null ? name : reportFile.getName();
-            testSuite = session.startTestSuite(suiteName);
-        }
-
-        private Testcase tryGetTestCase(Attributes attributes, Status status) {
-            Testcase result = tryGetTestCase(attributes);
-            if (result != null) {
-                result.setStatus(status);
-            }
-            return result;
-        }
-
-        private Testcase tryGetTestCase(Attributes attributes) {
-            if (testSuite == null) {
-                LOGGER.warning("test suite has not been started but there is a test case to add.");
-                return null;
-            }
-
-            String name = attributes.getValue("", "name");
-            if (name == null) {
-                return null;
-            }
-
-            Testcase result = testSuite.addTestcase(name);
-
-            String className = attributes.getValue("", "classname");
-            if (className != null) {
-                result.setClassName(className);
-            }
-
-            long time = tryReadTimeMillis(attributes.getValue("", "time"), 0);
-            result.setTimeMillis(time);
-
-            return result;
-        }
-
-        private boolean tryAddTestCase(String uri, String localName, String qName, Attributes attributes) {
-            switch (qName) {
-                case "testcase":
-                    testcase = tryGetTestCase(attributes, Status.PASSED);
-                    break;
-                case "ignored-testcase":
-                    testcase = tryGetTestCase(attributes, Status.SKIPPED);
-                    break;
-            }
-
-            if (testcase != null) {
-                allTestcases.add(testcase);
-                return true;
-            }
-            else {
-                return false;
-            }
-        }
-
-        private void tryUpdateTestCase(String uri, String localName, String qName, Attributes attributes) {
-            if (testcase != null) {
-                switch (qName) {
-                    case "failure":
-                        error = false;
-                        testcase.setStatus(Status.FAILED);
-                        break;
-                    case "error":
-                        error = true;
-                        testcase.setStatus(Status.ERROR);
-                        break;
-                    case "skipped":
-                        error = false;
-                        testcase.setStatus(Status.SKIPPED);
-                        break;
-                    default:
-                        LOGGER.log(Level.WARNING, "Unexpected element in testcase: {0}", qName);
-                        error = true;
-                        testcase.setStatus(Status.ERROR);
-                        break;
-                }
-                failureContent = new StringBuilder(1024);
-            }
-        }
-
-        private void tryStartOutput(String uri, String localName, String qName, Attributes attributes) {
-            switch (qName) {
-                case "system-out":
-                    outputBuilder = new StringBuilder();
-                    outputBuilderIsStdOut = true;
-                    break;
-                case "system-err":
-                    outputBuilder = new StringBuilder();
-                    outputBuilderIsStdOut = false;
-                    break;
-            }
-        }
-
-        @Override
-        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-            switch (level) {
-                case 0:
-                    startSuite(attributes);
-                    break;
-                case 1:
-                    if (!tryAddTestCase(uri, localName, qName, attributes)) {
-                        tryStartOutput(uri, localName, qName, attributes);
-                    }
-                    break;
-                case 2:
-                    tryUpdateTestCase(uri, localName, qName, attributes);
-                    break;
-            }
-
-            level++;
-        }
-
-        @Override
-        public void endElement(String uri, String localName, String qName) throws SAXException {
-            level--;
-
-            switch (level) {
-                case 1:
-                    testcase = null;
-                    if (outputBuilder != null) {
-                        if (outputBuilderIsStdOut) {
-                            stdout = outputBuilder.toString();
-                        }
-                        else {
-                            stderr = outputBuilder.toString();
-                        }
-                        outputBuilder = null;
-                    }
-                    break;
-                case 2:
-                    if (failureContent != null && testcase != null) {
-                        Trouble trouble = new Trouble(error);
-                        trouble.setStackTrace(extractStackTrace(failureContent.toString()));
-                        testcase.setTrouble(trouble);
-                    }
-                    failureContent = null;
-                    break;
-            }
-        }
-
-        private static void tryAppend(char[] ch, int start, int length, StringBuilder... results) {
-            for (StringBuilder result: results) {
-                if (result != null) {
-                    result.append(ch, start, length);
-                }
-            }
-        }
-
-        @Override
-        public void characters(char[] ch, int start, int length) throws SAXException {
-            tryAppend(ch, start, length, failureContent, outputBuilder);
+        public ParseResult(File reportFile, boolean parsed, ParsedTestSuite testSuite) {
+            this.reportFile = reportFile;
+            this.parsed = parsed;
+            this.testSuite = testSuite;
         }
     }
 }
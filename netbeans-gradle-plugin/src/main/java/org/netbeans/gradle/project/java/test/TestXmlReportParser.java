@@ -0,0 +1,449 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.netbeans.modules.gsf.testrunner.api.Status;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parses JUnit XML test reports and caches the parsed reports until the
+ * report file changes (i.e., its size or last modification time changes).
+ * The cache is limited both in the number of reports and in the number of
+ * characters they hold, because the output of tests can be arbitrarily large.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+final class TestXmlReportParser {
+    private static final Logger LOGGER = Logger.getLogger(TestXmlReportParser.class.getName());
+
+    private static final String NEW_LINE_PATTERN = Pattern.quote("\n");
+    private static final String[] STACKTRACE_PREFIXES = {"at "};
+    private static final int MAX_CACHED_REPORT_COUNT = 256;
+    private static final long MAX_CACHED_CHAR_COUNT = 4L * 1024 * 1024;
+
+    private static final TestXmlReportParser DEFAULT
+            = new TestXmlReportParser(MAX_CACHED_REPORT_COUNT, MAX_CACHED_CHAR_COUNT);
+
+    private final ThreadLocal<SAXParser> parserRef;
+
+    private final int maxCachedReportCount;
+    private final long maxCachedCharCount;
+
+    private final Lock cacheLock;
+    // Access ordered, so the first entry is the least recently used one.
+    private final LinkedHashMap<File, CachedReport> cache;
+    private long cachedCharCount;
+
+    public TestXmlReportParser(int maxCachedReportCount) {
+        this(maxCachedReportCount, MAX_CACHED_CHAR_COUNT);
+    }
+
+    public TestXmlReportParser(int maxCachedReportCount, long maxCachedCharCount) {
+        this.parserRef = new ThreadLocal<>();
+        this.maxCachedReportCount = maxCachedReportCount;
+        this.maxCachedCharCount = maxCachedCharCount;
+        this.cacheLock = new ReentrantLock();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.cachedCharCount = 0;
+    }
+
+    public static TestXmlReportParser getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the already parsed report if the report file has not changed since
+     * it was parsed, or {@code null} if the report file needs to be parsed.
+     */
+    public ParsedTestSuite tryGetCached(File reportFile) {
+        ReportFileKey key = ReportFileKey.of(reportFile);
+
+        cacheLock.lock();
+        try {
+            CachedReport cached = cache.get(reportFile);
+            return cached != null && cached.key.equals(key) ? cached.suite : null;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Parses the given report file or returns the cached result if the file
+     * has not changed since it was last parsed.
+     *
+     * @return the parsed report, or {@code null} if the file is not a test report
+     */
+    public ParsedTestSuite parse(File reportFile) throws Exception {
+        ReportFileKey key = ReportFileKey.of(reportFile);
+
+        cacheLock.lock();
+        try {
+            CachedReport cached = cache.get(reportFile);
+            if (cached != null && cached.key.equals(key)) {
+                return cached.suite;
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+
+        ParsedTestSuite result = parseNow(reportFile);
+
+        // If the file was changed while parsing, we do not know which version we have read.
+        if (result != null && key.equals(ReportFileKey.of(reportFile))) {
+            cacheLock.lock();
+            try {
+                putToCacheUnsafe(reportFile, new CachedReport(key, result));
+            } finally {
+                cacheLock.unlock();
+            }
+        }
+        return result;
+    }
+
+    private void putToCacheUnsafe(File reportFile, CachedReport report) {
+        long charCount = report.suite.getRetainedCharCount();
+
+        CachedReport prevReport = cache.remove(reportFile);
+        if (prevReport != null) {
+            cachedCharCount -= prevReport.suite.getRetainedCharCount();
+        }
+
+        if (charCount > maxCachedCharCount) {
+            // Caching it would evict everything else.
+            return;
+        }
+
+        cache.put(reportFile, report);
+        cachedCharCount += charCount;
+
+        Iterator<CachedReport> cacheItr = cache.values().iterator();
+        while ((cache.size() > maxCachedReportCount || cachedCharCount > maxCachedCharCount) && cacheItr.hasNext()) {
+            cachedCharCount -= cacheItr.next().suite.getRetainedCharCount();
+            cacheItr.remove();
+        }
+    }
+
+    private ParsedTestSuite parseNow(File reportFile) throws Exception {
+        SAXParser parser = getSaxParser();
+        parser.reset();
+
+        TestXmlContentHandler testXmlContentHandler = new TestXmlContentHandler(reportFile);
+        parser.parse(reportFile, testXmlContentHandler);
+        return testXmlContentHandler.toParsedSuite();
+    }
+
+    private SAXParser getSaxParser() throws ParserConfigurationException, SAXException {
+        SAXParser result = parserRef.get();
+        if (result == null) {
+            result = SAXParserFactory.newInstance().newSAXParser();
+            parserRef.set(result);
+        }
+        return result;
+    }
+
+    // For test only
+    void clearCache() {
+        cacheLock.lock();
+        try {
+            cache.clear();
+            cachedCharCount = 0;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private static long tryReadTimeMillis(String timeStr, long defaultValue) {
+        if (timeStr == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Math.round(Double.parseDouble(timeStr) * 1000.0);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static String[] toLines(String text) {
+        return text
+                .replace("\r\n", "\n")
+                .replace("\r", "\n")
+                .trim()
+                .split(NEW_LINE_PATTERN);
+    }
+
+    private static String[] extractStackTrace(String text) {
+        String[] lines = toLines(text);
+
+        // The first line is the exception message.
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].trim();
+            for (String prefix: STACKTRACE_PREFIXES) {
+                if (line.startsWith(prefix)) {
+                    line = line.substring(prefix.length());
+                    break;
+                }
+            }
+            lines[i] = line;
+        }
+        return lines;
+    }
+
+    private static final class ReportFileKey {
+        private final long size;
+        private final long lastModified;
+
+        public ReportFileKey(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public static ReportFileKey of(File file) {
+            return new ReportFileKey(file.length(), file.lastModified());
+        }
+
+        @Override
+        public int hashCode() {
+            return 41 * Long.hashCode(size) + Long.hashCode(lastModified);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final ReportFileKey other = (ReportFileKey)obj;
+            return this.size == other.size
+                    && this.lastModified == other.lastModified;
+        }
+    }
+
+    private static final class CachedReport {
+        private final ReportFileKey key;
+        private final ParsedTestSuite suite;
+
+        public CachedReport(ReportFileKey key, ParsedTestSuite suite) {
+            this.key = Objects.requireNonNull(key, "key");
+            this.suite = Objects.requireNonNull(suite, "suite");
+        }
+    }
+
+    private static final class TestcaseBuilder {
+        private final String name;
+        private final String className;
+        private final long timeMillis;
+        private Status status;
+        private boolean error;
+        private String[] stackTrace;
+
+        public TestcaseBuilder(String name, String className, long timeMillis, Status status) {
+            this.name = name;
+            this.className = className;
+            this.timeMillis = timeMillis;
+            this.status = status;
+            this.error = false;
+            this.stackTrace = null;
+        }
+
+        public ParsedTestSuite.ParsedTestcase build() {
+            return new ParsedTestSuite.ParsedTestcase(name, className, timeMillis, status, error, stackTrace);
+        }
+    }
+
+    private static final class TestXmlContentHandler extends DefaultHandler {
+        private final File reportFile;
+
+        private int level;
+        private String suiteName;
+        private final List<TestcaseBuilder> allTestcases;
+
+        private String stdout;
+        private String stderr;
+        private long suiteTime;
+        private boolean error;
+        private TestcaseBuilder testcase;
+        private StringBuilder failureContent;
+        private boolean outputBuilderIsStdOut;
+        private StringBuilder outputBuilder;
+
+        public TestXmlContentHandler(File reportFile) {
+            this.reportFile = reportFile;
+            this.allTestcases = new ArrayList<>(64);
+
+            this.level = 0;
+            this.suiteName = null;
+            this.suiteTime = 0;
+            this.error = false;
+            this.testcase = null;
+            this.failureContent = null;
+            this.outputBuilderIsStdOut = false;
+        }
+
+        public ParsedTestSuite toParsedSuite() {
+            if (suiteName == null) {
+                return null;
+            }
+
+            List<ParsedTestSuite.ParsedTestcase> testcases = new ArrayList<>(allTestcases.size());
+            for (TestcaseBuilder testcaseBuilder: allTestcases) {
+                testcases.add(testcaseBuilder.build());
+            }
+            return new ParsedTestSuite(suiteName, suiteTime, stdout, stderr, testcases);
+        }
+
+        private void startSuite(Attributes attributes) {
+            String name = attributes.getValue("", "name");
+            suiteTime = tryReadTimeMillis(attributes.getValue("", "time"), 0);
+
+            suiteName = name != null ? name : reportFile.getName();
+        }
+
+        private TestcaseBuilder tryGetTestCase(Attributes attributes, Status status) {
+            if (suiteName == null) {
+                LOGGER.warning("test suite has not been started but there is a test case to add.");
+                return null;
+            }
+
+            String name = attributes.getValue("", "name");
+            if (name == null) {
+                return null;
+            }
+
+            String className = attributes.getValue("", "classname");
+            long time = tryReadTimeMillis(attributes.getValue("", "time"), 0);
+            return new TestcaseBuilder(name, className, time, status);
+        }
+
+        private boolean tryAddTestCase(String uri, String localName, String qName, Attributes attributes) {
+            switch (qName) {
+                case "testcase":
+                    testcase = tryGetTestCase(attributes, Status.PASSED);
+                    break;
+                case "ignored-testcase":
+                    testcase = tryGetTestCase(attributes, Status.SKIPPED);
+                    break;
+            }
+
+            if (testcase != null) {
+                allTestcases.add(testcase);
+                return true;
+            }
+            else {
+                return false;
+            }
+        }
+
+        private void tryUpdateTestCase(String uri, String localName, String qName, Attributes attributes) {
+            if (testcase != null) {
+                switch (qName) {
+                    case "failure":
+                        error = false;
+                        testcase.status = Status.FAILED;
+                        break;
+                    case "error":
+                        error = true;
+                        testcase.status = Status.ERROR;
+                        break;
+                    case "skipped":
+                        error = false;
+                        testcase.status = Status.SKIPPED;
+                        break;
+                    default:
+                        LOGGER.log(Level.WARNING, "Unexpected element in testcase: {0}", qName);
+                        error = true;
+                        testcase.status = Status.ERROR;
+                        break;
+                }
+                failureContent = new StringBuilder(1024);
+            }
+        }
+
+        private void tryStartOutput(String uri, String localName, String qName, Attributes attributes) {
+            switch (qName) {
+                case "system-out":
+                    outputBuilder = new StringBuilder();
+                    outputBuilderIsStdOut = true;
+                    break;
+                case "system-err":
+                    outputBuilder = new StringBuilder();
+                    outputBuilderIsStdOut = false;
+                    break;
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (level) {
+                case 0:
+                    startSuite(attributes);
+                    break;
+                case 1:
+                    if (!tryAddTestCase(uri, localName, qName, attributes)) {
+                        tryStartOutput(uri, localName, qName, attributes);
+                    }
+                    break;
+                case 2:
+                    tryUpdateTestCase(uri, localName, qName, attributes);
+                    break;
+            }
+
+            level++;
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            level--;
+
+            switch (level) {
+                case 1:
+                    testcase = null;
+                    if (outputBuilder != null) {
+                        if (outputBuilderIsStdOut) {
+                            stdout = outputBuilder.toString();
+                        }
+                        else {
+                            stderr = outputBuilder.toString();
+                        }
+                        outputBuilder = null;
+                    }
+                    break;
+                case 2:
+                    if (failureContent != null && testcase != null) {
+                        testcase.error = error;
+                        testcase.stackTrace = extractStackTrace(failureContent.toString());
+                    }
+                    failureContent = null;
+                    break;
+            }
+        }
+
+        private static void tryAppend(char[] ch, int start, int length, StringBuilder... results) {
+            for (StringBuilder result: results) {
+                if (result != null) {
+                    result.append(ch, start, length);
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            tryAppend(ch, start, length, failureContent, outputBuilder);
+        }
+    }
+}
@@ -43,9 +43,14 @@ import org.netbeans.gradle.project.api.modelquery.GradleTarget;
 import org.netbeans.gradle.project.api.task.CommandCompleteListener;
 import org.netbeans.gradle.project.api.task.DaemonTaskContext;
 import org.netbeans.gradle.project.extensions.NbGradleExtensionRef;
+import org.netbeans.gradle.project.extensions.StructureModelDefQuery;
+import org.netbeans.gradle.project.model.ProjectLoadCoordinator.LoadBatch;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssue;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssueReporter;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssues;
+import org.netbeans.gradle.project.model.metrics.ModelLoadMetrics;
+import org.netbeans.gradle.project.model.metrics.ModelLoadPhase;
+import org.netbeans.gradle.project.model.metrics.PhaseMeasurement;
 import org.netbeans.gradle.project.properties.global.CommonGlobalSettings;
 import org.netbeans.gradle.project.script.ScriptFileProvider;
 import org.netbeans.gradle.project.tasks.GradleArguments;
@@ -53,26 +58,32 @@ import org.netbeans.gradle.project.tasks.GradleDaemonFailures;
 import org.netbeans.gradle.project.tasks.GradleDaemonManager;
 import org.netbeans.gradle.project.tasks.GradleTasks;
 import org.netbeans.gradle.project.util.GradleVersions;
+import org.netbeans.gradle.project.util.JvmMemoryMonitor;
 import org.netbeans.gradle.project.util.NbTaskExecutors;
 import org.netbeans.gradle.project.view.GlobalErrorReporter;
 
 public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel> {
     private static final Logger LOGGER = Logger.getLogger(DefaultGradleModelLoader.class.getName());
 
+    private static final int MAX_CONCURRENT_BUILD_LOADS = 8;
+
     private static final TaskExecutor DEFAULT_PROJECT_LOADER
-            = NbTaskExecutors.newExecutor("Gradle-Project-Loader", 1);
+            = newMonitoredExecutor("Gradle-Project-Loader", MAX_CONCURRENT_BUILD_LOADS);
+
+    private static final ProjectLoadCoordinator DEFAULT_LOAD_COORDINATOR
+            = newLoadCoordinator(DEFAULT_PROJECT_LOADER);
 
     private static final MonitorableTaskExecutorService DEFAULT_MODEL_LOAD_NOTIFIER
-            = NbTaskExecutors.newExecutor("Gradle-Project-Load-Notifier", 1);
+            = newMonitoredExecutor("Gradle-Project-Load-Notifier");
 
     private static final MonitorableTaskExecutorService DEFAULT_MODEL_PERSISTER
-            = NbTaskExecutors.newExecutor("Gradle-Project-Model-Persister", 1);
+            = newMonitoredExecutor("Gradle-Project-Model-Persister");
 
     private static final AtomicReference<GradleModelCache> DEFAULT_CACHE_REF
             = new AtomicReference<>(null);
 
     private final NbGradleProject project;
-    private final TaskExecutor projectLoader;
+    private final ProjectLoadCoordinator loadCoordinator;
     private final MonitorableTaskExecutorService modelLoadNotifier;
     private final LoadedProjectManager loadedProjectManager;
     private final PersistentModelCache<NbGradleModel> persistentCache;
@@ -83,7 +94,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
     private DefaultGradleModelLoader(Builder builder) {
         this.project = builder.project;
-        this.projectLoader = builder.projectLoader;
+        this.loadCoordinator = builder.loadCoordinator;
         this.modelLoadNotifier = builder.modelLoadNotifier;
         this.loadedProjectManager = builder.loadedProjectManager;
         this.persistentCache = builder.persistentCache;
@@ -92,6 +103,34 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
         this.modelWasSetOnce = new AtomicBoolean(false);
     }
 
+    private static MonitorableTaskExecutorService newMonitoredExecutor(String name) {
+        return newMonitoredExecutor(name, 1);
+    }
+
+    private static MonitorableTaskExecutorService newMonitoredExecutor(String name, int threadCount) {
+        MonitorableTaskExecutorService result = NbTaskExecutors.newExecutor(name, threadCount);
+        ModelLoadMetrics.getDefault().registerExecutor(name, result);
+        return result;
+    }
+
+    private static ProjectLoadCoordinator newLoadCoordinator(TaskExecutor projectLoader) {
+        return new ProjectLoadCoordinator(
+                (caption, batchTask, cleanupTask) -> {
+                    GradleDaemonManager.submitModelLoadTask(projectLoader, caption, batchTask, cleanupTask);
+                },
+                NbTaskExecutors.newDefaultUpdateExecutor(),
+                DefaultGradleModelLoader::getMaxConcurrentBuildLoads,
+                ModelLoadMetrics.getDefault());
+    }
+
+    private static int getMaxConcurrentBuildLoads() {
+        Integer value = CommonGlobalSettings.getDefault().maxConcurrentBuildLoads().getActiveValue();
+        if (value == null) {
+            return 1;
+        }
+        return Math.max(1, Math.min(MAX_CONCURRENT_BUILD_LOADS, value));
+    }
+
     private static void updateProjectFromCacheIfNeeded(NbGradleModel newModel) {
         File projectDir = newModel.getProjectDir();
         NbGradleProject project = LoadedProjectManager.getDefault().tryGetLoadedProject(projectDir);
@@ -103,7 +142,8 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
     private static GradleModelCache getDefaultCache() {
         GradleModelCache result = DEFAULT_CACHE_REF.get();
         if (result == null) {
-            final PropertySource<Integer> cacheSize = CommonGlobalSettings.getDefault().projectCacheSize().getActiveSource();
+            CommonGlobalSettings globalSettings = CommonGlobalSettings.getDefault();
+            final PropertySource<Integer> cacheSize = globalSettings.projectCacheSize().getActiveSource();
             result = new GradleModelCache(cacheSize.getValue());
             if (DEFAULT_CACHE_REF.compareAndSet(null, result)) {
                 final GradleModelCache cache = result;
@@ -112,6 +152,13 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
                 });
                 cache.setMaxCapacity(cacheSize.getValue());
                 cache.addModelUpdateListener(DefaultGradleModelLoader::updateProjectFromCacheIfNeeded);
+
+                final PropertySource<Integer> heapBudget = globalSettings.projectCacheHeapBudgetPercent().getActiveSource();
+                heapBudget.addChangeListener(() -> {
+                    setHeapBudget(cache, heapBudget.getValue());
+                });
+                setHeapBudget(cache, heapBudget.getValue());
+                cache.shedOnLowMemory(JvmMemoryMonitor.getDefault());
             }
             else {
                 result = DEFAULT_CACHE_REF.get();
@@ -120,6 +167,11 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
         return result;
     }
 
+    private static void setHeapBudget(GradleModelCache cache, int budgetPercent) {
+        int percent = Math.max(1, Math.min(100, budgetPercent));
+        cache.setHeapBudget(percent / 100.0);
+    }
+
     private GradleModelCache getCache() {
         return cacheRef.get();
     }
@@ -142,8 +194,22 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
     }
 
     private NbGradleModel tryGetFromCache(ProjectLoadRequest loadRequest) {
+        File projectDir = loadRequest.project.getProjectDirectoryAsFile();
         File settingsFile = loadRequest.findAppliedSettingsFileAsFile();
-        return getCache().tryGet(loadRequest.project.getProjectDirectoryAsFile(), settingsFile);
+
+        GradleModelCache cache = getCache();
+        NbGradleModel result = cache.tryGet(projectDir, settingsFile);
+        ModelLoadMetrics.getDefault().recordCacheLookup(result != null);
+
+        if (result == null && cache.isSpilled(projectDir, settingsFile)) {
+            // The model was only removed to free memory and it is still
+            // up-to-date in the persistent cache.
+            result = tryReadPersistentCache(loadRequest);
+            if (result != null) {
+                result = cache.restoreEntry(result);
+            }
+        }
+        return result;
     }
 
     public static List<NbGradleExtensionRef> getUnloadedExtensions(
@@ -179,11 +245,25 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
         modelWasSetOnce.set(true);
 
+        PhaseMeasurement notification = ModelLoadMetrics.getDefault()
+                .startPhase(ModelLoadPhase.NOTIFICATION, project.getDisplayName());
         if (modelLoadNotifier.isExecutingInThis()) {
-            listener.updateModel(model, error);
+            notifyModelLoaded(model, error, listener, notification);
         }
         else {
-            modelLoadNotifier.execute(() -> listener.updateModel(model, error));
+            modelLoadNotifier.execute(() -> notifyModelLoaded(model, error, listener, notification));
+        }
+    }
+
+    private static void notifyModelLoaded(
+            NbGradleModel model,
+            Throwable error,
+            ModelRetrievedListener<? super NbGradleModel> listener,
+            PhaseMeasurement notification) {
+        try {
+            listener.updateModel(model, error);
+        } finally {
+            notification.close();
         }
     }
 
@@ -205,9 +285,14 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
         if (modelWasSetOnce.get()) {
             return null;
         }
+        return tryReadPersistentCache(projectLoadKey);
+    }
 
+    private NbGradleModel tryReadPersistentCache(ProjectLoadRequest projectLoadKey) {
         try {
-            return persistentCache.tryGetModel(projectLoadKey.getPersistentModelKey());
+            NbGradleModel result = persistentCache.tryGetModel(projectLoadKey.getPersistentModelKey());
+            ModelLoadMetrics.getDefault().recordPersistentCacheLookup(result != null);
+            return result;
         } catch (IOException ex) {
             LOGGER.log(Level.INFO,
                     "Failed to read persistent cache for project " + projectLoadKey.project.getProjectDirectoryAsFile(),
@@ -223,13 +308,14 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
     @Override
     public void fetchModel(
             final boolean mayFetchFromCache,
+            final boolean background,
             final ModelRetrievedListener<? super NbGradleModel> listener,
             final Runnable aboutToCompleteListener) {
         Objects.requireNonNull(listener, "listener");
         Objects.requireNonNull(aboutToCompleteListener, "aboutToCompleteListener");
 
         if (modelWasSetOnce.get()) {
-            fetchModelWithoutPersistentCache(mayFetchFromCache, listener, aboutToCompleteListener);
+            fetchModelWithoutPersistentCache(mayFetchFromCache, background, listener, aboutToCompleteListener);
             return;
         }
 
@@ -249,7 +335,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
             } finally {
                 onModelLoaded(model, null, listener);
                 if (needLoadFromScripts) {
-                    fetchModelWithoutPersistentCache(mayFetchFromCache, listener, aboutToCompleteListener);
+                    fetchModelWithoutPersistentCache(mayFetchFromCache, background, listener, aboutToCompleteListener);
                 }
             }
         });
@@ -273,7 +359,32 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
         return false;
     }
 
+    /**
+     * Returns the root project directory of the build loaded for the given
+     * project. This is the same build {@link #fixProjectLoadKey fixProjectLoadKey}
+     * chooses: If the root project applied to the project cannot be loaded,
+     * the root project found without the preferred settings file is used.
+     */
+    private static Path getLoadedBuildRootDir(NbGradleProject project) {
+        ProjectLoadRequest projectLoadKey = getProjectLoadKey(project);
+        Path rootProjectDir = projectLoadKey.getAppliedRootProjectDir();
+        if (!CommonGlobalSettings.getDefault().loadRootProjectFirst().getActiveValue()) {
+            return rootProjectDir;
+        }
+
+        if (Objects.equals(rootProjectDir, project.getProjectDirectoryAsPath())) {
+            return rootProjectDir;
+        }
+
+        if (NbGradleProjectFactory.tryLoadSafeGradleProject(rootProjectDir) != null) {
+            return rootProjectDir;
+        }
+
+        return new ProjectLoadRequest(project, SettingsGradleDef.DEFAULT).getAppliedRootProjectDir();
+    }
+
     private ProjectLoadRequest fixProjectLoadKey(
+            LoadBatch batch,
             CancellationToken cancelToken,
             ProjectLoadRequest projectLoadKey,
             ProgressHandle progress) throws IOException, GradleModelLoadError {
@@ -289,18 +400,20 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
         NbGradleProject rootProject = NbGradleProjectFactory.tryLoadSafeGradleProject(rootProjectDir);
         if (rootProject != null) {
-            return fixProjectLoadKeyWithRootProject(cancelToken, projectLoadKey, rootProject, progress);
+            return fixProjectLoadKeyWithRootProject(batch, cancelToken, projectLoadKey, rootProject, progress);
         }
 
         LOGGER.log(Level.INFO, "Failed to load root project for {0} attempting to guess another root project.", project.getProjectDirectoryAsPath());
 
         return fixProjectLoadKeyWithGuessed(
+                batch,
                 cancelToken,
                 new ProjectLoadRequest(project, SettingsGradleDef.DEFAULT),
                 progress);
     }
 
     private ProjectLoadRequest fixProjectLoadKeyWithGuessed(
+            LoadBatch batch,
             CancellationToken cancelToken,
             ProjectLoadRequest projectLoadKey,
             ProgressHandle progress) throws IOException, GradleModelLoadError {
@@ -311,7 +424,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
             LOGGER.log(Level.INFO, "Found another root project for {0}: {1}.", new Object[]{
                 project.getProjectDirectoryAsPath(),
                 rootProjectDir});
-            return fixProjectLoadKeyWithRootProject(cancelToken, projectLoadKey, rootProject, progress);
+            return fixProjectLoadKeyWithRootProject(batch, cancelToken, projectLoadKey, rootProject, progress);
         }
 
         LOGGER.log(Level.INFO, "Could not find another root project for {0} using whatever Gradle chooses.",
@@ -321,6 +434,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
     }
 
     private ProjectLoadRequest fixProjectLoadKeyWithRootProject(
+            LoadBatch batch,
             CancellationToken cancelToken,
             ProjectLoadRequest projectLoadKey,
             NbGradleProject rootProject,
@@ -334,7 +448,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
                         "Reloading the guessed root project of {0} because its project directory was created after parsing the root project.",
                         project.getProjectDirectoryAsPath());
             }
-            rootModel = loadModelWithProgress(cancelToken, rootLoadKey, progress, null);
+            rootModel = loadModelWithProgress(batch, cancelToken, rootLoadKey, progress, null);
             assert rootModel != null;
         }
 
@@ -373,24 +487,31 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
     private void fetchModelWithoutPersistentCache(
             final boolean mayFetchFromCache,
+            final boolean background,
             final ModelRetrievedListener<? super NbGradleModel> listener,
             Runnable aboutToCompleteListener) {
 
         final Runnable safeCompleteListener = Tasks.runOnceTask(aboutToCompleteListener);
 
-        String caption = NbStrings.getLoadingProjectText(project.getDisplayName());
-        GradleDaemonManager.submitGradleTask(projectLoader, caption, (CancellationToken cancelToken, ProgressHandle progress) -> {
+        final String caption = NbStrings.getLoadingProjectText(project.getDisplayName());
+        Supplier<Path> rootDirProvider = () -> getLoadedBuildRootDir(project);
+        loadCoordinator.submit(caption, rootDirProvider, background, (LoadBatch batch, CancellationToken cancelToken, ProgressHandle progress) -> {
+            // The batch of the build might have been started by another project.
+            progress.setDisplayName(caption);
+
             ProjectLoadRequest projectLoadKey = getProjectLoadKey(project);
 
             NbGradleModel model = null;
             Throwable error = null;
             try {
-                ProjectLoadRequest fixedLoadKey = fixProjectLoadKey(cancelToken, projectLoadKey, progress);
-                if (mayFetchFromCache) {
+                ProjectLoadRequest fixedLoadKey = fixProjectLoadKey(batch, cancelToken, projectLoadKey, progress);
+                // A model loaded by an earlier request of the batch is
+                // fresh enough even if we were asked to reload the project.
+                if (mayFetchFromCache || batch.isLoaded(project.getProjectDirectoryAsFile())) {
                     model = tryGetFromCache(fixedLoadKey);
                 }
                 if (model == null || hasUnloadedExtension(model)) {
-                    model = loadModelWithProgress(cancelToken, fixedLoadKey, progress, model);
+                    model = loadModelWithProgress(batch, cancelToken, fixedLoadKey, progress, model);
                 }
             } catch (IOException | BuildException ex) {
                 error = ex;
@@ -407,7 +528,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
                     GradleDaemonFailures.getDefaultHandler().tryHandleFailure(error);
                 }
             }
-        }, true, projectTaskCompleteListener(safeCompleteListener));
+        }, projectTaskCompleteListener(safeCompleteListener));
     }
 
     private void saveToPersistentCache(Collection<NbGradleModel> models) {
@@ -497,6 +618,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
     }
 
     private NbGradleModel loadModelWithProgress(
+            LoadBatch batch,
             CancellationToken cancelToken,
             final ProjectLoadRequest projectLoadKey,
             final ProgressHandle progress,
@@ -521,7 +643,11 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
             ModelBuilder<BuildEnvironment> modelBuilder = projectConnection.model(BuildEnvironment.class);
             setupLongRunningOP(setup, modelBuilder);
 
-            BuildEnvironment env = modelBuilder.get();
+            BuildEnvironment env;
+            try (PhaseMeasurement measurement = ModelLoadMetrics.getDefault()
+                    .startPhase(ModelLoadPhase.BUILD_ENVIRONMENT, project.getDisplayName())) {
+                env = modelBuilder.get();
+            }
             reportKnownIssues(env);
 
             GradleTarget gradleTarget = new GradleTarget(
@@ -529,7 +655,19 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
                     GradleVersion.version(env.getGradle().getGradleVersion()));
             NbModelLoader modelLoader = chooseModel(projectLoadKey.settingsGradleDef, gradleTarget, setup);
 
-            loadedModels = modelLoader.loadModels(project, projectConnection, progress);
+            List<NbGradleProject> structureProjects = Collections.emptyList();
+            if (cachedEntry == null && hasUnloadedStagedExtension(project)) {
+                structureProjects = loadStructureModels(modelLoader, projectConnection, progress);
+                progress.progress(NbStrings.getResolvingDependencies());
+            }
+
+            try {
+                loadedModels = modelLoader.loadModels(project, projectConnection, progress);
+            } catch (Throwable ex) {
+                // The error is reported for the loaded project by the caller.
+                abandonStructureModels(structureProjects);
+                throw ex;
+            }
         } finally {
             if (projectConnection != null) {
                 projectConnection.close();
@@ -544,9 +682,106 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
         introduceProjects(loadedModels.getOtherModels(), result);
 
+        batch.markLoaded(result.getProjectDir());
+        for (NbGradleModel model: loadedModels.getOtherModels()) {
+            batch.markLoaded(model.getProjectDir());
+        }
+
+        return result;
+    }
+
+    private static boolean hasUnloadedStagedExtension(NbGradleProject project) {
+        NbGradleModel currentModel = project.currentModel().getValue();
+        for (NbGradleExtensionRef extension: project.getExtensions().getExtensionRefs()) {
+            if (extension.getModelNeeds().tryGetStructureQuery() != null
+                    && !currentModel.hasModelOfExtension(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<NbGradleProject> loadStructureModels(
+            NbModelLoader modelLoader,
+            ProjectConnection projectConnection,
+            ProgressHandle progress) {
+
+        NbModelLoader.Result structureModels;
+        try {
+            structureModels = modelLoader.tryLoadStructureModels(project, projectConnection, progress);
+        } catch (IOException | GradleConnectionException | GradleModelLoadError ex) {
+            // The complete model will be loaded anyway, which will report the
+            // problem if there is really something wrong.
+            LOGGER.log(Level.INFO, "Failed to load the project structure of " + project.getProjectDirectoryAsFile(), ex);
+            return Collections.emptyList();
+        }
+
+        if (structureModels == null) {
+            return Collections.emptyList();
+        }
+
+        List<NbGradleProject> result = new ArrayList<>();
+        for (NbGradleModel model: structureModels.getOtherModels()) {
+            introduceStructureModel(model, result);
+        }
+        introduceStructureModel(structureModels.getMainModel(), result);
         return result;
     }
 
+    /**
+     * Sets the partially loaded model for the project if it is open and has
+     * not yet been loaded. The partial models are never cached because they
+     * are replaced by the complete models as soon as they are loaded.
+     */
+    private void introduceStructureModel(NbGradleModel model, List<NbGradleProject> introducedProjects) {
+        NbGradleProject ownerProject = loadedProjectManager.tryGetLoadedProject(model.getProjectDir());
+        if (ownerProject == null || !hasUnloadedStagedExtension(ownerProject)) {
+            return;
+        }
+
+        NbGradleModel currentModel = ownerProject.currentModel().getValue();
+        ownerProject.tryReplaceModel(currentModel.updateEntry(model));
+        introducedProjects.add(ownerProject);
+    }
+
+    /**
+     * Replaces the partially loaded models of the given projects, so that
+     * they no longer claim that their dependencies are being resolved.
+     */
+    private static void abandonStructureModels(List<NbGradleProject> structureProjects) {
+        for (NbGradleProject structureProject: structureProjects) {
+            try {
+                abandonStructureModel(structureProject);
+            } catch (Throwable ex) {
+                LOGGER.log(Level.SEVERE, "Failed to abandon the structure model of " + structureProject.getProjectDirectoryAsFile(), ex);
+            }
+        }
+    }
+
+    private static void abandonStructureModel(NbGradleProject structureProject) {
+        NbGradleModel currentModel = structureProject.currentModel().getValue();
+
+        NbGradleModel.Builder result = new NbGradleModel.Builder(currentModel);
+        result.setRootWithoutSettingsGradle(currentModel.isRootWithoutSettingsGradle());
+
+        boolean changed = false;
+        for (NbGradleExtensionRef extension: structureProject.getExtensions().getExtensionRefs()) {
+            StructureModelDefQuery structureQuery = extension.getModelNeeds().tryGetStructureQuery();
+            Object extensionModel = currentModel.getModelOfExtension(extension);
+            if (structureQuery != null && extensionModel != null) {
+                Object abandonedModel = structureQuery.getAbandonedStructureModel(extensionModel);
+                if (abandonedModel != extensionModel) {
+                    result.setModelForExtension(extension, abandonedModel);
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed) {
+            structureProject.tryReplaceModel(result.create());
+        }
+    }
+
     private static void reportKnownIssues(BuildEnvironment env) {
         GradleVersion version = GradleVersion.version(env.getGradle().getGradleVersion());
         if (GradleVersions.VERSION_1_7.compareTo(version) < 0
@@ -616,7 +851,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
         private final NbGradleProject project;
 
-        private TaskExecutor projectLoader;
+        private ProjectLoadCoordinator loadCoordinator;
         private MonitorableTaskExecutorService modelLoadNotifier;
         private LoadedProjectManager loadedProjectManager;
         private PersistentModelCache<NbGradleModel> persistentCache;
@@ -625,7 +860,7 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
         public Builder(NbGradleProject project) {
             this.project = Objects.requireNonNull(project, "project");
-            this.projectLoader = DEFAULT_PROJECT_LOADER;
+            this.loadCoordinator = DEFAULT_LOAD_COORDINATOR;
             this.modelLoadNotifier = DEFAULT_MODEL_LOAD_NOTIFIER;
             this.loadedProjectManager = LoadedProjectManager.getDefault();
             this.persistentCache = new MultiFileModelCache<>(defaultModelPersister(project), (NbGradleModel model) -> {
@@ -644,7 +879,12 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
         }
 
         public void setProjectLoader(TaskExecutor projectLoader) {
-            this.projectLoader = Objects.requireNonNull(projectLoader, "projectLoader");
+            Objects.requireNonNull(projectLoader, "projectLoader");
+            this.loadCoordinator = newLoadCoordinator(projectLoader);
+        }
+
+        public void setLoadCoordinator(ProjectLoadCoordinator loadCoordinator) {
+            this.loadCoordinator = Objects.requireNonNull(loadCoordinator, "loadCoordinator");
         }
 
         public void setModelLoadNotifier(MonitorableTaskExecutorService modelLoadNotifier) {
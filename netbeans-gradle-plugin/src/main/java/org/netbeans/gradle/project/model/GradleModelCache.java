@@ -2,22 +2,39 @@ package org.netbeans.gradle.project.model;
 
 import java.io.File;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim2.event.CopyOnTriggerListenerManager;
 import org.jtrim2.event.EventDispatcher;
 import org.jtrim2.event.ListenerManager;
 import org.jtrim2.event.ListenerRef;
-import org.netbeans.gradle.model.util.CollectionUtils;
+import org.netbeans.gradle.project.util.MemoryMonitor;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 
+/**
+ * Stores the most recently used models of projects in memory.
+ * <P>
+ * Models removed from the cache (either because the cache is full or because
+ * the heap is getting low) are remembered as spilled, so that they can be
+ * {@link #restoreEntry(NbGradleModel) restored} from the persistent cache
+ * instead of being reloaded from the build scripts.
+ */
 public final class GradleModelCache {
+    private static final int MAX_SPILLED_KEY_COUNT = 1024;
+    private static final int MIN_RETAINED_ENTRY_COUNT = 2;
+    private static final long DEFAULT_MIN_SHED_INTERVAL_MS = 5000;
+
     private final ReentrantLock cacheLock;
     private final Map<CacheKey, NbGradleModel> cache;
+    private final Map<CacheKey, Boolean> spilledKeys;
     private final AtomicInteger maxCapacity;
+    private volatile double heapBudget;
     private final ListenerManager<ProjectModelUpdatedListener> updateListeners;
 
     public GradleModelCache(int maxCapacity) {
@@ -27,8 +44,17 @@ public final class GradleModelCache {
 
         this.cacheLock = new ReentrantLock();
         this.maxCapacity = new AtomicInteger(maxCapacity);
+        this.heapBudget = 1.0;
+
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.spilledKeys = new LinkedHashMap<CacheKey, Boolean>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
 
-        this.cache = CollectionUtils.newLinkedHashMap(maxCapacity);
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Boolean> eldest) {
+                return size() > MAX_SPILLED_KEY_COUNT;
+            }
+        };
         this.updateListeners = new CopyOnTriggerListenerManager<>();
     }
 
@@ -41,13 +67,104 @@ public final class GradleModelCache {
             return;
         }
 
-        Iterator<?> itr = cache.entrySet().iterator();
-        while (cache.size() > currentMaxCapacity && itr.hasNext()) {
-            itr.next();
+        spillEntriesUnsafe(cache.size() - currentMaxCapacity);
+    }
+
+    private void spillEntriesUnsafe(int count) {
+        assert cacheLock.isHeldByCurrentThread();
+
+        Iterator<CacheKey> itr = cache.keySet().iterator();
+        for (int i = 0; i < count && itr.hasNext(); i++) {
+            spilledKeys.put(itr.next(), Boolean.TRUE);
             itr.remove();
         }
     }
 
+    /**
+     * Removes the least recently used quarter of the models from this cache
+     * but always keeps a few of the most recently used ones. The removed
+     * models are marked as {@link #isSpilled(File, File) spilled}.
+     */
+    public void shedLeastRecentlyUsed() {
+        cacheLock.lock();
+        try {
+            int removableCount = cache.size() - MIN_RETAINED_ENTRY_COUNT;
+            if (removableCount > 0) {
+                spillEntriesUnsafe(Math.max(1, removableCount / 4));
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the ratio of the maximum heap size which might remain in use after
+     * garbage collections before this cache starts
+     * {@link #shedOnLowMemory(MemoryMonitor) shedding} models.
+     *
+     * @param heapBudget the ratio of the maximum heap size which might remain
+     *   in use after garbage collections. This value must be greater than zero
+     *   and at most one. Note that this is a ratio of the whole heap (used by
+     *   everything in the JVM), not of the memory retained by this cache.
+     */
+    public void setHeapBudget(double heapBudget) {
+        if (!(heapBudget > 0.0 && heapBudget <= 1.0)) {
+            throw new IllegalArgumentException("Illegal heap budget: " + heapBudget);
+        }
+        this.heapBudget = heapBudget;
+    }
+
+    /**
+     * Starts {@link #shedLeastRecentlyUsed() shedding} models from this cache
+     * after garbage collections, as long as the heap remaining in use exceeds
+     * the {@link #setHeapBudget(double) heap budget} of this cache. That is,
+     * shedding stops once enough memory was reclaimed to get below the budget.
+     * Models are shed at most once in every five seconds.
+     *
+     * @param memoryMonitor the monitor reporting the usage of the heap. This
+     *   argument cannot be {@code null}.
+     * @return the reference which can be used to stop shedding models on low
+     *   memory. This method never returns {@code null}.
+     */
+    public ListenerRef shedOnLowMemory(MemoryMonitor memoryMonitor) {
+        return shedOnLowMemory(memoryMonitor, DEFAULT_MIN_SHED_INTERVAL_MS);
+    }
+
+    /**
+     * Starts shedding models from this cache like
+     * {@link #shedOnLowMemory(MemoryMonitor)} but with the given minimum time
+     * between sheddings. Shed models are only reclaimed by later collections,
+     * so shedding again right after the previous shedding would drop models
+     * based on a heap usage which did not yet account for the previous one.
+     *
+     * @param memoryMonitor the monitor reporting the usage of the heap. This
+     *   argument cannot be {@code null}.
+     * @param minShedIntervalMs the minimum time in milliseconds between two
+     *   sheddings. This argument must be non-negative.
+     * @return the reference which can be used to stop shedding models on low
+     *   memory. This method never returns {@code null}.
+     */
+    public ListenerRef shedOnLowMemory(MemoryMonitor memoryMonitor, long minShedIntervalMs) {
+        Objects.requireNonNull(memoryMonitor, "memoryMonitor");
+        if (minShedIntervalMs < 0) {
+            throw new IllegalArgumentException("Illegal minShedIntervalMs: " + minShedIntervalMs);
+        }
+
+        long minShedIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minShedIntervalMs);
+        AtomicLong lastShedNanosRef = new AtomicLong(System.nanoTime() - minShedIntervalNanos);
+        return memoryMonitor.addCollectionListener(() -> {
+            if (memoryMonitor.getUsedHeapRatio() <= heapBudget) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            long lastShedNanos = lastShedNanosRef.get();
+            if (now - lastShedNanos >= minShedIntervalNanos && lastShedNanosRef.compareAndSet(lastShedNanos, now)) {
+                shedLeastRecentlyUsed();
+            }
+        });
+    }
+
     private void cleanupCache() {
         cacheLock.lock();
         try {
@@ -120,6 +237,7 @@ public final class GradleModelCache {
         NbGradleModel prevModel;
         cacheLock.lock();
         try {
+            spilledKeys.remove(key);
             prevModel = cache.get(key);
             if (prevModel == null) {
                 cache.put(key, newModel);
@@ -148,6 +266,7 @@ public final class GradleModelCache {
         NbGradleModel prevModel;
         cacheLock.lock();
         try {
+            spilledKeys.remove(key);
             prevModel = cache.put(key, model);
             cleanupCacheUnsafe();
         } finally {
@@ -159,6 +278,48 @@ public final class GradleModelCache {
         }
     }
 
+    /**
+     * Adds a model which was previously removed from this cache unless a model
+     * was added for the same project since then.
+     *
+     * @param model the model read from the persistent cache. This argument
+     *   cannot be {@code null}.
+     * @return the model stored in this cache for the project of the given
+     *   model. This method returns {@code null} only if the given model
+     *   cannot be stored in this cache.
+     */
+    public NbGradleModel restoreEntry(NbGradleModel model) {
+        CacheKey key = tryCreateKey(model);
+        if (key == null) {
+            return null;
+        }
+
+        cacheLock.lock();
+        try {
+            NbGradleModel currentModel = cache.get(key);
+            if (currentModel != null) {
+                return currentModel;
+            }
+
+            spilledKeys.remove(key);
+            cache.put(key, model);
+            cleanupCacheUnsafe();
+            return model;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    public boolean isSpilled(File projectDir, File settingsFile) {
+        CacheKey key = new CacheKey(projectDir, settingsFile);
+        cacheLock.lock();
+        try {
+            return spilledKeys.containsKey(key);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
     public NbGradleModel tryGet(File projectDir, File settingsFile) {
         CacheKey key = new CacheKey(projectDir, settingsFile);
         cacheLock.lock();
@@ -18,6 +18,15 @@ public final class ModelLoadUtils {
     }
 
     public static Path findSettingsGradle(Path projectDir, ScriptFileProvider scriptProvider) {
+        SettingsGradleCache cache = SettingsGradleCache.getDefault();
+        if (cache.getScriptProvider() == scriptProvider) {
+            return cache.findSettingsGradle(projectDir);
+        }
+
+        return findSettingsGradleUncached(projectDir, scriptProvider);
+    }
+
+    private static Path findSettingsGradleUncached(Path projectDir, ScriptFileProvider scriptProvider) {
         Path settingsGradle = scriptProvider.findScriptFile(projectDir, CommonScripts.SETTINGS_BASE_NAME);
         if (settingsGradle != null) {
             return settingsGradle;
@@ -25,7 +34,7 @@ public final class ModelLoadUtils {
 
         Path parentDir = projectDir.getParent();
         if (parentDir != null) {
-            return findSettingsGradle(parentDir, scriptProvider);
+            return findSettingsGradleUncached(parentDir, scriptProvider);
         }
         else {
             return null;
@@ -1,8 +1,22 @@
 package org.netbeans.gradle.project.model;
 
 public interface ModelLoader<M> {
+    /**
+     * Fetches the model of the project and notifies the given listener.
+     *
+     * @param mayFetchFromCache {@code true} if a cached model is acceptable,
+     *   {@code false} if the model must be reloaded
+     * @param background {@code true} if the model is not needed urgently
+     *   (e.g., the reload was not requested by the user), so it can be
+     *   loaded after the other pending loads
+     * @param listener the listener to be notified of the fetched model.
+     *   This argument cannot be {@code null}.
+     * @param aboutToCompleteListener the listener to be notified when fetching
+     *   the model is about to complete. This argument cannot be {@code null}.
+     */
     public void fetchModel(
             boolean mayFetchFromCache,
+            boolean background,
             ModelRetrievedListener<? super M> listener,
             Runnable aboutToCompleteListener);
 }
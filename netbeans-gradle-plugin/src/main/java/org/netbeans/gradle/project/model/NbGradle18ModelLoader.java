@@ -21,6 +21,7 @@ import org.netbeans.gradle.model.GenericModelFetcher;
 import org.netbeans.gradle.model.GenericProjectProperties;
 import org.netbeans.gradle.model.GradleBuildInfoQuery;
 import org.netbeans.gradle.model.OperationInitializer;
+import org.netbeans.gradle.model.TaskListingMode;
 import org.netbeans.gradle.model.api.GradleProjectInfoQuery2;
 import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.model.util.MultiMapUtils;
@@ -31,9 +32,14 @@ import org.netbeans.gradle.project.api.entry.ParsedModel;
 import org.netbeans.gradle.project.api.modelquery.GradleModelDef;
 import org.netbeans.gradle.project.api.modelquery.GradleModelDefQuery2;
 import org.netbeans.gradle.project.api.modelquery.GradleTarget;
+import org.netbeans.gradle.project.extensions.ModelNeeds;
 import org.netbeans.gradle.project.extensions.NbGradleExtensionRef;
+import org.netbeans.gradle.project.extensions.StructureModelDefQuery;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssue;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssues;
+import org.netbeans.gradle.project.model.metrics.ModelLoadMetrics;
+import org.netbeans.gradle.project.model.metrics.ModelLoadPhase;
+import org.netbeans.gradle.project.model.metrics.PhaseMeasurement;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.Lookups;
 
@@ -60,8 +66,48 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             ProjectConnection connection,
             ProgressHandle progress) throws IOException, GradleModelLoadError {
 
-        ProjectModelFetcher modelFetcher = new ProjectModelFetcher(project, gradleTarget, settingsGradleDef);
-        FetchedModelsOrError fetchedModelsOrError = modelFetcher.getModels(connection, setup);
+        List<NbGradleExtensionRef> extensions = project.getExtensions().getExtensionRefs();
+        return loadModels(project, connection, progress, extensions, false);
+    }
+
+    @Override
+    public Result tryLoadStructureModels(
+            NbGradleProject project,
+            ProjectConnection connection,
+            ProgressHandle progress) throws IOException, GradleModelLoadError {
+
+        List<NbGradleExtensionRef> extensions = getStagedExtensions(project);
+        if (extensions.isEmpty()) {
+            return null;
+        }
+        return loadModels(project, connection, progress, extensions, true);
+    }
+
+    private static List<NbGradleExtensionRef> getStagedExtensions(NbGradleProject project) {
+        List<NbGradleExtensionRef> result = new ArrayList<>();
+        for (NbGradleExtensionRef extension: project.getExtensions().getExtensionRefs()) {
+            if (extension.getModelNeeds().tryGetStructureQuery() != null) {
+                result.add(extension);
+            }
+        }
+        return result;
+    }
+
+    private Result loadModels(
+            NbGradleProject project,
+            ProjectConnection connection,
+            ProgressHandle progress,
+            List<NbGradleExtensionRef> extensions,
+            boolean structureOnly) throws IOException, GradleModelLoadError {
+
+        ModelLoadMetrics metrics = ModelLoadMetrics.getDefault();
+
+        ProjectModelFetcher modelFetcher = new ProjectModelFetcher(
+                project, extensions, structureOnly, gradleTarget, settingsGradleDef);
+        FetchedModelsOrError fetchedModelsOrError;
+        try (PhaseMeasurement measurement = metrics.startPhase(ModelLoadPhase.BUILD_ACTION, project.getDisplayName())) {
+            fetchedModelsOrError = modelFetcher.getModels(connection, setup);
+        }
         FetchedModels fetchedModels = fetchedModelsOrError.getModels();
         if (fetchedModels == null) {
             throw new GradleModelLoadError(
@@ -72,8 +118,10 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
 
         progress.progress(NbStrings.getParsingModel());
 
-        ProjectModelParser parser = new ProjectModelParser(gradleTarget, project, settingsGradleDef, modelFetcher);
-        return parser.parseModel(fetchedModels);
+        ProjectModelParser parser = new ProjectModelParser(gradleTarget, project, extensions, settingsGradleDef, modelFetcher);
+        try (PhaseMeasurement measurement = metrics.startPhase(ModelLoadPhase.DESERIALIZATION, project.getDisplayName())) {
+            return parser.parseModel(fetchedModels);
+        }
     }
 
     private static File getProjectDirFromModels(FetchedProjectModels projectModels) {
@@ -97,13 +145,14 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
         public ProjectModelParser(
                 GradleTarget gradleTarget,
                 NbGradleProject mainProject,
+                List<NbGradleExtensionRef> extensions,
                 SettingsGradleDef settingsGradleDef,
                 ProjectModelFetcher modelFetcher) {
 
             this.gradleTarget = gradleTarget;
             this.mainProject = mainProject;
             this.settingsGradleDef = settingsGradleDef;
-            this.extensions = mainProject.getExtensions().getExtensionRefs();
+            this.extensions = extensions;
             this.modelFetcher = modelFetcher;
             this.cache = new ExtensionModelCache();
             this.issues = new ArrayList<>();
@@ -341,6 +390,8 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
 
         public ProjectModelFetcher(
                 NbGradleProject project,
+                List<NbGradleExtensionRef> extensions,
+                boolean structureOnly,
                 GradleTarget gradleTarget,
                 SettingsGradleDef settingsGradleDef) {
             this.settingsFile = ModelLoadUtils.getSettingsGradleForProject(
@@ -348,7 +399,6 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
                     project.getProjectDirectoryAsPath(),
                     project.getScriptFileProvider());
 
-            List<NbGradleExtensionRef> extensions = project.getExtensions().getExtensionRefs();
             this.toolingModelNeeds = CollectionUtils.newHashMap(extensions.size());
 
             Map<Object, List<GradleBuildInfoQuery<?>>> buildInfoRequests = Collections.emptyMap();
@@ -360,15 +410,32 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             for (NbGradleExtensionRef extensionRef: extensions) {
                 String extensionName = extensionRef.getName();
 
-                GradleModelDefQuery2 modelQuery = extensionRef.getModelNeeds().getQuery2();
-                GradleModelDef modelDef = modelQuery.getModelDef(gradleTarget);
+                GradleModelDef modelDef = getModelDef(extensionRef, structureOnly, gradleTarget);
 
                 models.addAll(modelDef.getToolingModels());
                 MultiMapUtils.addAllToMultiMap(extensionName, modelDef.getProjectInfoQueries2(), projectInfoRequests);
                 MultiMapUtils.addAllToMultiMap(extensionName, modelDef.getToolingModels(), toolingModelNeeds);
             }
 
-            modelFetcher = new GenericModelFetcher(buildInfoRequests, projectInfoRequests, models);
+            TaskListingMode taskListingMode = project.getCommonProperties().taskListingMode().getActiveValue();
+            modelFetcher = new GenericModelFetcher(buildInfoRequests, projectInfoRequests, models, taskListingMode);
+        }
+
+        private static GradleModelDef getModelDef(
+                NbGradleExtensionRef extensionRef,
+                boolean structureOnly,
+                GradleTarget gradleTarget) {
+
+            ModelNeeds modelNeeds = extensionRef.getModelNeeds();
+            if (structureOnly) {
+                StructureModelDefQuery structureQuery = modelNeeds.tryGetStructureQuery();
+                if (structureQuery != null) {
+                    return structureQuery.getStructureModelDef(gradleTarget);
+                }
+            }
+
+            GradleModelDefQuery2 modelQuery = modelNeeds.getQuery2();
+            return modelQuery.getModelDef(gradleTarget);
         }
 
         public FetchedModelsOrError getModels(ProjectConnection connection, OperationInitializer init) throws IOException {
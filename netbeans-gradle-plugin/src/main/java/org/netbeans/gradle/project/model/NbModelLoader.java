@@ -47,4 +47,18 @@ public interface NbModelLoader {
             NbGradleProject project,
             ProjectConnection connection,
             ProgressHandle progress) throws IOException, GradleModelLoadError;
+
+    /**
+     * Loads the models of the extensions which can be loaded without resolving
+     * dependencies. The returned models only contain the models of these
+     * extensions and must not be cached, they are to be replaced by the
+     * models returned by {@link #loadModels(NbGradleProject, ProjectConnection, ProgressHandle) loadModels}.
+     *
+     * @return the partial models or {@code null} if there is no extension
+     *   which can be loaded in stages
+     */
+    public Result tryLoadStructureModels(
+            NbGradleProject project,
+            ProjectConnection connection,
+            ProgressHandle progress) throws IOException, GradleModelLoadError;
 }
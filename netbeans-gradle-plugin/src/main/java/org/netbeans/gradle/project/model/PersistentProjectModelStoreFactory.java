@@ -5,6 +5,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
 import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.model.metrics.ModelLoadMetrics;
+import org.netbeans.gradle.project.model.metrics.ModelLoadPhase;
+import org.netbeans.gradle.project.model.metrics.PhaseMeasurement;
 import org.netbeans.gradle.project.util.SerializationUtils2;
 
 public final class PersistentProjectModelStoreFactory {
@@ -29,8 +32,12 @@ public final class PersistentProjectModelStoreFactory {
                 Files.createDirectories(destDir);
             }
 
-            SerializedNbGradleModels toSave = SerializedNbGradleModels.createSerialized(model);
-            SerializationUtils2.serializeToFile(dest, toSave);
+            ModelLoadMetrics metrics = ModelLoadMetrics.getDefault();
+            try (PhaseMeasurement measurement = metrics.startPhase(ModelLoadPhase.CACHE_PERSISTENCE, dest.toString())) {
+                SerializedNbGradleModels toSave = SerializedNbGradleModels.createSerialized(model);
+                SerializationUtils2.serializeToFile(dest, toSave);
+            }
+            metrics.recordSerializedBytes(Files.size(dest));
         }
     }
 
@@ -52,11 +59,14 @@ public final class PersistentProjectModelStoreFactory {
                 return null;
             }
 
-            SerializedNbGradleModels serializedModel
-                    = (SerializedNbGradleModels)SerializationUtils2.deserializeFile(src);
-            return serializedModel != null
-                    ? serializedModel.deserializeModel(ownerProject)
-                    : null;
+            try (PhaseMeasurement measurement = ModelLoadMetrics.getDefault()
+                    .startPhase(ModelLoadPhase.DESERIALIZATION, src.toString())) {
+                SerializedNbGradleModels serializedModel
+                        = (SerializedNbGradleModels)SerializationUtils2.deserializeFile(src);
+                return serializedModel != null
+                        ? serializedModel.deserializeModel(ownerProject)
+                        : null;
+            }
         }
     }
 }
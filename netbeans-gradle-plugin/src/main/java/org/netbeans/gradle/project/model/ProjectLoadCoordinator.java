@@ -0,0 +1,505 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.concurrent.AsyncTasks;
+import org.jtrim2.executor.UpdateTaskExecutor;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.gradle.project.api.task.CommandCompleteListener;
+import org.netbeans.gradle.project.model.metrics.ModelLoadMetrics;
+import org.netbeans.gradle.project.model.metrics.ModelLoadPhase;
+import org.netbeans.gradle.project.model.metrics.PhaseMeasurement;
+import org.netbeans.gradle.project.tasks.DaemonTask;
+
+/**
+ * Groups the requests to load projects by the root project of their build.
+ * The pending requests of the same build are executed one after another in a
+ * single batch, so that only the first request has to run a build action and
+ * the rest can reuse the models loaded by it (see {@link LoadBatch}). Batches of
+ * different builds are executed concurrently, up to a configurable limit.
+ * <P>
+ * Requests can be submitted in the background (e.g., reloads not requested by
+ * the user). Builds having only background requests are only started when no
+ * other build is waiting to be started.
+ * <P>
+ * Canceling a batch only cancels the request being executed (or the first
+ * request if the batch was canceled before it started). The requests which
+ * did not run yet are executed in a new batch.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+public final class ProjectLoadCoordinator {
+    private static final Logger LOGGER = Logger.getLogger(ProjectLoadCoordinator.class.getName());
+
+    private final BatchExecutor batchExecutor;
+    private final UpdateTaskExecutor dispatcher;
+    private final IntSupplier maxConcurrentBatchCount;
+    private final ModelLoadMetrics metrics;
+
+    private final ReentrantLock mainLock;
+    private final List<LoadRequest> incomingRequests;
+    private final Map<Object, BuildQueue> buildQueues;
+    private final Deque<BuildQueue> waitingBuilds;
+    private final Deque<BuildQueue> waitingBackgroundBuilds;
+    private int runningBatchCount;
+    private PhaseMeasurement pendingLoadsMeasurement;
+
+    /**
+     * Creates a new coordinator.
+     *
+     * @param batchExecutor the executor running the batches of load requests.
+     *   This argument cannot be {@code null}.
+     * @param dispatcher the executor grouping the submitted requests. This
+     *   executor must not run tasks synchronously in the calling thread,
+     *   unless the root directories of the requests are cheap to compute.
+     *   This argument cannot be {@code null}.
+     * @param maxConcurrentBatchCount the maximum number of batches allowed to
+     *   run concurrently. This value is queried each time a new batch might be
+     *   started and values less than one are treated as one. This argument
+     *   cannot be {@code null}.
+     * @param metrics the metrics to record the time needed to complete all
+     *   the pending requests. This argument cannot be {@code null}.
+     */
+    public ProjectLoadCoordinator(
+            BatchExecutor batchExecutor,
+            UpdateTaskExecutor dispatcher,
+            IntSupplier maxConcurrentBatchCount,
+            ModelLoadMetrics metrics) {
+        this.batchExecutor = Objects.requireNonNull(batchExecutor, "batchExecutor");
+        this.dispatcher = Objects.requireNonNull(dispatcher, "dispatcher");
+        this.maxConcurrentBatchCount = Objects.requireNonNull(maxConcurrentBatchCount, "maxConcurrentBatchCount");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+
+        this.mainLock = new ReentrantLock();
+        this.incomingRequests = new ArrayList<>();
+        this.buildQueues = new HashMap<>();
+        this.waitingBuilds = new ArrayDeque<>();
+        this.waitingBackgroundBuilds = new ArrayDeque<>();
+        this.runningBatchCount = 0;
+        this.pendingLoadsMeasurement = null;
+    }
+
+    /**
+     * Submits a request to load a project. The given task is executed in the
+     * batch of the build of the project, with the cancellation token and the
+     * progress handle of the batch. If the batch is canceled while the task
+     * is running, the task is considered to be canceled.
+     *
+     * @param caption the caption of the progress shown if the batch starts
+     *   with this request. This argument cannot be {@code null}.
+     * @param rootDirProvider the provider of the root project directory of
+     *   the build actually loaded by the task (which is not necessarily the
+     *   root project configured for the project). The provider is called in
+     *   the dispatcher thread and if it returns {@code null} (or fails), the
+     *   request is executed in a batch of its own. This argument cannot be
+     *   {@code null}.
+     * @param task the task loading the project. This argument cannot be
+     *   {@code null}.
+     * @param listener the listener to be notified after the task completed,
+     *   unless the task was canceled. This argument cannot be {@code null}.
+     */
+    public void submit(
+            String caption,
+            Supplier<? extends Path> rootDirProvider,
+            DaemonTask task,
+            CommandCompleteListener listener) {
+        Objects.requireNonNull(task, "task");
+        submit(caption, rootDirProvider, false, (batch, cancelToken, progress) -> task.run(cancelToken, progress), listener);
+    }
+
+    /**
+     * Submits a request to load a project. This method is the same as the
+     * {@link #submit(String, Supplier, DaemonTask, CommandCompleteListener) other submit method},
+     * except that the task also receives the {@link LoadBatch} it is executed in
+     * and that the request might be submitted in the background.
+     *
+     * @param caption the caption of the progress shown if the batch starts
+     *   with this request. This argument cannot be {@code null}.
+     * @param rootDirProvider the provider of the root project directory of
+     *   the build actually loaded by the task. This argument cannot be
+     *   {@code null}.
+     * @param background {@code true} if the batch of this request should
+     *   only be started after the batches of the builds with requests not
+     *   submitted in the background, {@code false} otherwise
+     * @param task the task loading the project. This argument cannot be
+     *   {@code null}.
+     * @param listener the listener to be notified after the task completed,
+     *   unless the task was canceled. This argument cannot be {@code null}.
+     */
+    public void submit(
+            String caption,
+            Supplier<? extends Path> rootDirProvider,
+            boolean background,
+            LoadTask task,
+            CommandCompleteListener listener) {
+
+        LoadRequest request = new LoadRequest(caption, rootDirProvider, background, task, listener);
+
+        mainLock.lock();
+        try {
+            if (isIdleUnsafe()) {
+                pendingLoadsMeasurement = metrics.startPhase(ModelLoadPhase.PENDING_LOADS, caption);
+            }
+            incomingRequests.add(request);
+        } finally {
+            mainLock.unlock();
+        }
+
+        dispatcher.execute(this::dispatchIncomingRequests);
+    }
+
+    private boolean isIdleUnsafe() {
+        assert mainLock.isHeldByCurrentThread();
+        return incomingRequests.isEmpty() && buildQueues.isEmpty();
+    }
+
+    private void dispatchIncomingRequests() {
+        List<LoadRequest> requests;
+        mainLock.lock();
+        try {
+            requests = new ArrayList<>(incomingRequests);
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        List<Object> buildKeys = new ArrayList<>(requests.size());
+        for (LoadRequest request: requests) {
+            buildKeys.add(getBuildKey(request));
+        }
+
+        List<BuildQueue> toStart;
+        mainLock.lock();
+        try {
+            // Removing them only now, so that we are not considered idle meanwhile.
+            incomingRequests.subList(0, requests.size()).clear();
+
+            for (int i = 0; i < requests.size(); i++) {
+                Object buildKey = buildKeys.get(i);
+                BuildQueue buildQueue = buildQueues.computeIfAbsent(buildKey, BuildQueue::new);
+                boolean wasBackground = buildQueue.isBackground();
+                buildQueue.addRequest(requests.get(i));
+                if (!buildQueue.running && !buildQueue.waiting) {
+                    addWaitingBuildUnsafe(buildQueue);
+                }
+                else if (buildQueue.waiting && wasBackground && !buildQueue.isBackground()) {
+                    waitingBackgroundBuilds.remove(buildQueue);
+                    waitingBuilds.add(buildQueue);
+                }
+            }
+
+            toStart = pollStartableBuildsUnsafe();
+        } finally {
+            mainLock.unlock();
+        }
+
+        startBatches(toStart);
+    }
+
+    private static Object getBuildKey(LoadRequest request) {
+        Path rootDir = null;
+        try {
+            rootDir = request.rootDirProvider.get();
+        } catch (Throwable ex) {
+            LOGGER.log(Level.INFO, "Failed to determine the root project of: " + request.caption, ex);
+        }
+
+        return rootDir != null ? rootDir : new Object();
+    }
+
+    private void addWaitingBuildUnsafe(BuildQueue buildQueue) {
+        assert mainLock.isHeldByCurrentThread();
+
+        buildQueue.waiting = true;
+        if (buildQueue.isBackground()) {
+            waitingBackgroundBuilds.add(buildQueue);
+        }
+        else {
+            waitingBuilds.add(buildQueue);
+        }
+    }
+
+    private BuildQueue pollWaitingBuildUnsafe() {
+        assert mainLock.isHeldByCurrentThread();
+
+        BuildQueue result = waitingBuilds.poll();
+        return result != null ? result : waitingBackgroundBuilds.poll();
+    }
+
+    private List<BuildQueue> pollStartableBuildsUnsafe() {
+        assert mainLock.isHeldByCurrentThread();
+
+        int maxCount = Math.max(1, maxConcurrentBatchCount.getAsInt());
+
+        List<BuildQueue> result = new ArrayList<>();
+        while (runningBatchCount < maxCount) {
+            BuildQueue buildQueue = pollWaitingBuildUnsafe();
+            if (buildQueue == null) {
+                break;
+            }
+            buildQueue.waiting = false;
+            buildQueue.running = true;
+            runningBatchCount++;
+            result.add(buildQueue);
+        }
+        return result;
+    }
+
+    private void startBatches(List<BuildQueue> buildQueues) {
+        for (BuildQueue buildQueue: buildQueues) {
+            startBatch(buildQueue);
+        }
+    }
+
+    private void startBatch(BuildQueue buildQueue) {
+        String caption;
+        mainLock.lock();
+        try {
+            caption = buildQueue.pendingRequests.getFirst().caption;
+        } finally {
+            mainLock.unlock();
+        }
+
+        Batch batch = new Batch(buildQueue);
+        batchExecutor.execute(caption, batch::run, batch::cleanup);
+    }
+
+    private LoadRequest tryPollRequest(BuildQueue buildQueue) {
+        mainLock.lock();
+        try {
+            return buildQueue.pollRequest();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void onBatchCompleted(BuildQueue buildQueue, boolean started) {
+        List<BuildQueue> toStart;
+        PhaseMeasurement completedMeasurement = null;
+
+        mainLock.lock();
+        try {
+            if (!started) {
+                // The progress of the batch was shown with the caption of
+                // the first request, so the cancellation was meant for it.
+                LoadRequest canceledRequest = buildQueue.pollRequest();
+                if (canceledRequest != null) {
+                    LOGGER.log(Level.INFO, "Canceled task: {0}", canceledRequest.caption);
+                }
+            }
+
+            buildQueue.running = false;
+            runningBatchCount--;
+
+            if (buildQueue.pendingRequests.isEmpty()) {
+                buildQueues.remove(buildQueue.buildKey);
+            }
+            else {
+                // Requests submitted after the batch has found its queue empty
+                // or which were not executed because the batch was canceled.
+                addWaitingBuildUnsafe(buildQueue);
+            }
+
+            toStart = pollStartableBuildsUnsafe();
+
+            if (isIdleUnsafe()) {
+                completedMeasurement = pendingLoadsMeasurement;
+                pendingLoadsMeasurement = null;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (completedMeasurement != null) {
+            completedMeasurement.close();
+        }
+        startBatches(toStart);
+    }
+
+    private static void runRequest(
+            LoadBatch batch,
+            CancellationToken cancelToken,
+            ProgressHandle progress,
+            LoadRequest request) {
+
+        Throwable error = null;
+        try {
+            request.task.run(batch, cancelToken, progress);
+        } catch (Throwable ex) {
+            error = ex;
+        }
+
+        if (AsyncTasks.isCanceled(error)) {
+            LOGGER.log(Level.INFO, "Canceled task: {0}", request.caption);
+            return;
+        }
+
+        try {
+            request.listener.onComplete(error);
+        } catch (Throwable ex) {
+            LOGGER.log(Level.SEVERE, "Unexpected error in the completion listener of: " + request.caption, ex);
+        }
+    }
+
+    /**
+     * Defines the executor running the batches of load requests of a build.
+     */
+    public interface BatchExecutor {
+        /**
+         * Executes the given batch of load requests.
+         *
+         * @param caption the caption of the progress of the batch. This
+         *   argument cannot be {@code null}.
+         * @param batchTask the task executing the load requests. This argument
+         *   cannot be {@code null}.
+         * @param cleanupTask the task which must be run after the batch
+         *   completed or was canceled (even if it was never started). This
+         *   argument cannot be {@code null}.
+         */
+        public void execute(String caption, DaemonTask batchTask, Runnable cleanupTask);
+    }
+
+    /**
+     * Defines a task loading a project in a {@link LoadBatch batch}.
+     */
+    public interface LoadTask {
+        /**
+         * Loads the project.
+         *
+         * @param batch the batch the task is executed in. This argument
+         *   cannot be {@code null}.
+         * @param cancelToken the cancellation token of the batch. This
+         *   argument cannot be {@code null}.
+         * @param progress the progress handle of the batch
+         */
+        public void run(LoadBatch batch, CancellationToken cancelToken, ProgressHandle progress);
+    }
+
+    /**
+     * Records the projects loaded by the requests of a single batch. Since
+     * every project loaded in the batch was loaded after the later requests of
+     * the batch were submitted, these requests can reuse the loaded models
+     * even if they were submitted to reload their project.
+     * <P>
+     * Methods of this class can be called from multiple threads concurrently.
+     */
+    public static final class LoadBatch {
+        private final Set<File> loadedProjectDirs;
+
+        public LoadBatch() {
+            this.loadedProjectDirs = ConcurrentHashMap.newKeySet();
+        }
+
+        public void markLoaded(File projectDir) {
+            loadedProjectDirs.add(Objects.requireNonNull(projectDir, "projectDir"));
+        }
+
+        public boolean isLoaded(File projectDir) {
+            return loadedProjectDirs.contains(projectDir);
+        }
+    }
+
+    private final class Batch {
+        private final BuildQueue buildQueue;
+        private final LoadBatch loadBatch;
+        private volatile boolean started;
+
+        public Batch(BuildQueue buildQueue) {
+            this.buildQueue = buildQueue;
+            this.loadBatch = new LoadBatch();
+            this.started = false;
+        }
+
+        public void run(CancellationToken cancelToken, ProgressHandle progress) {
+            started = true;
+
+            LoadRequest request = tryPollRequest(buildQueue);
+            while (request != null) {
+                runRequest(loadBatch, cancelToken, progress, request);
+                if (cancelToken.isCanceled()) {
+                    // The remaining requests are executed in a new batch.
+                    return;
+                }
+                request = tryPollRequest(buildQueue);
+            }
+        }
+
+        public void cleanup() {
+            onBatchCompleted(buildQueue, started);
+        }
+    }
+
+    private static final class BuildQueue {
+        private final Object buildKey;
+        private final Deque<LoadRequest> pendingRequests;
+        private int pendingForegroundCount;
+        private boolean running;
+        private boolean waiting;
+
+        public BuildQueue(Object buildKey) {
+            this.buildKey = buildKey;
+            this.pendingRequests = new ArrayDeque<>();
+            this.pendingForegroundCount = 0;
+            this.running = false;
+            this.waiting = false;
+        }
+
+        public void addRequest(LoadRequest request) {
+            pendingRequests.add(request);
+            if (!request.background) {
+                pendingForegroundCount++;
+            }
+        }
+
+        public LoadRequest pollRequest() {
+            LoadRequest result = pendingRequests.poll();
+            if (result != null && !result.background) {
+                pendingForegroundCount--;
+            }
+            return result;
+        }
+
+        public boolean isBackground() {
+            return pendingForegroundCount == 0;
+        }
+    }
+
+    private static final class LoadRequest {
+        private final String caption;
+        private final Supplier<? extends Path> rootDirProvider;
+        private final boolean background;
+        private final LoadTask task;
+        private final CommandCompleteListener listener;
+
+        public LoadRequest(
+                String caption,
+                Supplier<? extends Path> rootDirProvider,
+                boolean background,
+                LoadTask task,
+                CommandCompleteListener listener) {
+            this.caption = Objects.requireNonNull(caption, "caption");
+            this.rootDirProvider = Objects.requireNonNull(rootDirProvider, "rootDirProvider");
+            this.background = background;
+            this.task = Objects.requireNonNull(task, "task");
+            this.listener = Objects.requireNonNull(listener, "listener");
+        }
+    }
+}
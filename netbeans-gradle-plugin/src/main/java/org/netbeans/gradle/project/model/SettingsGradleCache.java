@@ -0,0 +1,188 @@
+package org.netbeans.gradle.project.model;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim2.event.ListenerRef;
+import org.netbeans.gradle.project.NbGradleProjectFactory;
+import org.netbeans.gradle.project.script.CommonScripts;
+import org.netbeans.gradle.project.script.ScriptFileProvider;
+import org.netbeans.gradle.project.util.FileSystemWatcher;
+
+/**
+ * Remembers the settings script found for each directory, so that the parent
+ * directories of a project do not need to be searched again each time a project
+ * is opened or loaded.
+ * <P>
+ * Every directory visited by a search watches the settings script candidates
+ * it contains. Creating or deleting such a script forgets the results for the
+ * directory and all of its subdirectories. Other file system changes do not
+ * affect this cache.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+public final class SettingsGradleCache {
+    private final FileSystemWatcher fileSystemWatcher;
+    private final ScriptFileProvider scriptProvider;
+
+    private final Lock mainLock;
+    private final Map<Path, CachedDir> cachedDirs;
+    private long invalidationCount;
+
+    public SettingsGradleCache(FileSystemWatcher fileSystemWatcher, ScriptFileProvider scriptProvider) {
+        this.fileSystemWatcher = Objects.requireNonNull(fileSystemWatcher, "fileSystemWatcher");
+        this.scriptProvider = Objects.requireNonNull(scriptProvider, "scriptProvider");
+
+        this.mainLock = new ReentrantLock();
+        this.cachedDirs = new HashMap<>();
+        this.invalidationCount = 0;
+    }
+
+    public static SettingsGradleCache getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    public ScriptFileProvider getScriptProvider() {
+        return scriptProvider;
+    }
+
+    /**
+     * Returns the settings script of the given project directory or of its
+     * closest parent directory having one. Returns {@code null} if none of
+     * these directories contains a settings script.
+     */
+    public Path findSettingsGradle(Path projectDir) {
+        Objects.requireNonNull(projectDir, "projectDir");
+
+        long startInvalidationCount;
+        mainLock.lock();
+        try {
+            CachedDir cached = cachedDirs.get(projectDir);
+            if (cached != null) {
+                return cached.settingsFile;
+            }
+            startInvalidationCount = invalidationCount;
+        } finally {
+            mainLock.unlock();
+        }
+
+        Map<Path, List<ListenerRef>> visitedDirs = new HashMap<>();
+        Path result = null;
+
+        Path dir = projectDir;
+        while (dir != null) {
+            CachedDir cached = tryGetCachedDir(dir);
+            if (cached != null) {
+                result = cached.settingsFile;
+                break;
+            }
+
+            // Watch before checking the files, so that a script created
+            // concurrently cannot be missed.
+            visitedDirs.put(dir, watchSettingsScripts(dir));
+
+            Path settingsGradle = scriptProvider.findScriptFile(dir, CommonScripts.SETTINGS_BASE_NAME);
+            if (settingsGradle != null) {
+                result = settingsGradle;
+                break;
+            }
+
+            dir = dir.getParent();
+        }
+
+        List<ListenerRef> unusedRefs = new ArrayList<>();
+        mainLock.lock();
+        try {
+            if (invalidationCount == startInvalidationCount) {
+                for (Map.Entry<Path, List<ListenerRef>> entry: visitedDirs.entrySet()) {
+                    Path visitedDir = entry.getKey();
+                    if (cachedDirs.containsKey(visitedDir)) {
+                        unusedRefs.addAll(entry.getValue());
+                    }
+                    else {
+                        cachedDirs.put(visitedDir, new CachedDir(result, entry.getValue()));
+                    }
+                }
+            }
+            else {
+                // The result might already be outdated, so don't remember it.
+                for (List<ListenerRef> refs: visitedDirs.values()) {
+                    unusedRefs.addAll(refs);
+                }
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        unregisterAll(unusedRefs);
+        return result;
+    }
+
+    private CachedDir tryGetCachedDir(Path dir) {
+        mainLock.lock();
+        try {
+            return cachedDirs.get(dir);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private List<ListenerRef> watchSettingsScripts(Path dir) {
+        List<ListenerRef> result = new ArrayList<>();
+        Runnable invalidateTask = () -> invalidate(dir);
+        for (Path candidate: scriptProvider.getScriptFileCandidates(dir, CommonScripts.SETTINGS_BASE_NAME)) {
+            result.add(fileSystemWatcher.watchPath(candidate, invalidateTask));
+        }
+        return result;
+    }
+
+    private void invalidate(Path dir) {
+        List<ListenerRef> removedRefs = new ArrayList<>();
+        mainLock.lock();
+        try {
+            invalidationCount++;
+
+            Iterator<Map.Entry<Path, CachedDir>> itr = cachedDirs.entrySet().iterator();
+            while (itr.hasNext()) {
+                Map.Entry<Path, CachedDir> entry = itr.next();
+                if (entry.getKey().startsWith(dir)) {
+                    removedRefs.addAll(entry.getValue().watchRefs);
+                    itr.remove();
+                }
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        unregisterAll(removedRefs);
+    }
+
+    private static void unregisterAll(List<ListenerRef> refs) {
+        for (ListenerRef ref: refs) {
+            ref.unregister();
+        }
+    }
+
+    private static final class CachedDir {
+        private final Path settingsFile;
+        private final List<ListenerRef> watchRefs;
+
+        public CachedDir(Path settingsFile, List<ListenerRef> watchRefs) {
+            this.settingsFile = settingsFile;
+            this.watchRefs = Collections.unmodifiableList(watchRefs);
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final SettingsGradleCache DEFAULT = new SettingsGradleCache(
+                FileSystemWatcher.getDefault(),
+                NbGradleProjectFactory.DEFAULT_SCRIPT_FILE_PROVIDER);
+    }
+}
@@ -0,0 +1,114 @@
+package org.netbeans.gradle.project.model.metrics;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.netbeans.gradle.model.util.Exceptions;
+
+/**
+ * Creates Flight Recorder events for the model loading phases. The
+ * {@code jdk.jfr} API is only accessed through reflection, so that this
+ * class can be compiled and loaded on JDKs without Flight Recorder (e.g.,
+ * JDK 8 before 8u262).
+ */
+final class JfrPhaseEventFactory implements PhaseEventFactory {
+    private static final int PHASE_FIELD_INDEX = 0;
+    private static final int SUBJECT_FIELD_INDEX = 1;
+
+    private final Object eventFactory;
+    private final Method newEvent;
+    private final Method isEnabled;
+    private final Method begin;
+    private final Method end;
+    private final Method shouldCommit;
+    private final Method set;
+    private final Method commit;
+
+    private JfrPhaseEventFactory(Object eventFactory) throws ReflectiveOperationException {
+        this.eventFactory = Objects.requireNonNull(eventFactory, "eventFactory");
+        this.newEvent = eventFactory.getClass().getMethod("newEvent");
+
+        Class<?> eventType = Class.forName("jdk.jfr.Event");
+        this.isEnabled = eventType.getMethod("isEnabled");
+        this.begin = eventType.getMethod("begin");
+        this.end = eventType.getMethod("end");
+        this.shouldCommit = eventType.getMethod("shouldCommit");
+        this.set = eventType.getMethod("set", int.class, Object.class);
+        this.commit = eventType.getMethod("commit");
+    }
+
+    /**
+     * Defines the event type of the model loading phases.
+     *
+     * @throws ReflectiveOperationException thrown if the {@code jdk.jfr} API
+     *   is not available
+     */
+    public static JfrPhaseEventFactory create() throws ReflectiveOperationException {
+        Class<?> annotationElementType = Class.forName("jdk.jfr.AnnotationElement");
+        Constructor<?> annotationElementFactory = annotationElementType.getConstructor(Class.class, Object.class);
+        AnnotationFactory annotations = (typeName, value) -> {
+            Class<? extends Annotation> annotationType = Class.forName(typeName).asSubclass(Annotation.class);
+            return annotationElementFactory.newInstance(annotationType, value);
+        };
+
+        List<Object> eventAnnotations = Arrays.asList(
+                annotations.create("jdk.jfr.Name", "org.netbeans.gradle.ModelLoadPhase"),
+                annotations.create("jdk.jfr.Label", "Gradle Model Load Phase"),
+                annotations.create("jdk.jfr.Description", "A phase of loading the models of a Gradle project."),
+                annotations.create("jdk.jfr.Category", new String[]{"NetBeans", "Gradle"}),
+                annotations.create("jdk.jfr.StackTrace", false));
+
+        Class<?> valueDescriptorType = Class.forName("jdk.jfr.ValueDescriptor");
+        Constructor<?> fieldFactory = valueDescriptorType.getConstructor(Class.class, String.class, List.class);
+
+        Object[] fields = new Object[2];
+        fields[PHASE_FIELD_INDEX] = fieldFactory.newInstance(String.class, "phase",
+                Collections.singletonList(annotations.create("jdk.jfr.Label", "Phase")));
+        fields[SUBJECT_FIELD_INDEX] = fieldFactory.newInstance(String.class, "subject", Arrays.asList(
+                annotations.create("jdk.jfr.Label", "Subject"),
+                annotations.create("jdk.jfr.Description", "The project or task the phase belongs to.")));
+
+        Class<?> eventFactoryType = Class.forName("jdk.jfr.EventFactory");
+        Method createFactory = eventFactoryType.getMethod("create", List.class, List.class);
+        Object eventFactory = invokeUnchecked(createFactory, null, eventAnnotations, Arrays.asList(fields));
+
+        return new JfrPhaseEventFactory(eventFactory);
+    }
+
+    private static Object invokeUnchecked(Method method, Object obj, Object... args) {
+        try {
+            return method.invoke(obj, args);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        } catch (InvocationTargetException ex) {
+            throw Exceptions.throwUnchecked(ex.getCause());
+        }
+    }
+
+    @Override
+    public PhaseEvent begin(ModelLoadPhase phase) {
+        Object event = invokeUnchecked(newEvent, eventFactory);
+        if (!(Boolean)invokeUnchecked(isEnabled, event)) {
+            return PhaseEvent.NO_EVENT;
+        }
+
+        invokeUnchecked(begin, event);
+        return (subject) -> {
+            invokeUnchecked(end, event);
+            if ((Boolean)invokeUnchecked(shouldCommit, event)) {
+                invokeUnchecked(set, event, PHASE_FIELD_INDEX, phase.getDisplayName());
+                invokeUnchecked(set, event, SUBJECT_FIELD_INDEX, subject);
+                invokeUnchecked(commit, event);
+            }
+        };
+    }
+
+    private interface AnnotationFactory {
+        public Object create(String typeName, Object value) throws ReflectiveOperationException;
+    }
+}
@@ -0,0 +1,96 @@
+package org.netbeans.gradle.project.model.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Defines a histogram of durations with fixed buckets ranging from a millisecond
+ * to a minute (and an additional bucket for longer durations).
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ * Recording a duration never blocks.
+ */
+public final class LatencyHistogram {
+    private static final long[] BUCKET_UPPER_BOUNDS_MS = {
+        1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000, 60000
+    };
+
+    private final AtomicLongArray bucketCounts;
+    private final LongAdder totalNanos;
+    private final AtomicLong maxNanos;
+
+    public LatencyHistogram() {
+        this.bucketCounts = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MS.length + 1);
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new AtomicLong(0);
+    }
+
+    /**
+     * Returns the inclusive upper bounds of the buckets in milliseconds. The
+     * last bucket (not having an entry in the returned array) counts every
+     * longer duration.
+     */
+    public static long[] getBucketUpperBoundsMillis() {
+        return BUCKET_UPPER_BOUNDS_MS.clone();
+    }
+
+    private static int getBucketIndex(long durationNanos) {
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+            if (durationMs <= BUCKET_UPPER_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_MS.length;
+    }
+
+    public void record(long durationNanos) {
+        long safeDuration = Math.max(0, durationNanos);
+
+        bucketCounts.incrementAndGet(getBucketIndex(safeDuration));
+        totalNanos.add(safeDuration);
+        maxNanos.accumulateAndGet(safeDuration, Math::max);
+    }
+
+    public long getCount() {
+        long result = 0;
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            result += bucketCounts.get(i);
+        }
+        return result;
+    }
+
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+    }
+
+    public long getMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+    /**
+     * Returns the number of recorded durations in each bucket. The returned
+     * array has one more element than {@link #getBucketUpperBoundsMillis()}.
+     */
+    public long[] getBucketCounts() {
+        long[] result = new long[bucketCounts.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bucketCounts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the recorded durations. Durations recorded concurrently with
+     * this method might be partially removed.
+     */
+    public void reset() {
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            bucketCounts.set(i, 0);
+        }
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,213 @@
+package org.netbeans.gradle.project.model.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.jtrim2.executor.MonitorableTaskExecutor;
+
+/**
+ * Collects the durations of the model loading phases and the counters related
+ * to model loading. The durations are also reported as Flight Recorder events
+ * (if the {@code jdk.jfr} API is available), and the default instance is
+ * registered as an MXBean named {@value #MBEAN_NAME}.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+public final class ModelLoadMetrics implements ModelLoadMetricsMXBean {
+    private static final Logger LOGGER = Logger.getLogger(ModelLoadMetrics.class.getName());
+
+    public static final String MBEAN_NAME = "org.netbeans.gradle:type=ModelLoadMetrics";
+
+    private static final ModelLoadMetrics DEFAULT = createDefault();
+
+    private final PhaseEventFactory eventFactory;
+    private final Map<ModelLoadPhase, LatencyHistogram> phaseLatencies;
+
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
+    private final LongAdder persistentCacheHits;
+    private final LongAdder persistentCacheMisses;
+    private final LongAdder serializedBytes;
+
+    private final Map<String, MonitorableTaskExecutor> executors;
+
+    public ModelLoadMetrics() {
+        this(PhaseEventFactory.NO_EVENTS);
+    }
+
+    private ModelLoadMetrics(PhaseEventFactory eventFactory) {
+        this.eventFactory = Objects.requireNonNull(eventFactory, "eventFactory");
+
+        Map<ModelLoadPhase, LatencyHistogram> latencies = new EnumMap<>(ModelLoadPhase.class);
+        for (ModelLoadPhase phase: ModelLoadPhase.values()) {
+            latencies.put(phase, new LatencyHistogram());
+        }
+        this.phaseLatencies = Collections.unmodifiableMap(latencies);
+
+        this.cacheHits = new LongAdder();
+        this.cacheMisses = new LongAdder();
+        this.persistentCacheHits = new LongAdder();
+        this.persistentCacheMisses = new LongAdder();
+        this.serializedBytes = new LongAdder();
+        this.executors = new ConcurrentSkipListMap<>();
+    }
+
+    public static ModelLoadMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    private static ModelLoadMetrics createDefault() {
+        ModelLoadMetrics result = new ModelLoadMetrics(createEventFactory());
+        registerMBean(result);
+        return result;
+    }
+
+    private static PhaseEventFactory createEventFactory() {
+        try {
+            return JfrPhaseEventFactory.create();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+            LOGGER.log(Level.INFO, "Flight Recorder is not available, model load events will not be recorded.");
+            return PhaseEventFactory.NO_EVENTS;
+        }
+    }
+
+    private static void registerMBean(ModelLoadMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            // The module might have been reloaded.
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+        } catch (JMException | RuntimeException ex) {
+            LOGGER.log(Level.INFO, "Failed to register the model load metrics MBean.", ex);
+        }
+    }
+
+    /**
+     * Starts measuring a phase of model loading. The measurement is recorded
+     * when the returned object is closed.
+     *
+     * @param phase the measured phase. This argument cannot be {@code null}.
+     * @param subject the project or task the phase belongs to. This argument
+     *   can be {@code null}.
+     * @return the started measurement. This method never returns {@code null}.
+     */
+    public PhaseMeasurement startPhase(ModelLoadPhase phase, String subject) {
+        Objects.requireNonNull(phase, "phase");
+        return new PhaseMeasurement(phaseLatencies.get(phase), eventFactory.begin(phase), subject);
+    }
+
+    public LatencyHistogram getPhaseLatency(ModelLoadPhase phase) {
+        Objects.requireNonNull(phase, "phase");
+        return phaseLatencies.get(phase);
+    }
+
+    public void recordCacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    public void recordPersistentCacheLookup(boolean hit) {
+        (hit ? persistentCacheHits : persistentCacheMisses).increment();
+    }
+
+    public void recordSerializedBytes(long byteCount) {
+        serializedBytes.add(byteCount);
+    }
+
+    /**
+     * Adds an executor whose queue depth is to be reported. Adding another
+     * executor with the same name replaces the previous one.
+     */
+    public void registerExecutor(String name, MonitorableTaskExecutor executor) {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(executor, "executor");
+
+        executors.put(name, executor);
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public long getPersistentCacheHitCount() {
+        return persistentCacheHits.sum();
+    }
+
+    @Override
+    public long getPersistentCacheMissCount() {
+        return persistentCacheMisses.sum();
+    }
+
+    @Override
+    public long getSerializedByteCount() {
+        return serializedBytes.sum();
+    }
+
+    @Override
+    public Map<String, Long> getExecutorQueueDepths() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        executors.forEach((name, executor) -> result.put(name, executor.getNumberOfQueuedTasks()));
+        return result;
+    }
+
+    private <V> Map<String, V> toPhaseMap(Function<? super LatencyHistogram, ? extends V> valueGetter) {
+        Map<String, V> result = new LinkedHashMap<>();
+        phaseLatencies.forEach((phase, histogram) -> result.put(phase.name(), valueGetter.apply(histogram)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseCounts() {
+        return toPhaseMap(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getPhaseTotalMillis() {
+        return toPhaseMap(LatencyHistogram::getTotalMillis);
+    }
+
+    @Override
+    public Map<String, Long> getPhaseMaxMillis() {
+        return toPhaseMap(LatencyHistogram::getMaxMillis);
+    }
+
+    @Override
+    public Map<String, long[]> getPhaseLatencyHistograms() {
+        return toPhaseMap(LatencyHistogram::getBucketCounts);
+    }
+
+    @Override
+    public long[] getLatencyBucketUpperBoundsMillis() {
+        return LatencyHistogram.getBucketUpperBoundsMillis();
+    }
+
+    @Override
+    public void resetStatistics() {
+        phaseLatencies.values().forEach(LatencyHistogram::reset);
+        cacheHits.reset();
+        cacheMisses.reset();
+        persistentCacheHits.reset();
+        persistentCacheMisses.reset();
+        serializedBytes.reset();
+    }
+}
@@ -0,0 +1,36 @@
+package org.netbeans.gradle.project.model.metrics;
+
+import java.util.Map;
+
+/**
+ * Defines the management interface of {@link ModelLoadMetrics}. The maps
+ * containing values per phase are keyed by the names of {@link ModelLoadPhase}.
+ */
+public interface ModelLoadMetricsMXBean {
+    public long getCacheHitCount();
+    public long getCacheMissCount();
+
+    public long getPersistentCacheHitCount();
+    public long getPersistentCacheMissCount();
+
+    public long getSerializedByteCount();
+
+    /**
+     * Returns the number of tasks waiting to be executed by the executors
+     * related to model loading, keyed by the name of the executor.
+     */
+    public Map<String, Long> getExecutorQueueDepths();
+
+    public Map<String, Long> getPhaseCounts();
+    public Map<String, Long> getPhaseTotalMillis();
+    public Map<String, Long> getPhaseMaxMillis();
+
+    /**
+     * Returns the latency histograms of the phases. The buckets of the histograms
+     * are defined by {@link #getLatencyBucketUpperBoundsMillis()}.
+     */
+    public Map<String, long[]> getPhaseLatencyHistograms();
+    public long[] getLatencyBucketUpperBoundsMillis();
+
+    public void resetStatistics();
+}
@@ -0,0 +1,52 @@
+package org.netbeans.gradle.project.model.metrics;
+
+/**
+ * Defines the phases of loading the models of a project, whose durations
+ * are measured by {@link ModelLoadMetrics}.
+ */
+public enum ModelLoadPhase {
+    /**
+     * Waiting for the daemon task loading the models to be started (including
+     * waiting for the non-blocking daemon tasks to complete). Tasks canceled
+     * before being started are not recorded.
+     */
+    DAEMON_QUEUE_WAIT("Daemon queue wait"),
+    /**
+     * Fetching the {@code BuildEnvironment} to determine the Gradle version.
+     */
+    BUILD_ENVIRONMENT("Build environment fetch"),
+    /**
+     * Executing the build action fetching the models (including the evaluation
+     * of the build scripts).
+     */
+    BUILD_ACTION("Build action"),
+    /**
+     * Converting the fetched or persisted models to the models of the projects.
+     */
+    DESERIALIZATION("Deserialization"),
+    /**
+     * Saving a model into the persistent cache.
+     */
+    CACHE_PERSISTENCE("Cache persistence"),
+    /**
+     * Notifying the project about the new model (including waiting for the
+     * notifier executor).
+     */
+    NOTIFICATION("Notification"),
+    /**
+     * The time from requesting a project load while no other load was pending
+     * until every pending load completed. For example, the time needed to load
+     * all the projects of a restored session.
+     */
+    PENDING_LOADS("Pending project loads");
+
+    private final String displayName;
+
+    private ModelLoadPhase(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,20 @@
+package org.netbeans.gradle.project.model.metrics;
+
+/**
+ * Creates the profiler events of the model loading phases.
+ */
+interface PhaseEventFactory {
+    public static final PhaseEventFactory NO_EVENTS = (phase) -> PhaseEvent.NO_EVENT;
+
+    /**
+     * Starts a new event for the given phase. This method is called on the
+     * thread starting the phase.
+     */
+    public PhaseEvent begin(ModelLoadPhase phase);
+
+    public interface PhaseEvent {
+        public static final PhaseEvent NO_EVENT = (subject) -> { };
+
+        public void end(String subject);
+    }
+}
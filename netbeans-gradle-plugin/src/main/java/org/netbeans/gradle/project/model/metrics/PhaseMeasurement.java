@@ -0,0 +1,43 @@
+package org.netbeans.gradle.project.model.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Defines a started measurement of a model loading phase, which is recorded
+ * when it is closed. A measurement may be closed on a different thread than it
+ * was started on, and closing it multiple times is allowed but only the first
+ * one is recorded.
+ */
+public final class PhaseMeasurement implements AutoCloseable {
+    private final LatencyHistogram histogram;
+    private final PhaseEventFactory.PhaseEvent event;
+    private final String subject;
+    private final long startNanos;
+    private final AtomicBoolean ended;
+
+    PhaseMeasurement(LatencyHistogram histogram, PhaseEventFactory.PhaseEvent event, String subject) {
+        this.histogram = histogram;
+        this.event = event;
+        this.subject = subject;
+        this.startNanos = System.nanoTime();
+        this.ended = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void close() {
+        if (!ended.compareAndSet(false, true)) {
+            return;
+        }
+
+        histogram.record(System.nanoTime() - startNanos);
+        event.end(subject);
+    }
+
+    /**
+     * Ends this measurement without recording it. This method does nothing if
+     * this measurement has already been closed.
+     */
+    public void discard() {
+        ended.set(true);
+    }
+}
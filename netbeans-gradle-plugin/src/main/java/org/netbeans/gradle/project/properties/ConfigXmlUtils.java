@@ -1,10 +1,10 @@
 package org.netbeans.gradle.project.properties;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -275,14 +275,7 @@ final class ConfigXmlUtils {
                     continue;
                 }
 
-                String elementKey = fromElementName(elementChild.getNodeName());
-
-                ConfigTree.Builder childBuilder = result.addChildBuilder(elementKey);
-                String nodeValue = parseNode(elementChild, Collections.<String>emptySet(), childBuilder);
-                if (nodeValue != null) {
-                    childBuilder.setValue(nodeValue);
-                }
-
+                addChildElement(elementChild, result);
                 addedChildren++;
             }
         }
@@ -290,6 +283,16 @@ final class ConfigXmlUtils {
         return addedChildren;
     }
 
+    private static void addChildElement(Element element, ConfigTree.Builder result) {
+        String elementKey = fromElementName(element.getNodeName());
+
+        ConfigTree.Builder childBuilder = result.addChildBuilder(elementKey);
+        String nodeValue = parseNode(element, Collections.<String>emptySet(), childBuilder);
+        if (nodeValue != null) {
+            childBuilder.setValue(nodeValue);
+        }
+    }
+
     private static String parseNode(Element root, Set<String> excludedNames, ConfigTree.Builder result) {
         Objects.requireNonNull(root, "root");
         Objects.requireNonNull(result, "result");
@@ -316,6 +319,16 @@ final class ConfigXmlUtils {
         return result;
     }
 
+    // Returns the same tree as parseDocument would for the auxiliary node
+    // after adding the given elements with addAuxiliary.
+    public static ConfigTree parseAuxiliary(Element... auxElements) {
+        ConfigTree.Builder result = new ConfigTree.Builder();
+        for (Element auxElement: sortAuxElements(auxElements)) {
+            addChildElement(auxElement, result);
+        }
+        return result.create();
+    }
+
     private static List<KeyValuePair> tryGetAttributeList(ConfigTree tree) {
         List<KeyValuePair> attributes = null;
         for (Map.Entry<String, List<ConfigTree>> entry: tree.getChildTrees().entrySet()) {
@@ -473,14 +486,7 @@ final class ConfigXmlUtils {
         return str1.compareTo(str2);
     }
 
-    public static void addAuxiliary(Document document, Element... auxElements) {
-        Element root = Objects.requireNonNull(document.getDocumentElement(),
-                "document.getDocumentElement()");
-
-        if (auxElements.length == 0) {
-            return;
-        }
-
+    private static Element[] sortAuxElements(Element[] auxElements) {
         Element[] sortedAuxElements = auxElements.clone();
         Arrays.sort(sortedAuxElements, (Element o1, Element o2) -> {
             String uri1 = o1.getNamespaceURI();
@@ -492,6 +498,18 @@ final class ConfigXmlUtils {
 
             return nullSafeStrCmp(o1.getNodeName(), o2.getNodeName());
         });
+        return sortedAuxElements;
+    }
+
+    public static void addAuxiliary(Document document, Element... auxElements) {
+        Element root = Objects.requireNonNull(document.getDocumentElement(),
+                "document.getDocumentElement()");
+
+        if (auxElements.length == 0) {
+            return;
+        }
+
+        Element[] sortedAuxElements = sortAuxElements(auxElements);
 
         Element auxRoot = document.createElement(AUXILIARY_NODE_NAME);
         root.appendChild(auxRoot);
@@ -547,9 +565,12 @@ final class ConfigXmlUtils {
         Objects.requireNonNull(document, "document");
         Objects.requireNonNull(output, "output");
 
+        byte[] fileContent;
         if (lineSeparator == null) {
-            Result result = new StreamResult(output.toFile());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(FILE_BUFFER_SIZE);
+            Result result = new StreamResult(bytes);
             savePrettyXmlDocument(document, result);
+            fileContent = bytes.toByteArray();
         }
         else {
             StringWriter writer = new StringWriter(FILE_BUFFER_SIZE);
@@ -565,8 +586,11 @@ final class ConfigXmlUtils {
                 newFileStrContent.append(lineSeparator);
             }
 
-            Files.write(output, newFileStrContent.toString().getBytes(XML_ENCODING));
+            fileContent = newFileStrContent.toString().getBytes(XML_ENCODING);
         }
+
+        // Write atomically, so that a crash or a concurrent reader never sees a truncated file.
+        NbFileUtils.writeBytesAtomically(output, fileContent);
     }
 
     private static final class KeyValuePair {
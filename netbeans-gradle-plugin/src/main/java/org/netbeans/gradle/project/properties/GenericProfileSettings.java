@@ -1,10 +1,10 @@
 package org.netbeans.gradle.project.properties;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Objects;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,10 +29,12 @@ public final class GenericProfileSettings implements LoadableSingleProfileSettin
     private final ProfileLocationProvider locationProvider;
     private final ProfileSettings settings;
 
-    private final Lock ioLock;
+    private final ReentrantLock ioLock;
     private volatile boolean loadedOnce;
 
     private volatile boolean dirty;
+    // The content last read from or written to the profile file.
+    private ConfigTree persistedContent;
 
     private final OneShotChangeListenerManager loadedListeners;
 
@@ -44,6 +46,7 @@ public final class GenericProfileSettings implements LoadableSingleProfileSettin
         this.settings = new ProfileSettings();
         this.ioLock = new ReentrantLock();
         this.dirty = false;
+        this.persistedContent = null;
         this.loadedOnce = false;
         this.loadedListeners = OneShotChangeListenerManager.getSwingNotifier();
         this.saveExecutor = new GenericUpdateTaskExecutor(SAVE_LOAD_EXECUTOR);
@@ -146,7 +149,7 @@ public final class GenericProfileSettings implements LoadableSingleProfileSettin
         ioLock.lock();
         try {
             if (!skipIfLoaded || !loadedOnce) {
-                settings.loadFromFile(profileFile);
+                persistedContent = settings.loadFromFile(profileFile);
             }
         } finally {
             loadedOnce = true;
@@ -183,13 +186,34 @@ public final class GenericProfileSettings implements LoadableSingleProfileSettin
         try {
             if (dirty) {
                 dirty = false;
-                settings.saveToFile(profileFile, saveOptions);
+
+                ConfigTree content = settings.getContentSnapshot();
+                if (isPersisted(profileFile, content)) {
+                    LOGGER.log(Level.FINE, "Profile is unchanged, skip saving: {0}", getKey());
+                    return;
+                }
+
+                persistedContent = settings.saveToFile(profileFile, saveOptions);
             }
         } finally {
             ioLock.unlock();
         }
     }
 
+    private boolean isPersisted(Path profileFile, ConfigTree content) {
+        assert ioLock.isHeldByCurrentThread();
+
+        // ConfigTree caches its hash code, so this is usually a cheap check.
+        if (persistedContent == null
+                || persistedContent.hashCode() != content.hashCode()
+                || !persistedContent.equals(content)) {
+            return false;
+        }
+
+        // Don't create empty profile files but recreate deleted ones.
+        return !content.hasValues() || Files.exists(profileFile);
+    }
+
     @Override
     public Element getAuxConfigValue(DomElementKey key) {
         return settings.getAuxConfigValue(key);
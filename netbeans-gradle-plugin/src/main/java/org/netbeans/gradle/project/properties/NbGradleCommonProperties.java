@@ -5,6 +5,7 @@ import java.util.Objects;
 import org.jtrim2.property.PropertyFactory;
 import org.jtrim2.property.PropertySource;
 import org.netbeans.api.project.Project;
+import org.netbeans.gradle.model.TaskListingMode;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.api.config.ActiveSettingsQuery;
 import org.netbeans.gradle.project.api.config.PropertyDef;
@@ -48,6 +49,7 @@ public final class NbGradleCommonProperties {
     private final PropertyReference<String> displayNamePattern;
     private final PropertyReference<CustomVariables> customVariables;
     private final PropertyReference<Boolean> showGradleVersion;
+    private final PropertyReference<TaskListingMode> taskListingMode;
 
     public NbGradleCommonProperties(NbGradleProject ownerProject, ActiveSettingsQuery activeSettingsQuery) {
         this.ownerProject = Objects.requireNonNull(ownerProject, "ownerProject");
@@ -65,6 +67,7 @@ public final class NbGradleCommonProperties {
         this.displayNamePattern = displayNamePattern(activeSettingsQuery);
         this.customVariables = customVariables(activeSettingsQuery);
         this.showGradleVersion = showGradleVersion(activeSettingsQuery);
+        this.taskListingMode = taskListingMode(activeSettingsQuery);
     }
 
     public Project getOwnerProject() {
@@ -232,6 +235,17 @@ public final class NbGradleCommonProperties {
         return showGradleVersion;
     }
 
+    public static PropertyReference<TaskListingMode> taskListingMode(ActiveSettingsQuery activeSettingsQuery) {
+        return get(
+                CommonProperties.defineEnumProperty(TaskListingMode.class, "model-loading", "task-listing"),
+                activeSettingsQuery,
+                PropertyFactory.constSource(TaskListingMode.REGISTERED_NAMES));
+    }
+
+    public PropertyReference<TaskListingMode> taskListingMode() {
+        return taskListingMode;
+    }
+
     private static <ValueType> PropertyReference<ValueType> get(
             PropertyDef<?, ValueType> propertyDef,
             ActiveSettingsQuery activeSettingsQuery,
@@ -52,10 +52,9 @@ public final class ProfileSettings {
 
     private final ListenerManager<ConfigUpdateListener> configUpdateListeners;
 
+    // Only writers need to lock, readers simply read the current immutable state.
     private final ReentrantLock configLock;
-    private volatile Object configStateKey;
-    private ConfigTree.Builder currentConfig;
-    private final Map<DomElementKey, Element> auxConfigs;
+    private volatile ConfigState currentState;
 
     private static Document tryCreateDocument() {
         try {
@@ -68,10 +67,8 @@ public final class ProfileSettings {
 
     public ProfileSettings() {
         this.configLock = new ReentrantLock();
-        this.currentConfig = new ConfigTree.Builder();
+        this.currentState = ConfigState.EMPTY;
         this.configUpdateListeners = new CopyOnTriggerListenerManager<>();
-        this.configStateKey = new Object();
-        this.auxConfigs = new HashMap<>();
     }
 
     public static boolean isEventThread() {
@@ -113,16 +110,17 @@ public final class ProfileSettings {
         }
     }
 
-    public void loadFromFile(Path xmlFile) {
+    // Returns the content snapshot which was actually loaded or null if the file could not be parsed.
+    public ConfigTree loadFromFile(Path xmlFile) {
         Document document;
         try {
             document = readXml(xmlFile);
         } catch (IOException | SAXException ex) {
             LOGGER.log(Level.INFO, "Unable to parse XML config file: " + xmlFile, ex);
-            return;
+            return null;
         }
 
-        loadFromDocument(document);
+        return loadFromDocument(document).getContentSnapshot();
     }
 
     public void loadFromStream(InputStream xmlSource) {
@@ -138,38 +136,30 @@ public final class ProfileSettings {
     }
 
     public ConfigTree getContentSnapshot() {
-        return ConfigXmlUtils.parseDocument(toXml()).create();
+        return currentState.getContentSnapshot();
     }
 
-    private Document toXml() {
-        ConfigTree configTree;
-        List<Element> auxConfigList;
-
-        configLock.lock();
-        try {
-            configTree = currentConfig.create();
-            auxConfigList = new ArrayList<>(auxConfigs.values());
-        } finally {
-            configLock.unlock();
-        }
-
+    private static Document toXml(ConfigState state) {
         Document document;
         try {
-            document = ConfigXmlUtils.createXml(configTree);
+            document = ConfigXmlUtils.createXml(state.config);
         } catch (ParserConfigurationException ex) {
             throw new RuntimeException(ex);
         }
 
+        Collection<Element> auxConfigList = state.auxConfigs.values();
         ConfigXmlUtils.addAuxiliary(document, auxConfigList.toArray(new Element[auxConfigList.size()]));
 
         return document;
     }
 
-    public void saveToFile(Path xmlFile, ConfigSaveOptions saveOptions) throws IOException {
+    // Returns the content snapshot which was actually saved.
+    public ConfigTree saveToFile(Path xmlFile, ConfigSaveOptions saveOptions) throws IOException {
         Objects.requireNonNull(xmlFile, "xmlFile");
         Objects.requireNonNull(saveOptions, "saveOptions");
 
-        Document document = toXml();
+        ConfigState state = currentState;
+        Document document = toXml(state);
 
         Path outputDir = xmlFile.getParent();
         if (outputDir != null) {
@@ -177,20 +167,13 @@ public final class ProfileSettings {
         }
 
         ConfigXmlUtils.saveXmlTo(document, xmlFile, saveOptions);
+        return state.getContentSnapshot();
     }
 
     private void fireDocumentUpdate(Collection<ConfigPath> path) {
         configUpdateListeners.onEvent(ConfigUpdateListener::configUpdated, path);
     }
 
-    private Object newConfigState() {
-        assert configLock.isHeldByCurrentThread();
-
-        Object newState = new Object();
-        configStateKey = newState;
-        return newState;
-    }
-
     private static Node getChildByName(Element parent, String childName) {
         NodeList children = parent.getChildNodes();
         int childCount = children.getLength();
@@ -229,9 +212,7 @@ public final class ProfileSettings {
     public void clearSettings() {
         configLock.lock();
         try {
-            auxConfigs.clear();
-            currentConfig = new ConfigTree.Builder();
-            newConfigState();
+            currentState = new ConfigState(ConfigTree.EMPTY, Collections.emptyMap());
         } finally {
             configLock.unlock();
         }
@@ -239,94 +220,64 @@ public final class ProfileSettings {
         fireDocumentUpdate(ROOT_PATH);
     }
 
-    private void loadFromDocument(Document document) {
+    private ConfigState loadFromDocument(Document document) {
         Objects.requireNonNull(document, "document");
 
-        ConfigTree.Builder parsedDocument = ConfigXmlUtils.parseDocument(document, ConfigXmlUtils.AUXILIARY_NODE_NAME);
+        ConfigTree parsedDocument = ConfigXmlUtils
+                .parseDocument(document, ConfigXmlUtils.AUXILIARY_NODE_NAME)
+                .create();
         List<Element> loadedAuxConfigs = getAuxiliaryElements(document.getDocumentElement());
 
+        Map<DomElementKey, Element> auxConfigs = new HashMap<>();
+        for (Element entry: loadedAuxConfigs) {
+            auxConfigs.put(new DomElementKey(entry.getNodeName(), entry.getNamespaceURI()), entry);
+        }
+
+        ConfigState newState = new ConfigState(parsedDocument, auxConfigs);
+
         configLock.lock();
         try {
-            auxConfigs.clear();
-            for (Element entry: loadedAuxConfigs) {
-                auxConfigs.put(new DomElementKey(entry.getNodeName(), entry.getNamespaceURI()), entry);
-            }
-
-            currentConfig = parsedDocument;
-            newConfigState();
+            currentState = newState;
         } finally {
             configLock.unlock();
         }
 
         fireDocumentUpdate(ROOT_PATH);
+        return newState;
     }
 
-    private static ConfigTree createChildTree(ConfigTree.Builder builer, ConfigPath path) {
-        ConfigTree.Builder childBuilder = builer.getDeepChildBuilder(path);
-        childBuilder.detachChildTreeBuilders();
-        return childBuilder.create();
-    }
-
-    private <Value> ValueWithStateKey<Value> withStateKey(Value value) {
-        assert configLock.isHeldByCurrentThread();
-        return new ValueWithStateKey<>(configStateKey, value);
-    }
-
-    private ValueWithStateKey<ConfigTree> getChildConfig(ConfigPath path) {
-        configLock.lock();
-        try {
-            return withStateKey(createChildTree(currentConfig, path));
-        } finally {
-            configLock.unlock();
-        }
+    private static ValueWithStateKey<ConfigTree> getChildConfig(ConfigTree config, ConfigPath path) {
+        return new ValueWithStateKey<>(config, config.getDeepChildTree(path));
     }
 
     private ValueWithStateKey<ConfigTree> getChildConfig(ConfigPath basePath, ConfigPath[] relPaths) {
+        ConfigTree config = currentState.config;
+
         if (relPaths.length == 1) {
             assert relPaths[0].getKeyCount() == 0;
 
             // Common case
-            return getChildConfig(basePath);
+            return getChildConfig(config, basePath);
         }
 
-        Object resultStateKey;
-        ConfigTree.Builder result = new ConfigTree.Builder();
-        configLock.lock();
-        try {
-            resultStateKey = configStateKey;
+        ConfigTree baseTree = config.getDeepChildTree(basePath);
 
-            ConfigTree.Builder baseBuilder = currentConfig.getDeepChildBuilder(basePath);
-            for (ConfigPath relPath: relPaths) {
-                ConfigTree childTree = createChildTree(baseBuilder, relPath);
-                setChildTree(result, relPath, childTree);
-            }
-        } finally {
-            configLock.unlock();
+        ConfigTree.Builder result = new ConfigTree.Builder();
+        for (ConfigPath relPath: relPaths) {
+            setChildTree(result, relPath, baseTree.getDeepChildTree(relPath));
         }
 
-        return new ValueWithStateKey<>(resultStateKey, result.create());
+        return new ValueWithStateKey<>(config, result.create());
     }
 
     public Collection<DomElementKey> getAuxConfigKeys() {
-        configLock.lock();
-        try {
-            return new ArrayList<>(auxConfigs.keySet());
-        } finally {
-            configLock.unlock();
-        }
+        return new ArrayList<>(currentState.auxConfigs.keySet());
     }
 
     public Element getAuxConfigValue(DomElementKey key) {
         Objects.requireNonNull(key, "key");
 
-        Element result;
-        configLock.lock();
-        try {
-            result = auxConfigs.get(key);
-        } finally {
-            configLock.unlock();
-        }
-
+        Element result = currentState.auxConfigs.get(key);
         return result != null
                 ? (Element)EXPORT_DOCUMENT.importNode(result, true)
                 : null;
@@ -341,13 +292,20 @@ public final class ProfileSettings {
 
         configLock.lock();
         try {
+            ConfigState state = currentState;
+
+            Map<DomElementKey, Element> newAuxConfigs = new HashMap<>(state.auxConfigs);
             if (toAdd == null) {
-                return auxConfigs.remove(key) != null;
+                if (newAuxConfigs.remove(key) == null) {
+                    return false;
+                }
             }
             else {
-                auxConfigs.put(key, value);
-                return true;
+                newAuxConfigs.put(key, toAdd);
             }
+
+            currentState = new ConfigState(state.config, newAuxConfigs);
+            return true;
         } finally {
             configLock.unlock();
         }
@@ -495,36 +453,45 @@ public final class ProfileSettings {
 
             ValueKey valueKey = valueKeyWithState.value;
             ConfigTree encodedValueKey = valueKey != null ? keyEncodingDef.encode(valueKey) : ConfigTree.EMPTY;
-            Object newState;
+            ConfigTree newConfig;
 
             configLock.lock();
             try {
+                ConfigState state = currentState;
+
+                // The builder only copies the nodes along the updated paths,
+                // every other subtree is shared with the previous state.
+                ConfigTree.Builder configBuilder = new ConfigTree.Builder(state.config);
                 int pathCount = relativeConfigPaths.length;
                 for (int i = 0; i < pathCount; i++) {
                     ConfigPath relativePath = relativeConfigPaths[i];
                     ConfigPath path = configPaths[i];
 
                     ConfigTree configTree = encodedValueKey.getDeepChildTree(relativePath);
-                    updateConfigAtPath(path, configTree);
+                    configBuilder = updateConfigAtPath(configBuilder, path, configTree);
                 }
 
-                newState = newConfigState();
+                newConfig = configBuilder.create();
+                currentState = new ConfigState(newConfig, state.auxConfigs);
             } finally {
                 configLock.unlock();
             }
 
             fireDocumentUpdate(configPathsAsList);
-            return new ValueWithStateKey<>(newState, valueKeyWithState.value);
+            return new ValueWithStateKey<>(newConfig, valueKeyWithState.value);
         }
 
-        private void updateConfigAtPath(ConfigPath path, ConfigTree content) {
-            assert configLock.isHeldByCurrentThread();
+        private ConfigTree.Builder updateConfigAtPath(
+                ConfigTree.Builder configBuilder,
+                ConfigPath path,
+                ConfigTree content) {
 
             if (path.getKeyCount() == 0) {
-                currentConfig = new ConfigTree.Builder(content);
+                return new ConfigTree.Builder(content);
             }
             else {
-                setChildTree(currentConfig, path, content);
+                setChildTree(configBuilder, path, content);
+                return configBuilder;
             }
         }
 
@@ -534,7 +501,7 @@ public final class ProfileSettings {
 
             while (true) {
                 lastValueKey = lastValueKeyRef.get();
-                currentConfigStateKey = configStateKey;
+                currentConfigStateKey = currentState.config;
 
                 if (currentConfigStateKey == lastValueKey.stateKey) {
                     // It is possible that there was a concurrent configuration
@@ -561,7 +528,7 @@ public final class ProfileSettings {
 
         @Override
         public ValueType getValue() {
-            if (lastValueKeyRef.get().stateKey != configStateKey) {
+            if (lastValueKeyRef.get().stateKey != currentState.config) {
                 updateFromConfig();
             }
 
@@ -626,6 +593,47 @@ public final class ProfileSettings {
         }
     }
 
+    private static final class ConfigState {
+        public static final ConfigState EMPTY = new ConfigState(ConfigTree.EMPTY, Collections.emptyMap());
+
+        // The identity of this tree is used as the state key of the values
+        // read from it.
+        public final ConfigTree config;
+        public final Map<DomElementKey, Element> auxConfigs;
+
+        private volatile ConfigTree contentSnapshot;
+
+        public ConfigState(ConfigTree config, Map<DomElementKey, Element> auxConfigs) {
+            this.config = config;
+            this.auxConfigs = auxConfigs.isEmpty()
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(auxConfigs);
+            this.contentSnapshot = null;
+        }
+
+        public ConfigTree getContentSnapshot() {
+            ConfigTree result = contentSnapshot;
+            if (result == null) {
+                result = createContentSnapshot();
+                contentSnapshot = result;
+            }
+            return result;
+        }
+
+        private ConfigTree createContentSnapshot() {
+            if (auxConfigs.isEmpty()) {
+                return config;
+            }
+
+            Collection<Element> auxElements = auxConfigs.values();
+            ConfigTree auxTree = ConfigXmlUtils.parseAuxiliary(auxElements.toArray(new Element[auxElements.size()]));
+
+            ConfigTree.Builder result = new ConfigTree.Builder(config);
+            result.setChildTree(ConfigXmlUtils.AUXILIARY_NODE_NAME, auxTree);
+            return result.create();
+        }
+    }
+
     private static final class ValueWithStateKey<Value> {
         public final Object stateKey;
 
@@ -9,14 +9,19 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.concurrent.AsyncTasks;
 import org.jtrim2.concurrent.Tasks;
 import org.jtrim2.event.ListenerRef;
 import org.jtrim2.event.ListenerRefs;
+import org.jtrim2.executor.TaskExecutorService;
 import org.jtrim2.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
 import org.netbeans.gradle.project.util.TestDetectUtils;
 
 public final class ProfileSettingsContainer {
     private static final AtomicReference<ProfileSettingsContainer> DEFAULT_REF = new AtomicReference<>(null);
+    private static final int MAX_PARALLEL_SAVE_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
 
     private final Lock mainLock;
     private final WeakValueHashMap<ProfileSettingsKey, LoadableSingleProfileSettingsEx> loaded;
@@ -53,9 +58,25 @@ public final class ProfileSettingsContainer {
             mainLock.unlock();
         }
 
-        for (LoadableSingleProfileSettingsEx settings: toSave) {
-            settings.saveAndWait();
+        if (toSave.size() <= 1) {
+            for (LoadableSingleProfileSettingsEx settings: toSave) {
+                settings.saveAndWait();
+            }
+            return;
+        }
+
+        // Each profile has its own file, so they can be saved concurrently.
+        int threadCount = Math.min(toSave.size(), MAX_PARALLEL_SAVE_COUNT);
+        TaskExecutorService saveExecutor = NbTaskExecutors.newStoppableExecutor("Profile-Save-All", threadCount);
+        try {
+            for (LoadableSingleProfileSettingsEx settings: toSave) {
+                saveExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> settings.saveAndWait())
+                        .exceptionally(AsyncTasks::expectNoError);
+            }
+        } finally {
+            saveExecutor.shutdown();
         }
+        saveExecutor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
     }
 
     private LoadableSingleProfileSettingsEx getUnloadedProfileSettings(ProfileSettingsKey key) {
@@ -49,12 +49,16 @@ public final class CommonGlobalSettings {
     private final PropertyReference<Boolean> askBeforeCancelExec;
     private final PropertyReference<Boolean> loadRootProjectFirst;
     private final PropertyReference<Boolean> showGradleVersion;
+    private final PropertyReference<Boolean> reloadOnBuildScriptChange;
 
     private final PropertyReference<Boolean> detectProjectDependenciesByJarName;
     private final PropertyReference<SelfMaintainedTasks> selfMaintainedTasks;
 
     private final PropertyReference<Integer> projectCacheSize;
+    private final PropertyReference<Integer> projectCacheHeapBudgetPercent;
     private final PropertyReference<Integer> gradleDaemonTimeoutSec;
+    private final PropertyReference<Integer> maxConcurrentBuildLoads;
+    private final PropertyReference<Integer> buildScriptChangeDelayMs;
 
     public CommonGlobalSettings(ActiveSettingsQuery activeSettingsQuery) {
         this.activeSettingsQuery = Objects.requireNonNull(activeSettingsQuery, "activeSettingsQuery");
@@ -75,8 +79,12 @@ public final class CommonGlobalSettings {
         this.detectProjectDependenciesByJarName = detectProjectDependenciesByJarName(activeSettingsQuery);
         this.selfMaintainedTasks = selfMaintainedTasks(activeSettingsQuery);
         this.projectCacheSize = projectCacheSize(activeSettingsQuery);
+        this.projectCacheHeapBudgetPercent = projectCacheHeapBudgetPercent(activeSettingsQuery);
         this.gradleDaemonTimeoutSec = gradleDaemonTimeoutSec(activeSettingsQuery);
+        this.maxConcurrentBuildLoads = maxConcurrentBuildLoads(activeSettingsQuery);
         this.showGradleVersion = showGradleVersion(activeSettingsQuery);
+        this.reloadOnBuildScriptChange = reloadOnBuildScriptChange(activeSettingsQuery);
+        this.buildScriptChangeDelayMs = buildScriptChangeDelayMs(activeSettingsQuery);
     }
 
     public static PropertyReference<ScriptPlatform> defaultJdk(ActiveSettingsQuery activeSettingsQuery) {
@@ -228,6 +236,22 @@ public final class CommonGlobalSettings {
         return showGradleVersion;
     }
 
+    public static PropertyReference<Boolean> reloadOnBuildScriptChange(ActiveSettingsQuery activeSettingsQuery) {
+        return propertyRef(defineBooleanProperty("build-scripts", "reload-on-change"), activeSettingsQuery, false);
+    }
+
+    public PropertyReference<Boolean> reloadOnBuildScriptChange() {
+        return reloadOnBuildScriptChange;
+    }
+
+    public static PropertyReference<Integer> buildScriptChangeDelayMs(ActiveSettingsQuery activeSettingsQuery) {
+        return propertyRef(defineIntProperty("build-scripts", "change-delay-ms"), activeSettingsQuery, 1000);
+    }
+
+    public PropertyReference<Integer> buildScriptChangeDelayMs() {
+        return buildScriptChangeDelayMs;
+    }
+
     public static PropertyReference<Integer> projectCacheSize(ActiveSettingsQuery activeSettingsQuery) {
         return propertyRef(defineIntProperty("cache", "size"), activeSettingsQuery, 100);
     }
@@ -236,6 +260,20 @@ public final class CommonGlobalSettings {
         return projectCacheSize;
     }
 
+    /**
+     * The percentage of the maximum heap size of the IDE which might remain in
+     * use after garbage collections before cached project models are dropped.
+     * That is, the budget is a share of the total heap used by everything in the
+     * IDE, not the memory retained by the model cache itself.
+     */
+    public static PropertyReference<Integer> projectCacheHeapBudgetPercent(ActiveSettingsQuery activeSettingsQuery) {
+        return propertyRef(defineIntProperty("cache", "heap-budget-percent"), activeSettingsQuery, 60);
+    }
+
+    public PropertyReference<Integer> projectCacheHeapBudgetPercent() {
+        return projectCacheHeapBudgetPercent;
+    }
+
     public static PropertyReference<Integer> gradleDaemonTimeoutSec(ActiveSettingsQuery activeSettingsQuery) {
         return propertyRef(defineIntProperty("daemon", "timeout-seconds"), activeSettingsQuery, null);
     }
@@ -244,6 +282,14 @@ public final class CommonGlobalSettings {
         return gradleDaemonTimeoutSec;
     }
 
+    public static PropertyReference<Integer> maxConcurrentBuildLoads(ActiveSettingsQuery activeSettingsQuery) {
+        return propertyRef(defineIntProperty("daemon", "max-concurrent-loads"), activeSettingsQuery, 2);
+    }
+
+    public PropertyReference<Integer> maxConcurrentBuildLoads() {
+        return maxConcurrentBuildLoads;
+    }
+
     public File tryGetGradleInstallationAsFile() {
         GradleLocationDef locationDef = gradleLocation.getActiveValue();
         GradleLocation location = locationDef.getLocation(StringResolvers.getDefaultGlobalResolver());
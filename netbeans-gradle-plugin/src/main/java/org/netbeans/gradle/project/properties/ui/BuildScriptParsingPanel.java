@@ -43,9 +43,11 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
 
     private final class PropertyRefs implements ProfileEditor {
         private final PropertyReference<Boolean> loadRootProjectFirstRef;
+        private final PropertyReference<Boolean> reloadOnBuildScriptChangeRef;
 
         public PropertyRefs(ActiveSettingsQuery settingsQuery) {
             loadRootProjectFirstRef = CommonGlobalSettings.loadRootProjectFirst(settingsQuery);
+            reloadOnBuildScriptChangeRef = CommonGlobalSettings.reloadOnBuildScriptChange(settingsQuery);
         }
 
         @Override
@@ -63,27 +65,32 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
         private final PropertyRefs properties;
 
         private final Boolean loadRootProjectFirst;
+        private final Boolean reloadOnBuildScriptChange;
 
         public StoredSettingsImpl(PropertyRefs properties) {
             this.properties = properties;
 
             this.loadRootProjectFirst = properties.loadRootProjectFirstRef.tryGetValueWithoutFallback();
+            this.reloadOnBuildScriptChange = properties.reloadOnBuildScriptChangeRef.tryGetValueWithoutFallback();
         }
 
         public StoredSettingsImpl(PropertyRefs properties, BuildScriptParsingPanel panel) {
             this.properties = properties;
 
             this.loadRootProjectFirst = panel.jLoadRootProjectFirst.isSelected();
+            this.reloadOnBuildScriptChange = panel.jReloadOnBuildScriptChange.isSelected();
         }
 
         @Override
         public void displaySettings() {
             displayCheck(jLoadRootProjectFirst, loadRootProjectFirst, properties.loadRootProjectFirstRef);
+            displayCheck(jReloadOnBuildScriptChange, reloadOnBuildScriptChange, properties.reloadOnBuildScriptChangeRef);
         }
 
         @Override
         public void saveSettings() {
             properties.loadRootProjectFirstRef.setValue(loadRootProjectFirst);
+            properties.reloadOnBuildScriptChangeRef.setValue(reloadOnBuildScriptChange);
         }
     }
 
@@ -96,23 +103,30 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
     private void initComponents() {
 
         jLoadRootProjectFirst = new javax.swing.JCheckBox();
+        jReloadOnBuildScriptChange = new javax.swing.JCheckBox();
 
         org.openide.awt.Mnemonics.setLocalizedText(jLoadRootProjectFirst, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jLoadRootProjectFirst.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(jReloadOnBuildScriptChange, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jReloadOnBuildScriptChange.text")); // NOI18N
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(layout.createSequentialGroup()
                 .addContainerGap()
-                .addComponent(jLoadRootProjectFirst)
-                .addContainerGap(215, Short.MAX_VALUE))
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(jLoadRootProjectFirst)
+                    .addComponent(jReloadOnBuildScriptChange))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
         layout.setVerticalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(layout.createSequentialGroup()
                 .addContainerGap()
                 .addComponent(jLoadRootProjectFirst)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jReloadOnBuildScriptChange)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
@@ -120,5 +134,6 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JCheckBox jLoadRootProjectFirst;
+    private javax.swing.JCheckBox jReloadOnBuildScriptChange;
     // End of variables declaration//GEN-END:variables
 }
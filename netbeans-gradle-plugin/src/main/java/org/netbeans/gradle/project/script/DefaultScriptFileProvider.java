@@ -54,6 +54,15 @@ public final class DefaultScriptFileProvider implements ScriptFileProvider {
         return result;
     }
 
+    @Override
+    public Collection<Path> getScriptFileCandidates(Path baseDir, String baseName) {
+        List<Path> result = new ArrayList<>(EXTENSIONS.length);
+        for (String ext: EXTENSIONS) {
+            result.add(baseDir.resolve(baseName + ext));
+        }
+        return result;
+    }
+
     @Override
     public Collection<Path> findScriptFiles(
             Path baseDir,
@@ -12,6 +12,12 @@ public interface ScriptFileProvider {
     public Path findScriptFile(Path baseDir, String baseName);
     public Iterable<Path> findScriptFiles(Path baseDir, String baseName);
 
+    /**
+     * Returns all the paths where {@link #findScriptFile(Path, String) findScriptFile}
+     * looks for the script, regardless if they exist or not.
+     */
+    public Collection<Path> getScriptFileCandidates(Path baseDir, String baseName);
+
     public Collection<Path> findScriptFiles(
             Path baseDir,
             Predicate<? super String> baseNameFilter) throws IOException;
@@ -13,11 +13,11 @@ import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.java.project.JavaProjectConstants;
 import org.netbeans.api.java.queries.SourceForBinaryQuery;
 import org.netbeans.api.project.Project;
-import org.netbeans.api.project.ProjectUtils;
 import org.netbeans.api.project.SourceGroup;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbGradleProjectFactory;
 import org.netbeans.gradle.project.java.query.GradleClassPathProvider;
+import org.netbeans.gradle.project.java.query.GradleProjectSources;
 import org.netbeans.spi.debugger.jpda.EditorContext;
 import org.netbeans.spi.java.classpath.support.ClassPathSupport;
 import org.netbeans.spi.project.SingleMethod;
@@ -33,7 +33,7 @@ import org.openide.windows.OutputWriter;
 public final class DebugUtils {
     public static String getActiveClassName(Project project, Lookup lookup) {
         FileObject[] filesOnLookup = extractFileObjectsfromLookup(lookup);
-        SourceGroup group = findGroup(ProjectUtils.getSources(project).getSourceGroups(JavaProjectConstants.SOURCES_TYPE_JAVA), filesOnLookup);
+        SourceGroup group = findGroup(project, filesOnLookup);
 
         FileObject file = null;
         for (FileObject currentFile : filesOnLookup) {
@@ -62,6 +62,36 @@ public final class DebugUtils {
         return className.toString();
     }
 
+    /**
+     * Returns the names of the classes of all the source files in the given
+     * lookup. Unlike {@link #getActiveClassName(Project, Lookup) getActiveClassName},
+     * the files might be in different source groups.
+     */
+    public static List<String> getActiveClassNames(Project project, Lookup lookup) {
+        List<String> result = new ArrayList<>();
+        for (FileObject file: extractFileObjectsfromLookup(lookup)) {
+            if (file.isFolder()) {
+                continue;
+            }
+
+            SourceGroup group = findGroup(project, new FileObject[]{file});
+            String relP = group != null
+                    ? FileUtil.getRelativePath(group.getRootFolder(), file.getParent())
+                    : null;
+            if (relP == null) {
+                continue;
+            }
+
+            String className = relP.isEmpty()
+                    ? file.getName()
+                    : relP.replace('/', '.') + '.' + file.getName();
+            if (!result.contains(className)) {
+                result.add(className);
+            }
+        }
+        return result;
+    }
+
     private static FileObject[] extractFileObjectsfromLookup(Lookup lookup) {
         List<FileObject> files = new ArrayList<>(lookup.lookupAll(FileObject.class));
         if (files.isEmpty()) { // fallback to old nodes
@@ -82,25 +112,23 @@ public final class DebugUtils {
      * Finds the one source group, if any, which contains all of the listed
      * files.
      */
-    private static SourceGroup findGroup(SourceGroup[] groups, FileObject[] files) {
+    private static SourceGroup findGroup(Project project, FileObject[] files) {
         SourceGroup selected = null;
         for (FileObject file : files) {
-            for (SourceGroup group : groups) {
-                FileObject root = group.getRootFolder();
-                if (file == root || FileUtil.isParentOf(root, file)) { // or group.contains(file)?
-                    if (selected == null) {
-                        selected = group;
-                    }
-                    else if (selected != group) {
-                        return null;
-                    }
+            SourceGroup group = GradleProjectSources.tryFindSourceGroupOf(project, JavaProjectConstants.SOURCES_TYPE_JAVA, file);
+            if (group != null) {
+                if (selected == null) {
+                    selected = group;
+                }
+                else if (selected != group) {
+                    return null;
                 }
             }
         }
         return selected;
     }
 
-    public static void applyChanges(Project project, OutputWriter logger, String classname) {
+    public static void applyChanges(Project project, OutputWriter logger, Collection<String> classnames) {
         // check debugger state
         DebuggerEngine debuggerEngine = DebuggerManager.getDebuggerManager().
                 getCurrentEngine();
@@ -126,33 +154,9 @@ public final class DebugUtils {
         EditorContext editorContext = DebuggerManager.
                 getDebuggerManager().lookupFirst(null, EditorContext.class);
 
-        String clazz = classname.replace('.', '/') + ".class"; //NOI18N
         GradleClassPathProvider prv = project.getLookup().lookup(GradleClassPathProvider.class);
-        FileObject fo2 = prv.getBuildOutputClassPaths().findResource(clazz);
-
-        if (fo2 != null) {
-            try {
-                String basename = fo2.getName();
-                for (FileObject classfile : fo2.getParent().getChildren()) {
-                    String basename2 = classfile.getName();
-                    if (/*#220338*/!"class".equals(classfile.getExt()) || (!basename2.equals(basename) && !basename2.startsWith(basename + '$'))) {
-                        continue;
-                    }
-                    String url = classToSourceURL(classfile, logger);
-                    if (url != null) {
-                        editorContext.updateTimeStamp(debugger, url);
-                    }
-                    map.put(classname + basename2.substring(basename.length()), classfile.asBytes());
-                }
-            } catch (IOException ex) {
-                NbGradleProject gradleProject = NbGradleProjectFactory.tryGetGradleProject(project);
-                if (gradleProject != null) {
-                    gradleProject.displayError("Unexpected error.", ex);
-                }
-                else {
-                    throw new IllegalStateException("Unexpected error in an unexpected project type.", ex);
-                }
-            }
+        for (String classname: classnames) {
+            addClassFiles(project, logger, debugger, editorContext, prv, classname, map);
         }
 
         logger.println("NetBeans: classes to reload: " + map.keySet());
@@ -181,6 +185,44 @@ public final class DebugUtils {
         }
     }
 
+    private static void addClassFiles(
+            Project project,
+            OutputWriter logger,
+            JPDADebugger debugger,
+            EditorContext editorContext,
+            GradleClassPathProvider prv,
+            String classname,
+            Map<String, byte[]> map) {
+
+        String clazz = classname.replace('.', '/') + ".class"; //NOI18N
+        FileObject fo2 = prv.getBuildOutputClassPaths().findResource(clazz);
+
+        if (fo2 != null) {
+            try {
+                String basename = fo2.getName();
+                for (FileObject classfile : fo2.getParent().getChildren()) {
+                    String basename2 = classfile.getName();
+                    if (/*#220338*/!"class".equals(classfile.getExt()) || (!basename2.equals(basename) && !basename2.startsWith(basename + '$'))) {
+                        continue;
+                    }
+                    String url = classToSourceURL(classfile, logger);
+                    if (url != null) {
+                        editorContext.updateTimeStamp(debugger, url);
+                    }
+                    map.put(classname + basename2.substring(basename.length()), classfile.asBytes());
+                }
+            } catch (IOException ex) {
+                NbGradleProject gradleProject = NbGradleProjectFactory.tryGetGradleProject(project);
+                if (gradleProject != null) {
+                    gradleProject.displayError("Unexpected error.", ex);
+                }
+                else {
+                    throw new IllegalStateException("Unexpected error in an unexpected project type.", ex);
+                }
+            }
+        }
+    }
+
     private static String classToSourceURL(FileObject fo, OutputWriter logger) {
         ClassPath cp = ClassPath.getClassPath(fo, ClassPath.EXECUTE);
         if (cp == null) {
@@ -3,7 +3,7 @@ package org.netbeans.gradle.project.tasks;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jtrim2.cancel.CancelableWaits;
@@ -12,26 +12,48 @@ import org.jtrim2.cancel.CancellationController;
 import org.jtrim2.cancel.CancellationSource;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.concurrent.AsyncTasks;
+import org.jtrim2.concurrent.Tasks;
 import org.jtrim2.executor.TaskExecutor;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.gradle.project.api.task.CommandCompleteListener;
+import org.netbeans.gradle.project.model.metrics.ModelLoadMetrics;
+import org.netbeans.gradle.project.model.metrics.ModelLoadPhase;
+import org.netbeans.gradle.project.model.metrics.PhaseMeasurement;
 
 public final class GradleDaemonManager {
     private static final Logger LOGGER = Logger.getLogger(GradleDaemonManager.class.getName());
 
-    private static final ReentrantLock QUEUE_LOCK = new ReentrantLock(true);
+    // Non-blocking tasks hold the write lock, model loading tasks hold the
+    // read lock, so that model loads of different builds may run concurrently.
+    private static final ReentrantReadWriteLock QUEUE_LOCK = new ReentrantReadWriteLock(true);
 
     private static void runNonBlockingGradleTask(
             CancellationToken cancelToken,
             DaemonTask task,
             ProgressHandle progress) {
 
-        CancelableWaits.lock(cancelToken, QUEUE_LOCK);
+        CancelableWaits.lock(cancelToken, QUEUE_LOCK.writeLock());
         try {
             progress.switchToIndeterminate();
             task.run(cancelToken, progress);
         } finally{
-            QUEUE_LOCK.unlock();
+            QUEUE_LOCK.writeLock().unlock();
+        }
+    }
+
+    private static void runModelLoadTask(
+            CancellationToken cancelToken,
+            DaemonTask task,
+            ProgressHandle progress,
+            PhaseMeasurement queueWait) {
+
+        CancelableWaits.lock(cancelToken, QUEUE_LOCK.readLock());
+        try {
+            queueWait.close();
+            progress.switchToIndeterminate();
+            task.run(cancelToken, progress);
+        } finally{
+            QUEUE_LOCK.readLock().unlock();
         }
     }
 
@@ -41,15 +63,15 @@ public final class GradleDaemonManager {
             ProgressHandle progress) {
 
         // This lock/unlock is here only to wait for pending non-blocking tasks.
-        CancelableWaits.lock(cancelToken, QUEUE_LOCK);
-        QUEUE_LOCK.unlock();
+        CancelableWaits.lock(cancelToken, QUEUE_LOCK.writeLock());
+        QUEUE_LOCK.writeLock().unlock();
 
         progress.switchToIndeterminate();
         task.run(cancelToken, progress);
     }
 
     public static boolean isRunningExclusiveTask() {
-        return QUEUE_LOCK.isHeldByCurrentThread();
+        return QUEUE_LOCK.isWriteLockedByCurrentThread() || QUEUE_LOCK.getReadHoldCount() > 0;
     }
 
     public static void submitGradleTask(
@@ -72,6 +94,46 @@ public final class GradleDaemonManager {
             TaskExecutor executor,
             final DaemonTaskDefFactory taskDefFactory,
             final CommandCompleteListener listener) {
+        submitGradleTask(executor, taskDefFactory, false, listener, Tasks.noOpTask());
+    }
+
+    /**
+     * Submits a task loading the models of a build. Such tasks may run
+     * concurrently with each other (so the caller is responsible for not
+     * loading the same build concurrently) but not with non-blocking tasks,
+     * and blocking tasks wait for them just like for non-blocking tasks.
+     *
+     * @param executor the executor to run the task on. This argument cannot
+     *   be {@code null}.
+     * @param caption the caption of the progress shown while the task is
+     *   running. This argument cannot be {@code null}.
+     * @param task the task loading the models. This argument cannot be
+     *   {@code null}.
+     * @param cleanupTask the task to be run after the given task completed or
+     *   was canceled (even if it was canceled before being started). This
+     *   argument cannot be {@code null}.
+     */
+    public static void submitModelLoadTask(
+            TaskExecutor executor,
+            String caption,
+            DaemonTask task,
+            Runnable cleanupTask) {
+        Objects.requireNonNull(cleanupTask, "cleanupTask");
+
+        CommandCompleteListener listener = (Throwable error) -> {
+            if (error != null) {
+                LOGGER.log(Level.SEVERE, "Unexpected error while loading models: " + caption, error);
+            }
+        };
+        submitGradleTask(executor, new DaemonTaskDef(caption, true, task).toFactory(), true, listener, cleanupTask);
+    }
+
+    private static void submitGradleTask(
+            TaskExecutor executor,
+            final DaemonTaskDefFactory taskDefFactory,
+            final boolean modelLoad,
+            final CommandCompleteListener listener,
+            final Runnable cleanupTask) {
         Objects.requireNonNull(executor, "executor");
         Objects.requireNonNull(taskDefFactory, "taskDefFactory");
         Objects.requireNonNull(listener, "listener");
@@ -88,6 +150,12 @@ public final class GradleDaemonManager {
             }
         });
 
+        // Only model loads are measured, since other tasks (e.g., builds) are
+        // not part of loading a project.
+        PhaseMeasurement queueWait = modelLoad
+                ? ModelLoadMetrics.getDefault().startPhase(ModelLoadPhase.DAEMON_QUEUE_WAIT, origDisplayName)
+                : null;
+
         progress.start(origDisplayName);
         executor.execute(cancel.getToken(), (CancellationToken cancelToken) -> {
             inProgress.set(true);
@@ -113,7 +181,10 @@ public final class GradleDaemonManager {
                 progress.start(displayName);
             }
 
-            if (nonBlocking) {
+            if (modelLoad) {
+                runModelLoadTask(cancelToken, task, progress.getCurrentHandle(), queueWait);
+            }
+            else if (nonBlocking) {
                 runNonBlockingGradleTask(cancelToken, task, progress.getCurrentHandle());
             }
             else {
@@ -128,7 +199,16 @@ public final class GradleDaemonManager {
             }
             return null;
         }).whenComplete((result, error) -> {
-            progress.finish();
+            try {
+                if (queueWait != null) {
+                    // Does nothing if the task was started, otherwise the wait
+                    // was not completed and must not be recorded.
+                    queueWait.discard();
+                }
+                progress.finish();
+            } finally {
+                cleanupTask.run();
+            }
         }).exceptionally(AsyncTasks::expectNoError);
     }
 
@@ -14,6 +14,7 @@ import org.netbeans.api.project.Project;
 import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.api.modelquery.GradleTarget;
+import org.netbeans.gradle.project.api.task.CommandCompleteListener;
 import org.netbeans.gradle.project.api.task.CommandExceptionHider;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandAction;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandArguments;
@@ -562,6 +563,37 @@ public final class GradleTaskDef {
         builder.addArguments(processList(argumentList, strResolver));
     }
 
+    private static CancellationToken getCancelToken(CustomCommandActions customActions, Lookup actionContext) {
+        CancellationToken commandCancelToken = customActions.getCancelToken();
+        CancellationToken contextCancelToken = actionContext.lookup(CancellationToken.class);
+        return contextCancelToken != null
+                ? Cancellation.anyToken(commandCancelToken, contextCancelToken)
+                : commandCancelToken;
+    }
+
+    private static ContextAwareCommandCompleteListener getCommandFinalizer(
+            NbGradleProject project,
+            CustomCommandActions customActions,
+            Lookup actionContext) {
+
+        ContextAwareCommandCompleteAction contextAwareFinalizer = customActions.getContextAwareFinalizer();
+        ContextAwareCommandCompleteListener finalizer1 = contextAwareFinalizer != null
+                ? contextAwareFinalizer.startCommand(project, actionContext)
+                : null;
+        CommandCompleteListener finalizer2 = actionContext.lookup(CommandCompleteListener.class);
+
+        if (finalizer2 == null) return finalizer1;
+        if (finalizer1 == null) return (executedCommandContext, error) -> finalizer2.onComplete(error);
+
+        return (executedCommandContext, error) -> {
+            try {
+                finalizer1.onComplete(executedCommandContext, error);
+            } finally {
+                finalizer2.onComplete(error);
+            }
+        };
+    }
+
     public static GradleTaskDef.Builder createFromTemplate(
             NbGradleProject project,
             GradleCommandTemplate command,
@@ -575,7 +607,7 @@ public final class GradleTaskDef {
         GradleTaskDef.Builder builder = createFromTemplate(caption, command, strResolver);
         addAdditionalArguments(project, actionContext, customActions, strResolver, builder);
 
-        builder.setCancelToken(customActions.getCancelToken());
+        builder.setCancelToken(getCancelToken(customActions, actionContext));
         builder.setNonUserTaskVariables(varReplaceMap);
 
         builder.setStdOutListener(outputProcessor(
@@ -597,11 +629,9 @@ public final class GradleTaskDef {
             builder.setSuccessfulCommandFinalizer(finalizer);
         }
 
-        ContextAwareCommandCompleteAction contextAwareFinalizer = customActions.getContextAwareFinalizer();
-        if (contextAwareFinalizer != null) {
-            ContextAwareCommandCompleteListener finalizer
-                    = contextAwareFinalizer.startCommand(project, actionContext);
-            builder.setCommandFinalizer(finalizer);
+        ContextAwareCommandCompleteListener commandFinalizer = getCommandFinalizer(project, customActions, actionContext);
+        if (commandFinalizer != null) {
+            builder.setCommandFinalizer(commandFinalizer);
         }
 
         CommandExceptionHider exceptionHider = customActions.getCommandExceptionHider();
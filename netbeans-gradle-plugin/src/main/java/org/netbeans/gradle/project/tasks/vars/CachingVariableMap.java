@@ -22,10 +22,24 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
     public static final class VariableDef<ProjectInfo> {
         private final TaskVariable variable;
         private final ValueGetter<ProjectInfo> valueGetter;
+        private final boolean reusable;
 
         public VariableDef(TaskVariable variable, ValueGetter<ProjectInfo> valueGetter) {
+            this(variable, valueGetter, false);
+        }
+
+        /**
+         * Creates a new variable definition.
+         *
+         * @param reusable {@code true} if the value of the variable only depends
+         *   on the model of the project and the files selected for the action,
+         *   so that it can be reused by subsequent actions through a
+         *   {@link VariableValueCache}
+         */
+        public VariableDef(TaskVariable variable, ValueGetter<ProjectInfo> valueGetter, boolean reusable) {
             this.variable = variable;
             this.valueGetter = valueGetter;
+            this.reusable = reusable;
         }
 
         public TaskVariable getVariable() {
@@ -36,6 +50,10 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
             return valueGetter;
         }
 
+        public boolean isReusable() {
+            return reusable;
+        }
+
         public VariableValue tryGetValue(TaskVariableMap variables, ProjectInfo project, Lookup actionContext) {
             return valueGetter.getValue(variables, project, actionContext);
         }
@@ -61,15 +79,42 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
     private final VariableDefMap<ProjectInfo> taskVariableMap;
 
     private final ConcurrentMap<TaskVariable, VariableValue> cache;
+    private final ConcurrentMap<TaskVariable, VariableValue> reusedCache;
 
     public CachingVariableMap(
             VariableDefMap<ProjectInfo> taskVariableMap,
             ProjectInfo project,
             Lookup actionContext) {
+        this(taskVariableMap, project, actionContext, null);
+    }
+
+    /**
+     * Creates a new variable map, which stores the values of the reusable
+     * variables in the given cache.
+     *
+     * @param modelVersion the object identifying the current model of the
+     *   project. See {@link VariableValueCache}. This argument cannot be
+     *   {@code null}.
+     */
+    public CachingVariableMap(
+            VariableDefMap<ProjectInfo> taskVariableMap,
+            ProjectInfo project,
+            Lookup actionContext,
+            VariableValueCache valueCache,
+            Object modelVersion) {
+        this(taskVariableMap, project, actionContext, valueCache.tryGetValues(modelVersion, actionContext));
+    }
+
+    private CachingVariableMap(
+            VariableDefMap<ProjectInfo> taskVariableMap,
+            ProjectInfo project,
+            Lookup actionContext,
+            ConcurrentMap<TaskVariable, VariableValue> reusedCache) {
         this.project = Objects.requireNonNull(project, "project");
         this.actionContext = Objects.requireNonNull(actionContext, "actionContext");
         this.taskVariableMap = Objects.requireNonNull(taskVariableMap, "taskVariableMap");
         this.cache = new ConcurrentHashMap<>();
+        this.reusedCache = reusedCache;
     }
 
     @Override
@@ -79,11 +124,15 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
             return null;
         }
 
-        VariableValue result = cache.get(variable);
+        ConcurrentMap<TaskVariable, VariableValue> valueCache = var.isReusable() && reusedCache != null
+                ? reusedCache
+                : cache;
+
+        VariableValue result = valueCache.get(variable);
         if (result == null) {
             result = var.tryGetValue(this, project, actionContext);
 
-            VariableValue prevResult = cache.putIfAbsent(variable, result);
+            VariableValue prevResult = valueCache.putIfAbsent(variable, result);
             if (prevResult != null) {
                 result = prevResult;
             }
@@ -0,0 +1,115 @@
+package org.netbeans.gradle.project.tasks.vars;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Defines a string containing variable references split into literal texts
+ * and variable references, so that the variables can be replaced without
+ * parsing the string again.
+ * <P>
+ * Instances of this class are immutable.
+ */
+final class CompiledTemplate {
+    private final String template;
+    private final List<Segment> segments;
+    private final boolean hasVariables;
+
+    private CompiledTemplate(String template, List<Segment> segments) {
+        this.template = template;
+        this.segments = Collections.unmodifiableList(segments);
+
+        boolean foundVariable = false;
+        for (Segment segment: segments) {
+            if (segment.variable != null) {
+                foundVariable = true;
+                break;
+            }
+        }
+        this.hasVariables = foundVariable;
+    }
+
+    public static CompiledTemplate compile(String template) {
+        Objects.requireNonNull(template, "template");
+
+        List<Segment> segments = new ArrayList<>();
+
+        int literalStart = 0;
+        int index = 0;
+        while (index < template.length()) {
+            if (template.charAt(index) == '$') {
+                int varStart = template.indexOf('{', index + 1);
+                int varEnd = varStart >= 0
+                        ? StringUtils.unescapedIndexOf(template, varStart + 1, '}')
+                        : -1;
+                if (varStart >= 0 && varEnd >= varStart) {
+                    String varDef = template.substring(varStart + 1, varEnd);
+                    DisplayedTaskVariable taskVar = LenientVariableResolver.tryParseTaskVariable(varDef);
+
+                    if (taskVar != null) {
+                        if (literalStart < index) {
+                            segments.add(new Segment(template.substring(literalStart, index), null));
+                        }
+
+                        int nextIndex = varEnd + 1;
+                        segments.add(new Segment(template.substring(index, nextIndex), taskVar));
+
+                        literalStart = nextIndex;
+                        index = nextIndex;
+                        continue;
+                    }
+                }
+            }
+            index++;
+        }
+
+        if (literalStart < template.length()) {
+            segments.add(new Segment(template.substring(literalStart), null));
+        }
+
+        return new CompiledTemplate(template, segments);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public String replaceVars(
+            TaskVariableMap varReplaceMap,
+            Collection<? super DisplayedTaskVariable> collectedVariables) {
+
+        if (!hasVariables) {
+            return template;
+        }
+
+        StringBuilder result = new StringBuilder(template.length() * 2);
+        for (Segment segment: segments) {
+            DisplayedTaskVariable taskVar = segment.variable;
+            if (taskVar == null) {
+                result.append(segment.text);
+                continue;
+            }
+
+            collectedVariables.add(taskVar);
+
+            String value = varReplaceMap.tryGetValueForVariable(taskVar.getVariable());
+            result.append(value != null ? value : segment.text);
+        }
+        return result.toString();
+    }
+
+    private static final class Segment {
+        private final String text;
+        private final DisplayedTaskVariable variable;
+
+        public Segment(String text, DisplayedTaskVariable variable) {
+            this.text = text;
+            this.variable = variable;
+        }
+    }
+}
@@ -2,8 +2,12 @@ package org.netbeans.gradle.project.tasks.vars;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nonnull;
 import org.netbeans.gradle.project.api.task.TaskVariable;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
@@ -15,6 +19,47 @@ final class LenientVariableResolver implements VariableResolver {
     private static final char END_TYPE_CHAR = ']';
     private static final char DISPLAY_NAME_SEPARATOR = ':';
 
+    private static final int MAX_CACHED_TEMPLATE_COUNT = 1024;
+
+    private final Lock templatesLock;
+    private final Map<String, CompiledTemplate> compiledTemplates;
+
+    public LenientVariableResolver() {
+        this.templatesLock = new ReentrantLock();
+        this.compiledTemplates = new LinkedHashMap<String, CompiledTemplate>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledTemplate> eldest) {
+                return size() > MAX_CACHED_TEMPLATE_COUNT;
+            }
+        };
+    }
+
+    private CompiledTemplate getCompiledTemplate(String str) {
+        // The same strings of the command templates are resolved each time
+        // a command is executed, so they are only parsed the first time.
+        templatesLock.lock();
+        try {
+            CompiledTemplate result = compiledTemplates.get(str);
+            if (result != null) {
+                return result;
+            }
+        } finally {
+            templatesLock.unlock();
+        }
+
+        CompiledTemplate result = CompiledTemplate.compile(str);
+
+        templatesLock.lock();
+        try {
+            compiledTemplates.put(str, result);
+        } finally {
+            templatesLock.unlock();
+        }
+        return result;
+    }
+
     @Override
     public String replaceVars(String str, TaskVariableMap varReplaceMap) {
         return replaceVars(str, varReplaceMap, NbCollectionsEx.getDevNullCollection());
@@ -26,50 +71,7 @@ final class LenientVariableResolver implements VariableResolver {
         Objects.requireNonNull(varReplaceMap, "varReplaceMap");
         Objects.requireNonNull(collectedVariables, "collectedVariables");
 
-        StringBuilder result = null;
-        int index = 0;
-        while (index < str.length()) {
-            char ch = str.charAt(index);
-            if (ch == '$') {
-                int varStart = str.indexOf('{', index + 1);
-                int varEnd = varStart >= 0
-                        ? StringUtils.unescapedIndexOf(str, varStart + 1, '}')
-                        : -1;
-                if (varStart >= 0 && varEnd >= varStart) {
-                    String varDef = str.substring(varStart + 1, varEnd);
-                    DisplayedTaskVariable taskVar = tryParseTaskVariable(varDef);
-
-                    if (taskVar != null) {
-                        collectedVariables.add(taskVar);
-
-                        int nextIndex = varEnd + 1;
-
-                        String value = varReplaceMap.tryGetValueForVariable(taskVar.getVariable());
-                        if (value != null) {
-                            if (result == null) {
-                                result = new StringBuilder(str.length() * 2);
-                                result.append(str, 0, index);
-                            }
-                            result.append(value);
-                        }
-                        else {
-                            if (result != null) {
-                                result.append(str, index, nextIndex);
-                            }
-                        }
-                        index = nextIndex;
-                        continue;
-                    }
-                }
-            }
-
-            if (result != null) {
-                result.append(ch);
-            }
-
-            index++;
-        }
-        return result != null ? result.toString() : str;
+        return getCompiledTemplate(str).replaceVars(varReplaceMap, collectedVariables);
     }
 
     @Override
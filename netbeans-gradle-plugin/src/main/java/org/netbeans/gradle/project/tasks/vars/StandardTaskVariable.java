@@ -11,13 +11,13 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.netbeans.api.java.project.JavaProjectConstants;
-import org.netbeans.api.project.ProjectUtils;
 import org.netbeans.api.project.SourceGroup;
 import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.api.entry.ProjectPlatform;
 import org.netbeans.gradle.project.api.task.TaskVariable;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.java.query.GradleProjectSources;
 import org.netbeans.gradle.project.java.test.SpecificTestClass;
 import org.netbeans.gradle.project.java.test.SpecificTestcase;
 import org.netbeans.gradle.project.java.test.TestTaskName;
@@ -43,7 +43,7 @@ public enum StandardTaskVariable {
         }
         return new VariableValue(uniqueName);
     }),
-    SELECTED_CLASS("selected-class", (variables, project, actionContext) -> {
+    SELECTED_CLASS("selected-class", true, (variables, project, actionContext) -> {
         return getOneValue(getSelectedClasses(project, actionContext));
     }),
     SELECTED_FILE("selected-file", (variables, project, actionContext) -> {
@@ -84,10 +84,10 @@ public enum StandardTaskVariable {
     }),
     CMD_LINE_ARGS("cmd-line-args", (variables, project, actionContext) -> VariableValue.EMPTY_VALUE),
     JVM_LINE_ARGS("jvm-line-args", (variables, project, actionContext) -> VariableValue.EMPTY_VALUE),
-    TEST_CLASSES_ARGS("test-classes-args", (variables, project, actionContext) -> {
+    TEST_CLASSES_ARGS("test-classes-args", true, (variables, project, actionContext) -> {
         return toTestArgument(getSelectedClasses(project, actionContext));
     }),
-    TEST_CLASSES_STARED_ARGS("test-classes-stared-args", (variables, project, actionContext) -> {
+    TEST_CLASSES_STARED_ARGS("test-classes-stared-args", true, (variables, project, actionContext) -> {
         List<String> classes = getSelectedClasses(project, actionContext);
         List<String> staredClasses = new ArrayList<>(classes.size());
         for (String cl: classes) {
@@ -112,22 +112,16 @@ public enum StandardTaskVariable {
     }
 
     private static String tryGetClassNameForFile(NbGradleProject project, FileObject file) {
-        SourceGroup[] sourceGroups = ProjectUtils.getSources(project)
-                .getSourceGroups(JavaProjectConstants.SOURCES_TYPE_JAVA);
-
-        String relFileName = null;
-        for (SourceGroup group: sourceGroups) {
-            FileObject sourceRoot = group.getRootFolder();
-            String relPath = FileUtil.getRelativePath(sourceRoot, file);
-            if (relPath != null) {
-                // Remove the ".java" or ".groovy" from the end of
-                // the file name
-                relFileName = removeExtension(relPath);
-                break;
-            }
+        SourceGroup group = GradleProjectSources.tryFindSourceGroupOf(project, JavaProjectConstants.SOURCES_TYPE_JAVA, file);
+        String relPath = group != null
+                ? FileUtil.getRelativePath(group.getRootFolder(), file)
+                : null;
+        if (relPath == null) {
+            return null;
         }
 
-        return relFileName != null ? relFileName.replace('/', '.') : null;
+        // Remove the ".java" or ".groovy" from the end of the file name
+        return removeExtension(relPath).replace('/', '.');
     }
 
     private static String tryGetMethodReplaceVariable(
@@ -205,14 +199,25 @@ public enum StandardTaskVariable {
 
     public static TaskVariableMap createVarReplaceMap(
             NbGradleProject project, Lookup actionContext) {
-        return new CachingVariableMap<>(TASK_VARIABLE_MAP, project, actionContext);
+        return new CachingVariableMap<>(
+                TASK_VARIABLE_MAP,
+                project,
+                actionContext,
+                project.getTaskVariableCache(),
+                project.currentModel().getValue());
     }
 
     private final TaskVariable variable;
+    private final boolean reusable;
     private final ValueGetter<NbGradleProject> valueGetter;
 
     private StandardTaskVariable(String variableName, ValueGetter<NbGradleProject> valueGetter) {
+        this(variableName, false, valueGetter);
+    }
+
+    private StandardTaskVariable(String variableName, boolean reusable, ValueGetter<NbGradleProject> valueGetter) {
         this.variable = new TaskVariable(variableName);
+        this.reusable = reusable;
         this.valueGetter = valueGetter;
     }
 
@@ -285,6 +290,6 @@ public enum StandardTaskVariable {
     }
 
     private VariableDef<NbGradleProject> asVariableDef() {
-        return new VariableDef<>(variable, valueGetter);
+        return new VariableDef<>(variable, valueGetter, reusable);
     }
 }
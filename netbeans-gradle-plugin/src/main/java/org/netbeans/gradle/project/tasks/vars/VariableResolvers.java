@@ -11,6 +11,15 @@ public final class VariableResolvers {
         return LENIENT_RESOLVER;
     }
 
+    /**
+     * Creates a new lenient resolver with its own (initially empty) cache of
+     * parsed templates. Usually the {@link #getLenientVariableResolver() shared}
+     * resolver should be used instead.
+     */
+    public static VariableResolver createLenientVariableResolver() {
+        return new LenientVariableResolver();
+    }
+
     private VariableResolvers() {
         throw new AssertionError();
     }
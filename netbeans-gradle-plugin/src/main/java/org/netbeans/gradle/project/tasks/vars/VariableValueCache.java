@@ -0,0 +1,110 @@
+package org.netbeans.gradle.project.tasks.vars;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.netbeans.gradle.project.api.task.TaskVariable;
+import org.netbeans.gradle.project.java.test.SpecificTestClass;
+import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableValue;
+import org.netbeans.spi.project.SingleMethod;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.DataObject;
+import org.openide.util.Lookup;
+
+/**
+ * Stores the values of the {@link CachingVariableMap.VariableDef#isReusable() reusable}
+ * variables of a project between the executions of actions. The values are
+ * stored separately for each set of files selected for the action and all
+ * values are forgotten when the model of the project changes.
+ * <P>
+ * Methods of this class can be called from multiple threads concurrently.
+ */
+public final class VariableValueCache {
+    private static final int DEFAULT_MAX_CONTEXT_COUNT = 16;
+
+    private final Lock mainLock;
+    private final Map<List<Object>, ConcurrentMap<TaskVariable, VariableValue>> contextValues;
+    private Object cachedModelVersion;
+
+    public VariableValueCache() {
+        this(DEFAULT_MAX_CONTEXT_COUNT);
+    }
+
+    public VariableValueCache(int maxContextCount) {
+        if (maxContextCount <= 0) {
+            throw new IllegalArgumentException("Illegal maxContextCount: " + maxContextCount);
+        }
+
+        this.mainLock = new ReentrantLock();
+        this.contextValues = new LinkedHashMap<List<Object>, ConcurrentMap<TaskVariable, VariableValue>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, ConcurrentMap<TaskVariable, VariableValue>> eldest) {
+                return size() > maxContextCount;
+            }
+        };
+        this.cachedModelVersion = null;
+    }
+
+    /**
+     * Returns the values stored for the files of the given action context or
+     * {@code null} if the values for the given context must not be reused.
+     *
+     * @param modelVersion the object identifying the current model of the
+     *   project. Values stored for a different (not the same) object are
+     *   discarded. This argument cannot be {@code null}.
+     * @param actionContext the context of the action being executed. This
+     *   argument cannot be {@code null}.
+     */
+    ConcurrentMap<TaskVariable, VariableValue> tryGetValues(Object modelVersion, Lookup actionContext) {
+        Objects.requireNonNull(modelVersion, "modelVersion");
+
+        List<Object> contextKey = tryGetContextKey(actionContext);
+        if (contextKey == null) {
+            return null;
+        }
+
+        mainLock.lock();
+        try {
+            if (cachedModelVersion != modelVersion) {
+                contextValues.clear();
+                cachedModelVersion = modelVersion;
+            }
+            return contextValues.computeIfAbsent(contextKey, key -> new ConcurrentHashMap<>());
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static List<Object> tryGetContextKey(Lookup actionContext) {
+        // Explicitly selected test classes override the class of the selected
+        // files, so they would have to be part of the key.
+        if (!actionContext.lookupAll(SpecificTestClass.class).isEmpty()) {
+            return null;
+        }
+
+        List<Object> result = new ArrayList<>();
+        for (SingleMethod method: actionContext.lookupAll(SingleMethod.class)) {
+            addFileKey(method.getFile(), result);
+        }
+        for (DataObject dataObj: actionContext.lookupAll(DataObject.class)) {
+            addFileKey(dataObj.getPrimaryFile(), result);
+        }
+        return result;
+    }
+
+    private static void addFileKey(FileObject file, List<Object> result) {
+        if (file != null) {
+            // The path is added as well because the file might have been renamed.
+            result.add(file);
+            result.add(file.getPath());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.concurrent.AsyncTasks;
+import org.jtrim2.executor.TaskExecutor;
+
+/**
+ * Collects keys reported in quick succession and forwards them as a single batch
+ * after no new key was reported for a given quiet period.
+ * <P>
+ * The quiet period is timed by a scheduled executor, so no thread is blocked
+ * while waiting for it. The batches are forwarded on the executor specified at
+ * construction time.
+ *
+ * @param <KeyType> the type of the reported keys
+ */
+public final class CoalescingKeyDispatcher<KeyType> {
+    private final ScheduledExecutorService timer;
+    private final TaskExecutor dispatchExecutor;
+    private final LongSupplier quietPeriodMsProvider;
+    private final Consumer<? super Set<KeyType>> dispatcher;
+
+    private final Lock mainLock;
+    private Set<KeyType> pendingKeys;
+    private long lastReportNanos;
+    private boolean waiting;
+
+    public CoalescingKeyDispatcher(
+            TaskExecutor dispatchExecutor,
+            LongSupplier quietPeriodMsProvider,
+            Consumer<? super Set<KeyType>> dispatcher) {
+        this(NbTaskExecutors.DEFAULT_TIMER, dispatchExecutor, quietPeriodMsProvider, dispatcher);
+    }
+
+    public CoalescingKeyDispatcher(
+            ScheduledExecutorService timer,
+            TaskExecutor dispatchExecutor,
+            LongSupplier quietPeriodMsProvider,
+            Consumer<? super Set<KeyType>> dispatcher) {
+        this.timer = Objects.requireNonNull(timer, "timer");
+        this.dispatchExecutor = Objects.requireNonNull(dispatchExecutor, "dispatchExecutor");
+        this.quietPeriodMsProvider = Objects.requireNonNull(quietPeriodMsProvider, "quietPeriodMsProvider");
+        this.dispatcher = Objects.requireNonNull(dispatcher, "dispatcher");
+        this.mainLock = new ReentrantLock();
+        this.pendingKeys = new HashSet<>();
+        this.lastReportNanos = 0;
+        this.waiting = false;
+    }
+
+    public void reportKey(KeyType key) {
+        Objects.requireNonNull(key, "key");
+
+        boolean startWaiting;
+        mainLock.lock();
+        try {
+            pendingKeys.add(key);
+            lastReportNanos = System.nanoTime();
+
+            startWaiting = !waiting;
+            waiting = true;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (startWaiting) {
+            scheduleCheck(quietPeriodMsProvider.getAsLong());
+        }
+    }
+
+    private void scheduleCheck(long delayMs) {
+        timer.schedule(this::checkQuietPeriod, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    private void checkQuietPeriod() {
+        long remainingMs;
+        Set<KeyType> keysToDispatch = null;
+
+        mainLock.lock();
+        try {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReportNanos);
+            remainingMs = quietPeriodMsProvider.getAsLong() - elapsedMs;
+            if (remainingMs <= 0) {
+                keysToDispatch = pendingKeys;
+                pendingKeys = new HashSet<>();
+                waiting = false;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (keysToDispatch == null) {
+            // Keys were reported since the check was scheduled.
+            scheduleCheck(remainingMs);
+            return;
+        }
+
+        Set<KeyType> dispatchedKeys = Collections.unmodifiableSet(keysToDispatch);
+        dispatchExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> dispatcher.accept(dispatchedKeys))
+                .exceptionally(AsyncTasks::expectNoError);
+    }
+}
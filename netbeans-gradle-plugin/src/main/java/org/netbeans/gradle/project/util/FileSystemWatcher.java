@@ -12,18 +12,26 @@ import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.nio.file.Watchable;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jtrim2.cancel.CancelableWaits;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.collections.RefLinkedList;
@@ -37,40 +45,157 @@ import org.jtrim2.executor.TaskExecutor;
 import org.jtrim2.executor.UpdateTaskExecutor;
 import org.jtrim2.swing.concurrent.SwingExecutors;
 
+/**
+ * Notifies listeners about changes of individual paths.
+ * <P>
+ * Each watched path is attached to the nearest existing ancestor directory and
+ * a single watch key is shared by every path attached to the same directory.
+ * Events are dispatched without locking: only registering, unregistering and
+ * moving paths between directories (when a missing ancestor gets created or a
+ * watched directory gets deleted) requires a lock.
+ * <P>
+ * Paths which cannot be watched natively (because the file system has no watch
+ * service or registering the directory fails) are periodically polled instead.
+ * If the watch loop stops unexpectedly, its paths are polled until a new watch
+ * service is created (when a new path is registered), at which point every
+ * polled path is attempted to be watched natively again.
+ * <P>
+ * Directories are only watched for modifications of their entries while there
+ * is a path attached to them {@link #watchPathContent(Path, Runnable) watched for content changes},
+ * so that writing the files of a directory does not wake up the watcher if only
+ * the existence of some paths is watched there.
+ */
 public final class FileSystemWatcher {
 
     private static final Logger LOGGER = Logger.getLogger(FileSystemWatcher.class.getName());
 
-    private static final WatchEvent.Kind<?>[] EVENTS = new WatchEvent.Kind<?>[]{
+    private static final long DEFAULT_POLL_INTERVAL_MS = 2000;
+
+    private static final WatchEvent.Kind<?>[] EXISTENCE_EVENTS = new WatchEvent.Kind<?>[]{
         StandardWatchEventKinds.ENTRY_CREATE,
         StandardWatchEventKinds.ENTRY_DELETE
     };
 
+    private static final WatchEvent.Kind<?>[] CONTENT_EVENTS = new WatchEvent.Kind<?>[]{
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_DELETE,
+        StandardWatchEventKinds.ENTRY_MODIFY
+    };
+
     private final FileSystem fileSystem;
+    private final long pollIntervalMs;
 
     private final MonitorableTaskExecutorService pollExecutor;
     private final TaskExecutor eventExecutor;
 
-    private WatchService activeWatchService;
-    private final Map<Path, Listeners> checkedPaths;
-    private final Map<WatchKey, WatchKeyListeners> watchKeys;
+    private final ConcurrentMap<Path, Listeners> checkedPaths;
+    private final ConcurrentMap<Path, WatchedDirectory> watchedDirs;
+    private final Set<Listeners> polledPaths;
 
-    private final Lock mainLock;
+    private final EventLagStatistics eventLag;
+
+    private final Lock registrationLock;
+    private WatchService activeWatchService;
+    private boolean watchServiceUnavailable;
+    private boolean pollingActive;
 
     public FileSystemWatcher(FileSystem fileSystem, TaskExecutor eventExecutor) {
+        this(fileSystem, eventExecutor, false, DEFAULT_POLL_INTERVAL_MS);
+    }
+
+    FileSystemWatcher(FileSystem fileSystem, TaskExecutor eventExecutor, boolean pollOnly, long pollIntervalMs) {
         this.fileSystem = Objects.requireNonNull(fileSystem, "fileSystem");
         this.eventExecutor = Objects.requireNonNull(eventExecutor, "eventExecutor");
-        this.mainLock = new ReentrantLock();
-        this.pollExecutor = NbTaskExecutors.newStoppableExecutor("FileSystem-watcher-poll", 1);
-        this.checkedPaths = new HashMap<>();
-        this.watchKeys = new HashMap<>();
+        this.pollIntervalMs = pollIntervalMs;
+        this.registrationLock = new ReentrantLock();
+        this.pollExecutor = NbTaskExecutors.newStoppableExecutor("FileSystem-watcher-poll", 2);
+        this.checkedPaths = new ConcurrentHashMap<>();
+        this.watchedDirs = new ConcurrentHashMap<>();
+        this.polledPaths = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        this.eventLag = new EventLagStatistics();
         this.activeWatchService = null;
+        this.watchServiceUnavailable = pollOnly;
+        this.pollingActive = false;
     }
 
     public static FileSystemWatcher getDefault() {
         return DefaultHolder.DEFAULT;
     }
 
+    /**
+     * Returns the number of directories currently having a native watch registered.
+     * Paths attached to the same directory share a single watch.
+     *
+     * @return the number of directories currently having a native watch registered
+     */
+    public int getWatchedDirectoryCount() {
+        return watchedDirs.size();
+    }
+
+    /**
+     * Returns the number of directories currently having a native watch registered
+     * which reports the modifications of their entries as well.
+     *
+     * @return the number of directories currently watched for the modifications
+     *   of their entries
+     */
+    public int getContentWatchedDirectoryCount() {
+        registrationLock.lock();
+        try {
+            int result = 0;
+            for (WatchedDirectory watchedDir: watchedDirs.values()) {
+                if (watchedDir.contentEventsRegistered) {
+                    result++;
+                }
+            }
+            return result;
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct paths currently watched (including the polled paths).
+     *
+     * @return the number of distinct paths currently watched
+     */
+    public int getWatchedPathCount() {
+        return checkedPaths.size();
+    }
+
+    /**
+     * Returns the number of watched paths which cannot be watched natively and
+     * are checked periodically instead.
+     *
+     * @return the number of watched paths which are checked periodically
+     */
+    public int getPolledPathCount() {
+        return polledPaths.size();
+    }
+
+    /**
+     * Returns the time elapsed between receiving the most recently delivered
+     * change and notifying the listeners about it.
+     *
+     * @param unit the time unit of the returned value. This argument cannot be {@code null}.
+     * @return the time elapsed between receiving the most recently delivered
+     *   change and notifying the listeners about it, or zero if no change was
+     *   delivered yet
+     */
+    public long getLastEventLag(TimeUnit unit) {
+        return unit.convert(eventLag.getLastLagNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the largest value ever returned by {@link #getLastEventLag(TimeUnit) getLastEventLag}.
+     *
+     * @param unit the time unit of the returned value. This argument cannot be {@code null}.
+     * @return the largest value ever returned by {@code getLastEventLag}
+     */
+    public long getMaxEventLag(TimeUnit unit) {
+        return unit.convert(eventLag.getMaxLagNanos(), TimeUnit.NANOSECONDS);
+    }
+
     /**
      * Waits until there are no more watches registered and no more polling is done. Fails if that state cannot be
      * reached.
@@ -83,28 +208,34 @@ public final class FileSystemWatcher {
             throw new IllegalStateException("Failed to wait for polling executor.");
         }
 
-        mainLock.lock();
-        try {
-            if (!checkedPaths.isEmpty()) {
-                throw new IllegalStateException("There are checked paths: " + checkedPaths.keySet());
-            }
-            if (!watchKeys.isEmpty()) {
-                throw new IllegalStateException("There are watched keys: " + toString(watchKeys.keySet()));
-            }
-        } finally {
-            mainLock.unlock();
+        if (!checkedPaths.isEmpty()) {
+            throw new IllegalStateException("There are checked paths: " + checkedPaths.keySet());
+        }
+        if (!watchedDirs.isEmpty()) {
+            throw new IllegalStateException("There are watched directories: " + watchedDirs.keySet());
+        }
+        if (!polledPaths.isEmpty()) {
+            throw new IllegalStateException("There are polled paths: " + polledPaths.size());
         }
     }
 
-    private static String toString(Collection<WatchKey> keys) {
-        List<Object> watchables = new ArrayList<>(keys.size());
-        for (WatchKey key: keys) {
-            watchables.add(key.watchable());
+    /**
+     * Closes the current watch service, as if its watch loop had stopped unexpectedly.
+     * <P>
+     * This method is only for testing purposes.
+     */
+    void simulateWatchLoopFailure() {
+        WatchService watchService;
+        registrationLock.lock();
+        try {
+            watchService = activeWatchService;
+        } finally {
+            registrationLock.unlock();
         }
-        return watchables.toString();
+        tryCloseWatchService(watchService);
     }
 
-    private Path tryResolve(Path keyContext, Object context) {
+    private static Path tryResolve(Path keyContext, Object context) {
         if (context instanceof Path) {
             Path relPath = (Path)context;
             if (keyContext != null) {
@@ -117,100 +248,192 @@ public final class FileSystemWatcher {
         return null;
     }
 
-    private void notifyPath(Path keyContext, WatchEvent<?> event) {
-        Path path = tryResolve(keyContext, event.context());
-        if (path != null) {
-            notifyPath(path);
-        }
+    private static Path keyContext(WatchKey key) {
+        Watchable result = key.watchable();
+        return result instanceof Path
+                ? (Path)result
+                : null;
     }
 
-    private void notifyPath(Path path) {
-        Listeners listenerRefs;
+    private void startWatchLoop(final WatchService watchService) {
+        pollExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, (CancellationToken cancelToken) -> {
+            ListenerRef cancelRef = cancelToken.addCancellationListener(() -> {
+                tryCloseWatchService(watchService);
+            });
+            try {
+                while (!cancelToken.isCanceled()) {
+                    WatchKey key = watchService.take();
+                    long receivedNanos = System.nanoTime();
+                    processEvents(key, key.pollEvents(), receivedNanos);
+                }
+            } catch (ClosedWatchServiceException ex) {
+                // Canceled or there is nothing more to watch.
+            } finally {
+                cancelRef.unregister();
+                watchLoopStopped(watchService);
+            }
+        }).whenComplete((result, error) -> {
+            tryCloseWatchService(watchService);
+        }).exceptionally(AsyncTasks::expectNoError);
+    }
 
-        mainLock.lock();
+    private void watchLoopStopped(WatchService watchService) {
+        registrationLock.lock();
         try {
-            listenerRefs = checkedPaths.get(path);
-        } finally {
-            mainLock.unlock();
-        }
+            if (watchService != activeWatchService) {
+                return;
+            }
 
-        if (listenerRefs != null) {
-            listenerRefs.notifyIfChanged();
+            // The watch loop was stopped abnormally but we still have paths to watch,
+            // so fall back to polling for them. New paths will get a new watch service
+            // which takes over the polled paths (see reattachPolledPathsUnlocked).
+            activeWatchService = null;
+            List<Listeners> orphans = new ArrayList<>();
+            for (WatchedDirectory watchedDir: watchedDirs.values()) {
+                orphans.addAll(watchedDir.listeners.values());
+            }
+            watchedDirs.clear();
+
+            for (Listeners listeners: orphans) {
+                listeners.watchedDir = null;
+                addToPolledPathsUnlocked(listeners);
+            }
+        } finally {
+            registrationLock.unlock();
         }
     }
 
-    private static void cancelWatchService(WatchService watchService) {
-        tryCloseWatchService(watchService);
-    }
+    private void processEvents(WatchKey key, List<WatchEvent<?>> events, long receivedNanos) {
+        Path dir = keyContext(key);
 
-    private void stopPolling(WatchService watchService) throws IOException {
-        WatchService newWatchService = null;
-        mainLock.lock();
-        try {
-            if (watchService == activeWatchService) {
-                if (checkedPaths.isEmpty()) {
-                    activeWatchService = null;
-                }
-                else {
-                    newWatchService = fileSystem.newWatchService();
-                    activeWatchService = newWatchService;
-                }
+        Set<Listeners> changed = new LinkedHashSet<>();
+        List<Path> createdChildren = new ArrayList<>();
+        boolean overflow = false;
+
+        for (WatchEvent<?> event: events) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+
+            Path child = tryResolve(dir, event.context());
+            if (child == null) {
+                continue;
+            }
+
+            Listeners listeners = checkedPaths.get(child);
+            if (listeners != null) {
+                changed.add(listeners);
+            }
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                createdChildren.add(child);
             }
-        } finally {
-            mainLock.unlock();
         }
 
-        if (newWatchService != null) {
-            startPolling(newWatchService);
+        boolean valid = key.reset();
+
+        Collection<Listeners> moved = Collections.emptyList();
+        if (dir != null && (!valid || overflow || !createdChildren.isEmpty())) {
+            moved = updateDirectoryWatch(key, dir, createdChildren, valid, overflow, changed);
+        }
+
+        for (Listeners listeners: changed) {
+            listeners.notifyIfChanged(true, receivedNanos);
+        }
+        for (Listeners listeners: moved) {
+            if (!changed.contains(listeners)) {
+                listeners.notifyIfChanged(false, receivedNanos);
+            }
         }
     }
 
-    private boolean hasCheckedPaths() {
-        mainLock.lock();
+    private Collection<Listeners> updateDirectoryWatch(
+            WatchKey key,
+            Path dir,
+            Collection<Path> createdChildren,
+            boolean valid,
+            boolean overflow,
+            Set<Listeners> changed) {
+
+        List<WatchKey> keysToCancel = new ArrayList<>();
+        List<Listeners> toMove;
+
+        registrationLock.lock();
         try {
-            return !checkedPaths.isEmpty();
+            WatchedDirectory watchedDir = watchedDirs.get(dir);
+            if (watchedDir == null || watchedDir.key != key) {
+                return Collections.emptyList();
+            }
+
+            if (overflow) {
+                changed.addAll(watchedDir.listeners.values());
+            }
+
+            toMove = valid
+                    ? watchedDir.findDescendantsToMove(overflow, createdChildren)
+                    : new ArrayList<>(watchedDir.listeners.values());
+
+            for (Listeners listeners: toMove) {
+                detachUnlocked(listeners, keysToCancel);
+            }
+            for (Listeners listeners: toMove) {
+                attachUnlocked(listeners);
+            }
         } finally {
-            mainLock.unlock();
+            registrationLock.unlock();
         }
+
+        cancelAll(keysToCancel);
+        return toMove;
     }
 
-    private static Path keyContext(WatchKey key) {
-        Watchable result = key.watchable();
-        return result instanceof Path
-                ? (Path)result
-                : null;
+    private static void cancelAll(Collection<WatchKey> keys) {
+        for (WatchKey key: keys) {
+            key.cancel();
+        }
     }
 
-    private void startPolling(final WatchService watchService) {
-        pollExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, (CancellationToken cancelToken) -> {
-            ListenerRef cancelRef = null;
-            try {
-                cancelRef = cancelToken.addCancellationListener(() -> {
-                    cancelWatchService(watchService);
-                });
+    private void startPollLoopUnlocked() {
+        if (pollingActive) {
+            return;
+        }
 
-                while (!cancelToken.isCanceled() && hasCheckedPaths()) {
-                    WatchKey key = watchService.take();
-                    Path keyContext = keyContext(key);
+        pollingActive = true;
+        pollExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, this::pollPaths)
+                .exceptionally(AsyncTasks::expectNoError);
+    }
 
-                    List<WatchEvent<?>> events = key.pollEvents();
-                    for (WatchEvent<?> event: events) {
-                        notifyPath(keyContext, event);
-                    }
+    private void pollPaths(CancellationToken cancelToken) {
+        try {
+            while (hasPolledPaths()) {
+                long pollNanos = System.nanoTime();
+                for (Listeners listeners: polledPaths) {
+                    listeners.pollForChanges(pollNanos);
+                }
 
-                    resetWatchKey(watchService, key, events);
+                CancelableWaits.sleep(cancelToken, pollIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            registrationLock.lock();
+            try {
+                pollingActive = false;
+                if (!polledPaths.isEmpty() && !cancelToken.isCanceled()) {
+                    startPollLoopUnlocked();
                 }
-            } catch (ClosedWatchServiceException ex) {
-                // Canceled
             } finally {
-                if (cancelRef != null) {
-                    cancelRef.unregister();
-                }
-                stopPolling(watchService);
+                registrationLock.unlock();
             }
-        }).whenComplete((result, error) -> {
-            tryCloseWatchService(watchService);
-        }).exceptionally(AsyncTasks::expectNoError);
+        }
+    }
+
+    private boolean hasPolledPaths() {
+        registrationLock.lock();
+        try {
+            return !polledPaths.isEmpty();
+        } finally {
+            registrationLock.unlock();
+        }
     }
 
     private static void tryCloseWatchService(WatchService watchService) {
@@ -226,64 +449,123 @@ public final class FileSystemWatcher {
         }
     }
 
-    public ListenerRef watchPath(final Path path, Runnable listener) {
+    /**
+     * Registers a listener to be notified when the given path is created or deleted.
+     * Changes to the content of the file are not reported.
+     *
+     * @param path the path to be watched. This argument cannot be {@code null}.
+     * @param listener the listener to be notified when the existence of the path
+     *   changes. This argument cannot be {@code null}.
+     * @return the reference which can be used to unregister the listener. This
+     *   method never returns {@code null}.
+     */
+    public ListenerRef watchPath(Path path, Runnable listener) {
+        return watchPath(path, listener, false);
+    }
+
+    /**
+     * Registers a listener to be notified when the given path is created, deleted
+     * or modified.
+     * <P>
+     * Notifications are not reported synchronously, so a burst of modifications
+     * might be reported as a single notification.
+     *
+     * @param path the path to be watched. This argument cannot be {@code null}.
+     * @param listener the listener to be notified when the path changes in any way.
+     *   This argument cannot be {@code null}.
+     * @return the reference which can be used to unregister the listener. This
+     *   method never returns {@code null}.
+     */
+    public ListenerRef watchPathContent(Path path, Runnable listener) {
+        return watchPath(path, listener, true);
+    }
+
+    private ListenerRef watchPath(final Path path, Runnable listener, boolean contentListener) {
         Objects.requireNonNull(path, "path");
         Objects.requireNonNull(listener, "listener");
         if (path.getFileSystem() != fileSystem) {
             return ListenerRefs.unregistered();
         }
 
-        try {
-            return watchPathUnsafe(path, listener);
-        } catch (IOException ex) {
-            LOGGER.log(Level.INFO, "Failed to watch for path: " + path, ex);
-            return ListenerRefs.unregistered();
-        }
-    }
-
-    private ListenerRef watchPathUnsafe(final Path path, Runnable listener) throws IOException {
-        final ElementRemover listenerRemover;
+        ElementRemover listenerRemover;
         WatchService newWatchService = null;
-        WatchService currentWatchService;
-        Listeners listeners;
 
-        mainLock.lock();
+        registrationLock.lock();
         try {
-            listeners = checkedPaths.get(path);
-            if (listeners == null) {
-                listeners = new Listeners(path, eventExecutor);
+            Listeners listeners = checkedPaths.get(path);
+            boolean newPath = listeners == null;
+            if (newPath) {
+                listeners = new Listeners(path, eventExecutor, eventLag);
                 checkedPaths.put(path, listeners);
-            }
-            listenerRemover = listeners.addListener(listener);
 
-            if (activeWatchService == null) {
-                newWatchService = fileSystem.newWatchService();
-                activeWatchService = newWatchService;
+                if (activeWatchService == null && !watchServiceUnavailable) {
+                    newWatchService = tryCreateWatchService();
+                    activeWatchService = newWatchService;
+                    watchServiceUnavailable = newWatchService == null;
+                    if (newWatchService != null) {
+                        reattachPolledPathsUnlocked();
+                    }
+                }
+            }
+            if (contentListener) {
+                // Must be done before attaching, so that a new directory watch
+                // is registered with the proper events right away.
+                updateContentRegistrationsUnlocked(listeners, 1);
             }
-            currentWatchService = activeWatchService;
+            if (newPath) {
+                attachUnlocked(listeners);
+            }
+            listenerRemover = listeners.addListener(listener, contentListener);
         } finally {
-            mainLock.unlock();
+            registrationLock.unlock();
         }
 
         if (newWatchService != null) {
-            startPolling(newWatchService);
+            startWatchLoop(newWatchService);
         }
 
-        startWatching(currentWatchService, path, listeners);
-
         return EventUtils.asSafeListenerRef(() -> {
-            unregisterPath(path, listenerRemover);
+            unregisterPath(path, listenerRemover, contentListener);
         });
     }
 
-    private void unregisterPath(Path path, ElementRemover listenerRemover) {
+    private void reattachPolledPathsUnlocked() {
+        if (polledPaths.isEmpty()) {
+            return;
+        }
+
+        List<Listeners> toReattach = new ArrayList<>(polledPaths);
+        long pollNanos = System.nanoTime();
+        for (Listeners listeners: toReattach) {
+            // Report the changes since the last poll, because the new watch
+            // only reports the changes after its registration.
+            listeners.pollForChanges(pollNanos);
+            polledPaths.remove(listeners);
+            attachUnlocked(listeners);
+        }
+    }
+
+    private WatchService tryCreateWatchService() {
+        try {
+            return fileSystem.newWatchService();
+        } catch (IOException | UnsupportedOperationException ex) {
+            LOGGER.log(Level.INFO, "File system does not support watching, falling back to polling.", ex);
+            return null;
+        }
+    }
+
+    private void unregisterPath(Path path, ElementRemover listenerRemover, boolean contentListener) {
         WatchService watchServiceToClose = null;
-        WatchKey watchKey;
+        List<WatchKey> keysToCancel = new ArrayList<>();
 
-        mainLock.lock();
+        registrationLock.lock();
         try {
             int remaining = listenerRemover.removeAndGetRemainingCount();
             if (remaining > 0) {
+                Listeners listeners = checkedPaths.get(path);
+                if (contentListener && listeners != null) {
+                    updateContentRegistrationsUnlocked(listeners, -1);
+                }
                 return;
             }
 
@@ -292,194 +574,301 @@ public final class FileSystemWatcher {
                 return;
             }
 
+            detachUnlocked(listeners, keysToCancel);
+
             if (checkedPaths.isEmpty()) {
                 watchServiceToClose = activeWatchService;
                 activeWatchService = null;
             }
+        } finally {
+            registrationLock.unlock();
+        }
+
+        cancelAll(keysToCancel);
+        tryCloseWatchService(watchServiceToClose);
+    }
+
+    private static void updateContentRegistrationsUnlocked(Listeners listeners, int delta) {
+        boolean prevContentWatched = listeners.isContentWatched();
+        listeners.contentRegistrationCount += delta;
+        boolean contentWatched = listeners.isContentWatched();
+
+        WatchedDirectory watchedDir = listeners.watchedDir;
+        if (watchedDir != null && prevContentWatched != contentWatched) {
+            watchedDir.contentWatchCount += contentWatched ? 1 : -1;
+            watchedDir.updateWatchedEvents();
+        }
+    }
+
+    private void attachUnlocked(Listeners listeners) {
+        WatchService watchService = activeWatchService;
+        if (watchService == null) {
+            addToPolledPathsUnlocked(listeners);
+            return;
+        }
+
+        Path dir = listeners.path.getParent();
+        while (dir != null) {
+            WatchedDirectory watchedDir = watchedDirs.get(dir);
+            if (watchedDir != null) {
+                watchedDir.add(listeners);
+                watchedDir.updateWatchedEvents();
+                return;
+            }
 
-            watchKey = listeners.getWatchKey();
-            if (!removeWathKeyOfPath(path, watchKey)) {
+            boolean contentEvents = listeners.isContentWatched();
+            WatchKey key;
+            try {
+                key = tryRegister(watchService, dir, contentEvents);
+            } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException ex) {
+                LOGGER.log(Level.INFO, "Failed to watch directory, falling back to polling: " + dir, ex);
+                break;
+            }
+
+            if (key != null) {
+                watchedDir = new WatchedDirectory(dir, watchService, key, contentEvents);
+                watchedDirs.put(dir, watchedDir);
+                watchedDir.add(listeners);
                 return;
             }
-        } finally {
-            mainLock.unlock();
-            tryCloseWatchService(watchServiceToClose);
+            dir = dir.getParent();
         }
 
-        watchKey.cancel();
+        addToPolledPathsUnlocked(listeners);
     }
 
-    private boolean removeWathKeyOfPath(Path path, WatchKey watchKey) {
-        if (watchKey == null) {
-            return false;
+    private void addToPolledPathsUnlocked(Listeners listeners) {
+        listeners.updatePollSignature();
+        polledPaths.add(listeners);
+        startPollLoopUnlocked();
+    }
+
+    private void detachUnlocked(Listeners listeners, List<WatchKey> keysToCancel) {
+        if (polledPaths.remove(listeners)) {
+            return;
         }
 
-        WatchKeyListeners watchKeyListeners = watchKeys.get(watchKey);
-        if (watchKeyListeners == null) {
-            return false;
+        WatchedDirectory watchedDir = listeners.watchedDir;
+        listeners.watchedDir = null;
+        if (watchedDir == null) {
+            return;
         }
 
-        if (watchKeyListeners.removeAndGetRemainingCount(path) > 0) {
-            return false;
+        if (watchedDir.remove(listeners)) {
+            watchedDirs.remove(watchedDir.dir, watchedDir);
+            keysToCancel.add(watchedDir.key);
+        }
+        else {
+            watchedDir.updateWatchedEvents();
         }
+    }
 
-        watchKeys.remove(watchKey);
-        return true;
+    private static WatchEvent.Kind<?>[] getWatchedEvents(boolean contentEvents) {
+        return contentEvents ? CONTENT_EVENTS : EXISTENCE_EVENTS;
     }
 
-    private static WatchKey tryRegister(WatchService watchService, Path path) throws IOException {
+    private static WatchKey tryRegister(WatchService watchService, Path dir, boolean contentEvents) throws IOException {
         try {
-            if (!Files.exists(path)) {
+            if (!Files.isDirectory(dir)) {
                 return null;
             }
-            return path.register(watchService, EVENTS);
+            return dir.register(watchService, getWatchedEvents(contentEvents));
         } catch (NoSuchFileException ex) {
             return null;
         }
     }
 
-    private void startWatching(WatchService watchService, Path path, Listeners listeners) throws IOException {
-        try {
-            startWatchingUnsafe(watchService, path, listeners);
-        } catch (ClosedWatchServiceException ex) {
-            // The watchService was cancelled before actually starting
+    private static final class WatchedDirectory {
+        private final Path dir;
+        private final WatchService watchService;
+        private final WatchKey key;
+        private final Map<Path, Listeners> listeners;
+        private int descendantCount;
+        private int contentWatchCount;
+        private boolean contentEventsRegistered;
+
+        public WatchedDirectory(Path dir, WatchService watchService, WatchKey key, boolean contentEventsRegistered) {
+            this.dir = dir;
+            this.watchService = watchService;
+            this.key = key;
+            this.listeners = new HashMap<>();
+            this.descendantCount = 0;
+            this.contentWatchCount = 0;
+            this.contentEventsRegistered = contentEventsRegistered;
         }
-    }
 
-    private void startWatchingUnsafe(WatchService watchService, Path path, Listeners listeners) throws IOException {
-        Path parent = path.getParent();
-        while (parent != null) {
-            WatchKey watchKey = tryRegister(watchService, parent);
-            if (watchKey != null && watchKey.reset()) {
-                WatchKey prevWatchKey;
+        private boolean isDirectChild(Path path) {
+            return dir.equals(path.getParent());
+        }
 
-                mainLock.lock();
-                try {
-                    WatchKeyListeners watchKeyListeners = watchKeys.get(watchKey);
-                    if (watchKeyListeners == null) {
-                        watchKeyListeners = new WatchKeyListeners();
-                        watchKeys.put(watchKey, watchKeyListeners);
-                    }
-                    watchKeyListeners.setListeners(path, listeners);
+        public void add(Listeners pathListeners) {
+            listeners.put(pathListeners.path, pathListeners);
+            pathListeners.watchedDir = this;
+            if (!isDirectChild(pathListeners.path)) {
+                descendantCount++;
+            }
+            if (pathListeners.isContentWatched()) {
+                contentWatchCount++;
+            }
+        }
 
-                    prevWatchKey = listeners.setWatchKey(watchKey);
-                    if (!removeWathKeyOfPath(path, prevWatchKey)) {
-                        return;
-                    }
-                } finally {
-                    mainLock.unlock();
+        public boolean remove(Listeners pathListeners) {
+            if (listeners.remove(pathListeners.path) != null) {
+                if (!isDirectChild(pathListeners.path)) {
+                    descendantCount--;
+                }
+                if (pathListeners.isContentWatched()) {
+                    contentWatchCount--;
                 }
-
-                prevWatchKey.cancel();
             }
-            parent = parent.getParent();
+            return listeners.isEmpty();
         }
-    }
 
-    private boolean mayCreatedChild(List<WatchEvent<?>> events) {
-        for (WatchEvent<?> event: events) {
-            WatchEvent.Kind<?> kind = event.kind();
-            if (kind == StandardWatchEventKinds.ENTRY_CREATE || kind == StandardWatchEventKinds.OVERFLOW) {
-                return true;
+        /**
+         * Registers this directory again if the modifications of its entries
+         * are needed to be reported but were not or vice versa. Registering
+         * the directory again only changes the events of the existing key.
+         */
+        public void updateWatchedEvents() {
+            boolean contentEvents = contentWatchCount > 0;
+            if (contentEvents == contentEventsRegistered) {
+                return;
+            }
+
+            try {
+                dir.register(watchService, getWatchedEvents(contentEvents));
+                contentEventsRegistered = contentEvents;
+            } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException ex) {
+                // The key is invalid, in which case the paths are moved
+                // when its cancellation is delivered.
+                LOGGER.log(Level.INFO, "Failed to update the watched events of directory: " + dir, ex);
             }
         }
-        return false;
-    }
 
-    private void resetWatchKey(WatchService watchService, WatchKey watchKey, List<WatchEvent<?>> events) throws IOException {
-        if (mayCreatedChild(events)) {
-            watchKey.cancel();
-            rebuildWatchKeys(watchService, watchKey);
+        public List<Listeners> findDescendantsToMove(boolean all, Collection<Path> createdChildren) {
+            if (descendantCount <= 0) {
+                return Collections.emptyList();
+            }
+
+            List<Listeners> result = new ArrayList<>();
+            for (Listeners pathListeners: listeners.values()) {
+                Path path = pathListeners.path;
+                if (isDirectChild(path)) {
+                    continue;
+                }
+
+                if (all || startsWithAny(path, createdChildren)) {
+                    result.add(pathListeners);
+                }
+            }
+            return result;
         }
-        else if (!watchKey.reset()) {
-            rebuildWatchKeys(watchService, watchKey);
+
+        private static boolean startsWithAny(Path path, Collection<Path> prefixes) {
+            for (Path prefix: prefixes) {
+                if (path.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
-    private void rebuildWatchKeys(WatchService watchService, WatchKey watchKey) throws IOException {
-        WatchKeyListeners watchKeyListeners = null;
-        mainLock.lock();
-        try {
-            watchKeyListeners = watchKeys.remove(watchKey);
-        } finally {
-            mainLock.unlock();
+    private static final class EventLagStatistics {
+        private final AtomicLong lastLagNanos;
+        private final AtomicLong maxLagNanos;
+
+        public EventLagStatistics() {
+            this.lastLagNanos = new AtomicLong(0);
+            this.maxLagNanos = new AtomicLong(0);
         }
 
-        if (watchKeyListeners != null) {
-            List<Listeners> listenersSnapshot = new ArrayList<>(watchKeyListeners.listeners.size());
-            for (Map.Entry<Path, Listeners> entry: watchKeyListeners.listeners.entrySet()) {
-                Listeners listeners = entry.getValue();
-                listenersSnapshot.add(listeners);
+        public void recordEvent(long receivedNanos) {
+            long lagNanos = Math.max(0, System.nanoTime() - receivedNanos);
+            lastLagNanos.set(lagNanos);
+            maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+        }
 
-                startWatching(watchService, entry.getKey(), listeners);
-            }
+        public long getLastLagNanos() {
+            return lastLagNanos.get();
+        }
 
-            for (Listeners listeners: listenersSnapshot) {
-                listeners.notifyIfChanged();
-            }
+        public long getMaxLagNanos() {
+            return maxLagNanos.get();
         }
     }
 
-    private static final class WatchKeyListeners {
+    private static final class FileSignature {
+        private static final FileSignature MISSING = new FileSignature(false, 0, 0);
 
-        private final Map<Path, Listeners> listeners;
+        private final boolean exists;
+        private final long lastModifiedNanos;
+        private final long size;
 
-        public WatchKeyListeners() {
-            this.listeners = new HashMap<>();
+        public FileSignature(boolean exists, long lastModifiedNanos, long size) {
+            this.exists = exists;
+            this.lastModifiedNanos = lastModifiedNanos;
+            this.size = size;
         }
 
-        public int removeAndGetRemainingCount(Path path) {
-            listeners.remove(path);
-            return listeners.size();
+        public static FileSignature read(Path path) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileSignature(true, attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS), attrs.size());
+            } catch (IOException ex) {
+                return MISSING;
+            }
         }
 
-        public void setListeners(Path path, Listeners pathListeners) {
-            listeners.put(path, pathListeners);
+        public boolean isSame(FileSignature other) {
+            return exists == other.exists
+                    && lastModifiedNanos == other.lastModifiedNanos
+                    && size == other.size;
         }
     }
 
     private static final class Listeners {
 
         private final Path path;
+        private final EventLagStatistics eventLag;
 
         private final Lock listenersLock;
         private final UpdateTaskExecutor executor;
+        private final UpdateTaskExecutor contentExecutor;
         private final RefList<Runnable> listeners;
+        private final RefList<Runnable> contentListeners;
 
         private volatile boolean notifiedOnce;
         private final AtomicBoolean lastState;
 
-        private WatchKey watchKey;
+        private volatile FileSignature pollSignature;
+
+        // Guarded by the registration lock of the watcher.
+        private WatchedDirectory watchedDir;
+        private int contentRegistrationCount;
 
-        public Listeners(Path path, TaskExecutor eventExecutor) {
+        public Listeners(Path path, TaskExecutor eventExecutor, EventLagStatistics eventLag) {
             this.path = path;
+            this.eventLag = eventLag;
             this.executor = new GenericUpdateTaskExecutor(eventExecutor);
+            this.contentExecutor = new GenericUpdateTaskExecutor(eventExecutor);
             this.listenersLock = new ReentrantLock();
             this.listeners = new RefLinkedList<>();
-            this.watchKey = null;
+            this.contentListeners = new RefLinkedList<>();
+            this.watchedDir = null;
+            this.contentRegistrationCount = 0;
             this.notifiedOnce = false;
             this.lastState = new AtomicBoolean();
+            this.pollSignature = FileSignature.MISSING;
         }
 
-        public WatchKey getWatchKey() {
-            return watchKey;
-        }
-
-        public WatchKey setWatchKey(WatchKey watchKey) {
-            WatchKey prevWatchKey = this.watchKey;
-            if (Objects.equals(prevWatchKey, watchKey)) {
-                prevWatchKey = null;
-            }
-
-            this.watchKey = watchKey;
-            return prevWatchKey;
-        }
+        public ElementRemover addListener(Runnable listener, boolean contentListener) {
+            RefList<Runnable> targetList = contentListener ? contentListeners : listeners;
 
-        public ElementRemover addListener(Runnable listener) {
             final RefList.ElementRef<Runnable> elementRef;
             listenersLock.lock();
             try {
-                elementRef = listeners.addLastGetReference(listener);
+                elementRef = targetList.addLastGetReference(listener);
             } finally {
                 listenersLock.unlock();
             }
@@ -488,13 +877,29 @@ public final class FileSystemWatcher {
                 listenersLock.lock();
                 try {
                     elementRef.remove();
-                    return listeners.size();
+                    return listeners.size() + contentListeners.size();
                 } finally {
                     listenersLock.unlock();
                 }
             };
         }
 
+        public boolean isContentWatched() {
+            return contentRegistrationCount > 0;
+        }
+
+        public void updatePollSignature() {
+            pollSignature = FileSignature.read(path);
+        }
+
+        public void pollForChanges(long pollNanos) {
+            FileSignature currentSignature = FileSignature.read(path);
+            if (!currentSignature.isSame(pollSignature)) {
+                pollSignature = currentSignature;
+                notifyIfChanged(true, pollNanos);
+            }
+        }
+
         private boolean getState() {
             return Files.exists(path);
         }
@@ -511,26 +916,37 @@ public final class FileSystemWatcher {
             return prevState != currentState;
         }
 
-        public void notifyIfChanged() {
-            if (!needNotify()) {
-                return;
+        public void notifyIfChanged(boolean contentChanged, long receivedNanos) {
+            boolean firstCheck = !notifiedOnce;
+            boolean existenceChanged = needNotify();
+
+            if (existenceChanged) {
+                executor.execute(() -> notifyListeners(listeners, receivedNanos));
             }
 
-            executor.execute(() -> {
-                for (Runnable listener: getListenersSnapshot()) {
-                    try {
-                        listener.run();
-                    } catch (Throwable ex) {
-                        LOGGER.log(Level.WARNING, "Path change listener has thrown an unexpected exception.", ex);
-                    }
+            // The very first check is not a real change, so content listeners
+            // are only notified if there was an actual event for the path.
+            if (contentChanged || (existenceChanged && !firstCheck)) {
+                contentExecutor.execute(() -> notifyListeners(contentListeners, receivedNanos));
+            }
+        }
+
+        private void notifyListeners(RefList<Runnable> listenerList, long receivedNanos) {
+            eventLag.recordEvent(receivedNanos);
+
+            for (Runnable listener: getListenersSnapshot(listenerList)) {
+                try {
+                    listener.run();
+                } catch (Throwable ex) {
+                    LOGGER.log(Level.WARNING, "Path change listener has thrown an unexpected exception.", ex);
                 }
-            });
+            }
         }
 
-        private List<Runnable> getListenersSnapshot() {
+        private List<Runnable> getListenersSnapshot(RefList<Runnable> listenerList) {
             listenersLock.lock();
             try {
-                return new ArrayList<>(listeners);
+                return new ArrayList<>(listenerList);
             } finally {
                 listenersLock.unlock();
             }
@@ -0,0 +1,173 @@
+package org.netbeans.gradle.project.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import org.jtrim2.event.CopyOnTriggerListenerManager;
+import org.jtrim2.event.EventListeners;
+import org.jtrim2.event.ListenerManager;
+import org.jtrim2.event.ListenerRef;
+
+/**
+ * Defines a {@link MemoryMonitor} reading the usage of the heap memory pools
+ * of the JVM after garbage collections. The usage thresholds of the memory
+ * pools are left untouched, since others (e.g., NetBeans itself) might rely
+ * on them.
+ * <P>
+ * Listeners are only notified after collections which collected one of the
+ * monitored (old generation) pools. Young collections leave the collection
+ * usage of these pools unchanged, so they would just report the same stale
+ * usage again.
+ */
+public final class JvmMemoryMonitor implements MemoryMonitor {
+    private static final Logger LOGGER = Logger.getLogger(JvmMemoryMonitor.class.getName());
+
+    // Defined by com.sun.management.GarbageCollectionNotificationInfo.
+    private static final String GARBAGE_COLLECTION_NOTIFICATION = "com.sun.management.gc.notification";
+
+    private final List<MemoryPoolMXBean> monitoredPools;
+    private final ListenerManager<Runnable> collectionListeners;
+
+    private final Lock collectionUsageLock;
+    private final long[] lastCollectionUsedBytes;
+
+    private JvmMemoryMonitor() {
+        this.monitoredPools = findMonitoredPools();
+        this.collectionListeners = new CopyOnTriggerListenerManager<>();
+        this.collectionUsageLock = new ReentrantLock();
+        this.lastCollectionUsedBytes = new long[monitoredPools.size()];
+        for (int i = 0; i < lastCollectionUsedBytes.length; i++) {
+            lastCollectionUsedBytes[i] = getCollectionUsedBytes(monitoredPools.get(i));
+        }
+    }
+
+    public static JvmMemoryMonitor getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    private static JvmMemoryMonitor createAndStart() {
+        JvmMemoryMonitor result = new JvmMemoryMonitor();
+        result.start();
+        return result;
+    }
+
+    private static List<MemoryPoolMXBean> findMonitoredPools() {
+        List<MemoryPoolMXBean> result = new ArrayList<>();
+        for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            // Pools not supporting usage thresholds are the ones for young objects,
+            // which are usually full of garbage and are not worth watching.
+            if (pool.getType() == MemoryType.HEAP
+                    && pool.isUsageThresholdSupported()
+                    && pool.isCollectionUsageThresholdSupported()
+                    && pool.getUsage().getMax() > 0) {
+                result.add(pool);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private Set<String> getMonitoredPoolNames() {
+        Set<String> result = new HashSet<>();
+        for (MemoryPoolMXBean pool: monitoredPools) {
+            result.add(pool.getName());
+        }
+        return result;
+    }
+
+    private static boolean managesAny(GarbageCollectorMXBean collector, Set<String> poolNames) {
+        for (String poolName: collector.getMemoryPoolNames()) {
+            if (poolNames.contains(poolName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void start() {
+        if (monitoredPools.isEmpty()) {
+            LOGGER.log(Level.INFO, "There is no heap memory pool to monitor.");
+            return;
+        }
+
+        Set<String> poolNames = getMonitoredPoolNames();
+        boolean registered = false;
+        for (GarbageCollectorMXBean collector: ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter && managesAny(collector, poolNames)) {
+                ((NotificationEmitter)collector).addNotificationListener((Notification notification, Object handback) -> {
+                    if (GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())
+                            && updateCollectionUsage()) {
+                        collectionListeners.onEvent(EventListeners.runnableDispatcher(), null);
+                    }
+                }, null, null);
+                registered = true;
+            }
+        }
+
+        if (!registered) {
+            LOGGER.log(Level.INFO, "The garbage collectors do not emit notifications.");
+        }
+    }
+
+    /**
+     * Returns {@code true} if the collection usage of any of the monitored
+     * pools has changed since the last call. The collection usage of a pool
+     * is only updated when that pool was collected.
+     */
+    private boolean updateCollectionUsage() {
+        boolean changed = false;
+        collectionUsageLock.lock();
+        try {
+            for (int i = 0; i < lastCollectionUsedBytes.length; i++) {
+                long usedBytes = getCollectionUsedBytes(monitoredPools.get(i));
+                if (usedBytes != lastCollectionUsedBytes[i]) {
+                    lastCollectionUsedBytes[i] = usedBytes;
+                    changed = true;
+                }
+            }
+        } finally {
+            collectionUsageLock.unlock();
+        }
+        return changed;
+    }
+
+    private static long getCollectionUsedBytes(MemoryPoolMXBean pool) {
+        MemoryUsage usage = pool.getCollectionUsage();
+        return usage != null ? usage.getUsed() : -1;
+    }
+
+    @Override
+    public double getUsedHeapRatio() {
+        double result = 0.0;
+        for (MemoryPoolMXBean pool: monitoredPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null && usage.getMax() > 0) {
+                result = Math.max(result, (double)usage.getUsed() / (double)usage.getMax());
+            }
+        }
+        return Math.min(1.0, result);
+    }
+
+    @Override
+    public ListenerRef addCollectionListener(Runnable listener) {
+        Objects.requireNonNull(listener, "listener");
+        return collectionListeners.registerListener(listener);
+    }
+
+    private static final class DefaultHolder {
+        private static final JvmMemoryMonitor DEFAULT = createAndStart();
+    }
+}
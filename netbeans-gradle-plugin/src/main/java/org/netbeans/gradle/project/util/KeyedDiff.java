@@ -0,0 +1,181 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Defines the difference between two lists of keys, where keys are matched by
+ * an identity and matching keys may have different content. This is useful for
+ * updating child nodes, where the node of a key with an unchanged identity
+ * can be kept (and updated) instead of being recreated.
+ *
+ * @param <KeyType> the type of the compared keys
+ */
+public final class KeyedDiff<KeyType> {
+    private final List<KeyType> inserted;
+    private final List<KeyType> removed;
+    private final List<Change<KeyType>> changed;
+    private final List<KeyType> resultKeys;
+    private final boolean orderChanged;
+
+    private KeyedDiff(
+            List<KeyType> inserted,
+            List<KeyType> removed,
+            List<Change<KeyType>> changed,
+            List<KeyType> resultKeys,
+            boolean orderChanged) {
+        this.inserted = Collections.unmodifiableList(inserted);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+        this.resultKeys = Collections.unmodifiableList(resultKeys);
+        this.orderChanged = orderChanged;
+    }
+
+    /**
+     * Computes the difference between the given key lists.
+     *
+     * @param <KeyType> the type of the compared keys
+     * @param oldKeys the previous keys. This argument cannot be {@code null}.
+     * @param newKeys the new keys. This argument cannot be {@code null}.
+     * @param identityFunction the function returning the identity of a key. Keys
+     *   with equal identities are considered to be the same key, possibly with a
+     *   different content. Identities must be unique within a list.
+     * @param sameContent the predicate returning {@code true} if two keys with
+     *   the same identity have the same content.
+     * @return the difference between the given key lists. This method never
+     *   returns {@code null}.
+     */
+    public static <KeyType> KeyedDiff<KeyType> compute(
+            Collection<? extends KeyType> oldKeys,
+            Collection<? extends KeyType> newKeys,
+            Function<? super KeyType, ?> identityFunction,
+            BiPredicate<? super KeyType, ? super KeyType> sameContent) {
+        Objects.requireNonNull(oldKeys, "oldKeys");
+        Objects.requireNonNull(newKeys, "newKeys");
+        Objects.requireNonNull(identityFunction, "identityFunction");
+        Objects.requireNonNull(sameContent, "sameContent");
+
+        Map<Object, KeyType> oldKeysById = new HashMap<>(2 * oldKeys.size());
+        Map<Object, Integer> oldIndexes = new HashMap<>(2 * oldKeys.size());
+        int oldIndex = 0;
+        for (KeyType oldKey: oldKeys) {
+            Object id = identityFunction.apply(oldKey);
+            oldKeysById.put(id, oldKey);
+            oldIndexes.put(id, oldIndex);
+            oldIndex++;
+        }
+
+        List<KeyType> inserted = new ArrayList<>();
+        List<Change<KeyType>> changed = new ArrayList<>();
+        List<KeyType> resultKeys = new ArrayList<>(newKeys.size());
+
+        boolean orderChanged = false;
+        int lastOldIndex = -1;
+
+        for (KeyType newKey: newKeys) {
+            Object id = identityFunction.apply(newKey);
+            KeyType oldKey = oldKeysById.remove(id);
+            if (oldKey == null) {
+                inserted.add(newKey);
+                resultKeys.add(newKey);
+                continue;
+            }
+
+            int currentOldIndex = oldIndexes.get(id);
+            if (currentOldIndex < lastOldIndex) {
+                orderChanged = true;
+            }
+            lastOldIndex = currentOldIndex;
+
+            if (!sameContent.test(oldKey, newKey)) {
+                changed.add(new Change<>(oldKey, newKey));
+            }
+            resultKeys.add(oldKey);
+        }
+
+        List<KeyType> removed = new ArrayList<>(oldKeysById.size());
+        if (!oldKeysById.isEmpty()) {
+            for (KeyType oldKey: oldKeys) {
+                if (oldKeysById.containsKey(identityFunction.apply(oldKey))) {
+                    removed.add(oldKey);
+                }
+            }
+        }
+
+        return new KeyedDiff<>(inserted, removed, changed, resultKeys, orderChanged);
+    }
+
+    /**
+     * Returns the new keys whose identity was not present in the old keys.
+     */
+    public List<KeyType> getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Returns the old keys whose identity is not present in the new keys.
+     */
+    public List<KeyType> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns the keys whose identity is present in both lists but have a
+     * different content.
+     */
+    public List<Change<KeyType>> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Returns the keys in the order of the new keys but with the old key
+     * instances for identities present in both lists. That is, if the returned
+     * keys are set as the new keys of a {@code Children.Keys}, nodes are only
+     * created for the inserted keys.
+     */
+    public List<KeyType> getResultKeys() {
+        return resultKeys;
+    }
+
+    public boolean isOrderChanged() {
+        return orderChanged;
+    }
+
+    public boolean hasChanges() {
+        return orderChanged || !inserted.isEmpty() || !removed.isEmpty() || !changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "KeyedDiff{"
+                + "inserted=" + inserted.size()
+                + ", removed=" + removed.size()
+                + ", changed=" + changed.size()
+                + ", orderChanged=" + orderChanged + '}';
+    }
+
+    public static final class Change<KeyType> {
+        private final KeyType oldKey;
+        private final KeyType newKey;
+
+        private Change(KeyType oldKey, KeyType newKey) {
+            this.oldKey = oldKey;
+            this.newKey = newKey;
+        }
+
+        public KeyType getOldKey() {
+            return oldKey;
+        }
+
+        public KeyType getNewKey() {
+            return newKey;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.netbeans.gradle.project.util;
+
+import org.jtrim2.event.ListenerRef;
+
+/**
+ * Reports how much of the heap of the JVM remains in use after garbage
+ * collections.
+ * <P>
+ * Implementations of this interface must be safe to be used by multiple
+ * threads concurrently.
+ */
+public interface MemoryMonitor {
+    /**
+     * Returns the ratio of the maximum heap size which remained in use after
+     * the last garbage collection.
+     *
+     * @return the ratio of the maximum heap size which remained in use after
+     *   the last garbage collection. The returned value is between zero and
+     *   one (inclusive).
+     */
+    public double getUsedHeapRatio();
+
+    /**
+     * Registers a listener to be notified after a garbage collection which
+     * might have changed the {@link #getUsedHeapRatio() used heap}. The
+     * listener might be notified on any thread and is expected to check the
+     * used heap itself.
+     *
+     * @param listener the listener to be notified. This argument cannot be
+     *   {@code null}.
+     * @return the reference which can be used to unregister the listener.
+     *   This method never returns {@code null}.
+     */
+    public ListenerRef addCollectionListener(Runnable listener);
+}
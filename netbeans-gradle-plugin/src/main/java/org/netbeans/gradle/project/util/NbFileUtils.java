@@ -9,14 +9,21 @@ import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jtrim2.cancel.CancellationToken;
@@ -318,6 +325,70 @@ public final class NbFileUtils {
         }
     }
 
+    /**
+     * Writes the given content to the given file in a way that other processes
+     * never see a partially written file: The content is first written to a
+     * temporary file in the same directory which then replaces the target file.
+     * The permissions (and the owner, if possible) of an already existing target
+     * file are kept; a new file gets the default permissions of new files.
+     */
+    public static void writeBytesAtomically(Path file, byte[] content) throws IOException {
+        Objects.requireNonNull(file, "file");
+        Objects.requireNonNull(content, "content");
+
+        Path dir = file.toAbsolutePath().getParent();
+        // Files.createTempFile would create a file only readable by its owner.
+        Path tempFile = createUniqueFile(dir, getFileNameStr(file) + ".", ".tmp");
+        try {
+            Files.write(tempFile, content);
+            copyPosixAttributes(file, tempFile);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static Path createUniqueFile(Path dir, String prefix, String suffix) throws IOException {
+        while (true) {
+            String id = Long.toUnsignedString(ThreadLocalRandom.current().nextLong());
+            try {
+                return Files.createFile(dir.resolve(prefix + id + suffix));
+            } catch (FileAlreadyExistsException ex) {
+                // Try another name.
+            }
+        }
+    }
+
+    private static void copyPosixAttributes(Path src, Path dest) throws IOException {
+        PosixFileAttributeView srcView = Files.getFileAttributeView(src, PosixFileAttributeView.class);
+        PosixFileAttributeView destView = Files.getFileAttributeView(dest, PosixFileAttributeView.class);
+        if (srcView == null || destView == null) {
+            return;
+        }
+
+        PosixFileAttributes srcAttrs;
+        try {
+            srcAttrs = srcView.readAttributes();
+        } catch (NoSuchFileException ex) {
+            return;
+        }
+
+        destView.setPermissions(srcAttrs.permissions());
+        try {
+            if (!srcAttrs.owner().equals(Files.getOwner(dest))) {
+                destView.setOwner(srcAttrs.owner());
+            }
+            destView.setGroup(srcAttrs.group());
+        } catch (IOException ex) {
+            // Usually only privileged users can change the owner.
+            LOGGER.log(Level.FINE, "Could not copy the owner of " + src, ex);
+        }
+    }
+
     public static Path toSafeRealPath(Path src) {
         try {
             return src.toRealPath();
@@ -1,5 +1,7 @@
 package org.netbeans.gradle.project.util;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.jtrim2.executor.DelegatedTaskExecutorService;
 import org.jtrim2.executor.GenericUpdateTaskExecutor;
@@ -17,6 +19,12 @@ public final class NbTaskExecutors {
 
     private static final long DEFAULT_IDLE_TIMEOUT_MS = 1000;
 
+    /**
+     * The executor to schedule delayed tasks on. Tasks submitted to this
+     * executor are expected to complete quickly.
+     */
+    public static final ScheduledExecutorService DEFAULT_TIMER = newScheduledExecutor("Gradle-Default-Timer");
+
     public static MonitorableTaskExecutorService newExecutor(String name, int threadCount) {
         return newExecutor(name, threadCount, DEFAULT_IDLE_TIMEOUT_MS);
     }
@@ -40,6 +48,18 @@ public final class NbTaskExecutors {
         }
     }
 
+    public static ScheduledExecutorService newScheduledExecutor(String name) {
+        ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, (Runnable task) -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        result.setKeepAliveTime(DEFAULT_IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        result.allowCoreThreadTimeOut(true);
+        result.setRemoveOnCancelPolicy(true);
+        return result;
+    }
+
     public static MonitorableTaskExecutor newDefaultFifoExecutor() {
         return TaskExecutors.inOrderExecutor(NbTaskExecutors.DEFAULT_EXECUTOR);
     }
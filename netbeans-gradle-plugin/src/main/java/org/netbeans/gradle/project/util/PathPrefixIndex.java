@@ -0,0 +1,125 @@
+package org.netbeans.gradle.project.util;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Defines an immutable index of root directories, which can find the innermost
+ * root containing a given path in logarithmic time (in the number of roots).
+ * <P>
+ * Paths are compared by their string representation, so the roots and the
+ * looked up paths are expected to be in the same (e.g., normalized, absolute) form.
+ *
+ * @param <V> the type of the values associated with the roots
+ */
+public final class PathPrefixIndex<V> {
+    private final String[] roots;
+    private final int[] parentIndexes;
+    private final List<V> values;
+
+    private PathPrefixIndex(String[] roots, int[] parentIndexes, List<V> values) {
+        this.roots = roots;
+        this.parentIndexes = parentIndexes;
+        this.values = values;
+    }
+
+    /**
+     * Creates an index from the given roots. If the same root is specified
+     * multiple times, the first one is kept.
+     *
+     * @param <V> the type of the values associated with the roots
+     * @param rootValues the roots and their associated values. This argument
+     *   cannot be {@code null}.
+     * @return the new index. This method never returns {@code null}.
+     */
+    public static <V> PathPrefixIndex<V> create(List<? extends Map.Entry<? extends Path, ? extends V>> rootValues) {
+        List<RootEntry<V>> entries = new ArrayList<>(rootValues.size());
+        for (Map.Entry<? extends Path, ? extends V> rootValue: rootValues) {
+            Path root = Objects.requireNonNull(rootValue.getKey(), "rootValues[?].key");
+            entries.add(new RootEntry<>(toKey(root.toString()), entries.size(), rootValue.getValue()));
+        }
+
+        // Equal roots are ordered by their original position, so the first one is kept.
+        entries.sort(Comparator.comparing((RootEntry<V> entry) -> entry.key).thenComparingInt(entry -> entry.order));
+
+        List<String> roots = new ArrayList<>(entries.size());
+        List<V> values = new ArrayList<>(entries.size());
+        for (RootEntry<V> entry: entries) {
+            int lastIndex = roots.size() - 1;
+            if (lastIndex >= 0 && roots.get(lastIndex).equals(entry.key)) {
+                continue;
+            }
+            roots.add(entry.key);
+            values.add(entry.value);
+        }
+
+        String[] rootArray = roots.toArray(new String[roots.size()]);
+        int[] parentIndexes = new int[rootArray.length];
+        for (int i = 0; i < rootArray.length; i++) {
+            parentIndexes[i] = findEnclosingRoot(rootArray, parentIndexes, i - 1, rootArray[i]);
+        }
+
+        return new PathPrefixIndex<>(rootArray, parentIndexes, values);
+    }
+
+    private static String toKey(String path) {
+        return path.endsWith(File.separator) ? path : path + File.separatorChar;
+    }
+
+    private static int findEnclosingRoot(String[] roots, int[] parentIndexes, int startIndex, String key) {
+        int index = startIndex;
+        while (index >= 0 && !key.startsWith(roots[index])) {
+            index = parentIndexes[index];
+        }
+        return index;
+    }
+
+    /**
+     * Returns the value associated with the innermost root containing the given path
+     * (or being the same as the given path).
+     *
+     * @param path the path to be looked up. This argument cannot be {@code null}.
+     * @return the value associated with the innermost root containing the given path,
+     *   or {@code null} if no root contains the given path
+     */
+    public V tryGetValueOf(Path path) {
+        int index = tryGetRootIndexOf(path.toString());
+        return index >= 0 ? values.get(index) : null;
+    }
+
+    private int tryGetRootIndexOf(String path) {
+        String key = toKey(path);
+
+        // Any root containing the path is before the path in lexicographical
+        // order and every root between them is contained by that root.
+        int index = Arrays.binarySearch(roots, key);
+        if (index >= 0) {
+            return index;
+        }
+
+        int floorIndex = -index - 2;
+        return findEnclosingRoot(roots, parentIndexes, floorIndex, key);
+    }
+
+    public int size() {
+        return roots.length;
+    }
+
+    private static final class RootEntry<V> {
+        public final String key;
+        public final int order;
+        public final V value;
+
+        public RootEntry(String key, int order, V value) {
+            this.key = key;
+            this.order = order;
+            this.value = value;
+        }
+    }
+}
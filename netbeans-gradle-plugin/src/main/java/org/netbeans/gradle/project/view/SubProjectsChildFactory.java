@@ -3,6 +3,7 @@ package org.netbeans.gradle.project.view;
 import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -10,6 +11,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -22,6 +26,7 @@ import org.netbeans.gradle.project.NbIcons;
 import org.netbeans.gradle.project.NbStrings;
 import org.netbeans.gradle.project.api.nodes.SingleNodeFactory;
 import org.netbeans.gradle.project.model.NbGradleProjectTree;
+import org.netbeans.gradle.project.util.KeyedDiff;
 import org.netbeans.gradle.project.util.ListenerRegistrations;
 import org.netbeans.gradle.project.util.StringUtils;
 import org.openide.loaders.DataFolder;
@@ -40,11 +45,14 @@ extends
     private static final Logger LOGGER = Logger.getLogger(SubProjectsChildFactory.class.getName());
 
     private final NbGradleProject project;
-    private final List<NbGradleProjectTree> subProjects;
+    private volatile List<NbGradleProjectTree> subProjects;
     private final AtomicReference<NbGradleProjectTree> lastTree;
     private final boolean root;
     private final ListenerRegistrations listenerRefs;
 
+    private final Lock keysLock;
+    private List<SubProjectNodeFactory> lastKeys;
+
     public SubProjectsChildFactory(NbGradleProject project) {
         this(project, null, true);
     }
@@ -58,15 +66,17 @@ extends
         this.project = Objects.requireNonNull(project, "project");
         this.listenerRefs = new ListenerRegistrations();
         this.lastTree = new AtomicReference<>(null);
-        if (subProjects != null) {
-            this.subProjects = new ArrayList<>(subProjects);
-            sortModules(this.subProjects);
+        this.subProjects = subProjects != null ? toSortedModules(subProjects) : null;
+        this.keysLock = new ReentrantLock();
+        this.lastKeys = Collections.emptyList();
+    }
 
-            ExceptionHelper.checkNotNullElements(this.subProjects, "subProjects");
-        }
-        else {
-            this.subProjects = null;
-        }
+    private static List<NbGradleProjectTree> toSortedModules(Collection<? extends NbGradleProjectTree> modules) {
+        List<NbGradleProjectTree> result = new ArrayList<>(modules);
+        sortModules(result);
+
+        ExceptionHelper.checkNotNullElements(result, "subProjects");
+        return result;
     }
 
     private static void sortModules(List<NbGradleProjectTree> modules) {
@@ -155,26 +165,47 @@ extends
         return result;
     }
 
+    private void updateSubProjects(Collection<? extends NbGradleProjectTree> newSubProjects) {
+        subProjects = toSortedModules(newSubProjects);
+        refresh(false);
+    }
+
     @Override
     protected boolean createKeys(List<SingleNodeFactory> toPopulate) {
-        for (NbGradleProjectTree subProject: getSubProjects()) {
-            toPopulate.add(() -> {
-                if (subProject.getChildren().isEmpty()) {
-                    return new SubModuleNode(project, subProject);
-                }
-                else {
-                    return new SubModuleWithChildren(project, subProject);
-                }
-            });
+        List<NbGradleProjectTree> currentSubProjects = getSubProjects();
+        List<SubProjectNodeFactory> newKeys = new ArrayList<>(currentSubProjects.size());
+        for (NbGradleProjectTree subProject: currentSubProjects) {
+            newKeys.add(new SubProjectNodeFactory(project, subProject));
+        }
+
+        // Keys of unchanged subprojects are reused, so their nodes (and their
+        // expanded state) are kept. Changed subprojects update their existing node.
+        List<SubProjectNodeFactory> resultKeys;
+        keysLock.lock();
+        try {
+            KeyedDiff<SubProjectNodeFactory> diff = KeyedDiff.compute(
+                    lastKeys,
+                    newKeys,
+                    SubProjectNodeFactory::getIdentity,
+                    SubProjectNodeFactory::hasSameContent);
+            for (KeyedDiff.Change<SubProjectNodeFactory> change: diff.getChanged()) {
+                change.getOldKey().updateFrom(change.getNewKey());
+            }
+
+            LOGGER.log(Level.FINE, "Subprojects of {0} updated: {1}", new Object[]{project.getProjectDirectoryAsPath(), diff});
+
+            resultKeys = diff.getResultKeys();
+            lastKeys = resultKeys;
+        } finally {
+            keysLock.unlock();
         }
+
+        toPopulate.addAll(resultKeys);
         return true;
     }
 
-    private static Children createSubprojectsChild(
-            NbGradleProject project,
-            Collection<? extends NbGradleProjectTree> children) {
-
-        return Children.create(new SubProjectsChildFactory(project, children, false), true);
+    private static Children createSubprojectsChild(SubProjectsChildFactory childFactory) {
+        return Children.create(childFactory, true);
     }
 
     private static Node createSimpleNode(NbGradleProject project) {
@@ -222,35 +253,116 @@ extends
         }
     }
 
-    private static class SubModuleWithChildren extends FilterNode {
-        private final NbGradleProjectTree module;
-        private final List<NbGradleProjectTree> immediateChildren;
-        private final List<NbGradleProjectTree> children;
+    private static final class SubProjectNodeFactory implements SingleNodeFactory, Lookup.Provider {
+        private final NbGradleProject project;
+        private final List<Object> identity;
+        private final boolean hasChildren;
+
+        private volatile NbGradleProjectTree module;
+        private volatile ModuleLookup moduleLookup;
+        private volatile SubProjectsChildFactory childFactory;
+
+        public SubProjectNodeFactory(NbGradleProject project, NbGradleProjectTree module) {
+            this.project = project;
+            this.module = module;
+            this.hasChildren = !module.getChildren().isEmpty();
+            this.identity = Arrays.asList(module.getProjectFullName(), module.getProjectDir(), hasChildren);
+            this.moduleLookup = null;
+            this.childFactory = null;
+        }
+
+        public Object getIdentity() {
+            return identity;
+        }
+
+        public NbGradleProjectTree getModule() {
+            return module;
+        }
+
+        /**
+         * Returns the lookup of the current module of this key. The nodes use
+         * this lookup through {@link Lookups#proxy(Lookup.Provider) a proxy}, so
+         * that they see the module set by {@link #updateFrom(SubProjectNodeFactory) updateFrom}.
+         */
+        @Override
+        public Lookup getLookup() {
+            NbGradleProjectTree currentModule = module;
+            ModuleLookup currentLookup = moduleLookup;
+            if (currentLookup == null || currentLookup.module != currentModule) {
+                currentLookup = new ModuleLookup(currentModule, getSubProjectLookup(currentModule));
+                moduleLookup = currentLookup;
+            }
+            return currentLookup.lookup;
+        }
 
-        public SubModuleWithChildren(NbGradleProject project, NbGradleProjectTree module) {
-            this(project, module, module.getChildren());
+        public boolean hasSameContent(SubProjectNodeFactory other) {
+            return !hasRelevantDifferences(module, other.module);
         }
 
-        private SubModuleWithChildren(
+        public void updateFrom(SubProjectNodeFactory newKey) {
+            module = newKey.module;
+
+            SubProjectsChildFactory currentChildFactory = childFactory;
+            if (currentChildFactory != null) {
+                currentChildFactory.updateSubProjects(newKey.module.getChildren());
+            }
+        }
+
+        @Override
+        public Node createNode() {
+            if (!hasChildren) {
+                return new SubModuleNode(this);
+            }
+
+            SubProjectsChildFactory newChildFactory
+                    = new SubProjectsChildFactory(project, module.getChildren(), false);
+            childFactory = newChildFactory;
+            return new SubModuleWithChildren(project, this, newChildFactory);
+        }
+
+        @Override
+        public int hashCode() {
+            return identity.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final SubProjectNodeFactory other = (SubProjectNodeFactory)obj;
+            return this.identity.equals(other.identity);
+        }
+    }
+
+    private static class SubModuleWithChildren extends FilterNode {
+        private final SubProjectNodeFactory key;
+
+        public SubModuleWithChildren(
                 NbGradleProject project,
-                NbGradleProjectTree module,
-                Collection<? extends NbGradleProjectTree> children) {
+                SubProjectNodeFactory key,
+                SubProjectsChildFactory childFactory) {
 
             super(createSimpleNode(project),
-                    createSubprojectsChild(project, children),
-                    getSubProjectLookup(module));
-            this.module = module;
-            this.immediateChildren = Collections.unmodifiableList(GradleProjectChildFactory.getAllChildren(module));
-            this.children = Collections.unmodifiableList(new ArrayList<>(children));
+                    createSubprojectsChild(childFactory),
+                    Lookups.proxy(key));
+            this.key = key;
         }
 
         @Override
         public String getName() {
-            return "SubProjectsNode_" + module.getProjectFullName().replace(':', '_');
+            return "SubProjectsNode_" + key.getModule().getProjectFullName().replace(':', '_');
         }
 
         @Override
         public Action[] getActions(boolean context) {
+            NbGradleProjectTree module = key.getModule();
+            List<NbGradleProjectTree> immediateChildren
+                    = Collections.unmodifiableList(GradleProjectChildFactory.getAllChildren(module));
+            List<NbGradleProjectTree> children
+                    = Collections.unmodifiableList(new ArrayList<>(module.getChildren()));
+
             return getSubProjectContextActions(module,
                     new OpenSubProjectAction(),
                     createOpenAction(NbStrings.getOpenImmediateSubProjectsCaption(), immediateChildren),
@@ -264,7 +376,7 @@ extends
 
         @Override
         public String getDisplayName() {
-            return module.getProjectName();
+            return key.getModule().getProjectName();
         }
 
         @Override
@@ -283,17 +395,27 @@ extends
         }
     }
 
-    private static class SubModuleNode extends FilterNode {
-        private final NbGradleProjectTree module;
+    private static final class ModuleLookup {
+        public final NbGradleProjectTree module;
+        public final Lookup lookup;
 
-        public SubModuleNode(NbGradleProject project, NbGradleProjectTree module) {
-            super(Node.EMPTY.cloneNode(), null, getSubProjectLookup(module));
+        public ModuleLookup(NbGradleProjectTree module, Lookup lookup) {
             this.module = module;
+            this.lookup = lookup;
+        }
+    }
+
+    private static class SubModuleNode extends FilterNode {
+        private final SubProjectNodeFactory key;
+
+        public SubModuleNode(SubProjectNodeFactory key) {
+            super(Node.EMPTY.cloneNode(), null, Lookups.proxy(key));
+            this.key = key;
         }
 
         @Override
         public Action[] getActions(boolean context) {
-            return getSubProjectContextActions(module, new OpenSubProjectAction());
+            return getSubProjectContextActions(key.getModule(), new OpenSubProjectAction());
         }
 
         @Override
@@ -303,11 +425,11 @@ extends
 
         @Override
         public String getName() {
-            return "SubModuleNode_" + module.getProjectFullName().replace(':', '_');
+            return "SubModuleNode_" + key.getModule().getProjectFullName().replace(':', '_');
         }
         @Override
         public String getDisplayName() {
-            return module.getProjectName();
+            return key.getModule().getProjectName();
         }
 
         @Override
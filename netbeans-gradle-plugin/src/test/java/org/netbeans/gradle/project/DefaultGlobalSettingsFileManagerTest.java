@@ -1,11 +1,13 @@
 package org.netbeans.gradle.project;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import java.util.function.Consumer;
 import org.jtrim2.concurrent.Tasks;
 import org.junit.Before;
@@ -109,6 +111,62 @@ public class DefaultGlobalSettingsFileManagerTest {
         testReadingBackAfterOverwrite(waitForOutstandingTask(), waitForOutstandingTask());
     }
 
+    @Test
+    public void testReadingBackFromNewInstance() throws IOException {
+        Path subDir = projectsDir.resolve("test-root").resolve("sub-dir");
+        VirtualModelBuilder builder = new VirtualModelBuilder(projectsDir.resolve("test-root"));
+        builder.projectTree().addChild(subDir);
+        NbGradleModel model = builder.build();
+
+        settingsManager.updateSettingsFile(model);
+        settingsManager.waitForOutstanding(5000);
+
+        DefaultGlobalSettingsFileManager reloadedManager
+                = new DefaultGlobalSettingsFileManager(new RootProjectRegistry(), new LazyPaths(() -> cacheDir));
+
+        assertEquals(model.getSettingsGradleDef(), reloadedManager.tryGetSettingsFile(model.getProjectDir()));
+        assertEquals(model.getSettingsGradleDef(), reloadedManager.tryGetSettingsFile(subDir.toFile()));
+        assertNull(reloadedManager.tryGetSettingsFile(projectsDir.resolve("unknown").toFile()));
+    }
+
+    private void writeLegacySettingsFile(String hash, Path projectDir, Path rootDir, String stamp) throws IOException {
+        Properties properties = new Properties();
+        properties.put("projectDir", projectDir.toString());
+        properties.put("rootProjectDir", rootDir.toString());
+        properties.put("maySearchUpwards", "false");
+        properties.put("settingsGradle", rootDir.resolve("settings.gradle").toString());
+        properties.put("stamp", stamp);
+
+        Path file = cacheDir.resolve("settings-gradle").resolve(hash.substring(0, 2)).resolve(hash.substring(2) + ".properties");
+        Files.createDirectories(file.getParent());
+        try (OutputStream output = Files.newOutputStream(file)) {
+            properties.store(output, null);
+        }
+    }
+
+    @Test
+    public void testMigratesLegacyStore() throws IOException {
+        Path rootDir = projectsDir.resolve("legacy-root");
+        Path subDir = rootDir.resolve("sub");
+        Path staleDir = rootDir.resolve("stale");
+
+        writeLegacySettingsFile("0123", rootDir, rootDir, "stamp1");
+        writeLegacySettingsFile("4567", subDir, rootDir, "stamp1");
+        writeLegacySettingsFile("89ab", staleDir, rootDir, "stamp0");
+
+        SettingsGradleDef expected = new SettingsGradleDef(rootDir.resolve("settings.gradle"), false);
+        assertEquals(expected, settingsManager.tryGetSettingsFile(rootDir.toFile()));
+        assertEquals(expected, settingsManager.tryGetSettingsFile(subDir.toFile()));
+        assertNull(settingsManager.tryGetSettingsFile(staleDir.toFile()));
+
+        settingsManager.waitForOutstanding(5000);
+        assertFalse(Files.exists(cacheDir.resolve("settings-gradle").resolve("01")));
+
+        DefaultGlobalSettingsFileManager reloadedManager
+                = new DefaultGlobalSettingsFileManager(new RootProjectRegistry(), new LazyPaths(() -> cacheDir));
+        assertEquals(expected, reloadedManager.tryGetSettingsFile(subDir.toFile()));
+    }
+
     private static final class VirtualModelBuilder {
         private final TestDebugTree projectTree;
         private Path defaultProjectDir;
@@ -0,0 +1,113 @@
+package org.netbeans.gradle.project.coverage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class CoverageReportIndexTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private Path writeReport(String content) throws IOException {
+        Path result = tmpDir.newFile("report.xml").toPath();
+        Files.write(result, content.getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    @Test
+    public void testJacocoReport() throws IOException {
+        Path reportFile = writeReport(""
+                + "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<!DOCTYPE report PUBLIC \"-//JACOCO//DTD Report 1.1//EN\" \"report.dtd\">\n"
+                + "<report name=\"test\">\n"
+                + "  <package name=\"org/example\">\n"
+                + "    <class name=\"org/example/MyClass\">\n"
+                + "      <method name=\"run\" desc=\"()V\" line=\"5\"/>\n"
+                + "    </class>\n"
+                + "    <sourcefile name=\"MyClass.java\">\n"
+                + "      <line nr=\"5\" mi=\"0\" ci=\"3\" mb=\"0\" cb=\"0\"/>\n"
+                + "      <line nr=\"3\" mi=\"2\" ci=\"0\" mb=\"0\" cb=\"0\"/>\n"
+                + "      <counter type=\"LINE\" missed=\"1\" covered=\"1\"/>\n"
+                + "    </sourcefile>\n"
+                + "  </package>\n"
+                + "</report>\n");
+
+        CoverageReportIndex index = CoverageReportIndex.parse(reportFile);
+        assertEquals(1, index.getFiles().size());
+
+        CoverageReportIndex.FileLineHits hits = index.tryGetFile("org/example/MyClass.java");
+        assertNotNull(hits);
+        assertEquals("org.example.MyClass", hits.getDisplayName());
+        assertEquals(2, hits.getLineCount());
+        assertEquals(1, hits.getExecutedLineCount());
+        assertEquals(0, hits.getHitCount(2));
+        assertEquals(3, hits.getHitCount(4));
+        assertEquals(-1, hits.getHitCount(3));
+
+        assertTrue(index.isUpToDate(reportFile));
+    }
+
+    @Test
+    public void testCoberturaReportMergesNestedClasses() throws IOException {
+        Path reportFile = writeReport(""
+                + "<?xml version=\"1.0\"?>\n"
+                + "<coverage line-rate=\"0.5\">\n"
+                + "  <packages><package name=\"org.example\"><classes>\n"
+                + "    <class name=\"org.example.MyClass\" filename=\"org/example/MyClass.java\">\n"
+                + "      <methods><method name=\"run\"><lines><line number=\"10\" hits=\"100\"/></lines></method></methods>\n"
+                + "      <lines><line number=\"10\" hits=\"1\"/></lines>\n"
+                + "    </class>\n"
+                + "    <class name=\"org.example.MyClass$Nested\" filename=\"org/example/MyClass.java\">\n"
+                + "      <lines><line number=\"2\" hits=\"0\"/><line number=\"10\" hits=\"4\"/></lines>\n"
+                + "    </class>\n"
+                + "  </classes></package></packages>\n"
+                + "</coverage>\n");
+
+        CoverageReportIndex index = CoverageReportIndex.parse(reportFile);
+        CoverageReportIndex.FileLineHits hits = index.tryGetFile("org/example/MyClass.java");
+        assertNotNull(hits);
+        assertEquals("org.example.MyClass", hits.getDisplayName());
+        assertEquals(2, hits.getLineCount());
+        assertEquals(0, hits.getHitCount(1));
+        assertEquals(4, hits.getHitCount(9));
+    }
+
+    @Test
+    public void testInvalidLinesAreIgnored() throws IOException {
+        Path reportFile = writeReport(""
+                + "<?xml version=\"1.0\"?>\n"
+                + "<coverage line-rate=\"0.5\">\n"
+                + "  <packages><package name=\"org.example\"><classes>\n"
+                + "    <class name=\"org.example.MyClass\" filename=\"org/example/MyClass.java\">\n"
+                + "      <lines>\n"
+                + "        <line number=\"7\" hits=\"2\"/>\n"
+                + "        <line number=\"-3\" hits=\"5\"/>\n"
+                + "        <line number=\"0\" hits=\"1\"/>\n"
+                + "        <line number=\"4\" hits=\"-1\"/>\n"
+                + "        <line number=\"2\" hits=\"0\"/>\n"
+                + "      </lines>\n"
+                + "    </class>\n"
+                + "  </classes></package></packages>\n"
+                + "</coverage>\n");
+
+        CoverageReportIndex index = CoverageReportIndex.parse(reportFile);
+        CoverageReportIndex.FileLineHits hits = index.tryGetFile("org/example/MyClass.java");
+        assertNotNull(hits);
+        assertEquals(2, hits.getLineCount());
+        assertEquals(0, hits.getHitCount(1));
+        assertEquals(-1, hits.getHitCount(3));
+        assertEquals(2, hits.getHitCount(6));
+        assertEquals(-1, hits.getHitCount(-1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidReport() throws IOException {
+        CoverageReportIndex.parse(writeReport("<report><package name=\"x\">"));
+    }
+}
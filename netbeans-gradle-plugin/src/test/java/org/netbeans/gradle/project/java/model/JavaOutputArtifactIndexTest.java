@@ -0,0 +1,226 @@
+package org.netbeans.gradle.project.java.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.event.GenericChangeListenerManager;
+import org.netbeans.gradle.project.util.JavaModelTestUtils;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Lookup;
+
+import static org.junit.Assert.*;
+
+public class JavaOutputArtifactIndexTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private static Project testProject() {
+        return new Project() {
+            @Override
+            public FileObject getProjectDirectory() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Lookup getLookup() {
+                return Lookup.EMPTY;
+            }
+        };
+    }
+
+    private static File getClassesDir(NbJavaModule module, String sourceSetName) {
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            if (sourceSet.getName().equals(sourceSetName)) {
+                return sourceSet.getOutputDirs().getClassesDirs().iterator().next();
+            }
+        }
+        throw new AssertionError("Missing source set: " + sourceSetName);
+    }
+
+    private static File getJar(NbJavaModule module, String sourceSetName) {
+        for (NbJarOutput jarOutput: module.getJarOutputs()) {
+            if (jarOutput.getJar().getName().equals(sourceSetName + ".jar")) {
+                return jarOutput.getJar();
+            }
+        }
+        throw new AssertionError("Missing jar: " + sourceSetName);
+    }
+
+    private static NbJavaModule withClasspath(NbJavaModule module, File... classpath) {
+        List<JavaSourceSet> sources = new ArrayList<>();
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            JavaSourceSet.Builder builder = new JavaSourceSet.Builder(sourceSet.getName(), sourceSet.getOutputDirs());
+            sourceSet.getSourceGroups().forEach(builder::addSourceGroup);
+            builder.setClasspaths(new JavaClassPaths(Arrays.asList(classpath)));
+            sources.add(builder.create());
+        }
+
+        return new NbJavaModule(
+                module.getProperties(),
+                module.getCompatibilityModel(),
+                sources,
+                module.getListedDirs(),
+                module.getJarOutputs(),
+                module.getTestTasks(),
+                module.getCodeCoverage());
+    }
+
+    @Test
+    public void testUnloadedProjectOwnsItsDirectory() throws Exception {
+        JavaOutputArtifactIndex index = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+
+        File projectDir = tmpDir.newFolder("project1");
+        Project project = testProject();
+        index.addProject(project, projectDir);
+
+        assertSame(project, index.tryGetOwner(new File(projectDir, "build/libs/project1.jar")));
+        assertNull(index.tryGetOwner(new File(tmpDir.getRoot(), "project10/build/libs/project10.jar")));
+    }
+
+    @Test
+    public void testLoadedProjectOwnsOnlyItsOutputs() throws Exception {
+        JavaOutputArtifactIndex index = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+
+        File projectDir = tmpDir.newFolder("project1");
+        NbJavaModule module = JavaModelTestUtils.createModule(projectDir);
+        Project project = testProject();
+
+        index.addProject(project, projectDir);
+        index.updateOutputs(project, module);
+
+        assertSame(project, index.tryGetOwner(getJar(module, "main")));
+        assertSame(project, index.tryGetOwner(getClassesDir(module, "test")));
+        assertNull(index.tryGetOwner(new File(projectDir, "build/libs/other.jar")));
+
+        index.removeProject(project);
+        assertNull(index.tryGetOwner(getJar(module, "main")));
+        assertNull(index.tryGetOwner(getClassesDir(module, "test")));
+    }
+
+    @Test
+    public void testUpdateIgnoresClosedProjects() throws Exception {
+        JavaOutputArtifactIndex index = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+
+        File projectDir = tmpDir.newFolder("project1");
+        NbJavaModule module = JavaModelTestUtils.createModule(projectDir);
+        Project project = testProject();
+
+        index.updateOutputs(project, module);
+        assertNull(index.tryGetOwner(getJar(module, "main")));
+    }
+
+    @Test
+    public void testChangeNotifications() throws Exception {
+        JavaOutputArtifactIndex index = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+
+        AtomicInteger changeCount = new AtomicInteger(0);
+        index.addChangeListener(changeCount::incrementAndGet);
+
+        File projectDir = tmpDir.newFolder("project1");
+        NbJavaModule module = JavaModelTestUtils.createModule(projectDir);
+        Project project = testProject();
+
+        index.addProject(project, projectDir);
+        assertEquals(1, changeCount.get());
+
+        index.updateOutputs(project, module);
+        assertEquals(2, changeCount.get());
+
+        index.updateOutputs(project, module);
+        assertEquals("Unchanged outputs", 2, changeCount.get());
+
+        index.removeProject(project);
+        assertEquals(3, changeCount.get());
+    }
+
+    @Test
+    public void testTranslationReusesUnchangedResult() throws Exception {
+        JavaOutputArtifactIndex index = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+
+        File libDir = tmpDir.newFolder("lib");
+        NbJavaModule libModule = JavaModelTestUtils.createModule(libDir);
+
+        File appDir = tmpDir.newFolder("app");
+        NbJavaModule appModule = JavaModelTestUtils.createModule(appDir);
+
+        Map<File, ProjectDependencyCandidate> noDependencies = Collections.emptyMap();
+        Map<File, ProjectDependencyCandidate> result1
+                = JavaProjectDependencies.translateDependencies(appModule, index, null, noDependencies);
+        assertSame(noDependencies, result1);
+
+        Map<File, ProjectDependencyCandidate> prevResult = new HashMap<>(result1);
+        Map<File, ProjectDependencyCandidate> result2
+                = JavaProjectDependencies.translateDependencies(libModule, index, null, prevResult);
+        assertSame(prevResult, result2);
+    }
+
+    @Test
+    public void testTranslatesOutputsOfUnopenedSibling() throws Exception {
+        JavaOutputArtifactIndex index = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+
+        File libDir = tmpDir.newFolder("lib");
+        NbJavaModule libModule = JavaModelTestUtils.createModule(libDir);
+        File libJar = getJar(libModule, "main");
+
+        File appDir = tmpDir.newFolder("app");
+        NbJavaModule appModule = withClasspath(JavaModelTestUtils.createModule(appDir), libJar);
+
+        Project libProject = testProject();
+        Map<File, ProjectDependencyCandidate> result = JavaProjectDependencies.translateDependencies(
+                appModule,
+                index,
+                tmpDir.getRoot(),
+                file -> file.equals(libJar) ? libProject : null,
+                Collections.<File, ProjectDependencyCandidate>emptyMap());
+
+        ProjectDependencyCandidate candidate = result.get(libJar);
+        assertNotNull("Candidate for the unopened sibling", candidate);
+        assertSame(libProject, candidate.getProject());
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    public void testExternalJarsAreNotQueried() throws Exception {
+        JavaOutputArtifactIndex index = new JavaOutputArtifactIndex(new GenericChangeListenerManager());
+
+        File buildDir = tmpDir.newFolder("build-root");
+        File libDir = new File(buildDir, "lib");
+        NbJavaModule libModule = JavaModelTestUtils.createModule(libDir);
+        File libJar = getJar(libModule, "main");
+
+        File cacheDir = tmpDir.newFolder("gradle-cache");
+        File externalJar1 = new File(cacheDir, "guava.jar");
+        File externalJar2 = new File(cacheDir, "junit.jar");
+
+        File appDir = new File(buildDir, "app");
+        NbJavaModule appModule = withClasspath(JavaModelTestUtils.createModule(appDir),
+                externalJar1, libJar, externalJar2);
+
+        AtomicInteger fallbackCallCount = new AtomicInteger(0);
+        Project libProject = testProject();
+        Map<File, ProjectDependencyCandidate> result = JavaProjectDependencies.translateDependencies(
+                appModule,
+                index,
+                buildDir,
+                file -> {
+                    fallbackCallCount.incrementAndGet();
+                    return file.equals(libJar) ? libProject : null;
+                },
+                Collections.<File, ProjectDependencyCandidate>emptyMap());
+
+        assertEquals("Number of fallback queries", 1, fallbackCallCount.get());
+        assertSame(libProject, result.get(libJar).getProject());
+        assertEquals(1, result.size());
+    }
+}
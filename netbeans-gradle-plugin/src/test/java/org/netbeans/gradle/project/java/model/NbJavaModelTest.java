@@ -66,4 +66,31 @@ public class NbJavaModelTest {
                 source.getMainModule().getModuleDir().toString(),
                 deserialized.getMainModule().getModuleDir().toString());
     }
+
+    @Test
+    public void testClassPathPendingIsSerialized() throws ClassNotFoundException {
+        NbJavaModel source = NbJavaModel.createClassPathPendingModel(
+                GradleVersions.DEFAULT_TARGET,
+                JavaModelSource.GRADLE_1_8_API,
+                createModule("mainModule"));
+        assertTrue(source.isClassPathPending());
+
+        byte[] serialized = SerializationUtils.serializeObject(source);
+        NbJavaModel deserialized = (NbJavaModel)SerializationUtils.deserializeObject(serialized, SerializationCache.NO_CACHE);
+
+        assertTrue(deserialized.isClassPathPending());
+    }
+
+    @Test
+    public void testResolvedClassPathIsSerialized() throws ClassNotFoundException {
+        NbJavaModel source = NbJavaModel.createModel(
+                GradleVersions.DEFAULT_TARGET,
+                JavaModelSource.GRADLE_1_8_API,
+                createModule("mainModule"));
+
+        byte[] serialized = SerializationUtils.serializeObject(source);
+        NbJavaModel deserialized = (NbJavaModel)SerializationUtils.deserializeObject(serialized, SerializationCache.NO_CACHE);
+
+        assertFalse(deserialized.isClassPathPending());
+    }
 }
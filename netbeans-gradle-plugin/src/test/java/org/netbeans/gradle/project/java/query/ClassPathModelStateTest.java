@@ -0,0 +1,50 @@
+package org.netbeans.gradle.project.java.query;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ClassPathModelStateTest {
+    @Test
+    public void testIncompleteBeforeFirstModel() {
+        ClassPathModelState state = new ClassPathModelState();
+        assertFalse(state.isComplete());
+
+        assertFalse(state.onModelChange(false, false));
+        assertFalse(state.isComplete());
+    }
+
+    @Test
+    public void testPendingModelIsIncomplete() {
+        ClassPathModelState state = new ClassPathModelState();
+
+        assertFalse(state.onModelChange(true, true));
+        assertFalse(state.isComplete());
+
+        assertTrue(state.onModelChange(true, false));
+        assertTrue(state.isComplete());
+    }
+
+    @Test
+    public void testPendingModelAfterFullModel() {
+        ClassPathModelState state = new ClassPathModelState();
+
+        assertTrue(state.onModelChange(true, false));
+        assertTrue(state.isComplete());
+
+        assertTrue(state.onModelChange(true, true));
+        assertFalse(state.isComplete());
+
+        assertTrue(state.onModelChange(true, false));
+        assertTrue(state.isComplete());
+    }
+
+    @Test
+    public void testUnchangedCompletenessIsNotReported() {
+        ClassPathModelState state = new ClassPathModelState();
+
+        assertTrue(state.onModelChange(true, false));
+        assertFalse(state.onModelChange(true, false));
+        assertTrue(state.isComplete());
+    }
+}
@@ -11,6 +11,7 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.junit.ClassRule;
@@ -121,4 +122,29 @@ public class GradleBinaryForSourceQueryTest {
         GradleBinaryForSourceQuery query = new GradleBinaryForSourceQuery(moduleRef);
         verifyDoesNotHaveBinaryRoot(query, module.getModuleDir());
     }
+
+    @Test
+    public void testResultFollowsModelChange() throws IOException {
+        NbJavaModule module1 = JavaModelTestUtils.createModule(TMP_DIR_ROOT.newFolder());
+        NbJavaModule module2 = JavaModelTestUtils.createModule(TMP_DIR_ROOT.newFolder());
+        AtomicReference<NbJavaModule> moduleRef = new AtomicReference<>(module1);
+
+        JavaSourceSet sourceSet = module1.getSources().get(0);
+        File sourceRoot = sourceSet.getSourceGroups().iterator().next().getSourceRoots().iterator().next();
+        URL sourceUrl = Utilities.toURI(sourceRoot).toURL();
+
+        GradleBinaryForSourceQuery query = new GradleBinaryForSourceQuery(moduleRef::get);
+        BinaryForSourceQuery.Result result = query.findBinaryRoots(sourceUrl);
+        assertNotNull("result", result);
+        assertSame(result, query.findBinaryRoots(sourceUrl));
+
+        Set<File> fileRoots = Arrays.stream(result.getRoots())
+                .map(FileUtil::archiveOrDirForURL)
+                .collect(Collectors.toSet());
+        expectContains("classes dir", fileRoots, sourceSet.getOutputDirs().getClassesDirs());
+
+        moduleRef.set(module2);
+        query.onModelChange();
+        assertArrayEquals(new URL[0], result.getRoots());
+    }
 }
@@ -0,0 +1,86 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ModuleInfoNameCacheTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private Path writeModuleInfo(String content, long lastModified) throws IOException {
+        Path result = tmpDir.getRoot().toPath().resolve("module-info.java");
+        Files.write(result, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(result, FileTime.fromMillis(lastModified));
+        return result;
+    }
+
+    private static Function<Path, String> countingFallback(AtomicInteger callCount, String result) {
+        return path -> {
+            callCount.incrementAndGet();
+            return result;
+        };
+    }
+
+    @Test
+    public void testMissingFile() {
+        AtomicInteger fallbackCalls = new AtomicInteger();
+        ModuleInfoNameCache cache = new ModuleInfoNameCache(countingFallback(fallbackCalls, "fallback"));
+
+        assertNull(cache.tryGetModuleName(tmpDir.getRoot().toPath().resolve("module-info.java")));
+        assertNull(cache.tryGetModuleName(tmpDir.getRoot().toPath()));
+        assertEquals(0, fallbackCalls.get());
+    }
+
+    @Test
+    public void testReparsedOnlyAfterChange() throws IOException {
+        AtomicInteger fallbackCalls = new AtomicInteger();
+        ModuleInfoNameCache cache = new ModuleInfoNameCache(countingFallback(fallbackCalls, "fallback"));
+
+        Path moduleInfo = writeModuleInfo("module mymodule1 {}", 10000);
+        assertEquals("mymodule1", cache.tryGetModuleName(moduleInfo));
+
+        // Same size and time: The cached name is returned.
+        writeModuleInfo("module mymodule2 {}", 10000);
+        assertEquals("mymodule1", cache.tryGetModuleName(moduleInfo));
+
+        writeModuleInfo("module mymodule2 {}", 20000);
+        assertEquals("mymodule2", cache.tryGetModuleName(moduleInfo));
+
+        writeModuleInfo("module mymodule22 {}", 20000);
+        assertEquals("mymodule22", cache.tryGetModuleName(moduleInfo));
+
+        assertEquals(0, fallbackCalls.get());
+    }
+
+    @Test
+    public void testFallbackForUnparseableFile() throws IOException {
+        AtomicInteger fallbackCalls = new AtomicInteger();
+        ModuleInfoNameCache cache = new ModuleInfoNameCache(countingFallback(fallbackCalls, "fallback"));
+
+        Path moduleInfo = writeModuleInfo("module \\u0061 {}", 10000);
+        assertEquals("fallback", cache.tryGetModuleName(moduleInfo));
+        assertEquals("fallback", cache.tryGetModuleName(moduleInfo));
+        assertEquals(1, fallbackCalls.get());
+    }
+
+    @Test
+    public void testFailedFallbackIsNotCached() throws IOException {
+        AtomicInteger fallbackCalls = new AtomicInteger();
+        ModuleInfoNameCache cache = new ModuleInfoNameCache(countingFallback(fallbackCalls, null));
+
+        Path moduleInfo = writeModuleInfo("class NotAModule {}", 10000);
+        assertNull(cache.tryGetModuleName(moduleInfo));
+        assertNull(cache.tryGetModuleName(moduleInfo));
+        assertEquals(2, fallbackCalls.get());
+    }
+}
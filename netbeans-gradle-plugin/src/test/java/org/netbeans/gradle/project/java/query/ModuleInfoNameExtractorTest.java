@@ -0,0 +1,88 @@
+package org.netbeans.gradle.project.java.query;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ModuleInfoNameExtractorTest {
+    private static void testModuleName(String expected, String... lines) {
+        String source = String.join("\n", lines);
+        assertEquals(source, expected, ModuleInfoNameExtractor.tryExtractModuleName(source));
+    }
+
+    private static void testNotParseable(String... lines) {
+        testModuleName(null, lines);
+    }
+
+    @Test
+    public void testSimpleModule() {
+        testModuleName("mymodule", "module mymodule {", "}");
+        testModuleName("mymodule", "module mymodule{}");
+        testModuleName("mymodule", "  module   mymodule  {  }  ");
+    }
+
+    @Test
+    public void testQualifiedName() {
+        testModuleName("org.example.mymodule",
+                "module org.example.mymodule {",
+                "    requires java.sql;",
+                "    exports org.example.mymodule.api;",
+                "}");
+        testModuleName("org.example.mymodule", "module org . example\n.mymodule {}");
+    }
+
+    @Test
+    public void testOpenModule() {
+        testModuleName("org.example.mymodule", "open module org.example.mymodule {", "}");
+        testModuleName("org.example.mymodule", "open\nmodule /* comment */ org.example.mymodule {}");
+    }
+
+    @Test
+    public void testComments() {
+        testModuleName("org.example.mymodule",
+                "/*",
+                " * License header: module wrong.name {}",
+                " */",
+                "// module wrong.name {}",
+                "/** Javadoc */",
+                "module org./* comment */example // comment",
+                "    .mymodule {",
+                "}");
+    }
+
+    @Test
+    public void testImportsAndAnnotations() {
+        testModuleName("org.example.mymodule",
+                "import java.lang.annotation.Documented;",
+                "import static org.example.Constants.*;",
+                "",
+                "@Deprecated",
+                "@SuppressWarnings({\"module\", \"open module wrong.name {\"})",
+                "@org.example.MyAnnotation(value = @Nested(\")\"), ch = ')', n = (1 + 2))",
+                "open module org.example.mymodule {",
+                "}");
+    }
+
+    @Test
+    public void testTextBlockInAnnotation() {
+        testModuleName("org.example.mymodule",
+                "@org.example.MyAnnotation(\"\"\"",
+                "    module wrong.name { )",
+                "    \"\"\")",
+                "module org.example.mymodule {}");
+    }
+
+    @Test
+    public void testNotParseable() {
+        testNotParseable("");
+        testNotParseable("// module mymodule {}");
+        testNotParseable("module {}");
+        testNotParseable("module mymodule");
+        testNotParseable("module mymodule.;");
+        testNotParseable("open mymodule {}");
+        testNotParseable("class MyClass {}");
+        testNotParseable("/* module mymodule {}");
+        testNotParseable("@MyAnnotation(\"unterminated) module mymodule {}");
+        testNotParseable("module \\u0061 {}");
+    }
+}
@@ -0,0 +1,211 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.executor.MonitorableTaskExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.project.api.task.CommandCompleteListener;
+import org.netbeans.gradle.project.api.task.GradleActionProviderContext;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.Lookup;
+
+import static org.junit.Assert.*;
+
+public class CompileOnSaveQueueTest {
+    private static final long TIMEOUT_SEC = 5;
+    private static final long QUIET_PERIOD_MS = 200;
+
+    private MonitorableTaskExecutorService executor;
+    private BlockingQueue<StartedCompile> startedCompiles;
+    private CompileOnSaveQueue queue;
+
+    @Before
+    public void setUp() {
+        executor = NbTaskExecutors.newStoppableExecutor("CompileOnSaveQueueTest", 1);
+        startedCompiles = new ArrayBlockingQueue<>(100);
+        queue = new CompileOnSaveQueue(executor, QUIET_PERIOD_MS, (project, context) -> {
+            startedCompiles.add(new StartedCompile(project, context));
+        });
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+        executor.tryAwaitTermination(Cancellation.UNCANCELABLE_TOKEN, TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    private static Project testProject(String name) throws IOException {
+        FileObject projectDir = FileUtil.createMemoryFileSystem().getRoot().createFolder(name);
+        return new Project() {
+            @Override
+            public FileObject getProjectDirectory() {
+                return projectDir;
+            }
+
+            @Override
+            public Lookup getLookup() {
+                return Lookup.EMPTY;
+            }
+        };
+    }
+
+    private static FileObject sourceFile(Project project, String name) throws IOException {
+        return project.getProjectDirectory().createData(name, "java");
+    }
+
+    private StartedCompile waitForCompile() throws InterruptedException {
+        StartedCompile result = startedCompiles.poll(TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertNotNull("Expected a started compile.", result);
+        return result;
+    }
+
+    private void verifyNoMoreCompiles() throws InterruptedException {
+        assertNull(startedCompiles.poll(2 * QUIET_PERIOD_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testBurstIsCompiledOnce() throws Exception {
+        Project project = testProject("project1");
+        FileObject file1 = sourceFile(project, "File1");
+        FileObject file2 = sourceFile(project, "File2");
+
+        queue.fileSaved(project, file1);
+        queue.fileSaved(project, file2);
+        queue.fileSaved(project, file1);
+
+        StartedCompile compile = waitForCompile();
+        assertSame(project, compile.project);
+        assertEquals(Arrays.asList(file1, file2), compile.getFiles());
+        assertTrue(compile.hasContext(GradleActionProviderContext.DONT_SAVE_FILES));
+        assertTrue(compile.hasContext(GradleActionProviderContext.DONT_FOCUS_ON_OUTPUT));
+        assertFalse(compile.getCancelToken().isCanceled());
+
+        verifyNoMoreCompiles();
+    }
+
+    @Test
+    public void testProjectsAreCompiledSeparately() throws Exception {
+        Project project1 = testProject("project1");
+        Project project2 = testProject("project2");
+        FileObject file1 = sourceFile(project1, "File1");
+        FileObject file2 = sourceFile(project2, "File2");
+
+        queue.fileSaved(project1, file1);
+        queue.fileSaved(project2, file2);
+
+        StartedCompile compile1 = waitForCompile();
+        StartedCompile compile2 = waitForCompile();
+
+        assertEquals(new HashSet<>(Arrays.asList(project1, project2)),
+                new HashSet<>(Arrays.asList(compile1.project, compile2.project)));
+        for (StartedCompile compile: Arrays.asList(compile1, compile2)) {
+            assertEquals(compile.project == project1 ? Arrays.asList(file1) : Arrays.asList(file2), compile.getFiles());
+        }
+
+        verifyNoMoreCompiles();
+    }
+
+    @Test
+    public void testNewSaveCancelsStartedCompile() throws Exception {
+        Project project1 = testProject("project1");
+        Project project2 = testProject("project2");
+        FileObject file1 = sourceFile(project1, "File1");
+        FileObject file2 = sourceFile(project2, "File2");
+
+        queue.fileSaved(project1, file1);
+        queue.fileSaved(project2, file2);
+        StartedCompile compileA = waitForCompile();
+        StartedCompile compileB = waitForCompile();
+        StartedCompile compile1 = compileA.project == project1 ? compileA : compileB;
+        StartedCompile compile2 = compileA.project == project1 ? compileB : compileA;
+
+        queue.fileSaved(project1, file1);
+        assertTrue(compile1.getCancelToken().isCanceled());
+        assertFalse(compile2.getCancelToken().isCanceled());
+
+        StartedCompile newCompile = waitForCompile();
+        assertSame(project1, newCompile.project);
+        assertFalse(newCompile.getCancelToken().isCanceled());
+    }
+
+    @Test
+    public void testSupersededCompileFilesAreRecompiled() throws Exception {
+        Project project = testProject("project1");
+        FileObject file1 = sourceFile(project, "File1");
+        FileObject file2 = sourceFile(project, "File2");
+
+        queue.fileSaved(project, file1);
+        StartedCompile compile1 = waitForCompile();
+        assertEquals(Arrays.asList(file1), compile1.getFiles());
+
+        queue.fileSaved(project, file2);
+        assertTrue(compile1.getCancelToken().isCanceled());
+
+        StartedCompile compile2 = waitForCompile();
+        assertEquals(Arrays.asList(file1, file2), compile2.getFiles());
+
+        verifyNoMoreCompiles();
+    }
+
+    @Test
+    public void testCompletedCompileFilesAreNotRecompiled() throws Exception {
+        Project project = testProject("project1");
+        FileObject file1 = sourceFile(project, "File1");
+        FileObject file2 = sourceFile(project, "File2");
+
+        queue.fileSaved(project, file1);
+        StartedCompile compile1 = waitForCompile();
+        compile1.complete();
+
+        queue.fileSaved(project, file2);
+        assertFalse(compile1.getCancelToken().isCanceled());
+
+        StartedCompile compile2 = waitForCompile();
+        assertEquals(Arrays.asList(file2), compile2.getFiles());
+
+        verifyNoMoreCompiles();
+    }
+
+    private static final class StartedCompile {
+        private final Project project;
+        private final Lookup context;
+
+        public StartedCompile(Project project, Lookup context) {
+            this.project = project;
+            this.context = context;
+        }
+
+        public List<FileObject> getFiles() {
+            return new ArrayList<>(context.lookupAll(FileObject.class));
+        }
+
+        public boolean hasContext(GradleActionProviderContext expected) {
+            return context.lookupAll(GradleActionProviderContext.class).contains(expected);
+        }
+
+        public CancellationToken getCancelToken() {
+            CancellationToken result = context.lookup(CancellationToken.class);
+            assertNotNull("cancelToken", result);
+            return result;
+        }
+
+        public void complete() {
+            CommandCompleteListener listener = context.lookup(CommandCompleteListener.class);
+            assertNotNull("completeListener", listener);
+            listener.onComplete(null);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.modules.gsf.testrunner.api.Status;
+
+import static org.junit.Assert.*;
+
+public class TestXmlReportParserTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private static String suiteXml(String suiteName, String testcasesXml) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<testsuite name=\"" + suiteName + "\" tests=\"2\" time=\"0.5\">\n"
+                + testcasesXml
+                + "  <system-out><![CDATA[HELLO]]></system-out>\n"
+                + "  <system-err><![CDATA[]]></system-err>\n"
+                + "</testsuite>\n";
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        File reportFile = tmpDir.newFile("TEST-mypackage.MyTest.xml");
+        write(reportFile, suiteXml("mypackage.MyTest", ""
+                + "  <testcase name=\"testOk\" classname=\"mypackage.MyTest\" time=\"0.1\"/>\n"
+                + "  <testcase name=\"testFail\" classname=\"mypackage.MyTest\" time=\"0.2\">\n"
+                + "    <failure message=\"boom\">java.lang.AssertionError: boom\n"
+                + "\tat mypackage.MyTest.testFail(MyTest.java:10)\n"
+                + "</failure>\n"
+                + "  </testcase>\n"));
+
+        ParsedTestSuite suite = new TestXmlReportParser(10).parse(reportFile);
+        assertNotNull(suite);
+        assertEquals("mypackage.MyTest", suite.getName());
+
+        List<ParsedTestSuite.ParsedTestcase> testcases = suite.getTestcases();
+        assertEquals(2, testcases.size());
+        assertEquals("testOk", testcases.get(0).getName());
+        assertEquals(Status.PASSED, testcases.get(0).getStatus());
+        assertEquals("testFail", testcases.get(1).getName());
+        assertEquals(Status.FAILED, testcases.get(1).getStatus());
+    }
+
+    @Test
+    public void testUnchangedReportIsNotParsedAgain() throws Exception {
+        File reportFile = tmpDir.newFile("TEST-mypackage.MyTest.xml");
+        write(reportFile, suiteXml("mypackage.MyTest",
+                "  <testcase name=\"testOk\" classname=\"mypackage.MyTest\" time=\"0.1\"/>\n"));
+
+        TestXmlReportParser parser = new TestXmlReportParser(10);
+        assertNull(parser.tryGetCached(reportFile));
+
+        ParsedTestSuite suite1 = parser.parse(reportFile);
+        assertSame(suite1, parser.tryGetCached(reportFile));
+        assertSame(suite1, parser.parse(reportFile));
+
+        write(reportFile, suiteXml("mypackage.MyTest", ""
+                + "  <testcase name=\"testOk\" classname=\"mypackage.MyTest\" time=\"0.1\"/>\n"
+                + "  <testcase name=\"testOk2\" classname=\"mypackage.MyTest\" time=\"0.1\"/>\n"));
+        reportFile.setLastModified(reportFile.lastModified() + 2000);
+
+        assertNull(parser.tryGetCached(reportFile));
+        ParsedTestSuite suite2 = parser.parse(reportFile);
+        assertNotSame(suite1, suite2);
+        assertEquals(2, suite2.getTestcases().size());
+    }
+
+    @Test
+    public void testCacheIsLimitedByRetainedChars() throws Exception {
+        File reportFile1 = tmpDir.newFile("TEST-mypackage.MyTest1.xml");
+        File reportFile2 = tmpDir.newFile("TEST-mypackage.MyTest2.xml");
+        String testcasesXml = "  <testcase name=\"testOk\" classname=\"mypackage.MyTest\" time=\"0.1\"/>\n";
+        write(reportFile1, suiteXml("mypackage.MyTest1", testcasesXml));
+        write(reportFile2, suiteXml("mypackage.MyTest2", testcasesXml));
+
+        TestXmlReportParser parser = new TestXmlReportParser(10, 1);
+        parser.parse(reportFile1);
+        assertNull("Report larger than the limit.", parser.tryGetCached(reportFile1));
+
+        long suiteCharCount = new TestXmlReportParser(10).parse(reportFile1).getRetainedCharCount();
+        parser = new TestXmlReportParser(10, suiteCharCount + suiteCharCount / 2);
+
+        ParsedTestSuite suite1 = parser.parse(reportFile1);
+        assertSame(suite1, parser.tryGetCached(reportFile1));
+
+        ParsedTestSuite suite2 = parser.parse(reportFile2);
+        assertSame(suite2, parser.tryGetCached(reportFile2));
+        assertNull("Least recently used report must be evicted.", parser.tryGetCached(reportFile1));
+    }
+}
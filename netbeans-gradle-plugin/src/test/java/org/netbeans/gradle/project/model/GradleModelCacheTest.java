@@ -0,0 +1,200 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.event.ListenerRef;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.project.script.DefaultScriptFileProvider;
+import org.netbeans.gradle.project.util.MemoryMonitor;
+
+import static org.junit.Assert.*;
+
+public class GradleModelCacheTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private SimulatedMemoryMonitor memoryMonitor;
+
+    @Before
+    public void setUp() {
+        memoryMonitor = new SimulatedMemoryMonitor();
+    }
+
+    private GradleModelCache createSheddingCache(int maxCapacity) {
+        GradleModelCache cache = new GradleModelCache(maxCapacity);
+        cache.setHeapBudget(0.6);
+        cache.shedOnLowMemory(memoryMonitor, 0);
+        return cache;
+    }
+
+    private NbGradleModel createModel(String name) throws IOException {
+        File projectDir = tmpFolder.newFolder(name);
+        NbGradleMultiProjectDef projectDef = NbGradleMultiProjectDef
+                .createEmpty(projectDir.toPath(), new DefaultScriptFileProvider());
+        return new NbGradleModel(projectDef, null);
+    }
+
+    private static File dir(NbGradleModel model) {
+        return model.getProjectDir();
+    }
+
+    @Test
+    public void testShedsLeastRecentlyUsedOnLowMemory() throws IOException {
+        GradleModelCache cache = createSheddingCache(100);
+
+        NbGradleModel[] models = new NbGradleModel[8];
+        for (int i = 0; i < models.length; i++) {
+            models[i] = createModel("project" + i);
+            cache.replaceEntry(models[i]);
+        }
+
+        // Accessing the first project makes it the most recently used one.
+        assertSame(models[0], cache.tryGet(dir(models[0]), null));
+
+        memoryMonitor.simulateCollection(0.9);
+
+        assertNull(cache.tryGet(dir(models[1]), null));
+        assertTrue(cache.isSpilled(dir(models[1]), null));
+        assertSame(models[0], cache.tryGet(dir(models[0]), null));
+        assertFalse(cache.isSpilled(dir(models[0]), null));
+        assertSame(models[7], cache.tryGet(dir(models[7]), null));
+    }
+
+    @Test
+    public void testKeepsRecentModelsUnderPressure() throws IOException {
+        GradleModelCache cache = createSheddingCache(100);
+
+        NbGradleModel[] models = new NbGradleModel[4];
+        for (int i = 0; i < models.length; i++) {
+            models[i] = createModel("project" + i);
+            cache.replaceEntry(models[i]);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            memoryMonitor.simulateCollection(0.9);
+        }
+
+        assertSame(models[2], cache.tryGet(dir(models[2]), null));
+        assertSame(models[3], cache.tryGet(dir(models[3]), null));
+        assertTrue(cache.isSpilled(dir(models[0]), null));
+        assertTrue(cache.isSpilled(dir(models[1]), null));
+    }
+
+    @Test
+    public void testDoesNotShedWithinHeapBudget() throws IOException {
+        GradleModelCache cache = createSheddingCache(100);
+
+        NbGradleModel[] models = new NbGradleModel[4];
+        for (int i = 0; i < models.length; i++) {
+            models[i] = createModel("project" + i);
+            cache.replaceEntry(models[i]);
+        }
+
+        memoryMonitor.simulateCollection(0.9);
+        assertTrue(cache.isSpilled(dir(models[0]), null));
+
+        // Enough was reclaimed, so the rest of the models must be kept.
+        memoryMonitor.simulateCollection(0.5);
+        memoryMonitor.simulateCollection(0.6);
+        for (int i = 1; i < models.length; i++) {
+            assertSame(models[i], cache.tryGet(dir(models[i]), null));
+        }
+    }
+
+    @Test
+    public void testShedsAtMostOncePerInterval() throws IOException {
+        GradleModelCache cache = new GradleModelCache(100);
+        cache.setHeapBudget(0.6);
+        cache.shedOnLowMemory(memoryMonitor, TimeUnit.HOURS.toMillis(1));
+
+        NbGradleModel[] models = new NbGradleModel[8];
+        for (int i = 0; i < models.length; i++) {
+            models[i] = createModel("project" + i);
+            cache.replaceEntry(models[i]);
+        }
+
+        memoryMonitor.simulateCollection(0.9);
+        assertTrue(cache.isSpilled(dir(models[0]), null));
+
+        memoryMonitor.simulateCollection(0.9);
+        memoryMonitor.simulateCollection(0.9);
+        for (int i = 1; i < models.length; i++) {
+            assertSame(models[i], cache.tryGet(dir(models[i]), null));
+        }
+    }
+
+    @Test
+    public void testRestoreSpilledEntry() throws IOException {
+        GradleModelCache cache = new GradleModelCache(100);
+        cache.setHeapBudget(0.6);
+        ListenerRef shedRef = cache.shedOnLowMemory(memoryMonitor);
+
+        NbGradleModel model1 = createModel("project1");
+        cache.replaceEntry(model1);
+        for (int i = 2; i <= 4; i++) {
+            cache.replaceEntry(createModel("project" + i));
+        }
+
+        memoryMonitor.simulateCollection(0.9);
+        assertTrue(cache.isSpilled(dir(model1), null));
+
+        NbGradleModel persistedModel1 = new NbGradleModel(model1.getGenericInfo().getProjectDef(), null);
+        assertSame(persistedModel1, cache.restoreEntry(persistedModel1));
+        assertFalse(cache.isSpilled(dir(model1), null));
+        assertSame(persistedModel1, cache.tryGet(dir(model1), null));
+
+        shedRef.unregister();
+        memoryMonitor.simulateCollection(0.9);
+        assertSame(persistedModel1, cache.tryGet(dir(model1), null));
+    }
+
+    @Test
+    public void testRestoreDoesNotOverwriteNewerModel() throws IOException {
+        GradleModelCache cache = new GradleModelCache(1);
+
+        NbGradleModel model1 = createModel("project1");
+        cache.replaceEntry(model1);
+        cache.replaceEntry(createModel("project2"));
+        assertTrue(cache.isSpilled(dir(model1), null));
+
+        NbGradleModel reloadedModel1 = new NbGradleModel(model1.getGenericInfo().getProjectDef(), null);
+        cache.replaceEntry(reloadedModel1);
+        assertFalse(cache.isSpilled(dir(model1), null));
+
+        assertSame(reloadedModel1, cache.restoreEntry(model1));
+        assertSame(reloadedModel1, cache.tryGet(dir(model1), null));
+    }
+
+    private static final class SimulatedMemoryMonitor implements MemoryMonitor {
+        private final CopyOnWriteArrayList<Runnable> listeners;
+        private volatile double usedHeapRatio;
+
+        public SimulatedMemoryMonitor() {
+            this.listeners = new CopyOnWriteArrayList<>();
+            this.usedHeapRatio = 0.0;
+        }
+
+        public void simulateCollection(double newUsedHeapRatio) {
+            usedHeapRatio = newUsedHeapRatio;
+            for (Runnable listener: listeners) {
+                listener.run();
+            }
+        }
+
+        @Override
+        public double getUsedHeapRatio() {
+            return usedHeapRatio;
+        }
+
+        @Override
+        public ListenerRef addCollectionListener(Runnable listener) {
+            listeners.add(listener);
+            return () -> listeners.remove(listener);
+        }
+    }
+}
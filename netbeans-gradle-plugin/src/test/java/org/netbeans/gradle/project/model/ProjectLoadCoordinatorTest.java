@@ -0,0 +1,371 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.executor.GenericUpdateTaskExecutor;
+import org.jtrim2.executor.SyncTaskExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.model.metrics.LatencyHistogram;
+import org.netbeans.gradle.project.model.metrics.ModelLoadMetrics;
+import org.netbeans.gradle.project.model.metrics.ModelLoadPhase;
+
+import static org.junit.Assert.*;
+
+public class ProjectLoadCoordinatorTest {
+    private static final long BUILD_LOAD_MS = 200;
+    private static final long TIMEOUT_SEC = 10;
+
+    private ExecutorService batchThreads;
+    private ModelLoadMetrics metrics;
+
+    @Before
+    public void setUp() {
+        batchThreads = Executors.newCachedThreadPool();
+        metrics = new ModelLoadMetrics();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        batchThreads.shutdown();
+        batchThreads.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private ProjectLoadCoordinator createCoordinator(int maxConcurrentBatchCount) {
+        return new ProjectLoadCoordinator(
+                (caption, batchTask, cleanupTask) -> {
+                    batchThreads.execute(() -> {
+                        try {
+                            batchTask.run(Cancellation.UNCANCELABLE_TOKEN, null);
+                        } finally {
+                            cleanupTask.run();
+                        }
+                    });
+                },
+                new GenericUpdateTaskExecutor(SyncTaskExecutor.getSimpleExecutor()),
+                () -> maxConcurrentBatchCount,
+                metrics);
+    }
+
+    private static Path rootDir(int rootIndex) {
+        return Paths.get("workspace", "root" + rootIndex);
+    }
+
+    @Test(timeout = 30000)
+    public void testOneBuildLoadPerRoot() throws InterruptedException {
+        SyntheticWorkspace workspace = new SyntheticWorkspace(5, 20, 1);
+        workspace.openAll(createCoordinator(2));
+
+        workspace.awaitAllLoaded();
+        assertEquals(5, workspace.buildLoadCount.get());
+        assertEquals(0, workspace.failureCount.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrencyLimit() throws InterruptedException {
+        SyntheticWorkspace workspace = new SyntheticWorkspace(6, 3, 2);
+        workspace.openAll(createCoordinator(2));
+
+        workspace.awaitAllLoaded();
+        workspace.verifyConcurrentLoadsReached();
+        assertEquals(2, workspace.maxConcurrentBuildLoads.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testTimeToAllProjectsLoaded() throws InterruptedException {
+        int rootCount = 4;
+        SyntheticWorkspace workspace = new SyntheticWorkspace(rootCount, 50, rootCount);
+        workspace.openAll(createCoordinator(rootCount));
+        workspace.awaitAllLoaded();
+
+        LatencyHistogram pendingLoads = metrics.getPhaseLatency(ModelLoadPhase.PENDING_LOADS);
+        waitForCount(pendingLoads, 1);
+
+        assertEquals(1, pendingLoads.getCount());
+        assertTrue(pendingLoads.getMaxMillis() >= BUILD_LOAD_MS);
+        // The builds must be loaded concurrently.
+        workspace.verifyConcurrentLoadsReached();
+        assertEquals(rootCount, workspace.buildLoadCount.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testCanceledBatchDoesNotBlockTheBuild() throws InterruptedException {
+        AtomicInteger batchCount = new AtomicInteger(0);
+        ProjectLoadCoordinator coordinator = new ProjectLoadCoordinator(
+                (caption, batchTask, cleanupTask) -> {
+                    if (batchCount.getAndIncrement() == 0) {
+                        // Simulates canceling the batch before it was started.
+                        cleanupTask.run();
+                        return;
+                    }
+                    batchTask.run(Cancellation.UNCANCELABLE_TOKEN, null);
+                    cleanupTask.run();
+                },
+                new GenericUpdateTaskExecutor(SyncTaskExecutor.getSimpleExecutor()),
+                () -> 1,
+                metrics);
+
+        AtomicInteger completedCount = new AtomicInteger(0);
+        coordinator.submit("project1", () -> rootDir(0), (cancelToken, progress) -> { }, error -> {
+            completedCount.incrementAndGet();
+        });
+        assertEquals(0, completedCount.get());
+
+        coordinator.submit("project2", () -> rootDir(0), (cancelToken, progress) -> { }, error -> {
+            completedCount.incrementAndGet();
+        });
+        assertEquals(1, completedCount.get());
+        assertEquals(2, metrics.getPhaseLatency(ModelLoadPhase.PENDING_LOADS).getCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testCanceledBatchRequeuesWaitingRequests() throws InterruptedException {
+        AtomicReference<Runnable> dispatchTaskRef = new AtomicReference<>();
+        AtomicInteger batchCount = new AtomicInteger(0);
+        ProjectLoadCoordinator coordinator = new ProjectLoadCoordinator(
+                (caption, batchTask, cleanupTask) -> {
+                    if (batchCount.getAndIncrement() == 0) {
+                        cleanupTask.run();
+                        return;
+                    }
+                    batchTask.run(Cancellation.UNCANCELABLE_TOKEN, null);
+                    cleanupTask.run();
+                },
+                dispatchTaskRef::set,
+                () -> 1,
+                metrics);
+
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+        for (String caption: new String[]{"project1", "project2", "project3"}) {
+            coordinator.submit(caption, () -> rootDir(0), (cancelToken, progress) -> { }, error -> {
+                completed.add(caption);
+            });
+        }
+        dispatchTaskRef.get().run();
+
+        assertEquals(2, batchCount.get());
+        assertEquals(new HashSet<>(Arrays.asList("project2", "project3")), completed);
+    }
+
+    @Test(timeout = 30000)
+    public void testCancelOnlyAffectsTheRunningRequest() throws InterruptedException {
+        AtomicReference<Runnable> dispatchTaskRef = new AtomicReference<>();
+        CancellationSource firstBatchCancel = Cancellation.createCancellationSource();
+        AtomicInteger batchCount = new AtomicInteger(0);
+        ProjectLoadCoordinator coordinator = new ProjectLoadCoordinator(
+                (caption, batchTask, cleanupTask) -> {
+                    boolean firstBatch = batchCount.getAndIncrement() == 0;
+                    batchTask.run(firstBatch ? firstBatchCancel.getToken() : Cancellation.UNCANCELABLE_TOKEN, null);
+                    cleanupTask.run();
+                },
+                dispatchTaskRef::set,
+                () -> 1,
+                metrics);
+
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+        coordinator.submit("project1", () -> rootDir(0), (cancelToken, progress) -> {
+            firstBatchCancel.getController().cancel();
+            throw new OperationCanceledException();
+        }, error -> completed.add("project1"));
+        for (String caption: new String[]{"project2", "project3"}) {
+            coordinator.submit(caption, () -> rootDir(0), (cancelToken, progress) -> {
+                assertFalse(cancelToken.isCanceled());
+            }, error -> {
+                if (error == null) {
+                    completed.add(caption);
+                }
+            });
+        }
+        dispatchTaskRef.get().run();
+
+        assertEquals(2, batchCount.get());
+        assertEquals(new HashSet<>(Arrays.asList("project2", "project3")), completed);
+    }
+
+    @Test(timeout = 30000)
+    public void testRequestsOfABatchShareTheLoadedProjects() throws InterruptedException {
+        AtomicReference<Runnable> dispatchTaskRef = new AtomicReference<>();
+        ProjectLoadCoordinator coordinator = new ProjectLoadCoordinator(
+                (caption, batchTask, cleanupTask) -> {
+                    batchTask.run(Cancellation.UNCANCELABLE_TOKEN, null);
+                    cleanupTask.run();
+                },
+                dispatchTaskRef::set,
+                () -> 1,
+                metrics);
+
+        File projectDir = new File("project2");
+        AtomicInteger buildLoadCount = new AtomicInteger(0);
+        ProjectLoadCoordinator.LoadTask reloadTask = (batch, cancelToken, progress) -> {
+            if (!batch.isLoaded(projectDir)) {
+                buildLoadCount.incrementAndGet();
+                batch.markLoaded(new File("project1"));
+                batch.markLoaded(projectDir);
+            }
+        };
+
+        coordinator.submit("project1", () -> rootDir(0), false, reloadTask, error -> { });
+        coordinator.submit("project2", () -> rootDir(0), false, reloadTask, error -> { });
+        dispatchTaskRef.get().run();
+        assertEquals(1, buildLoadCount.get());
+
+        // A new batch must load the build again.
+        coordinator.submit("project2", () -> rootDir(0), false, reloadTask, error -> { });
+        dispatchTaskRef.get().run();
+        assertEquals(2, buildLoadCount.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testBackgroundBuildsAreStartedLast() throws InterruptedException {
+        AtomicReference<Runnable> dispatchTaskRef = new AtomicReference<>();
+        List<String> startedBatches = new ArrayList<>();
+        ProjectLoadCoordinator coordinator = new ProjectLoadCoordinator(
+                (caption, batchTask, cleanupTask) -> {
+                    startedBatches.add(caption);
+                    batchTask.run(Cancellation.UNCANCELABLE_TOKEN, null);
+                    cleanupTask.run();
+                },
+                dispatchTaskRef::set,
+                () -> 1,
+                metrics);
+
+        ProjectLoadCoordinator.LoadTask task = (batch, cancelToken, progress) -> { };
+        coordinator.submit("background0", () -> rootDir(0), true, task, error -> { });
+        coordinator.submit("background1", () -> rootDir(1), true, task, error -> { });
+        coordinator.submit("foreground2", () -> rootDir(2), false, task, error -> { });
+        // A foreground request moves its build ahead of the background builds.
+        coordinator.submit("foreground1", () -> rootDir(1), false, task, error -> { });
+        dispatchTaskRef.get().run();
+
+        assertEquals(Arrays.asList("foreground2", "background1", "background0"), startedBatches);
+    }
+
+    @Test(timeout = 30000)
+    public void testUnknownRootIsLoadedSeparately() throws InterruptedException {
+        SyntheticWorkspace workspace = new SyntheticWorkspace(1, 2, 2);
+        ProjectLoadCoordinator coordinator = createCoordinator(2);
+
+        CountDownLatch doneSignal = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            coordinator.submit("unknown" + i, () -> {
+                throw new IllegalStateException("Unknown root");
+            }, (cancelToken, progress) -> workspace.simulateLoad(null), error -> doneSignal.countDown());
+        }
+
+        doneSignal.await();
+        workspace.verifyConcurrentLoadsReached();
+        assertEquals(2, workspace.maxConcurrentBuildLoads.get());
+    }
+
+    private static void waitForCount(LatencyHistogram histogram, long count) throws InterruptedException {
+        // The measurement is closed after the last listener was notified.
+        while (histogram.getCount() < count) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class SyntheticWorkspace {
+        private final int rootCount;
+        private final int projectsPerRoot;
+        private final Set<Path> loadedBuilds;
+        private final CountDownLatch allLoadedSignal;
+        private final CountDownLatch concurrentLoadsSignal;
+        private final AtomicBoolean concurrentLoadsMissed;
+
+        private final AtomicInteger buildLoadCount;
+        private final AtomicInteger runningBuildLoads;
+        private final AtomicInteger maxConcurrentBuildLoads;
+        private final AtomicInteger failureCount;
+
+        /**
+         * @param expectedConcurrentLoads the number of build loads which must
+         *   be running at the same time before any of them is allowed to complete
+         */
+        public SyntheticWorkspace(int rootCount, int projectsPerRoot, int expectedConcurrentLoads) {
+            this.rootCount = rootCount;
+            this.projectsPerRoot = projectsPerRoot;
+            this.loadedBuilds = ConcurrentHashMap.newKeySet();
+            this.allLoadedSignal = new CountDownLatch(rootCount * projectsPerRoot);
+            this.concurrentLoadsSignal = new CountDownLatch(expectedConcurrentLoads);
+            this.concurrentLoadsMissed = new AtomicBoolean(false);
+
+            this.buildLoadCount = new AtomicInteger(0);
+            this.runningBuildLoads = new AtomicInteger(0);
+            this.maxConcurrentBuildLoads = new AtomicInteger(0);
+            this.failureCount = new AtomicInteger(0);
+        }
+
+        public void openAll(ProjectLoadCoordinator coordinator) {
+            // Opens the projects interleaved, as a restored session would.
+            for (int projectIndex = 0; projectIndex < projectsPerRoot; projectIndex++) {
+                for (int rootIndex = 0; rootIndex < rootCount; rootIndex++) {
+                    Path rootDir = rootDir(rootIndex);
+                    coordinator.submit(
+                            "project" + projectIndex + " of " + rootDir,
+                            () -> rootDir,
+                            (cancelToken, progress) -> simulateLoad(rootDir),
+                            error -> {
+                                if (error != null) {
+                                    failureCount.incrementAndGet();
+                                }
+                                allLoadedSignal.countDown();
+                            });
+                }
+            }
+        }
+
+        public void simulateLoad(Path rootDir) {
+            // Models of an already loaded build are found in the cache.
+            if (rootDir != null && loadedBuilds.contains(rootDir)) {
+                return;
+            }
+
+            int running = runningBuildLoads.incrementAndGet();
+            maxConcurrentBuildLoads.accumulateAndGet(running, Math::max);
+            try {
+                concurrentLoadsSignal.countDown();
+                if (!concurrentLoadsSignal.await(TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                    concurrentLoadsMissed.set(true);
+                }
+                Thread.sleep(BUILD_LOAD_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
+            } finally {
+                runningBuildLoads.decrementAndGet();
+            }
+
+            if (rootDir != null) {
+                buildLoadCount.incrementAndGet();
+                loadedBuilds.add(rootDir);
+            }
+        }
+
+        public void awaitAllLoaded() throws InterruptedException {
+            allLoadedSignal.await();
+        }
+
+        public void verifyConcurrentLoadsReached() {
+            assertEquals("Concurrent build loads", 0, concurrentLoadsSignal.getCount());
+            assertFalse("Concurrent build loads", concurrentLoadsMissed.get());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.jtrim2.executor.SyncTaskExecutor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.project.script.DefaultScriptFileProvider;
+import org.netbeans.gradle.project.script.ScriptFileProvider;
+import org.netbeans.gradle.project.util.FileSystemWatcher;
+
+import static org.junit.Assert.*;
+
+public class SettingsGradleCacheTest {
+    private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(5);
+
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private CountingScriptFileProvider scriptProvider;
+    private SettingsGradleCache cache;
+
+    @Before
+    public void setUp() {
+        scriptProvider = new CountingScriptFileProvider(new DefaultScriptFileProvider());
+        FileSystemWatcher watcher = new FileSystemWatcher(FileSystems.getDefault(), SyncTaskExecutor.getSimpleExecutor());
+        cache = new SettingsGradleCache(watcher, scriptProvider);
+    }
+
+    private Path newDir(String... names) throws IOException {
+        Path result = tmpFolder.getRoot().toPath();
+        for (String name: names) {
+            result = result.resolve(name);
+        }
+        return Files.createDirectories(result);
+    }
+
+    private void waitForResult(Path expected, Path projectDir) throws InterruptedException {
+        long startTime = System.nanoTime();
+        while (true) {
+            Path result = cache.findSettingsGradle(projectDir);
+            if (expected == null ? result == null : expected.equals(result)) {
+                return;
+            }
+
+            if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) > TIMEOUT_MS) {
+                assertEquals(expected, result);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void testSubprojectsShareOneWalk() throws IOException {
+        Path rootDir = newDir("root");
+        Path settingsGradle = Files.createFile(rootDir.resolve("settings.gradle"));
+
+        Path subproject1 = newDir("root", "sub1");
+        Path subproject2 = newDir("root", "sub2");
+        Path subproject3 = newDir("root", "sub2", "sub3");
+
+        assertEquals(settingsGradle, cache.findSettingsGradle(subproject1));
+        assertEquals(2, scriptProvider.getFindCount());
+
+        assertEquals(settingsGradle, cache.findSettingsGradle(subproject2));
+        assertEquals(settingsGradle, cache.findSettingsGradle(subproject3));
+        assertEquals(settingsGradle, cache.findSettingsGradle(rootDir));
+        assertEquals(settingsGradle, cache.findSettingsGradle(subproject1));
+
+        // Only the directories not seen before are checked.
+        assertEquals(4, scriptProvider.getFindCount());
+    }
+
+    @Test
+    public void testKotlinSettings() throws IOException {
+        Path rootDir = newDir("root");
+        Path settingsGradle = Files.createFile(rootDir.resolve("settings.gradle.kts"));
+        Path subproject = newDir("root", "sub");
+
+        assertEquals(settingsGradle, cache.findSettingsGradle(subproject));
+    }
+
+    @Test
+    public void testCreatedSettingsIsFound() throws Exception {
+        Path rootDir = newDir("root");
+        Path rootSettingsGradle = Files.createFile(rootDir.resolve("settings.gradle"));
+        Path subproject = newDir("root", "sub");
+        Path nestedProject = newDir("root", "sub", "nested");
+
+        assertEquals(rootSettingsGradle, cache.findSettingsGradle(nestedProject));
+
+        Path subSettingsGradle = Files.createFile(subproject.resolve("settings.gradle"));
+        waitForResult(subSettingsGradle, nestedProject);
+        waitForResult(subSettingsGradle, subproject);
+        assertEquals(rootSettingsGradle, cache.findSettingsGradle(rootDir));
+    }
+
+    @Test
+    public void testDeletedSettingsIsForgotten() throws Exception {
+        Path rootDir = newDir("root");
+        Path rootSettingsGradle = Files.createFile(rootDir.resolve("settings.gradle"));
+        Path subproject = newDir("root", "sub");
+        Path subSettingsGradle = Files.createFile(subproject.resolve("settings.gradle"));
+
+        assertEquals(subSettingsGradle, cache.findSettingsGradle(subproject));
+
+        Files.delete(subSettingsGradle);
+        waitForResult(rootSettingsGradle, subproject);
+    }
+
+    @Test
+    public void testOtherChangesKeepTheCache() throws Exception {
+        Path rootDir = newDir("root");
+        Path settingsGradle = Files.createFile(rootDir.resolve("settings.gradle"));
+        Path subproject = newDir("root", "sub");
+
+        assertEquals(settingsGradle, cache.findSettingsGradle(subproject));
+        int findCount = scriptProvider.getFindCount();
+
+        Files.createFile(subproject.resolve("build.gradle"));
+        Files.createFile(rootDir.resolve("gradle.properties"));
+        Thread.sleep(200);
+
+        assertEquals(settingsGradle, cache.findSettingsGradle(subproject));
+        assertEquals(findCount, scriptProvider.getFindCount());
+    }
+
+    private static final class CountingScriptFileProvider implements ScriptFileProvider {
+        private final ScriptFileProvider wrapped;
+        private final AtomicInteger findCount;
+
+        public CountingScriptFileProvider(ScriptFileProvider wrapped) {
+            this.wrapped = wrapped;
+            this.findCount = new AtomicInteger(0);
+        }
+
+        public int getFindCount() {
+            return findCount.get();
+        }
+
+        @Override
+        public boolean isScriptFileName(String fileName) {
+            return wrapped.isScriptFileName(fileName);
+        }
+
+        @Override
+        public Path findScriptFile(Path baseDir, String baseName) {
+            findCount.incrementAndGet();
+            return wrapped.findScriptFile(baseDir, baseName);
+        }
+
+        @Override
+        public Iterable<Path> findScriptFiles(Path baseDir, String baseName) {
+            return wrapped.findScriptFiles(baseDir, baseName);
+        }
+
+        @Override
+        public Collection<Path> getScriptFileCandidates(Path baseDir, String baseName) {
+            return wrapped.getScriptFileCandidates(baseDir, baseName);
+        }
+
+        @Override
+        public Collection<Path> findScriptFiles(
+                Path baseDir,
+                Predicate<? super String> baseNameFilter) throws IOException {
+            return wrapped.findScriptFiles(baseDir, baseNameFilter);
+        }
+
+        @Override
+        public void findScriptFiles(
+                Path baseDir,
+                Predicate<? super String> baseNameFilter,
+                Consumer<Path> fileProcessor) throws IOException {
+            wrapped.findScriptFiles(baseDir, baseNameFilter, fileProcessor);
+        }
+    }
+}
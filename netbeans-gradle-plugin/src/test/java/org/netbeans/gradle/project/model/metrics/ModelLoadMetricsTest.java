@@ -0,0 +1,106 @@
+package org.netbeans.gradle.project.model.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ModelLoadMetricsTest {
+    @Test
+    public void testHistogramBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(7));
+        histogram.record(TimeUnit.MINUTES.toNanos(5));
+
+        long[] bucketCounts = histogram.getBucketCounts();
+        long[] upperBounds = LatencyHistogram.getBucketUpperBoundsMillis();
+        assertEquals(upperBounds.length + 1, bucketCounts.length);
+
+        assertEquals(1, bucketCounts[0]);
+        assertEquals("5 < 7 <= 10", 1, bucketCounts[3]);
+        assertEquals(1, bucketCounts[bucketCounts.length - 1]);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(TimeUnit.MINUTES.toMillis(5), histogram.getMaxMillis());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMillis());
+    }
+
+    @Test
+    public void testPhaseIsRecordedOnce() {
+        ModelLoadMetrics metrics = new ModelLoadMetrics();
+
+        PhaseMeasurement measurement = metrics.startPhase(ModelLoadPhase.BUILD_ACTION, "test");
+        measurement.close();
+        measurement.close();
+
+        assertEquals(1, metrics.getPhaseLatency(ModelLoadPhase.BUILD_ACTION).getCount());
+        assertEquals(0, metrics.getPhaseLatency(ModelLoadPhase.NOTIFICATION).getCount());
+
+        Map<String, Long> phaseCounts = metrics.getPhaseCounts();
+        assertEquals(Long.valueOf(1), phaseCounts.get(ModelLoadPhase.BUILD_ACTION.name()));
+        assertEquals(ModelLoadPhase.values().length, phaseCounts.size());
+    }
+
+    @Test
+    public void testDiscardedPhaseIsNotRecorded() {
+        ModelLoadMetrics metrics = new ModelLoadMetrics();
+
+        PhaseMeasurement measurement = metrics.startPhase(ModelLoadPhase.DAEMON_QUEUE_WAIT, "test");
+        measurement.discard();
+        measurement.close();
+
+        assertEquals(0, metrics.getPhaseLatency(ModelLoadPhase.DAEMON_QUEUE_WAIT).getCount());
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws ReflectiveOperationException {
+        try {
+            Class.forName("jdk.jfr.EventFactory");
+        } catch (ClassNotFoundException ex) {
+            Assume.assumeNoException("Flight Recorder is not available.", ex);
+        }
+
+        PhaseEventFactory eventFactory = JfrPhaseEventFactory.create();
+
+        // The jdk.jfr API is not referenced directly, so that the tests
+        // compile without Flight Recorder as well.
+        Class<?> recordingType = Class.forName("jdk.jfr.Recording");
+        Object recording = recordingType.newInstance();
+        recordingType.getMethod("enable", String.class).invoke(recording, "org.netbeans.gradle.ModelLoadPhase");
+        recordingType.getMethod("start").invoke(recording);
+        try {
+            eventFactory.begin(ModelLoadPhase.BUILD_ACTION).end("test");
+        } finally {
+            recordingType.getMethod("stop").invoke(recording);
+            recordingType.getMethod("close").invoke(recording);
+        }
+    }
+
+    @Test
+    public void testCounters() {
+        ModelLoadMetrics metrics = new ModelLoadMetrics();
+
+        metrics.recordCacheLookup(true);
+        metrics.recordCacheLookup(false);
+        metrics.recordCacheLookup(false);
+        metrics.recordPersistentCacheLookup(true);
+        metrics.recordSerializedBytes(100);
+        metrics.recordSerializedBytes(20);
+
+        assertEquals(1, metrics.getCacheHitCount());
+        assertEquals(2, metrics.getCacheMissCount());
+        assertEquals(1, metrics.getPersistentCacheHitCount());
+        assertEquals(0, metrics.getPersistentCacheMissCount());
+        assertEquals(120, metrics.getSerializedByteCount());
+
+        metrics.resetStatistics();
+        assertEquals(0, metrics.getCacheMissCount());
+        assertEquals(0, metrics.getSerializedByteCount());
+    }
+}
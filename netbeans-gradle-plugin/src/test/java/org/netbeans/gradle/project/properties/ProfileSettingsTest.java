@@ -187,6 +187,29 @@ public class ProfileSettingsTest {
         testSetValueOfTextProperty("Value0", "Value1", false, "custom-group", "custom-node");
     }
 
+    @Test
+    public void testContentSnapshotIsNotAffectedByLaterChanges() throws IOException {
+        ProfileSettings settings = new ProfileSettings();
+        readFromSettings1(settings);
+
+        ConfigTree snapshot1 = settings.getContentSnapshot();
+        assertSame(snapshot1, settings.getContentSnapshot());
+
+        MutableProperty<String> property = getTextProperty(settings, "source-encoding");
+        property.setValue("ISO-8859-1");
+
+        ConfigTree snapshot2 = settings.getContentSnapshot();
+
+        assertEquals("UTF-8", snapshot1.getChildTree("source-encoding").getValue(null));
+        assertEquals("ISO-8859-1", snapshot2.getChildTree("source-encoding").getValue(null));
+
+        // Unchanged subtrees are shared between snapshots.
+        assertSame(snapshot1.getChildTree("common-tasks"), snapshot2.getChildTree("common-tasks"));
+
+        ConfigTree auxTree = snapshot2.getChildTree(ConfigXmlUtils.AUXILIARY_NODE_NAME);
+        assertEquals("LF", auxTree.getChildTree("com-junichi11-netbeans-changelf.lf-kind").getValue(null));
+    }
+
     private void testLoadFromFileLater(String expectedValue, String... propertyPath) throws IOException {
         ProfileSettings settings = new ProfileSettings();
 
@@ -0,0 +1,75 @@
+package org.netbeans.gradle.project.tasks.vars;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskVariable;
+import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.util.NbCollectionsEx;
+
+import static org.junit.Assert.*;
+
+public final class CompiledTemplateTest {
+    private static DisplayedTaskVariable createVar(String name) {
+        return new DisplayedTaskVariable(new TaskVariable(name), name, VariableTypeDescription.DEFAULT_TYPE);
+    }
+
+    private static TaskVariableMap variableMap(Map<String, String> values) {
+        return variable -> values.get(variable.getVariableName());
+    }
+
+    private static String replaceVars(String template, Map<String, String> values) {
+        return CompiledTemplate.compile(template).replaceVars(
+                variableMap(values),
+                NbCollectionsEx.getDevNullCollection());
+    }
+
+    @Test
+    public void testNoVariables() {
+        String template = "--tests MyClass $var ${} ${invalid*}";
+        assertSame(template, CompiledTemplate.compile(template).replaceVars(
+                variableMap(Collections.singletonMap("var", "value")),
+                NbCollectionsEx.getDevNullCollection()));
+    }
+
+    @Test
+    public void testReplaceVars() {
+        Map<String, String> values = new HashMap<>();
+        values.put("var1", "VALUE1");
+        values.put("var2", "VALUE2");
+
+        assertEquals("VALUE1", replaceVars("${var1}", values));
+        assertEquals("--tests VALUE1.VALUE2*", replaceVars("--tests ${var1}.${var2: Display Name}*", values));
+        assertEquals("VALUE1${unknown-var}${illegal-chars*-=\\}}VALUE2",
+                replaceVars("${var1}${unknown-var}${illegal-chars*-=\\}}${var2[type: arg]}", values));
+    }
+
+    @Test
+    public void testCollectedVariables() {
+        CompiledTemplate template = CompiledTemplate.compile("${var1}-${var2}-${var1}");
+
+        List<DisplayedTaskVariable> collected = new ArrayList<>();
+        String result = template.replaceVars(variableMap(Collections.singletonMap("var2", "VALUE2")), collected);
+
+        assertEquals("${var1}-VALUE2-${var1}", result);
+        assertEquals(Arrays.asList(createVar("var1"), createVar("var2"), createVar("var1")), collected);
+    }
+
+    @Test
+    public void testCompiledOnceIsReusable() {
+        CompiledTemplate template = CompiledTemplate.compile("${var1} ${var2}");
+
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            values.put("var1", "a" + i);
+            values.put("var2", "b" + i);
+            assertEquals("a" + i + " b" + i, template.replaceVars(
+                    variableMap(values),
+                    NbCollectionsEx.getDevNullCollection()));
+        }
+    }
+}
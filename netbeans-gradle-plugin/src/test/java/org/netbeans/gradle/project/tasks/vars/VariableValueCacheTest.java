@@ -0,0 +1,147 @@
+package org.netbeans.gradle.project.tasks.vars;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskVariable;
+import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.java.test.SpecificTestClass;
+import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableDef;
+import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableDefMap;
+import org.netbeans.gradle.project.tasks.vars.CachingVariableMap.VariableValue;
+import org.netbeans.spi.project.SingleMethod;
+import org.openide.filesystems.FileLock;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+import org.openide.util.lookup.ProxyLookup;
+
+import static org.junit.Assert.*;
+
+public final class VariableValueCacheTest {
+    private static final TaskVariable REUSABLE_VAR = new TaskVariable("reusable-var");
+    private static final TaskVariable OTHER_VAR = new TaskVariable("other-var");
+    private static final String PROJECT = "test-project";
+
+    private AtomicInteger reusableGetCount;
+    private AtomicInteger otherGetCount;
+    private VariableDefMap<String> varDefs;
+    private VariableValueCache valueCache;
+    private FileObject root;
+
+    @Before
+    public void setUp() throws IOException {
+        reusableGetCount = new AtomicInteger(0);
+        otherGetCount = new AtomicInteger(0);
+
+        Map<TaskVariable, VariableDef<String>> defs = new HashMap<>();
+        defs.put(REUSABLE_VAR, new VariableDef<>(REUSABLE_VAR, (variables, project, actionContext) -> {
+            reusableGetCount.incrementAndGet();
+            SingleMethod method = actionContext.lookup(SingleMethod.class);
+            return new VariableValue(method != null ? method.getFile().getName() : null);
+        }, true));
+        defs.put(OTHER_VAR, new VariableDef<>(OTHER_VAR, (variables, project, actionContext) -> {
+            otherGetCount.incrementAndGet();
+            return new VariableValue("other");
+        }));
+        varDefs = defs::get;
+
+        valueCache = new VariableValueCache();
+        root = FileUtil.createMemoryFileSystem().getRoot();
+    }
+
+    private Lookup testSingleContext(String className) throws IOException {
+        FileObject file = root.getFileObject(className, "java");
+        if (file == null) {
+            file = root.createData(className, "java");
+        }
+        return Lookups.fixed(new SingleMethod(file, "testMethod"));
+    }
+
+    private TaskVariableMap variableMap(Object modelVersion, Lookup actionContext) {
+        return new CachingVariableMap<>(varDefs, PROJECT, actionContext, valueCache, modelVersion);
+    }
+
+    @Test
+    public void testRepeatedTestSingle() throws IOException {
+        Object model = new Object();
+
+        int invocationCount = 100;
+        for (int i = 0; i < invocationCount; i++) {
+            TaskVariableMap varMap = variableMap(model, testSingleContext("MyTest"));
+            assertEquals("MyTest", varMap.tryGetValueForVariable(REUSABLE_VAR));
+            assertEquals("MyTest", varMap.tryGetValueForVariable(REUSABLE_VAR));
+            assertEquals("other", varMap.tryGetValueForVariable(OTHER_VAR));
+        }
+
+        assertEquals(1, reusableGetCount.get());
+        assertEquals(invocationCount, otherGetCount.get());
+    }
+
+    @Test
+    public void testDifferentFiles() throws IOException {
+        Object model = new Object();
+
+        assertEquals("MyTest1", variableMap(model, testSingleContext("MyTest1")).tryGetValueForVariable(REUSABLE_VAR));
+        assertEquals("MyTest2", variableMap(model, testSingleContext("MyTest2")).tryGetValueForVariable(REUSABLE_VAR));
+        assertEquals("MyTest1", variableMap(model, testSingleContext("MyTest1")).tryGetValueForVariable(REUSABLE_VAR));
+
+        assertEquals(2, reusableGetCount.get());
+    }
+
+    @Test
+    public void testModelChange() throws IOException {
+        assertEquals("MyTest", variableMap(new Object(), testSingleContext("MyTest")).tryGetValueForVariable(REUSABLE_VAR));
+        assertEquals("MyTest", variableMap(new Object(), testSingleContext("MyTest")).tryGetValueForVariable(REUSABLE_VAR));
+
+        assertEquals(2, reusableGetCount.get());
+    }
+
+    @Test
+    public void testRenamedFile() throws IOException {
+        Object model = new Object();
+
+        Lookup context = testSingleContext("MyTest");
+        assertEquals("MyTest", variableMap(model, context).tryGetValueForVariable(REUSABLE_VAR));
+
+        FileObject file = context.lookup(SingleMethod.class).getFile();
+        FileLock lock = file.lock();
+        try {
+            file.rename(lock, "MyRenamedTest", "java");
+        } finally {
+            lock.releaseLock();
+        }
+
+        assertEquals("MyRenamedTest", variableMap(model, context).tryGetValueForVariable(REUSABLE_VAR));
+        assertEquals(2, reusableGetCount.get());
+    }
+
+    @Test
+    public void testSpecificTestClassIsNotReused() throws IOException {
+        Object model = new Object();
+
+        for (int i = 0; i < 2; i++) {
+            Lookup context = new ProxyLookup(
+                    testSingleContext("MyTest"),
+                    Lookups.fixed(new SpecificTestClass("MyOtherTest")));
+            assertEquals("MyTest", variableMap(model, context).tryGetValueForVariable(REUSABLE_VAR));
+        }
+
+        assertEquals(2, reusableGetCount.get());
+    }
+
+    @Test
+    public void testWithoutCache() throws IOException {
+        Lookup context = testSingleContext("MyTest");
+        for (int i = 0; i < 2; i++) {
+            TaskVariableMap varMap = new CachingVariableMap<>(varDefs, PROJECT, context);
+            assertEquals("MyTest", varMap.tryGetValueForVariable(REUSABLE_VAR));
+        }
+
+        assertEquals(2, reusableGetCount.get());
+    }
+}
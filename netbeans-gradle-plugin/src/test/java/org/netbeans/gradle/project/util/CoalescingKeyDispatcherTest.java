@@ -0,0 +1,106 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.concurrent.WaitableSignal;
+import org.jtrim2.executor.MonitorableTaskExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CoalescingKeyDispatcherTest {
+    private static final long TIMEOUT_SEC = 5;
+
+    private MonitorableTaskExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = NbTaskExecutors.newStoppableExecutor("CoalescingKeyDispatcherTest", 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+        executor.tryAwaitTermination(Cancellation.UNCANCELABLE_TOKEN, TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testBurstIsDispatchedOnce() throws InterruptedException {
+        List<Set<String>> dispatched = new ArrayList<>();
+        WaitableSignal dispatchedSignal = new WaitableSignal();
+
+        CoalescingKeyDispatcher<String> dispatcher = new CoalescingKeyDispatcher<>(executor, () -> 200, keys -> {
+            synchronized (dispatched) {
+                dispatched.add(new HashSet<>(keys));
+            }
+            dispatchedSignal.signal();
+        });
+
+        dispatcher.reportKey("a");
+        dispatcher.reportKey("b");
+        dispatcher.reportKey("a");
+        dispatcher.reportKey("c");
+
+        assertTrue(dispatchedSignal.tryWaitSignal(Cancellation.UNCANCELABLE_TOKEN, TIMEOUT_SEC, TimeUnit.SECONDS));
+        // Give a chance for an erroneous second dispatch.
+        Thread.sleep(300);
+
+        synchronized (dispatched) {
+            assertEquals(1, dispatched.size());
+            assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), dispatched.get(0));
+        }
+    }
+
+    @Test
+    public void testQuietPeriodDoesNotBlockTheExecutor() {
+        WaitableSignal dispatchedSignal = new WaitableSignal();
+        CoalescingKeyDispatcher<String> dispatcher = new CoalescingKeyDispatcher<>(executor, () -> 2000, keys -> {
+            dispatchedSignal.signal();
+        });
+
+        dispatcher.reportKey("a");
+
+        WaitableSignal otherTaskSignal = new WaitableSignal();
+        executor.execute(otherTaskSignal::signal);
+        assertTrue(otherTaskSignal.tryWaitSignal(Cancellation.UNCANCELABLE_TOKEN, 1, TimeUnit.SECONDS));
+        assertFalse(dispatchedSignal.isSignaled());
+
+        assertTrue(dispatchedSignal.tryWaitSignal(Cancellation.UNCANCELABLE_TOKEN, TIMEOUT_SEC, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testKeysAfterDispatchAreNotLost() {
+        List<Set<String>> dispatched = new ArrayList<>();
+        WaitableSignal firstSignal = new WaitableSignal();
+        WaitableSignal secondSignal = new WaitableSignal();
+
+        CoalescingKeyDispatcher<String> dispatcher = new CoalescingKeyDispatcher<>(executor, () -> 10, keys -> {
+            int count;
+            synchronized (dispatched) {
+                dispatched.add(new HashSet<>(keys));
+                count = dispatched.size();
+            }
+            (count == 1 ? firstSignal : secondSignal).signal();
+        });
+
+        dispatcher.reportKey("a");
+        assertTrue(firstSignal.tryWaitSignal(Cancellation.UNCANCELABLE_TOKEN, TIMEOUT_SEC, TimeUnit.SECONDS));
+
+        dispatcher.reportKey("b");
+        assertTrue(secondSignal.tryWaitSignal(Cancellation.UNCANCELABLE_TOKEN, TIMEOUT_SEC, TimeUnit.SECONDS));
+
+        synchronized (dispatched) {
+            assertEquals(Arrays.asList(
+                    new HashSet<>(Arrays.asList("a")),
+                    new HashSet<>(Arrays.asList("b"))),
+                    dispatched);
+        }
+    }
+}
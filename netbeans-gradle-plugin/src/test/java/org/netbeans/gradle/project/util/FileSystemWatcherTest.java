@@ -6,6 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.concurrent.Tasks;
 import org.jtrim2.concurrent.WaitableSignal;
 import org.jtrim2.event.ListenerRef;
 import org.jtrim2.executor.SyncTaskExecutor;
@@ -14,6 +15,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import static org.junit.Assert.*;
+
 public class FileSystemWatcherTest {
     private static final long TIMEOUT_SEC = 5;
 
@@ -27,14 +30,27 @@ public class FileSystemWatcherTest {
         watcher = new FileSystemWatcher(FileSystems.getDefault(), SyncTaskExecutor.getSimpleExecutor());
     }
 
+    private void usePolling() {
+        watcher = new FileSystemWatcher(FileSystems.getDefault(), SyncTaskExecutor.getSimpleExecutor(), true, 50);
+    }
+
     private void testModifications(WatchSetup setup, Modification... modifications) throws IOException {
+        testModifications(false, setup, modifications);
+    }
+
+    private void testModifications(
+            boolean watchContent,
+            WatchSetup setup,
+            Modification... modifications) throws IOException {
         Path root = tmpFolder.newFolder("root").toPath();
 
         TestListener listener = new TestListener();
 
         Path watchedDir = setup.setupWatch(root);
 
-        ListenerRef listenerRef = watcher.watchPath(watchedDir, listener);
+        ListenerRef listenerRef = watchContent
+                ? watcher.watchPathContent(watchedDir, listener)
+                : watcher.watchPath(watchedDir, listener);
         try {
             for (Modification modification: modifications) {
                 listener.reset();
@@ -89,6 +105,165 @@ public class FileSystemWatcherTest {
         }, Files::delete);
     }
 
+    @Test
+    public void testModifyContent() throws IOException {
+        testModifications(true, (Path root) -> {
+            Path watchedFile = root.resolve("build.gradle");
+            Files.write(watchedFile, "a".getBytes("UTF-8"));
+            return watchedFile;
+        }, file -> Files.write(file, "b".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void testCreateAndModifyContent() throws IOException {
+        testModifications(
+                true,
+                root -> root.resolve("build.gradle"),
+                file -> Files.write(file, "a".getBytes("UTF-8")),
+                file -> Files.write(file, "b".getBytes("UTF-8")),
+                Files::delete);
+    }
+
+    @Test
+    public void testPollingMultiActionLevel1() throws IOException {
+        usePolling();
+        testMultiActionLevel1();
+    }
+
+    @Test
+    public void testPollingCreateLevel2() throws IOException {
+        usePolling();
+        testCreateLevel2();
+    }
+
+    @Test
+    public void testPollingDeleteLevel2() throws IOException {
+        usePolling();
+        testDeleteLevel2();
+    }
+
+    @Test
+    public void testPollingModifyContent() throws IOException {
+        usePolling();
+        testModifications(true, (Path root) -> {
+            Path watchedFile = root.resolve("build.gradle");
+            Files.write(watchedFile, "a".getBytes("UTF-8"));
+            return watchedFile;
+        }, file -> Files.write(file, "bb".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void testSiblingsShareDirectoryWatch() throws IOException {
+        Path root = tmpFolder.newFolder("root").toPath();
+
+        TestListener listener = new TestListener();
+        ListenerRef ref1 = watcher.watchPath(root.resolve("a"), listener);
+        ListenerRef ref2 = watcher.watchPath(root.resolve("b"), listener);
+        ListenerRef ref3 = watcher.watchPathContent(root.resolve("c"), Tasks.noOpTask());
+        try {
+            assertEquals("watchedPathCount", 3, watcher.getWatchedPathCount());
+            assertEquals("watchedDirectoryCount", 1, watcher.getWatchedDirectoryCount());
+            assertEquals("polledPathCount", 0, watcher.getPolledPathCount());
+
+            Files.createDirectory(root.resolve("b"));
+            listener.assertCalled();
+            assertTrue("maxEventLag", watcher.getMaxEventLag(TimeUnit.NANOSECONDS) > 0);
+        } finally {
+            ref1.unregister();
+            ref2.unregister();
+            ref3.unregister();
+        }
+
+        assertEquals("watchedPathCount", 0, watcher.getWatchedPathCount());
+        assertEquals("watchedDirectoryCount", 0, watcher.getWatchedDirectoryCount());
+
+        watcher.waitFor(TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testModificationsAreOnlyWatchedForContent() throws IOException {
+        Path root = tmpFolder.newFolder("root").toPath();
+
+        ListenerRef ref1 = watcher.watchPath(root.resolve("a"), Tasks.noOpTask());
+        try {
+            assertEquals("contentWatchedDirectoryCount", 0, watcher.getContentWatchedDirectoryCount());
+
+            ListenerRef ref2 = watcher.watchPathContent(root.resolve("b"), Tasks.noOpTask());
+            assertEquals("watchedDirectoryCount", 1, watcher.getWatchedDirectoryCount());
+            assertEquals("contentWatchedDirectoryCount", 1, watcher.getContentWatchedDirectoryCount());
+
+            ref2.unregister();
+            assertEquals("watchedDirectoryCount", 1, watcher.getWatchedDirectoryCount());
+            assertEquals("contentWatchedDirectoryCount", 0, watcher.getContentWatchedDirectoryCount());
+        } finally {
+            ref1.unregister();
+        }
+
+        watcher.waitFor(TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testContentWatchOfExistenceWatchedPath() throws IOException {
+        Path root = tmpFolder.newFolder("root").toPath();
+        Path watchedFile = root.resolve("build.gradle");
+        Files.write(watchedFile, "a".getBytes("UTF-8"));
+
+        TestListener listener = new TestListener();
+        ListenerRef ref1 = watcher.watchPath(watchedFile, Tasks.noOpTask());
+        ListenerRef ref2 = watcher.watchPathContent(watchedFile, listener);
+        try {
+            assertEquals("contentWatchedDirectoryCount", 1, watcher.getContentWatchedDirectoryCount());
+
+            Files.write(watchedFile, "b".getBytes("UTF-8"));
+            listener.assertCalled();
+        } finally {
+            ref2.unregister();
+            assertEquals("contentWatchedDirectoryCount", 0, watcher.getContentWatchedDirectoryCount());
+            ref1.unregister();
+        }
+
+        watcher.waitFor(TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    private void waitForPolledPathCount(int expectedCount) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        while (watcher.getPolledPathCount() != expectedCount) {
+            if (System.nanoTime() - startNanos > TimeUnit.SECONDS.toNanos(TIMEOUT_SEC)) {
+                fail("polledPathCount: " + watcher.getPolledPathCount());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testPolledPathsAreWatchedByNewWatchService() throws IOException, InterruptedException {
+        Path root = tmpFolder.newFolder("root").toPath();
+
+        TestListener listener = new TestListener();
+        ListenerRef ref1 = watcher.watchPath(root.resolve("a"), listener);
+        try {
+            watcher.simulateWatchLoopFailure();
+            waitForPolledPathCount(1);
+            assertEquals("watchedDirectoryCount", 0, watcher.getWatchedDirectoryCount());
+
+            ListenerRef ref2 = watcher.watchPath(root.resolve("b"), Tasks.noOpTask());
+            try {
+                assertEquals("polledPathCount", 0, watcher.getPolledPathCount());
+                assertEquals("watchedDirectoryCount", 1, watcher.getWatchedDirectoryCount());
+
+                listener.reset();
+                Files.createDirectory(root.resolve("a"));
+                listener.assertCalled();
+            } finally {
+                ref2.unregister();
+            }
+        } finally {
+            ref1.unregister();
+        }
+
+        watcher.waitFor(TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
     private static final class TestListener implements Runnable {
         private WaitableSignal signal;
 
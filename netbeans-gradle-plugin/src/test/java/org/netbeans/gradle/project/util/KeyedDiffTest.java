@@ -0,0 +1,193 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeyedDiffTest {
+    private static List<TestKey> keys(int count, String contentPrefix) {
+        List<TestKey> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new TestKey("dep-" + i, contentPrefix + i));
+        }
+        return result;
+    }
+
+    @Test
+    public void testNoChanges() {
+        List<TestKey> oldKeys = keys(10, "v");
+        KeyedDiff<TestKey> diff = TestKey.diff(oldKeys, keys(10, "v"));
+
+        assertFalse(diff.hasChanges());
+        assertEquals(oldKeys, diff.getResultKeys());
+        for (int i = 0; i < oldKeys.size(); i++) {
+            assertSame(oldKeys.get(i), diff.getResultKeys().get(i));
+        }
+    }
+
+    @Test
+    public void testInsertRemoveChange() {
+        List<TestKey> oldKeys = Arrays.asList(new TestKey("a", "1"), new TestKey("b", "1"), new TestKey("c", "1"));
+        TestKey newA = new TestKey("a", "1");
+        TestKey newB = new TestKey("b", "2");
+        TestKey newD = new TestKey("d", "1");
+
+        KeyedDiff<TestKey> diff = TestKey.diff(oldKeys, Arrays.asList(newA, newB, newD));
+
+        assertTrue(diff.hasChanges());
+        assertFalse(diff.isOrderChanged());
+        assertEquals(Collections.singletonList(newD), diff.getInserted());
+        assertEquals(Collections.singletonList(oldKeys.get(2)), diff.getRemoved());
+
+        assertEquals(1, diff.getChanged().size());
+        assertSame(oldKeys.get(1), diff.getChanged().get(0).getOldKey());
+        assertSame(newB, diff.getChanged().get(0).getNewKey());
+
+        List<TestKey> result = diff.getResultKeys();
+        assertSame(oldKeys.get(0), result.get(0));
+        assertSame(oldKeys.get(1), result.get(1));
+        assertSame(newD, result.get(2));
+    }
+
+    @Test
+    public void testOrderChange() {
+        List<TestKey> oldKeys = Arrays.asList(new TestKey("a", "1"), new TestKey("b", "1"));
+        KeyedDiff<TestKey> diff = TestKey.diff(oldKeys, Arrays.asList(new TestKey("b", "1"), new TestKey("a", "1")));
+
+        assertTrue(diff.hasChanges());
+        assertTrue(diff.isOrderChanged());
+        assertTrue(diff.getInserted().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getChanged().isEmpty());
+        assertSame(oldKeys.get(1), diff.getResultKeys().get(0));
+        assertSame(oldKeys.get(0), diff.getResultKeys().get(1));
+    }
+
+    @Test
+    public void testNodeChurnOfSmallUpdate() {
+        NodeChurnHarness harness = new NodeChurnHarness(keys(900, "v"));
+        assertEquals(900, harness.getNodeCount());
+
+        List<TestKey> newKeys = keys(900, "v");
+        newKeys.remove(0);
+        newKeys.add(new TestKey("dep-new", "v"));
+        newKeys.set(100, new TestKey(newKeys.get(100).id, "changed"));
+
+        harness.update(newKeys);
+        assertEquals(900, harness.getNodeCount());
+        assertEquals(1, harness.getLastCreatedCount());
+        assertEquals(1, harness.getLastDestroyedCount());
+        assertEquals(1, harness.getLastUpdatedCount());
+
+        harness.update(newKeys);
+        assertEquals(0, harness.getLastCreatedCount());
+        assertEquals(0, harness.getLastDestroyedCount());
+        assertEquals(0, harness.getLastUpdatedCount());
+    }
+
+    @Test
+    public void testNodeChurnOfFullReplacement() {
+        NodeChurnHarness harness = new NodeChurnHarness(keys(100, "v"));
+
+        List<TestKey> newKeys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            newKeys.add(new TestKey("other-" + i, "v"));
+        }
+        harness.update(newKeys);
+
+        assertEquals(100, harness.getNodeCount());
+        assertEquals(100, harness.getLastCreatedCount());
+        assertEquals(100, harness.getLastDestroyedCount());
+        assertEquals(0, harness.getLastUpdatedCount());
+    }
+
+    /**
+     * Mimics how {@code Children.Keys} maintains nodes for keys: nodes of
+     * keys present before and after an update are kept, and the harness counts
+     * the nodes created, destroyed and updated in place for each update.
+     */
+    private static final class NodeChurnHarness {
+        private List<TestKey> currentKeys;
+        private Map<TestKey, Object> nodes;
+
+        private int lastCreatedCount;
+        private int lastDestroyedCount;
+        private int lastUpdatedCount;
+
+        public NodeChurnHarness(List<TestKey> initialKeys) {
+            this.currentKeys = Collections.emptyList();
+            this.nodes = new IdentityHashMap<>();
+            update(initialKeys);
+        }
+
+        public void update(List<TestKey> newKeys) {
+            KeyedDiff<TestKey> diff = TestKey.diff(currentKeys, newKeys);
+            for (KeyedDiff.Change<TestKey> change: diff.getChanged()) {
+                change.getOldKey().content = change.getNewKey().content;
+            }
+
+            Map<TestKey, Object> newNodes = new IdentityHashMap<>();
+            int created = 0;
+            for (TestKey key: diff.getResultKeys()) {
+                Object node = nodes.remove(key);
+                if (node == null) {
+                    node = new Object();
+                    created++;
+                }
+                newNodes.put(key, node);
+            }
+
+            lastCreatedCount = created;
+            lastDestroyedCount = nodes.size();
+            lastUpdatedCount = diff.getChanged().size();
+
+            assertEquals("destroyed", diff.getRemoved().size(), lastDestroyedCount);
+            assertEquals("created", diff.getInserted().size(), lastCreatedCount);
+
+            nodes = newNodes;
+            currentKeys = diff.getResultKeys();
+        }
+
+        public int getNodeCount() {
+            return nodes.size();
+        }
+
+        public int getLastCreatedCount() {
+            return lastCreatedCount;
+        }
+
+        public int getLastDestroyedCount() {
+            return lastDestroyedCount;
+        }
+
+        public int getLastUpdatedCount() {
+            return lastUpdatedCount;
+        }
+    }
+
+    private static final class TestKey {
+        public final String id;
+        public String content;
+
+        public TestKey(String id, String content) {
+            this.id = id;
+            this.content = content;
+        }
+
+        public static KeyedDiff<TestKey> diff(List<TestKey> oldKeys, List<TestKey> newKeys) {
+            return KeyedDiff.compute(oldKeys, newKeys, key -> key.id, (key1, key2) -> Objects.equals(key1.content, key2.content));
+        }
+
+        @Override
+        public String toString() {
+            return id + "=" + content;
+        }
+    }
+}
@@ -2,9 +2,15 @@ package org.netbeans.gradle.project.util;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
 import org.jtrim2.cancel.Cancellation;
+import org.junit.Assume;
 import org.junit.Test;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -41,6 +47,68 @@ public class NbFileUtilsTest {
         }
     }
 
+    @Test
+    public void testWriteBytesAtomically() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-atomic-write-test");
+        try {
+            Path file = tmpDir.resolve("output.xml");
+
+            NbFileUtils.writeBytesAtomically(file, "first".getBytes(StandardCharsets.UTF_8));
+            NbFileUtils.writeBytesAtomically(file, "second".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals("second", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            try (DirectoryStream<Path> content = Files.newDirectoryStream(tmpDir)) {
+                for (Path child: content) {
+                    assertEquals("Temporary files must be removed.", file, child);
+                }
+            }
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    private static Set<PosixFilePermission> tryGetPermissions(Path file) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+        return view != null ? view.readAttributes().permissions() : null;
+    }
+
+    @Test
+    public void testWriteBytesAtomicallyKeepsPermissions() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-atomic-write-test");
+        try {
+            Path file = tmpDir.resolve("run.sh");
+            Files.write(file, "first".getBytes(StandardCharsets.UTF_8));
+            Assume.assumeNotNull(tryGetPermissions(file));
+
+            Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
+            Files.setPosixFilePermissions(file, permissions);
+
+            NbFileUtils.writeBytesAtomically(file, "second".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals("second", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            assertEquals(permissions, tryGetPermissions(file));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testWriteBytesAtomicallyNewFileHasDefaultPermissions() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-atomic-write-test");
+        try {
+            Path referenceFile = Files.createFile(tmpDir.resolve("reference.txt"));
+            Set<PosixFilePermission> defaultPermissions = tryGetPermissions(referenceFile);
+            Assume.assumeNotNull(defaultPermissions);
+
+            Path file = tmpDir.resolve("output.xml");
+            NbFileUtils.writeBytesAtomically(file, "first".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(defaultPermissions, tryGetPermissions(file));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
     @Test
     public void testDeleteDirectoryAsPath() throws IOException {
         Path dummyDir = createDummyDirectory();
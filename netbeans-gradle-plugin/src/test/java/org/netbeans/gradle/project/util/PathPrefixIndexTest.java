@@ -0,0 +1,84 @@
+package org.netbeans.gradle.project.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PathPrefixIndexTest {
+    private static Path path(String first, String... more) {
+        return Paths.get(first, more).toAbsolutePath();
+    }
+
+    private static Map.Entry<Path, String> root(String value, String first, String... more) {
+        return new AbstractMap.SimpleImmutableEntry<>(path(first, more), value);
+    }
+
+    @Test
+    public void testEmpty() {
+        PathPrefixIndex<String> index = PathPrefixIndex.create(Collections.<Map.Entry<Path, String>>emptyList());
+        assertEquals(0, index.size());
+        assertNull(index.tryGetValueOf(path("a", "b")));
+    }
+
+    @Test
+    public void testNestedRoots() {
+        List<Map.Entry<Path, String>> roots = new ArrayList<>();
+        roots.add(root("inner", "a", "b", "c"));
+        roots.add(root("outer", "a", "b"));
+        PathPrefixIndex<String> index = PathPrefixIndex.create(roots);
+
+        assertEquals("outer", index.tryGetValueOf(path("a", "b")));
+        assertEquals("outer", index.tryGetValueOf(path("a", "b", "x.txt")));
+        assertEquals("outer", index.tryGetValueOf(path("a", "b", "d", "x.txt")));
+        assertEquals("inner", index.tryGetValueOf(path("a", "b", "c")));
+        assertEquals("inner", index.tryGetValueOf(path("a", "b", "c", "d", "x.txt")));
+        assertEquals("outer", index.tryGetValueOf(path("a", "b", "cc", "x.txt")));
+        assertNull(index.tryGetValueOf(path("a")));
+    }
+
+    @Test
+    public void testSiblingsWithCommonPrefix() {
+        List<Map.Entry<Path, String>> roots = new ArrayList<>();
+        roots.add(root("b", "a", "b"));
+        roots.add(root("b2", "a", "b2"));
+        roots.add(root("b-c", "a", "b-c"));
+        PathPrefixIndex<String> index = PathPrefixIndex.create(roots);
+
+        assertEquals("b", index.tryGetValueOf(path("a", "b", "x")));
+        assertEquals("b2", index.tryGetValueOf(path("a", "b2", "x")));
+        assertEquals("b-c", index.tryGetValueOf(path("a", "b-c", "x")));
+        assertNull(index.tryGetValueOf(path("a", "b3", "x")));
+        assertNull(index.tryGetValueOf(path("a", "x")));
+    }
+
+    @Test
+    public void testSkipsUnrelatedRootsBetweenParentAndPath() {
+        List<Map.Entry<Path, String>> roots = new ArrayList<>();
+        roots.add(root("parent", "a"));
+        roots.add(root("child1", "a", "b"));
+        roots.add(root("child2", "a", "c", "d"));
+        PathPrefixIndex<String> index = PathPrefixIndex.create(roots);
+
+        assertEquals("parent", index.tryGetValueOf(path("a", "c", "x")));
+        assertEquals("parent", index.tryGetValueOf(path("a", "e")));
+        assertEquals("child2", index.tryGetValueOf(path("a", "c", "d", "x")));
+    }
+
+    @Test
+    public void testDuplicateRootKeepsFirst() {
+        List<Map.Entry<Path, String>> roots = new ArrayList<>();
+        roots.add(root("first", "a", "b"));
+        roots.add(root("second", "a", "b"));
+        PathPrefixIndex<String> index = PathPrefixIndex.create(roots);
+
+        assertEquals(1, index.size());
+        assertEquals("first", index.tryGetValueOf(path("a", "b", "x")));
+    }
+}